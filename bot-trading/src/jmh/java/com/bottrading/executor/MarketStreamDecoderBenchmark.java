@@ -0,0 +1,103 @@
+package com.bottrading.executor;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Combined-stream kline frames through the previous tree path (StringBuilder, readTree, path
+ * lookups) and through {@link MarketStreamDecoder}. Run with the GC profiler for bytes per frame.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MarketStreamDecoderBenchmark {
+
+  private static final String FRAME =
+      "{\"stream\":\"btcusdt@kline_1m\",\"data\":{\"e\":\"kline\",\"E\":1700000001000,"
+          + "\"s\":\"BTCUSDT\",\"k\":{\"t\":1700000000000,\"T\":1700000059999,\"s\":\"BTCUSDT\","
+          + "\"i\":\"1m\",\"f\":100,\"L\":200,\"o\":\"36512.01000000\",\"c\":\"36530.55000000\","
+          + "\"h\":\"36540.00000000\",\"l\":\"36500.12000000\",\"v\":\"12.34567000\",\"n\":101,"
+          + "\"x\":%s,\"q\":\"450912.33215000\",\"V\":\"6.10000000\",\"Q\":\"222800.10000000\","
+          + "\"B\":\"0\"}}}";
+
+  @Param({"true", "false"})
+  public boolean closed;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final MarketStreamDecoder decoder = new MarketStreamDecoder();
+  private final StringBuilder builder = new StringBuilder();
+  private String frame;
+  private char[] chars;
+
+  @Setup
+  public void setup() {
+    frame = String.format(FRAME, closed);
+    chars = new char[4096];
+  }
+
+  @Benchmark
+  public void tree(Blackhole blackhole) throws Exception {
+    builder.append(frame);
+    String message = builder.toString();
+    builder.setLength(0);
+    JsonNode node = objectMapper.readTree(message);
+    JsonNode payload = node.has("data") ? node.path("data") : node;
+    JsonNode kline = payload.path("k");
+    blackhole.consume(kline.path("s").asText(payload.path("s").asText()));
+    blackhole.consume(kline.path("i").asText());
+    blackhole.consume(kline.path("x").asBoolean(false));
+    blackhole.consume(kline.path("t").asLong());
+    blackhole.consume(kline.path("T").asLong());
+    blackhole.consume(kline.path("o").asDouble());
+    blackhole.consume(kline.path("h").asDouble());
+    blackhole.consume(kline.path("l").asDouble());
+    blackhole.consume(kline.path("c").asDouble());
+    blackhole.consume(kline.path("v").asDouble());
+  }
+
+  @Benchmark
+  public void streaming(Blackhole blackhole) throws Exception {
+    int length = frame.length();
+    frame.getChars(0, length, chars, 0);
+    MarketStreamDecoder.Event event = decoder.decode(chars, length);
+    blackhole.consume(event.symbol);
+    blackhole.consume(event.interval);
+    blackhole.consume(event.closed);
+    blackhole.consume(event.openTime);
+    blackhole.consume(event.closeTime);
+    blackhole.consume(event.open);
+    blackhole.consume(event.high);
+    blackhole.consume(event.low);
+    blackhole.consume(event.close);
+    blackhole.consume(event.volume);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(
+            new OptionsBuilder()
+                .include(MarketStreamDecoderBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build())
+        .run();
+  }
+}
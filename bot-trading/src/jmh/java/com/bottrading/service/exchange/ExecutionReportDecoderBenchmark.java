@@ -0,0 +1,80 @@
+package com.bottrading.service.exchange;
+
+import com.bottrading.execution.PositionManager.ManagedOrderUpdate;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Execution reports through the previous readTree mapping and through {@link
+ * ExecutionReportDecoder}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExecutionReportDecoderBenchmark {
+
+  private static final String REPORT =
+      "{\"e\":\"executionReport\",\"E\":1700000000000,\"s\":\"BTCUSDT\","
+          + "\"c\":\"bot-1700000000000-1\","
+          + "\"S\":\"BUY\",\"o\":\"LIMIT\",\"f\":\"GTC\",\"q\":\"0.01000000\","
+          + "\"p\":\"36512.01000000\","
+          + "\"P\":\"0.00000000\",\"F\":\"0.00000000\",\"g\":-1,\"C\":\"\",\"x\":\"TRADE\","
+          + "\"X\":\"PARTIALLY_FILLED\",\"r\":\"NONE\",\"i\":4293153,\"l\":\"0.00500000\","
+          + "\"z\":\"0.00500000\",\"L\":\"36512.01000000\",\"n\":\"0.00000500\",\"N\":\"BTC\","
+          + "\"T\":1700000000000,\"t\":12345,\"I\":8641984,\"w\":false,\"m\":false,\"M\":true,"
+          + "\"O\":1699999999000,\"Z\":\"182.56005000\",\"Y\":\"182.56005000\","
+          + "\"Q\":\"0.00000000\"}";
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final ExecutionReportDecoder decoder = new ExecutionReportDecoder();
+
+  @Benchmark
+  public ManagedOrderUpdate tree() throws Exception {
+    JsonNode node = objectMapper.readTree(REPORT);
+    if (!"executionReport".equals(node.path("e").asText())) {
+      return null;
+    }
+    return new ManagedOrderUpdate(
+        node.path("s").asText(),
+        node.path("c").asText(),
+        node.path("i").asText(),
+        ExecutionReportDecoder.mapStatus(node.path("X").asText()),
+        new BigDecimal(node.path("l").asText("0")),
+        new BigDecimal(node.path("z").asText("0")),
+        new BigDecimal(node.path("L").asText(node.path("p").asText("0"))),
+        Instant.ofEpochMilli(node.path("E").asLong()));
+  }
+
+  @Benchmark
+  public ManagedOrderUpdate streaming() throws Exception {
+    return decoder.decode(REPORT);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(
+            new OptionsBuilder()
+                .include(ExecutionReportDecoderBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build())
+        .run();
+  }
+}
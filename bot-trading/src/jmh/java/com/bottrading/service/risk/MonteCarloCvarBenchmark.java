@@ -0,0 +1,57 @@
+package com.bottrading.service.risk;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * One heavy-tailed CVaR estimate over a 250-trade universe, the default lookback. Iteration counts
+ * at and above {@link MonteCarloCvar#PARALLEL_THRESHOLD} run on the common pool.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MonteCarloCvarBenchmark {
+
+  @Param({"10000", "100000", "1000000"})
+  public int iterations;
+
+  private double[] samples;
+  private long seed;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    SplittableRandom random = new SplittableRandom(42);
+    samples = new double[250];
+    for (int i = 0; i < samples.length; i++) {
+      samples[i] = random.nextGaussian() * 1.5 + 0.1;
+    }
+  }
+
+  @Benchmark
+  public MonteCarloCvar.Tail estimate() {
+    return MonteCarloCvar.estimate(samples, iterations, 0.99, true, seed++);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(MonteCarloCvarBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+}
@@ -0,0 +1,83 @@
+package com.bottrading.throttle;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Submissions per second from 64 producers spread over 32 symbols and every priority class, with a
+ * budget large enough that only the queueing and dispatch path is measured. {@code reserve}
+ * isolates the ring-slot budget under the same contention.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(64)
+@Fork(1)
+public class ThrottleBenchmark {
+
+  private static final String[] SYMBOLS = new String[32];
+  private static final Endpoint[] ENDPOINTS = {
+    Endpoint.KLINES, Endpoint.PRICE_TICKER, Endpoint.ORDER_STATUS, Endpoint.NEW_ORDER
+  };
+
+  static {
+    for (int i = 0; i < SYMBOLS.length; i++) {
+      SYMBOLS[i] = "SYM" + i + "USDT";
+    }
+  }
+
+  private Throttle throttle;
+  private RateBudget budget;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    ThrottleProperties properties = new ThrottleProperties();
+    properties.setWindow1s(Long.MAX_VALUE / 4);
+    properties.setWindow60s(Long.MAX_VALUE / 4);
+    properties.getQueue().setMaxDepthGlobal(0);
+    properties.getQueue().setMaxDepthPerSymbol(0);
+    throttle = new Throttle(properties, new SimpleMeterRegistry());
+    budget = new RateBudget(Long.MAX_VALUE / 4, Long.MAX_VALUE / 4);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    throttle.shutdown();
+  }
+
+  @Benchmark
+  public Object submit() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    Endpoint endpoint = ENDPOINTS[random.nextInt(ENDPOINTS.length)];
+    String symbol = SYMBOLS[random.nextInt(SYMBOLS.length)];
+    return throttle.submit(endpoint, symbol, () -> symbol).toCompletableFuture().join();
+  }
+
+  @Benchmark
+  public long reserve() {
+    return budget.reserve(Endpoint.KLINES, System.nanoTime());
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(ThrottleBenchmark.class.getSimpleName()).build()).run();
+  }
+}
@@ -3,15 +3,20 @@ package com.bottrading.bandit;
 import com.bottrading.model.entity.PresetVersion;
 import com.bottrading.model.enums.OrderSide;
 import com.bottrading.model.enums.PresetStatus;
+import com.bottrading.persistence.WriteBehindWriter;
 import com.bottrading.repository.PresetVersionRepository;
 import com.bottrading.research.regime.RegimeTrend;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDate;
+import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -26,31 +31,42 @@ import org.springframework.transaction.annotation.Transactional;
 public class BanditStore {
 
   private static final Logger log = LoggerFactory.getLogger(BanditStore.class);
+  private static final WriteBehindWriter.Statement INSERT_PULL =
+      new WriteBehindWriter.Statement(
+          "bandit_pull",
+          "INSERT INTO bandit_pull (arm_id, ts, decision_id, context_json, symbol, regime, side,"
+              + " role) VALUES (:armId, :ts, :decisionId, CAST(:context AS jsonb), :symbol,"
+              + " :regime, :side, :role)");
 
   private final BanditArmRepository armRepository;
   private final BanditPullRepository pullRepository;
   private final PresetVersionRepository presetRepository;
   private final Clock clock;
   private final BanditProperties properties;
+  private final WriteBehindWriter writeBehindWriter;
+  private final ObjectMapper objectMapper = new ObjectMapper();
 
   public BanditStore(
       BanditArmRepository armRepository,
       BanditPullRepository pullRepository,
       PresetVersionRepository presetRepository,
       Clock clock,
-      BanditProperties properties) {
+      BanditProperties properties,
+      WriteBehindWriter writeBehindWriter) {
     this.armRepository = armRepository;
     this.pullRepository = pullRepository;
     this.presetRepository = presetRepository;
     this.clock = clock;
     this.properties = properties;
+    this.writeBehindWriter = writeBehindWriter;
   }
 
   @Transactional
   public List<BanditArmEntity> ensureArms(
       String symbol, RegimeTrend regime, OrderSide side, List<PresetVersion> candidates) {
     String regimeKey = regimeKey(regime);
-    List<BanditArmEntity> arms = armRepository.findBySymbolAndRegimeAndSide(symbol, regimeKey, side);
+    List<BanditArmEntity> arms =
+        armRepository.findBySymbolAndRegimeAndSide(symbol, regimeKey, side);
     Map<UUID, BanditArmEntity> byPreset = new HashMap<>();
     for (BanditArmEntity arm : arms) {
       byPreset.put(arm.getPresetId(), arm);
@@ -66,14 +82,19 @@ public class BanditStore {
         arm.setRegime(regimeKey);
         arm.setSide(side);
         arm.setPresetId(presetId);
-        arm.setRole(preset.getStatus() == PresetStatus.ACTIVE ? BanditArmRole.ACTIVE : BanditArmRole.CANDIDATE);
+        arm.setRole(
+            preset.getStatus() == PresetStatus.ACTIVE
+                ? BanditArmRole.ACTIVE
+                : BanditArmRole.CANDIDATE);
         arm.setStatus(BanditArmStatus.ELIGIBLE);
         arm = armRepository.save(arm);
         log.info("Created bandit arm {} for {} {} {}", arm.getId(), symbol, regimeKey, side);
         result.add(arm);
       } else {
         BanditArmRole expectedRole =
-            preset.getStatus() == PresetStatus.ACTIVE ? BanditArmRole.ACTIVE : BanditArmRole.CANDIDATE;
+            preset.getStatus() == PresetStatus.ACTIVE
+                ? BanditArmRole.ACTIVE
+                : BanditArmRole.CANDIDATE;
         if (arm.getRole() != expectedRole) {
           arm.setRole(expectedRole);
           armRepository.save(arm);
@@ -113,23 +134,27 @@ public class BanditStore {
     }
   }
 
+  /**
+   * Arm statistics are saved synchronously because the next selection reads them; the pull row is
+   * audit history and goes through the write-behind queue.
+   */
   @Transactional
-  public BanditPullEntity logPull(
+  public void logPull(
       BanditArmEntity arm, Map<String, Object> context, String decisionId, Instant now) {
     Duration halfLife = properties.getDecay().asDuration();
     arm.getStats().registerPull(halfLife, now);
     armRepository.save(arm);
 
-    BanditPullEntity pull = new BanditPullEntity();
-    pull.setArm(arm);
-    pull.setTimestamp(now);
-    pull.setDecisionId(decisionId);
-    pull.setContext(context);
-    pull.setSymbol(arm.getSymbol());
-    pull.setRegime(arm.getRegime());
-    pull.setSide(arm.getSide());
-    pull.setRole(arm.getRole());
-    return pullRepository.save(pull);
+    Map<String, Object> params = new LinkedHashMap<>();
+    params.put("armId", arm.getId());
+    params.put("ts", OffsetDateTime.ofInstant(now, ZoneOffset.UTC));
+    params.put("decisionId", decisionId);
+    params.put("context", toJson(context));
+    params.put("symbol", arm.getSymbol());
+    params.put("regime", arm.getRegime());
+    params.put("side", arm.getSide() != null ? arm.getSide().name() : null);
+    params.put("role", arm.getRole() != null ? arm.getRole().name() : null);
+    writeBehindWriter.enqueue(INSERT_PULL, params);
   }
 
   @Transactional
@@ -159,7 +184,8 @@ public class BanditStore {
   }
 
   public CanaryBudgetSnapshot canarySnapshot(String symbol, Instant reference) {
-    Instant from = reference.atZone(ZoneOffset.UTC).toLocalDate().atStartOfDay().toInstant(ZoneOffset.UTC);
+    Instant from =
+        reference.atZone(ZoneOffset.UTC).toLocalDate().atStartOfDay().toInstant(ZoneOffset.UTC);
     Instant to = from.plus(Duration.ofDays(1));
     long total = pullRepository.countBySymbolAndTimestampBetween(symbol, from, to);
     long candidates =
@@ -177,9 +203,23 @@ public class BanditStore {
     presetRepository
         .findFirstByRegimeAndSideAndStatusOrderByActivatedAtDesc(regime, side, PresetStatus.ACTIVE)
         .ifPresent(presets::add);
-    presets.addAll(presetRepository.findByRegimeAndSideAndStatusOrderByActivatedAtDesc(regime, side, PresetStatus.CANDIDATE));
+    presets.addAll(
+        presetRepository.findByRegimeAndSideAndStatusOrderByActivatedAtDesc(
+            regime, side, PresetStatus.CANDIDATE));
     return presets;
   }
 
+  private String toJson(Map<String, Object> context) {
+    if (context == null) {
+      return null;
+    }
+    try {
+      return objectMapper.writeValueAsString(context);
+    } catch (JsonProcessingException ex) {
+      log.warn("Failed to serialise bandit context: {}", ex.getMessage());
+      return null;
+    }
+  }
+
   public record CanaryBudgetSnapshot(long totalPulls, long candidatePulls, LocalDate day) {}
 }
@@ -11,6 +11,7 @@ public class ExecutionProperties {
   private Twap twap = new Twap();
   private Pov pov = new Pov();
   private Metrics metrics = new Metrics();
+  private Async async = new Async();
 
   public DefaultOrder getDefaultOrder() {
     return defaultOrder;
@@ -52,6 +53,14 @@ public class ExecutionProperties {
     this.metrics = metrics;
   }
 
+  public Async getAsync() {
+    return async;
+  }
+
+  public void setAsync(Async async) {
+    this.async = async;
+  }
+
   public static class DefaultOrder {
     private String type = "LIMIT";
 
@@ -173,4 +182,16 @@ public class ExecutionProperties {
       this.ttlMs = ttlMs;
     }
   }
+
+  public static class Async {
+    private int threads = 4;
+
+    public int getThreads() {
+      return threads;
+    }
+
+    public void setThreads(int threads) {
+      this.threads = threads;
+    }
+  }
 }
@@ -0,0 +1,116 @@
+package com.bottrading.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "persistence")
+public class PersistenceProperties {
+
+  private WriteBehind writeBehind = new WriteBehind();
+  private DecisionIndex decisionIndex = new DecisionIndex();
+
+  public WriteBehind getWriteBehind() {
+    return writeBehind;
+  }
+
+  public void setWriteBehind(WriteBehind writeBehind) {
+    this.writeBehind = writeBehind;
+  }
+
+  public DecisionIndex getDecisionIndex() {
+    return decisionIndex;
+  }
+
+  public void setDecisionIndex(DecisionIndex decisionIndex) {
+    this.decisionIndex = decisionIndex;
+  }
+
+  public static class WriteBehind {
+    private int capacity = 10_000;
+    private int batchSize = 200;
+    private long flushIntervalMs = 200;
+
+    /** How long a producer waits for room before it is counted as overflow; it keeps waiting. */
+    private long offerTimeoutMs = 50;
+
+    private long drainTimeoutMs = 10_000;
+
+    public int getCapacity() {
+      return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+      this.capacity = capacity;
+    }
+
+    public int getBatchSize() {
+      return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+      this.batchSize = batchSize;
+    }
+
+    public long getFlushIntervalMs() {
+      return flushIntervalMs;
+    }
+
+    public void setFlushIntervalMs(long flushIntervalMs) {
+      this.flushIntervalMs = flushIntervalMs;
+    }
+
+    public long getOfferTimeoutMs() {
+      return offerTimeoutMs;
+    }
+
+    public void setOfferTimeoutMs(long offerTimeoutMs) {
+      this.offerTimeoutMs = offerTimeoutMs;
+    }
+
+    public long getDrainTimeoutMs() {
+      return drainTimeoutMs;
+    }
+
+    public void setDrainTimeoutMs(long drainTimeoutMs) {
+      this.drainTimeoutMs = drainTimeoutMs;
+    }
+  }
+
+  public static class DecisionIndex {
+    private int expectedKeys = 1_000_000;
+    private double falsePositiveRate = 0.01;
+    private int recentKeys = 10_000;
+    private int seedLookbackHours = 48;
+
+    public int getExpectedKeys() {
+      return expectedKeys;
+    }
+
+    public void setExpectedKeys(int expectedKeys) {
+      this.expectedKeys = expectedKeys;
+    }
+
+    public double getFalsePositiveRate() {
+      return falsePositiveRate;
+    }
+
+    public void setFalsePositiveRate(double falsePositiveRate) {
+      this.falsePositiveRate = falsePositiveRate;
+    }
+
+    public int getRecentKeys() {
+      return recentKeys;
+    }
+
+    public void setRecentKeys(int recentKeys) {
+      this.recentKeys = recentKeys;
+    }
+
+    public int getSeedLookbackHours() {
+      return seedLookbackHours;
+    }
+
+    public void setSeedLookbackHours(int seedLookbackHours) {
+      this.seedLookbackHours = seedLookbackHours;
+    }
+  }
+}
@@ -37,6 +37,7 @@ public class TradingProps {
   private DriftProperties drift = new DriftProperties();
   private HealthProperties health = new HealthProperties();
   private TcaProperties tca = new TcaProperties();
+  private WebsocketProperties websocket = new WebsocketProperties();
 
   public String getSymbol() {
     return symbol;
@@ -202,6 +203,14 @@ public class TradingProps {
     this.tca = tca;
   }
 
+  public WebsocketProperties getWebsocket() {
+    return websocket;
+  }
+
+  public void setWebsocket(WebsocketProperties websocket) {
+    this.websocket = websocket;
+  }
+
   public LocalTime getTradingWindowStart() {
     return parseTradingWindow()[0];
   }
@@ -418,4 +427,39 @@ public class TradingProps {
       this.historySize = historySize;
     }
   }
+
+  public static class WebsocketProperties {
+    /** Binance accepts up to 1024 streams per connection; smaller shards limit the blast radius. */
+    private int maxStreamsPerConnection = 200;
+
+    /** A stream with no kline update for this long is re-subscribed and served by REST polling. */
+    private int staleAfterSeconds = 30;
+
+    /** Longest a cached 24h volume is served before it is refreshed from REST. */
+    private int statsMaxAgeSeconds = 60;
+
+    public int getMaxStreamsPerConnection() {
+      return maxStreamsPerConnection;
+    }
+
+    public void setMaxStreamsPerConnection(int maxStreamsPerConnection) {
+      this.maxStreamsPerConnection = maxStreamsPerConnection;
+    }
+
+    public int getStaleAfterSeconds() {
+      return staleAfterSeconds;
+    }
+
+    public void setStaleAfterSeconds(int staleAfterSeconds) {
+      this.staleAfterSeconds = staleAfterSeconds;
+    }
+
+    public int getStatsMaxAgeSeconds() {
+      return statsMaxAgeSeconds;
+    }
+
+    public void setStatsMaxAgeSeconds(int statsMaxAgeSeconds) {
+      this.statsMaxAgeSeconds = statsMaxAgeSeconds;
+    }
+  }
 }
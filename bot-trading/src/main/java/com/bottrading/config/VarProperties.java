@@ -15,6 +15,9 @@ public class VarProperties {
   private int mcIterations = 20000;
   private boolean heavyTails = true;
 
+  /** Fixed Monte Carlo seed for reproducible estimates; a fresh seed per estimate when unset. */
+  private Long mcSeed;
+
   public boolean isEnabled() {
     return enabled;
   }
@@ -86,4 +89,12 @@ public class VarProperties {
   public void setHeavyTails(boolean heavyTails) {
     this.heavyTails = heavyTails;
   }
+
+  public Long getMcSeed() {
+    return mcSeed;
+  }
+
+  public void setMcSeed(Long mcSeed) {
+    this.mcSeed = mcSeed;
+  }
 }
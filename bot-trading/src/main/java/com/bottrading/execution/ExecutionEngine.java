@@ -6,12 +6,17 @@ import com.bottrading.execution.ExecutionPolicy.MarketPlan;
 import com.bottrading.execution.ExecutionPolicy.OrderPlan;
 import com.bottrading.execution.ExecutionPolicy.PovPlan;
 import com.bottrading.execution.ExecutionPolicy.TwapPlan;
+import com.bottrading.execution.PositionManager.ManagedOrderUpdate;
 import com.bottrading.execution.metrics.PovMetrics;
 import com.bottrading.execution.metrics.SlippageMetrics;
+import com.bottrading.model.dto.ExchangeInfo;
 import com.bottrading.model.dto.OrderRequest;
 import com.bottrading.model.dto.OrderResponse;
+import com.bottrading.model.entity.ParentOrderEntity;
 import com.bottrading.model.enums.OrderSide;
 import com.bottrading.model.enums.OrderType;
+import com.bottrading.model.enums.ParentOrderStatus;
+import com.bottrading.repository.ParentOrderRepository;
 import com.bottrading.saas.security.TenantContext;
 import com.bottrading.service.anomaly.AnomalyDetector;
 import com.bottrading.service.binance.BinanceClient;
@@ -22,6 +27,7 @@ import com.bottrading.util.OrderValidator;
 import io.micrometer.core.instrument.DistributionSummary;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PreDestroy;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.Clock;
@@ -29,12 +35,26 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+/**
+ * Works parent orders as event-driven state machines. Order placement, limit TTLs, TWAP slices and
+ * POV reassessments are timer events on a small shared pool and fills arrive from the user data
+ * stream, so no thread waits between slices and any number of parents progress side by side. Each
+ * parent is persisted after every step and resumed from the store after a restart.
+ */
 @Service
 public class ExecutionEngine {
 
@@ -52,6 +72,10 @@ public class ExecutionEngine {
   private final AnomalyDetector anomalyDetector;
   private final SlippageMetrics slippageMetrics;
   private final PovMetrics povMetrics;
+  private final ParentOrderRepository parentOrderRepository;
+  private final ScheduledExecutorService timer;
+  private final ConcurrentMap<String, ParentOrder> parents = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, ParentOrder> children = new ConcurrentHashMap<>();
 
   public ExecutionEngine(
       ExecutionPolicy policy,
@@ -63,7 +87,8 @@ public class ExecutionEngine {
       Clock clock,
       AnomalyDetector anomalyDetector,
       SlippageMetrics slippageMetrics,
-      PovMetrics povMetrics) {
+      PovMetrics povMetrics,
+      ParentOrderRepository parentOrderRepository) {
     this.policy = policy;
     this.orderService = orderService;
     this.binanceClient = binanceClient;
@@ -74,8 +99,21 @@ public class ExecutionEngine {
     this.anomalyDetector = anomalyDetector;
     this.slippageMetrics = slippageMetrics;
     this.povMetrics = povMetrics;
+    this.parentOrderRepository = parentOrderRepository;
+    AtomicInteger threadIds = new AtomicInteger();
+    this.timer =
+        Executors.newScheduledThreadPool(
+            Math.max(1, properties.getAsync().getThreads()),
+            r -> {
+              Thread t = new Thread(r, "exec-timer-" + threadIds.incrementAndGet());
+              t.setDaemon(true);
+              return t;
+            });
+    meterRegistry.gauge("exec.parent.inflight", parents, Map::size);
     this.queueTimes =
-        DistributionSummary.builder("exec.queueTime.ms").publishPercentileHistogram().register(meterRegistry);
+        DistributionSummary.builder("exec.queueTime.ms")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
     this.limitTtl =
         DistributionSummary.builder("exec.limit.ttl.ms")
             .baseUnit("milliseconds")
@@ -84,13 +122,34 @@ public class ExecutionEngine {
     this.limitTtl.record(0);
   }
 
+  /**
+   * Works the order to completion on the calling thread's behalf; for callers off the decision
+   * path.
+   */
   public ExecutionResult execute(ExecutionRequest request, MarketSnapshot snapshot) {
+    try {
+      return submit(request, snapshot, null).result().join();
+    } catch (CompletionException ex) {
+      if (ex.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw ex;
+    }
+  }
+
+  /**
+   * Plans the order, persists it and returns immediately. Slices, limit TTLs and POV reassessments
+   * run as timer events on the execution pool; fills reported by the user data stream are applied
+   * through {@link #onOrderUpdate}.
+   */
+  public ExecutionHandle submit(ExecutionRequest request, MarketSnapshot snapshot, String context) {
     Objects.requireNonNull(request, "request");
     Objects.requireNonNull(snapshot, "snapshot");
 
     anomalyDetector.recordSpread(request.symbol(), request.spreadBps());
     OrderPlan plan = policy.planFor(request, snapshot, tcaService::expectedSlippageBps);
-    AnomalyDetector.ExecutionOverride override = anomalyDetector.executionOverride(request.symbol());
+    AnomalyDetector.ExecutionOverride override =
+        anomalyDetector.executionOverride(request.symbol());
     if (override == AnomalyDetector.ExecutionOverride.FORCE_MARKET) {
       plan = new MarketPlan();
     } else if (override == AnomalyDetector.ExecutionOverride.FORCE_TWAP) {
@@ -98,169 +157,528 @@ public class ExecutionEngine {
       Duration window = properties.getTwap().windowDuration();
       plan = new TwapPlan(slices, window);
     }
-    if (plan instanceof MarketPlan marketPlan) {
-      return executeMarket(request, snapshot, marketPlan);
-    } else if (plan instanceof LimitPlan limitPlan) {
-      return executeLimit(request, snapshot, limitPlan);
-    } else if (plan instanceof TwapPlan twapPlan) {
-      return executeTwap(request, snapshot, twapPlan);
-    } else if (plan instanceof PovPlan povPlan) {
-      return executePov(request, snapshot, povPlan);
+    ParentOrder parent =
+        new ParentOrder(request, snapshot, plan, TenantContext.getTenantId(), context);
+    if (parents.putIfAbsent(parent.id(), parent) != null) {
+      throw new IllegalStateException("Parent order " + parent.id() + " is already working");
+    }
+    synchronized (parent) {
+      schedule(parent, 0);
+      persist(parent, ParentOrderStatus.WORKING);
     }
-    throw new IllegalStateException("Unsupported order plan " + plan);
+    return handle(parent);
   }
 
-  private ExecutionResult executeMarket(ExecutionRequest request, MarketSnapshot snapshot, MarketPlan plan) {
-    List<OrderResponse> responses = new ArrayList<>();
-    OrderResponse response = submitOrder(request, OrderType.MARKET, request.referencePrice(), request.quantity(), request.baseClientOrderId());
-    responses.add(response);
-    BigDecimal executedQty = safeQty(response.executedQty());
-    BigDecimal avgPrice = resolveFillPrice(response, request.referencePrice());
-    recordFillMetrics(request, avgPrice, executedQty);
-    return new ExecutionResult(plan, responses, executedQty, avgPrice);
+  /** Applies a fill or status change of a child order; unknown orders are ignored. */
+  public void onOrderUpdate(ManagedOrderUpdate update) {
+    if (update == null || update.clientOrderId() == null) {
+      return;
+    }
+    ParentOrder parent = children.get(update.clientOrderId());
+    if (parent == null) {
+      return;
+    }
+    synchronized (parent) {
+      if (parent.done) {
+        return;
+      }
+      try {
+        withTenant(parent, () -> applyUpdate(parent, update));
+      } catch (RuntimeException ex) {
+        fail(parent, ex);
+      }
+    }
   }
 
-  private ExecutionResult executeLimit(ExecutionRequest request, MarketSnapshot snapshot, LimitPlan plan) {
-    List<OrderResponse> responses = new ArrayList<>();
-    BigDecimal remaining = request.quantity();
-    BigDecimal totalQuote = BigDecimal.ZERO;
-    BigDecimal totalQty = BigDecimal.ZERO;
-    for (int attempt = 0; attempt <= plan.maxRetries(); attempt++) {
-      if (remaining.compareTo(BigDecimal.ZERO) <= 0) {
-        break;
+  /** Picks up parent orders a previous run left working; call once on startup. */
+  public List<ExecutionHandle> resumeInFlight() {
+    List<ExecutionHandle> handles = new ArrayList<>();
+    for (ParentOrderEntity entity : parentOrderRepository.findByStatus(ParentOrderStatus.WORKING)) {
+      if (parents.containsKey(entity.getId())) {
+        continue;
       }
-      double buffer = plan.bufferBps() * (attempt + 1);
-      BigDecimal price = adjustLimitPrice(request.side(), request.referencePrice(), buffer);
-      String clientOrderId =
-          attempt == 0 ? request.baseClientOrderId() : request.baseClientOrderId() + "-r" + attempt;
-      OrderResponse response = submitOrder(request, OrderType.LIMIT, price, remaining, clientOrderId);
-      responses.add(response);
-      BigDecimal executed = safeQty(response.executedQty());
-      if (executed.compareTo(BigDecimal.ZERO) > 0) {
-        totalQty = totalQty.add(executed);
-        totalQuote = totalQuote.add(price.multiply(executed));
-        recordFillMetrics(request, price, executed);
-        remaining = remaining.subtract(executed);
+      ParentOrder parent;
+      try {
+        parent = restore(entity);
+      } catch (RuntimeException ex) {
+        log.warn("Unable to resume parent order {}: {}", entity.getId(), ex.getMessage());
+        entity.setStatus(ParentOrderStatus.FAILED);
+        saveQuietly(entity);
+        continue;
+      }
+      parents.put(parent.id(), parent);
+      synchronized (parent) {
+        try {
+          withTenant(parent, () -> settleWorking(parent));
+          schedule(parent, parent.nextEventAt - clock.millis());
+          persist(parent, ParentOrderStatus.WORKING);
+        } catch (RuntimeException ex) {
+          fail(parent, ex);
+        }
       }
-      if (remaining.compareTo(BigDecimal.ZERO) <= 0) {
-        break;
+      log.info(
+          "Resumed parent order {} ({} of {} executed)",
+          parent.id(),
+          parent.executedQty,
+          parent.request.quantity());
+      handles.add(handle(parent));
+    }
+    return handles;
+  }
+
+  public int inFlight() {
+    return parents.size();
+  }
+
+  @PreDestroy
+  void shutdown() {
+    // working orders stay WORKING in the store and are resumed on the next start
+    timer.shutdownNow();
+  }
+
+  private void onTimer(ParentOrder parent, long generation) {
+    synchronized (parent) {
+      // cancel(false) cannot stop a task already blocked on the monitor; a stale one bows out here
+      if (parent.done || generation != parent.timerGeneration) {
+        return;
       }
-      sleep(plan.ttlMs());
+      parent.timer = null;
+      try {
+        withTenant(parent, () -> advance(parent));
+        if (!parent.done) {
+          persist(parent, ParentOrderStatus.WORKING);
+        }
+      } catch (RuntimeException ex) {
+        fail(parent, ex);
+      }
+    }
+  }
+
+  private void advance(ParentOrder parent) {
+    OrderPlan plan = parent.plan;
+    if (plan instanceof MarketPlan) {
+      advanceMarket(parent);
+    } else if (plan instanceof LimitPlan limitPlan) {
+      advanceLimit(parent, limitPlan);
+    } else if (plan instanceof TwapPlan twapPlan) {
+      advanceTwap(parent, twapPlan);
+    } else if (plan instanceof PovPlan povPlan) {
+      advancePov(parent, povPlan);
+    } else {
+      throw new IllegalStateException("Unsupported order plan " + plan);
+    }
+  }
+
+  private void advanceMarket(ParentOrder parent) {
+    ExecutionRequest request = parent.request;
+    if (parent.remaining().compareTo(BigDecimal.ZERO) <= 0) {
+      // resumed after the order filled but before the parent was marked complete
+      complete(parent);
+      return;
+    }
+    OrderResponse response =
+        submitOrder(
+            parent,
+            OrderType.MARKET,
+            request.referencePrice(),
+            parent.remaining(),
+            request.baseClientOrderId());
+    fill(
+        parent,
+        resolveFillPrice(response, request.referencePrice()),
+        safeQty(response.executedQty()));
+    complete(parent);
+  }
+
+  /**
+   * Each attempt rests for {@code ttlMs}; the TTL timer cancels and reprices, the last one goes to
+   * market.
+   */
+  private void advanceLimit(ParentOrder parent, LimitPlan plan) {
+    ExecutionRequest request = parent.request;
+    if (parent.workingClientOrderId != null) {
+      safeCancel(request.symbol(), parent.workingClientOrderId);
       limitTtl.record(plan.ttlMs());
-      safeCancel(request.symbol(), clientOrderId);
       meterRegistry.counter("exec.limit.replaces", Tags.of("symbol", request.symbol())).increment();
+      parent.clearWorking();
+      parent.step++;
+    }
+    if (parent.remaining().compareTo(BigDecimal.ZERO) <= 0) {
+      complete(parent);
+      return;
     }
-    if (remaining.compareTo(BigDecimal.ZERO) > 0) {
-      log.debug("Remaining {} after limit attempts, switching to market", remaining);
-      OrderResponse fallback =
-          submitOrder(request, OrderType.MARKET, request.referencePrice(), remaining, request.baseClientOrderId() + "-m");
-      responses.add(fallback);
-      BigDecimal executed = safeQty(fallback.executedQty());
-      if (executed.compareTo(BigDecimal.ZERO) > 0) {
-        totalQty = totalQty.add(executed);
-        BigDecimal price = resolveFillPrice(fallback, request.referencePrice());
-        totalQuote = totalQuote.add(price.multiply(executed));
-        recordFillMetrics(request, price, executed);
+    if (parent.step <= plan.maxRetries()) {
+      int attempt = parent.step;
+      BigDecimal price =
+          adjustLimitPrice(
+              request.side(), request.referencePrice(), plan.bufferBps() * (attempt + 1));
+      String clientOrderId =
+          attempt == 0 ? request.baseClientOrderId() : request.baseClientOrderId() + "-r" + attempt;
+      OrderResponse response =
+          submitOrder(parent, OrderType.LIMIT, price, parent.remaining(), clientOrderId);
+      fill(parent, price, safeQty(response.executedQty()));
+      if (parent.remaining().compareTo(BigDecimal.ZERO) <= 0) {
+        complete(parent);
+        return;
       }
+      parent.workingClientOrderId = clientOrderId;
+      parent.workingOrderId = response.orderId();
+      parent.workingPrice = price;
+      schedule(parent, plan.ttlMs());
+      return;
     }
-    BigDecimal avgPrice = totalQty.compareTo(BigDecimal.ZERO) > 0 ? totalQuote.divide(totalQty, 8, RoundingMode.HALF_UP) : request.referencePrice();
-    return new ExecutionResult(plan, responses, totalQty, avgPrice);
+    log.debug("Remaining {} after limit attempts, switching to market", parent.remaining());
+    OrderResponse fallback =
+        submitOrder(
+            parent,
+            OrderType.MARKET,
+            request.referencePrice(),
+            parent.remaining(),
+            request.baseClientOrderId() + "-m");
+    fill(
+        parent,
+        resolveFillPrice(fallback, request.referencePrice()),
+        safeQty(fallback.executedQty()));
+    complete(parent);
   }
 
-  private ExecutionResult executeTwap(ExecutionRequest request, MarketSnapshot snapshot, TwapPlan plan) {
+  private void advanceTwap(ParentOrder parent, TwapPlan plan) {
+    ExecutionRequest request = parent.request;
     int slices = Math.max(1, plan.slices());
-    Duration window = plan.window();
-    List<OrderResponse> responses = new ArrayList<>();
-    BigDecimal sliceQty = request.quantity().divide(BigDecimal.valueOf(slices), 8, RoundingMode.DOWN);
-    BigDecimal executedTotal = BigDecimal.ZERO;
-    BigDecimal totalQuote = BigDecimal.ZERO;
-    Duration delay = window.dividedBy(slices);
-    for (int i = 0; i < slices; i++) {
-      BigDecimal qty = i == slices - 1 ? request.quantity().subtract(executedTotal) : sliceQty;
-      if (qty.compareTo(BigDecimal.ZERO) <= 0) {
-        continue;
-      }
-      String clientOrderId = request.baseClientOrderId() + "-twap-" + i;
-      OrderResponse response = submitOrder(request, OrderType.MARKET, request.referencePrice(), qty, clientOrderId);
-      responses.add(response);
-      BigDecimal executed = safeQty(response.executedQty());
-      BigDecimal price = resolveFillPrice(response, request.referencePrice());
-      if (executed.compareTo(BigDecimal.ZERO) > 0) {
-        executedTotal = executedTotal.add(executed);
-        totalQuote = totalQuote.add(price.multiply(executed));
-        recordFillMetrics(request, price, executed);
-      }
-      meterRegistry.counter("exec.twap.slice_fills", Tags.of("symbol", request.symbol())).increment();
-      sleep(delay.toMillis());
-    }
-    BigDecimal avgPrice =
-        executedTotal.compareTo(BigDecimal.ZERO) > 0
-            ? totalQuote.divide(executedTotal, 8, RoundingMode.HALF_UP)
-            : request.referencePrice();
-    return new ExecutionResult(plan, responses, executedTotal, avgPrice);
-  }
-
-  private ExecutionResult executePov(ExecutionRequest request, MarketSnapshot snapshot, PovPlan plan) {
-    List<OrderResponse> responses = new ArrayList<>();
-    BigDecimal executedTotal = BigDecimal.ZERO;
-    BigDecimal totalQuote = BigDecimal.ZERO;
-    BigDecimal targetParticipation = BigDecimal.valueOf(plan.targetParticipation());
-    Duration reassess = properties.getPov().reassessInterval();
-    BigDecimal remaining = request.quantity();
-    int slice = 0;
-    while (remaining.compareTo(BigDecimal.ZERO) > 0 && Instant.now(clock).isBefore(request.deadline())) {
+    int slice = parent.step;
+    BigDecimal sliceQty =
+        request.quantity().divide(BigDecimal.valueOf(slices), 8, RoundingMode.DOWN);
+    BigDecimal qty = slice >= slices - 1 ? parent.remaining() : sliceQty.min(parent.remaining());
+    if (qty.compareTo(BigDecimal.ZERO) > 0) {
+      OrderResponse response =
+          submitOrder(
+              parent,
+              OrderType.MARKET,
+              request.referencePrice(),
+              qty,
+              request.baseClientOrderId() + "-twap-" + slice);
+      fill(
+          parent,
+          resolveFillPrice(response, request.referencePrice()),
+          safeQty(response.executedQty()));
+      meterRegistry
+          .counter("exec.twap.slice_fills", Tags.of("symbol", request.symbol()))
+          .increment();
+    }
+    parent.step++;
+    if (parent.step >= slices) {
+      complete(parent);
+    } else {
+      schedule(parent, plan.window().dividedBy(slices).toMillis());
+    }
+  }
+
+  private void advancePov(ParentOrder parent, PovPlan plan) {
+    ExecutionRequest request = parent.request;
+    BigDecimal remaining = parent.remaining();
+    if (remaining.compareTo(BigDecimal.ZERO) > 0
+        && Instant.now(clock).isBefore(request.deadline())) {
+      MarketSnapshot snapshot = parent.snapshot;
       BigDecimal barVolume = snapshot.barVolume() == null ? BigDecimal.ZERO : snapshot.barVolume();
       if (barVolume.compareTo(BigDecimal.ZERO) <= 0) {
         barVolume = remaining.multiply(BigDecimal.valueOf(10));
       }
-      BigDecimal desiredQty = barVolume.multiply(targetParticipation).setScale(8, RoundingMode.DOWN);
+      BigDecimal desiredQty =
+          barVolume
+              .multiply(BigDecimal.valueOf(plan.targetParticipation()))
+              .setScale(8, RoundingMode.DOWN);
       if (desiredQty.compareTo(BigDecimal.ZERO) <= 0) {
         desiredQty = remaining.min(barVolume.multiply(BigDecimal.valueOf(0.1)));
       }
       BigDecimal qty = desiredQty.min(remaining);
-      String clientOrderId = request.baseClientOrderId() + "-pov-" + slice++;
-      OrderResponse response = submitOrder(request, OrderType.MARKET, request.referencePrice(), qty, clientOrderId);
-      responses.add(response);
-      BigDecimal executed = safeQty(response.executedQty());
-      BigDecimal price = resolveFillPrice(response, request.referencePrice());
-      if (executed.compareTo(BigDecimal.ZERO) > 0) {
-        executedTotal = executedTotal.add(executed);
-        totalQuote = totalQuote.add(price.multiply(executed));
-        remaining = remaining.subtract(executed);
-        recordFillMetrics(request, price, executed);
-        updatePovGauge(request.symbol(), executedTotal, request.quantity());
+      String clientOrderId = request.baseClientOrderId() + "-pov-" + parent.step++;
+      OrderResponse response =
+          submitOrder(parent, OrderType.MARKET, request.referencePrice(), qty, clientOrderId);
+      fillPov(parent, response);
+      if (parent.remaining().compareTo(BigDecimal.ZERO) > 0) {
+        schedule(parent, properties.getPov().reassessInterval().toMillis());
+        return;
       }
-      sleep(reassess.toMillis());
-    }
-    if (remaining.compareTo(BigDecimal.ZERO) > 0) {
+    } else if (remaining.compareTo(BigDecimal.ZERO) > 0) {
       log.debug("POV deadline reached, sending final market for remaining {}", remaining);
       OrderResponse finalOrder =
-          submitOrder(request, OrderType.MARKET, request.referencePrice(), remaining, request.baseClientOrderId() + "-pov-final");
-      responses.add(finalOrder);
-      BigDecimal executed = safeQty(finalOrder.executedQty());
-      BigDecimal price = resolveFillPrice(finalOrder, request.referencePrice());
-      if (executed.compareTo(BigDecimal.ZERO) > 0) {
-        executedTotal = executedTotal.add(executed);
-        totalQuote = totalQuote.add(price.multiply(executed));
-        recordFillMetrics(request, price, executed);
-        updatePovGauge(request.symbol(), executedTotal, request.quantity());
+          submitOrder(
+              parent,
+              OrderType.MARKET,
+              request.referencePrice(),
+              remaining,
+              request.baseClientOrderId() + "-pov-final");
+      fillPov(parent, finalOrder);
+    }
+    complete(parent);
+  }
+
+  private void fillPov(ParentOrder parent, OrderResponse response) {
+    BigDecimal executed = safeQty(response.executedQty());
+    fill(parent, resolveFillPrice(response, parent.request.referencePrice()), executed);
+    if (executed.compareTo(BigDecimal.ZERO) > 0) {
+      updatePovGauge(parent.request.symbol(), parent.executedQty, parent.request.quantity());
+    }
+  }
+
+  private void applyUpdate(ParentOrder parent, ManagedOrderUpdate update) {
+    String childId = update.clientOrderId();
+    boolean working = childId.equals(parent.workingClientOrderId);
+    BigDecimal known = parent.childFills.getOrDefault(childId, BigDecimal.ZERO);
+    BigDecimal cumulative = safeQty(update.cumulativeFilledQty());
+    if (cumulative.compareTo(known) > 0) {
+      BigDecimal price =
+          update.price() != null && update.price().compareTo(BigDecimal.ZERO) > 0
+              ? update.price()
+              : working && parent.workingPrice != null
+                  ? parent.workingPrice
+                  : parent.request.referencePrice();
+      parent.childFills.put(childId, cumulative);
+      fill(parent, price, cumulative.subtract(known));
+    }
+    if (!working) {
+      return;
+    }
+    boolean terminal =
+        switch (update.status()) {
+          case FILLED, CANCELED, REJECTED, ERROR -> true;
+          default -> false;
+        };
+    if (parent.remaining().compareTo(BigDecimal.ZERO) <= 0) {
+      parent.clearWorking();
+      complete(parent);
+    } else if (terminal) {
+      // the resting order is gone before its TTL: move on now
+      cancelTimer(parent);
+      schedule(parent, 0);
+      persist(parent, ParentOrderStatus.WORKING);
+    } else {
+      persist(parent, ParentOrderStatus.WORKING);
+    }
+  }
+
+  /**
+   * After a restart the working child's fate is unknown: cancel it and count what it filled. A
+   * child whose placement never got a response is looked up by client id, so a market slice the
+   * exchange already filled is counted instead of being sent again.
+   */
+  private void settleWorking(ParentOrder parent) {
+    String clientOrderId = parent.workingClientOrderId;
+    if (clientOrderId == null) {
+      return;
+    }
+    ExecutionRequest request = parent.request;
+    safeCancel(request.symbol(), clientOrderId);
+    OrderResponse order =
+        parent.workingOrderId != null
+            ? binanceClient.getOrder(request.symbol(), parent.workingOrderId)
+            : binanceClient.getOrderByClientOrderId(request.symbol(), clientOrderId);
+    BigDecimal known = parent.childFills.getOrDefault(clientOrderId, BigDecimal.ZERO);
+    BigDecimal executed = order == null ? BigDecimal.ZERO : safeQty(order.executedQty());
+    if (executed.compareTo(known) > 0) {
+      parent.childFills.put(clientOrderId, executed);
+      fill(parent, resolveFillPrice(order, request.referencePrice()), executed.subtract(known));
+    }
+    parent.clearWorking();
+    parent.step++;
+    parent.nextEventAt = clock.millis();
+  }
+
+  private void schedule(ParentOrder parent, long delayMs) {
+    long delay = Math.max(0, delayMs);
+    parent.nextEventAt = clock.millis() + delay;
+    long generation = ++parent.timerGeneration;
+    parent.timer = timer.schedule(() -> onTimer(parent, generation), delay, TimeUnit.MILLISECONDS);
+  }
+
+  private void cancelTimer(ParentOrder parent) {
+    parent.timerGeneration++;
+    if (parent.timer != null) {
+      parent.timer.cancel(false);
+      parent.timer = null;
+    }
+  }
+
+  private void complete(ParentOrder parent) {
+    finish(parent, ParentOrderStatus.COMPLETED);
+    parent.future.complete(parent.result());
+  }
+
+  private void fail(ParentOrder parent, RuntimeException ex) {
+    log.warn("Parent order {} failed: {}", parent.id(), ex.getMessage());
+    finish(parent, ParentOrderStatus.FAILED);
+    parent.future.completeExceptionally(ex);
+  }
+
+  private void finish(ParentOrder parent, ParentOrderStatus status) {
+    parent.done = true;
+    cancelTimer(parent);
+    parents.remove(parent.id(), parent);
+    parent.childFills.keySet().forEach(childId -> children.remove(childId, parent));
+    persist(parent, status);
+  }
+
+  private void fill(ParentOrder parent, BigDecimal price, BigDecimal qty) {
+    if (qty.compareTo(BigDecimal.ZERO) <= 0) {
+      return;
+    }
+    parent.addFill(price, qty);
+    recordFillMetrics(parent.request, price, qty);
+  }
+
+  private ExecutionHandle handle(ParentOrder parent) {
+    return new ExecutionHandle(parent.id(), parent.context, parent.future);
+  }
+
+  private void withTenant(ParentOrder parent, Runnable action) {
+    UUID previous = TenantContext.getTenantId();
+    TenantContext.setTenantId(parent.tenantId);
+    try {
+      action.run();
+    } finally {
+      if (previous == null) {
+        TenantContext.clear();
+      } else {
+        TenantContext.setTenantId(previous);
       }
     }
-    BigDecimal avgPrice =
-        executedTotal.compareTo(BigDecimal.ZERO) > 0
-            ? totalQuote.divide(executedTotal, 8, RoundingMode.HALF_UP)
-            : request.referencePrice();
-    return new ExecutionResult(plan, responses, executedTotal, avgPrice);
+  }
+
+  private void persist(ParentOrder parent, ParentOrderStatus status) {
+    ParentOrderEntity entity = parent.entity != null ? parent.entity : newEntity(parent);
+    entity.setStatus(status);
+    entity.setStep(parent.step);
+    entity.setExecutedQty(parent.executedQty);
+    entity.setExecutedQuote(parent.executedQuote);
+    entity.setWorkingClientOrderId(parent.workingClientOrderId);
+    entity.setWorkingOrderId(parent.workingOrderId);
+    entity.setWorkingFilledQty(
+        parent.workingClientOrderId == null
+            ? null
+            : parent.childFills.get(parent.workingClientOrderId));
+    entity.setNextEventAt(Instant.ofEpochMilli(parent.nextEventAt));
+    ParentOrderEntity saved = saveQuietly(entity);
+    parent.entity = saved != null ? saved : entity;
+  }
+
+  private ParentOrderEntity saveQuietly(ParentOrderEntity entity) {
+    try {
+      return parentOrderRepository.save(entity);
+    } catch (RuntimeException ex) {
+      log.warn("Unable to persist parent order {}: {}", entity.getId(), ex.getMessage());
+      return null;
+    }
+  }
+
+  private ParentOrderEntity newEntity(ParentOrder parent) {
+    ExecutionRequest request = parent.request;
+    ParentOrderEntity entity = new ParentOrderEntity();
+    entity.setId(parent.id());
+    entity.setTenantId(parent.tenantId);
+    entity.setSymbol(request.symbol());
+    entity.setSide(request.side());
+    entity.setQuantity(request.quantity());
+    entity.setReferencePrice(request.referencePrice());
+    entity.setDeadline(request.deadline());
+    entity.setDryRun(request.dryRun());
+    entity.setUrgency(request.urgency().name());
+    entity.setMaxSlippageBps(request.maxSlippageBps());
+    entity.setTickSize(request.exchangeInfo().tickSize());
+    entity.setStepSize(request.exchangeInfo().stepSize());
+    entity.setMinNotional(request.exchangeInfo().minNotional());
+    entity.setVolume24h(request.volume24h());
+    entity.setAtr(request.atr());
+    entity.setSpreadBps(request.spreadBps());
+    entity.setVolatilityBps(request.expectedVolatilityBps());
+    entity.setBarVolume(parent.snapshot.barVolume());
+    entity.setContext(parent.context);
+    if (parent.plan instanceof MarketPlan) {
+      entity.setPlanType("MARKET");
+    } else if (parent.plan instanceof LimitPlan limit) {
+      entity.setPlanType("LIMIT");
+      entity.setBufferBps(limit.bufferBps());
+      entity.setTtlMs(limit.ttlMs());
+      entity.setMaxRetries(limit.maxRetries());
+    } else if (parent.plan instanceof TwapPlan twap) {
+      entity.setPlanType("TWAP");
+      entity.setSlices(twap.slices());
+      entity.setWindowMs(twap.window().toMillis());
+    } else if (parent.plan instanceof PovPlan pov) {
+      entity.setPlanType("POV");
+      entity.setTargetParticipation(pov.targetParticipation());
+    }
+    return entity;
+  }
+
+  private ParentOrder restore(ParentOrderEntity entity) {
+    OrderPlan plan =
+        switch (entity.getPlanType()) {
+          case "MARKET" -> new MarketPlan();
+          case "LIMIT" ->
+              new LimitPlan(entity.getBufferBps(), entity.getTtlMs(), entity.getMaxRetries());
+          case "TWAP" -> new TwapPlan(entity.getSlices(), Duration.ofMillis(entity.getWindowMs()));
+          case "POV" -> new PovPlan(entity.getTargetParticipation());
+          default -> throw new IllegalStateException("Unknown plan type " + entity.getPlanType());
+        };
+    ExecutionRequest request =
+        new ExecutionRequest(
+            entity.getSymbol(),
+            entity.getSide(),
+            entity.getQuantity(),
+            entity.getReferencePrice(),
+            entity.getQuantity().multiply(entity.getReferencePrice()),
+            new ExchangeInfo(entity.getTickSize(), entity.getStepSize(), entity.getMinNotional()),
+            ExecutionRequest.Urgency.valueOf(entity.getUrgency()),
+            entity.getMaxSlippageBps(),
+            entity.getDeadline(),
+            entity.isDryRun(),
+            entity.getVolume24h(),
+            entity.getAtr(),
+            entity.getSpreadBps(),
+            entity.getVolatilityBps(),
+            0,
+            entity.getId());
+    BigDecimal barVolume = entity.getBarVolume();
+    MarketSnapshot snapshot =
+        new MarketSnapshot(
+            entity.getReferencePrice(),
+            entity.getSpreadBps(),
+            entity.getVolatilityBps(),
+            0,
+            barVolume,
+            barVolume == null ? null : barVolume.multiply(entity.getReferencePrice()));
+    ParentOrder parent =
+        new ParentOrder(request, snapshot, plan, entity.getTenantId(), entity.getContext());
+    parent.entity = entity;
+    parent.step = entity.getStep();
+    parent.executedQty = entity.getExecutedQty();
+    parent.executedQuote = entity.getExecutedQuote();
+    parent.workingClientOrderId = entity.getWorkingClientOrderId();
+    parent.workingOrderId = entity.getWorkingOrderId();
+    parent.nextEventAt =
+        entity.getNextEventAt() == null ? clock.millis() : entity.getNextEventAt().toEpochMilli();
+    if (parent.workingClientOrderId != null) {
+      parent.childFills.put(
+          parent.workingClientOrderId,
+          entity.getWorkingFilledQty() == null ? BigDecimal.ZERO : entity.getWorkingFilledQty());
+    }
+    return parent;
   }
 
   private OrderResponse submitOrder(
-      ExecutionRequest request, OrderType type, BigDecimal price, BigDecimal quantity, String clientOrderId) {
+      ParentOrder parent,
+      OrderType type,
+      BigDecimal price,
+      BigDecimal quantity,
+      String clientOrderId) {
+    ExecutionRequest request = parent.request;
     OrderRequest orderRequest = new OrderRequest();
     orderRequest.setSymbol(request.symbol());
     orderRequest.setSide(request.side());
     orderRequest.setType(type);
     orderRequest.setDryRun(request.dryRun());
-    orderRequest.setClientOrderId(clientOrderId == null ? IdGenerator.newClientOrderId() : clientOrderId);
+    orderRequest.setClientOrderId(
+        clientOrderId == null ? IdGenerator.newClientOrderId() : clientOrderId);
     if (type == OrderType.LIMIT) {
       orderRequest.setPrice(price);
       orderRequest.setQuantity(quantity);
@@ -282,7 +700,20 @@ public class ExecutionEngine {
         request.volume24h(),
         request.atr(),
         submittedAt);
+    // registered before the request goes out so a stream fill that beats the response is not lost
+    children.put(orderRequest.getClientOrderId(), parent);
+    parent.childFills.putIfAbsent(orderRequest.getClientOrderId(), BigDecimal.ZERO);
+    // persisted as working before it goes out: a restart that never saw the response looks the
+    // child up by client id instead of re-sending a slice the exchange may already have filled
+    parent.workingClientOrderId = orderRequest.getClientOrderId();
+    parent.workingOrderId = null;
+    parent.workingPrice = type == OrderType.LIMIT ? price : null;
+    persist(parent, ParentOrderStatus.WORKING);
     OrderResponse response = orderService.placeOrder(orderRequest);
+    parent.clearWorking();
+    parent.responses.add(response);
+    parent.childFills.merge(
+        orderRequest.getClientOrderId(), safeQty(response.executedQty()), BigDecimal::max);
     long queue =
         response.transactTime() == null
             ? 0
@@ -291,7 +722,11 @@ public class ExecutionEngine {
     anomalyDetector.recordQueueTime(request.symbol(), queue);
     BigDecimal fillPrice = resolveFillPrice(response, price);
     tcaService.recordFill(
-        response.clientOrderId(), response.orderId(), fillPrice, BigDecimal.valueOf(request.spreadBps()), response.transactTime());
+        response.clientOrderId(),
+        response.orderId(),
+        fillPrice,
+        BigDecimal.valueOf(request.spreadBps()),
+        response.transactTime());
     return response;
   }
 
@@ -310,10 +745,12 @@ public class ExecutionEngine {
     double slippage =
         request.referencePrice().compareTo(BigDecimal.ZERO) <= 0
             ? Double.NaN
-            : price.subtract(request.referencePrice())
+            : price
+                    .subtract(request.referencePrice())
                     .divide(request.referencePrice(), 8, RoundingMode.HALF_UP)
                     .multiply(BigDecimal.valueOf(10000))
-                    .doubleValue() * (request.side() == OrderSide.BUY ? 1 : -1);
+                    .doubleValue()
+                * (request.side() == OrderSide.BUY ? 1 : -1);
     if (!Double.isNaN(slippage)) {
       UUID tenantId = TenantContext.getTenantId();
       slippageMetrics.record(tenantId, request.symbol(), slippage);
@@ -322,7 +759,8 @@ public class ExecutionEngine {
   }
 
   private BigDecimal adjustLimitPrice(OrderSide side, BigDecimal reference, double bufferBps) {
-    BigDecimal factor = BigDecimal.valueOf(bufferBps).divide(BigDecimal.valueOf(10000), 8, RoundingMode.HALF_UP);
+    BigDecimal factor =
+        BigDecimal.valueOf(bufferBps).divide(BigDecimal.valueOf(10000), 8, RoundingMode.HALF_UP);
     if (side == OrderSide.BUY) {
       return reference.multiply(BigDecimal.ONE.subtract(factor)).setScale(8, RoundingMode.HALF_UP);
     }
@@ -353,18 +791,8 @@ public class ExecutionEngine {
     povMetrics.update(tenantId, symbol, participation);
   }
 
-  private void sleep(long millis) {
-    if (millis <= 0) {
-      return;
-    }
-    try {
-      Thread.sleep(Math.min(millis, 1000));
-    } catch (InterruptedException ex) {
-      Thread.currentThread().interrupt();
-    }
-  }
-
-  public record ExecutionResult(OrderPlan plan, List<OrderResponse> orders, BigDecimal executedQty, BigDecimal averagePrice) {
+  public record ExecutionResult(
+      OrderPlan plan, List<OrderResponse> orders, BigDecimal executedQty, BigDecimal averagePrice) {
     public ExecutionResult {
       orders = List.copyOf(orders);
     }
@@ -0,0 +1,19 @@
+package com.bottrading.execution;
+
+import com.bottrading.execution.ExecutionEngine.ExecutionResult;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A parent order that is being worked. {@code result} completes once the plan finished or failed;
+ * {@code context} is the caller's opaque payload, persisted with the order and handed back when the
+ * order is resumed after a restart.
+ */
+public record ExecutionHandle(
+    String parentId, String context, CompletableFuture<ExecutionResult> result) {
+
+  public ExecutionHandle {
+    Objects.requireNonNull(parentId, "parentId");
+    Objects.requireNonNull(result, "result");
+  }
+}
@@ -0,0 +1,94 @@
+package com.bottrading.execution;
+
+import com.bottrading.execution.ExecutionEngine.ExecutionResult;
+import com.bottrading.execution.ExecutionPolicy.OrderPlan;
+import com.bottrading.model.dto.OrderResponse;
+import com.bottrading.model.entity.ParentOrderEntity;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Mutable state of one parent order. Timer and fill events for the same parent are serialised on
+ * the instance monitor by {@link ExecutionEngine}; nothing here is thread-safe on its own.
+ */
+final class ParentOrder {
+
+  final ExecutionRequest request;
+  final MarketSnapshot snapshot;
+  final OrderPlan plan;
+  final UUID tenantId;
+  final String context;
+  final CompletableFuture<ExecutionResult> future = new CompletableFuture<>();
+  final List<OrderResponse> responses = new ArrayList<>();
+
+  /** Filled quantity per child client order id, as last reported by a response or the stream. */
+  final Map<String, BigDecimal> childFills = new HashMap<>();
+
+  BigDecimal executedQty = BigDecimal.ZERO;
+  BigDecimal executedQuote = BigDecimal.ZERO;
+
+  /** Next slice (TWAP/POV) or limit attempt. */
+  int step;
+
+  String workingClientOrderId;
+  String workingOrderId;
+  BigDecimal workingPrice;
+  long nextEventAt;
+  ScheduledFuture<?> timer;
+
+  /**
+   * Bumped whenever the timer is scheduled or cancelled; a timer task that already started and is
+   * waiting on the monitor compares it to tell whether it is still the current event.
+   */
+  long timerGeneration;
+
+  boolean done;
+  ParentOrderEntity entity;
+
+  ParentOrder(
+      ExecutionRequest request,
+      MarketSnapshot snapshot,
+      OrderPlan plan,
+      UUID tenantId,
+      String context) {
+    this.request = request;
+    this.snapshot = snapshot;
+    this.plan = plan;
+    this.tenantId = tenantId;
+    this.context = context;
+  }
+
+  String id() {
+    return request.baseClientOrderId();
+  }
+
+  BigDecimal remaining() {
+    return request.quantity().subtract(executedQty);
+  }
+
+  void addFill(BigDecimal price, BigDecimal qty) {
+    executedQty = executedQty.add(qty);
+    executedQuote = executedQuote.add(price.multiply(qty));
+  }
+
+  void clearWorking() {
+    workingClientOrderId = null;
+    workingOrderId = null;
+    workingPrice = null;
+  }
+
+  ExecutionResult result() {
+    BigDecimal avgPrice =
+        executedQty.compareTo(BigDecimal.ZERO) > 0
+            ? executedQuote.divide(executedQty, 8, RoundingMode.HALF_UP)
+            : request.referencePrice();
+    return new ExecutionResult(plan, responses, executedQty, avgPrice);
+  }
+}
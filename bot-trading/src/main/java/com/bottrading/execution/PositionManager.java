@@ -13,9 +13,11 @@ import com.bottrading.notify.TelegramNotifier;
 import com.bottrading.repository.ManagedOrderRepository;
 import com.bottrading.repository.PositionRepository;
 import com.bottrading.repository.TradeRepository;
+import com.bottrading.saas.security.TenantAccessGuard;
 import com.bottrading.service.binance.BinanceClient;
 import com.bottrading.service.report.PnlAttributionService;
-import com.bottrading.saas.security.TenantAccessGuard;
+import com.bottrading.service.risk.ExposureLedger;
+import com.bottrading.service.risk.VarSampleStore;
 import com.bottrading.service.risk.drift.DriftWatchdog;
 import com.bottrading.util.IdGenerator;
 import io.micrometer.core.instrument.Counter;
@@ -29,11 +31,11 @@ import java.util.Collection;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
-import java.util.UUID;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -61,6 +63,8 @@ public class PositionManager {
   private final DriftWatchdog driftWatchdog;
   private final PnlAttributionService pnlAttributionService;
   private final TenantAccessGuard tenantAccessGuard;
+  private final ExposureLedger exposureLedger;
+  private final VarSampleStore varSampleStore;
   private final ConcurrentMap<Long, ReentrantLock> positionLocks = new ConcurrentHashMap<>();
 
   public PositionManager(
@@ -75,7 +79,9 @@ public class PositionManager {
       Optional<Clock> clock,
       DriftWatchdog driftWatchdog,
       PnlAttributionService pnlAttributionService,
-      TenantAccessGuard tenantAccessGuard) {
+      TenantAccessGuard tenantAccessGuard,
+      ExposureLedger exposureLedger,
+      VarSampleStore varSampleStore) {
     this.positionRepository = positionRepository;
     this.managedOrderRepository = managedOrderRepository;
     this.tradeRepository = tradeRepository;
@@ -93,6 +99,8 @@ public class PositionManager {
     this.driftWatchdog = driftWatchdog;
     this.pnlAttributionService = pnlAttributionService;
     this.tenantAccessGuard = tenantAccessGuard;
+    this.exposureLedger = exposureLedger;
+    this.varSampleStore = varSampleStore;
   }
 
   @Transactional
@@ -121,19 +129,38 @@ public class PositionManager {
     entity.setPresetId(command.presetId());
     PositionEntity saved = positionRepository.save(entity);
     positionLocks.putIfAbsent(saved.getId(), new ReentrantLock());
-
-    ManagedOrderEntity sl = createChildOrder(saved, ManagedOrderType.STOP_LOSS, command.stopLoss(), command.stopLoss(), command.quantity());
-    ManagedOrderEntity tp = createChildOrder(saved, ManagedOrderType.TAKE_PROFIT, command.takeProfit(), null, command.quantity());
-
-    placeProtectiveOrders(saved, Map.of(ManagedOrderType.STOP_LOSS, sl, ManagedOrderType.TAKE_PROFIT, tp));
-
-    notifier.notifyPositionOpened(saved.getSymbol(), saved.getSide(), saved.getQtyInit(), saved.getEntryPrice(), saved.getCorrelationId());
+    exposureLedger.onPositionChanged(saved);
+
+    ManagedOrderEntity sl =
+        createChildOrder(
+            saved,
+            ManagedOrderType.STOP_LOSS,
+            command.stopLoss(),
+            command.stopLoss(),
+            command.quantity());
+    ManagedOrderEntity tp =
+        createChildOrder(
+            saved, ManagedOrderType.TAKE_PROFIT, command.takeProfit(), null, command.quantity());
+
+    placeProtectiveOrders(
+        saved, Map.of(ManagedOrderType.STOP_LOSS, sl, ManagedOrderType.TAKE_PROFIT, tp));
+
+    notifier.notifyPositionOpened(
+        saved.getSymbol(),
+        saved.getSide(),
+        saved.getQtyInit(),
+        saved.getEntryPrice(),
+        saved.getCorrelationId());
     positionsOpened.increment();
     return saved;
   }
 
   private ManagedOrderEntity createChildOrder(
-      PositionEntity position, ManagedOrderType type, BigDecimal price, BigDecimal stopPrice, BigDecimal quantity) {
+      PositionEntity position,
+      ManagedOrderType type,
+      BigDecimal price,
+      BigDecimal stopPrice,
+      BigDecimal quantity) {
     ManagedOrderEntity entity = new ManagedOrderEntity();
     entity.setPosition(position);
     entity.setType(type);
@@ -149,9 +176,14 @@ public class PositionManager {
     return managedOrderRepository.save(entity);
   }
 
-  private void placeProtectiveOrders(PositionEntity position, Map<ManagedOrderType, ManagedOrderEntity> orders) {
+  private void placeProtectiveOrders(
+      PositionEntity position, Map<ManagedOrderType, ManagedOrderEntity> orders) {
     try {
-      boolean ocoCreated = binanceClient.placeOcoOrder(position.getSymbol(), orders.get(ManagedOrderType.STOP_LOSS), orders.get(ManagedOrderType.TAKE_PROFIT));
+      boolean ocoCreated =
+          binanceClient.placeOcoOrder(
+              position.getSymbol(),
+              orders.get(ManagedOrderType.STOP_LOSS),
+              orders.get(ManagedOrderType.TAKE_PROFIT));
       if (!ocoCreated && ocoProperties.getClientEmulation().isEnabled()) {
         log.debug("Native OCO unavailable for {}, registering emulation", position.getSymbol());
         createSingleProtectiveOrder(orders.get(ManagedOrderType.STOP_LOSS));
@@ -178,7 +210,8 @@ public class PositionManager {
     if (update == null || update.clientOrderId() == null) {
       return;
     }
-    ManagedOrderEntity order = managedOrderRepository.findByClientOrderId(update.clientOrderId()).orElse(null);
+    ManagedOrderEntity order =
+        managedOrderRepository.findByClientOrderId(update.clientOrderId()).orElse(null);
     if (order == null) {
       log.debug("Received update for unmanaged order {}", update.clientOrderId());
       return;
@@ -190,7 +223,8 @@ public class PositionManager {
       return;
     }
     try {
-      if (order.getStatus() == update.status() && Objects.equals(order.getFilledQuantity(), update.cumulativeFilledQty())) {
+      if (order.getStatus() == update.status()
+          && Objects.equals(order.getFilledQuantity(), update.cumulativeFilledQty())) {
         return; // idempotent
       }
       order.setStatus(update.status());
@@ -210,6 +244,7 @@ public class PositionManager {
         case REJECTED, ERROR -> {
           position.setStatus(PositionStatus.ERROR);
           positionRepository.save(position);
+          exposureLedger.onPositionChanged(position);
         }
         default -> {}
       }
@@ -218,16 +253,20 @@ public class PositionManager {
     }
   }
 
-  private void handlePartialFill(PositionEntity position, ManagedOrderEntity order, BigDecimal lastFilled, BigDecimal price) {
+  private void handlePartialFill(
+      PositionEntity position, ManagedOrderEntity order, BigDecimal lastFilled, BigDecimal price) {
     ordersPartial.increment();
-    notifier.notifyPartialFill(position.getSymbol(), order.getSide(), lastFilled, price, order.getClientOrderId());
+    notifier.notifyPartialFill(
+        position.getSymbol(), order.getSide(), lastFilled, price, order.getClientOrderId());
     reducePositionQuantity(position, lastFilled);
     managedOrderRepository.save(order);
     positionRepository.save(position);
+    exposureLedger.onPositionChanged(position);
     adjustOppositeQuantity(position, order, lastFilled);
   }
 
-  private void handleFullFill(PositionEntity position, ManagedOrderEntity order, BigDecimal lastFilled, BigDecimal price) {
+  private void handleFullFill(
+      PositionEntity position, ManagedOrderEntity order, BigDecimal lastFilled, BigDecimal price) {
     ordersFilled.increment();
     reducePositionQuantity(position, lastFilled);
     TradeEntity trade = new TradeEntity();
@@ -239,6 +278,10 @@ public class PositionManager {
     trade.setExecutedAt(Instant.now(clock));
     trade.setTenantId(tenantAccessGuard.requireCurrentTenant());
     TradeEntity savedTrade = tradeRepository.save(trade);
+    if (savedTrade != null && savedTrade.getId() != null) {
+      // the new trade joins the VaR sample history once committed
+      varSampleStore.onTradeRecorded(savedTrade.getId());
+    }
 
     BigDecimal incrementalPnl = incrementalPnl(position, lastFilled, price);
     if (incrementalPnl != null) {
@@ -249,10 +292,12 @@ public class PositionManager {
 
     ManagedOrderType type = order.getType();
     if (type == ManagedOrderType.TAKE_PROFIT) {
-      notifier.notifyTakeProfit(position.getSymbol(), order.getSide(), price, realisedPnl(position, price));
+      notifier.notifyTakeProfit(
+          position.getSymbol(), order.getSide(), price, realisedPnl(position, price));
       cancelOpposite(position, ManagedOrderType.STOP_LOSS, order);
     } else if (type == ManagedOrderType.STOP_LOSS) {
-      notifier.notifyStopHit(position.getSymbol(), order.getSide(), price, realisedPnl(position, price));
+      notifier.notifyStopHit(
+          position.getSymbol(), order.getSide(), price, realisedPnl(position, price));
       cancelOpposite(position, ManagedOrderType.TAKE_PROFIT, order);
     }
 
@@ -260,6 +305,7 @@ public class PositionManager {
       closePosition(position);
     } else {
       positionRepository.save(position);
+      exposureLedger.onPositionChanged(position);
     }
   }
 
@@ -271,7 +317,8 @@ public class PositionManager {
     return diff.multiply(position.getQtyInit()).setScale(8, RoundingMode.HALF_UP);
   }
 
-  private BigDecimal incrementalPnl(PositionEntity position, BigDecimal filledQty, BigDecimal exitPrice) {
+  private BigDecimal incrementalPnl(
+      PositionEntity position, BigDecimal filledQty, BigDecimal exitPrice) {
     if (filledQty == null || exitPrice == null) {
       return null;
     }
@@ -282,8 +329,12 @@ public class PositionManager {
     return diff.multiply(filledQty).setScale(8, RoundingMode.HALF_UP);
   }
 
-  private void adjustOppositeQuantity(PositionEntity position, ManagedOrderEntity filled, BigDecimal qtyDelta) {
-    ManagedOrderType oppositeType = filled.getType() == ManagedOrderType.STOP_LOSS ? ManagedOrderType.TAKE_PROFIT : ManagedOrderType.STOP_LOSS;
+  private void adjustOppositeQuantity(
+      PositionEntity position, ManagedOrderEntity filled, BigDecimal qtyDelta) {
+    ManagedOrderType oppositeType =
+        filled.getType() == ManagedOrderType.STOP_LOSS
+            ? ManagedOrderType.TAKE_PROFIT
+            : ManagedOrderType.STOP_LOSS;
     managedOrderRepository
         .findByPositionAndType(position, oppositeType)
         .ifPresent(
@@ -299,18 +350,24 @@ public class PositionManager {
             });
   }
 
-  private void cancelOpposite(PositionEntity position, ManagedOrderType oppositeType, ManagedOrderEntity completed) {
+  private void cancelOpposite(
+      PositionEntity position, ManagedOrderType oppositeType, ManagedOrderEntity completed) {
     managedOrderRepository
         .findByPositionAndType(position, oppositeType)
         .ifPresent(
             other -> {
-              if (other.getStatus() == ManagedOrderStatus.CANCELED || other.getStatus() == ManagedOrderStatus.FILLED) {
+              if (other.getStatus() == ManagedOrderStatus.CANCELED
+                  || other.getStatus() == ManagedOrderStatus.FILLED) {
                 return;
               }
               try {
                 binanceClient.cancelOrder(other);
               } catch (Exception ex) {
-                log.warn("Failed to cancel opposite order {} after fill {}: {}", other.getClientOrderId(), completed.getClientOrderId(), ex.getMessage());
+                log.warn(
+                    "Failed to cancel opposite order {} after fill {}: {}",
+                    other.getClientOrderId(),
+                    completed.getClientOrderId(),
+                    ex.getMessage());
                 if (ocoProperties.getClientEmulation().getCancelGraceMillis() > 0) {
                   ocoCorrections.increment();
                 }
@@ -346,6 +403,7 @@ public class PositionManager {
       position.setStopLoss(newStopPrice);
       position.setLastUpdateAt(Instant.now(clock));
       positionRepository.save(position);
+      exposureLedger.onPositionChanged(position);
     } finally {
       lock.unlock();
     }
@@ -363,11 +421,14 @@ public class PositionManager {
     position.setQtyRemaining(BigDecimal.ZERO);
     position.setLastUpdateAt(position.getClosedAt());
     positionRepository.save(position);
+    exposureLedger.onPositionChanged(position);
     managedOrderRepository
         .findByPosition(position)
         .forEach(
             order -> {
-              if (order.getStatus() == ManagedOrderStatus.WORKING || order.getStatus() == ManagedOrderStatus.NEW || order.getStatus() == ManagedOrderStatus.PARTIAL) {
+              if (order.getStatus() == ManagedOrderStatus.WORKING
+                  || order.getStatus() == ManagedOrderStatus.NEW
+                  || order.getStatus() == ManagedOrderStatus.PARTIAL) {
                 cancelOrder(order);
                 order.setStatus(ManagedOrderStatus.CANCELED);
                 order.setUpdatedAt(Instant.now(clock));
@@ -395,9 +456,7 @@ public class PositionManager {
                 closePosition(position);
               } catch (Exception ex) {
                 log.warn(
-                    "Failed to force close position {}: {}",
-                    position.getId(),
-                    ex.getMessage());
+                    "Failed to force close position {}: {}", position.getId(), ex.getMessage());
               }
             });
   }
@@ -407,20 +466,28 @@ public class PositionManager {
     int adopted = 0;
     int cancelled = 0;
     for (ExternalOrderSnapshot snapshot : snapshots) {
-      ManagedOrderEntity order = managedOrderRepository.findByClientOrderId(snapshot.clientOrderId()).orElse(null);
+      ManagedOrderEntity order =
+          managedOrderRepository.findByClientOrderId(snapshot.clientOrderId()).orElse(null);
       if (order == null) {
-        notifier.notifyReconciledItem(snapshot.symbol(), "adopting order " + snapshot.clientOrderId());
+        notifier.notifyReconciledItem(
+            snapshot.symbol(), "adopting order " + snapshot.clientOrderId());
         adopted++;
         continue;
       }
-      if (snapshot.status() == ManagedOrderStatus.CANCELED || snapshot.status() == ManagedOrderStatus.FILLED) {
+      if (snapshot.status() == ManagedOrderStatus.CANCELED
+          || snapshot.status() == ManagedOrderStatus.FILLED) {
         order.setStatus(snapshot.status());
         order.setFilledQuantity(snapshot.executedQty());
         order.setExchangeOrderId(snapshot.exchangeOrderId());
         order.setUpdatedAt(snapshot.eventTime());
         managedOrderRepository.save(order);
-      } else if (order.getStatus() == ManagedOrderStatus.CANCELED && snapshot.status() == ManagedOrderStatus.WORKING) {
-        notifier.notifyOcoCorrected(snapshot.symbol(), order.getClientOrderId(), snapshot.exchangeOrderId(), Instant.now(clock));
+      } else if (order.getStatus() == ManagedOrderStatus.CANCELED
+          && snapshot.status() == ManagedOrderStatus.WORKING) {
+        notifier.notifyOcoCorrected(
+            snapshot.symbol(),
+            order.getClientOrderId(),
+            snapshot.exchangeOrderId(),
+            Instant.now(clock));
         ocoCorrections.increment();
         cancelOrder(order);
         cancelled++;
@@ -0,0 +1,140 @@
+package com.bottrading.executor;
+
+import com.bottrading.config.PersistenceProperties;
+import com.bottrading.model.entity.DecisionEntity;
+import com.bottrading.persistence.IdempotencyIndex;
+import com.bottrading.persistence.WriteBehindWriter;
+import com.bottrading.repository.DecisionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decision idempotency and persistence off the candle path. Duplicate checks are answered by an
+ * {@link IdempotencyIndex} seeded with the keys decided in the last {@code seedLookbackHours}; only
+ * keys the index cannot rule out, or candles older than the seeded horizon, fall back to the
+ * repository. Decision rows are upserted through the {@link WriteBehindWriter}, so the later
+ * EXECUTION_FAILED update lands on the same row.
+ */
+@Component
+public class DecisionJournal {
+
+  private static final Logger log = LoggerFactory.getLogger(DecisionJournal.class);
+
+  /**
+   * Standard SQL {@code MERGE}, which both PostgreSQL (15+) and the H2 test profile accept; {@code
+   * interval} is quoted because H2 reserves it.
+   */
+  static final WriteBehindWriter.Statement UPSERT =
+      new WriteBehindWriter.Statement(
+          "decisions",
+          "MERGE INTO decisions d USING (SELECT CAST(:decisionKey AS VARCHAR(120)) AS decision_key)"
+              + " s ON d.decision_key = s.decision_key WHEN MATCHED THEN UPDATE SET reason ="
+              + " :reason, executed = :executed, order_id = :orderId WHEN NOT MATCHED THEN INSERT"
+              + " (decision_key, symbol, \"interval\", close_time, side, confidence, reason,"
+              + " decided_at, executed, order_id, regime_trend, regime_volatility, preset_key,"
+              + " preset_id) VALUES (:decisionKey, :symbol, :interval, :closeTime, :side,"
+              + " :confidence, :reason, :decidedAt, :executed, :orderId, :regimeTrend,"
+              + " :regimeVolatility, :presetKey, :presetId)");
+
+  private final DecisionRepository decisionRepository;
+  private final WriteBehindWriter writer;
+  private final PersistenceProperties.DecisionIndex properties;
+  private final Clock clock;
+  private final IdempotencyIndex index;
+  private final Counter indexHits;
+  private final Counter indexMisses;
+  private final Counter databaseChecks;
+  private volatile Instant seededSince;
+
+  public DecisionJournal(
+      DecisionRepository decisionRepository,
+      WriteBehindWriter writer,
+      PersistenceProperties persistenceProperties,
+      MeterRegistry meterRegistry,
+      ObjectProvider<Clock> clockProvider) {
+    this.decisionRepository = decisionRepository;
+    this.writer = writer;
+    this.properties = persistenceProperties.getDecisionIndex();
+    this.clock = Objects.requireNonNullElse(clockProvider.getIfAvailable(), Clock.systemUTC());
+    this.index =
+        new IdempotencyIndex(
+            properties.getExpectedKeys(),
+            properties.getFalsePositiveRate(),
+            properties.getRecentKeys());
+    this.indexHits = meterRegistry.counter("scheduler.decision.dedupe", "source", "recent");
+    this.indexMisses = meterRegistry.counter("scheduler.decision.dedupe", "source", "bloom");
+    this.databaseChecks = meterRegistry.counter("scheduler.decision.dedupe", "source", "db");
+  }
+
+  @PostConstruct
+  public void seed() {
+    Instant since = Instant.now(clock).minus(Duration.ofHours(properties.getSeedLookbackHours()));
+    try {
+      List<String> keys = decisionRepository.findDecisionKeysSince(since);
+      keys.forEach(index::add);
+      seededSince = since;
+      log.info("Decision index seeded with {} keys since {}", keys.size(), since);
+    } catch (RuntimeException ex) {
+      log.warn("Decision index not seeded; duplicate checks will hit the database", ex);
+    }
+  }
+
+  public boolean isDuplicate(String decisionKey, long closeTime) {
+    IdempotencyIndex.Membership membership = index.check(decisionKey);
+    if (membership == IdempotencyIndex.Membership.PRESENT) {
+      indexHits.increment();
+      return true;
+    }
+    Instant horizon = seededSince;
+    if (membership == IdempotencyIndex.Membership.ABSENT
+        && horizon != null
+        && closeTime >= horizon.toEpochMilli()) {
+      indexMisses.increment();
+      return false;
+    }
+    databaseChecks.increment();
+    boolean exists = decisionRepository.existsById(decisionKey);
+    if (exists) {
+      index.add(decisionKey);
+    }
+    return exists;
+  }
+
+  public void record(DecisionEntity entity) {
+    index.add(entity.getDecisionKey());
+    Map<String, Object> params = new LinkedHashMap<>();
+    params.put("decisionKey", entity.getDecisionKey());
+    params.put("symbol", entity.getSymbol());
+    params.put("interval", entity.getInterval());
+    params.put("closeTime", utc(entity.getCloseTime()));
+    params.put("side", entity.getSide() != null ? entity.getSide().name() : null);
+    params.put("confidence", entity.getConfidence());
+    params.put("reason", entity.getReason());
+    params.put("decidedAt", utc(entity.getDecidedAt()));
+    params.put("executed", entity.isExecuted());
+    params.put("orderId", entity.getOrderId());
+    params.put("regimeTrend", entity.getRegimeTrend());
+    params.put("regimeVolatility", entity.getRegimeVolatility());
+    params.put("presetKey", entity.getPresetKey());
+    params.put("presetId", entity.getPresetId());
+    writer.enqueue(UPSERT, params);
+  }
+
+  private static LocalDateTime utc(Instant instant) {
+    return instant != null ? LocalDateTime.ofInstant(instant, ZoneOffset.UTC) : null;
+  }
+}
@@ -0,0 +1,269 @@
+package com.bottrading.executor;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
+
+/**
+ * Streaming decoder for kline and mini ticker frames, raw or wrapped in a combined-stream {@code
+ * data} envelope. Fields are read straight off the parser into one reused {@link Event}: numbers
+ * are parsed from the token characters and symbols/intervals resolve to canonical strings, so a
+ * steady-state frame allocates no strings, trees or decimals. A kline that is not final stops the
+ * parse at its {@code x} field. Not thread-safe; one instance per connection.
+ */
+final class MarketStreamDecoder {
+
+  private static final JsonFactory JSON = new JsonFactory();
+  private static final double[] POW10 = new double[23];
+  private static final long MAX_EXACT = 1L << 53;
+
+  static {
+    POW10[0] = 1;
+    for (int i = 1; i < POW10.length; i++) {
+      POW10[i] = POW10[i - 1] * 10;
+    }
+  }
+
+  enum Type {
+    KLINE,
+    MINI_TICKER,
+    OTHER
+  }
+
+  /** Reused across frames; valid until the next {@link #decode} call. */
+  static final class Event {
+    Type type;
+    String symbol;
+    String interval;
+    long openTime;
+    long closeTime;
+    double open;
+    double high;
+    double low;
+    double close;
+    double volume;
+    double quoteVolume;
+    boolean closed;
+
+    private void reset() {
+      type = Type.OTHER;
+      symbol = null;
+      interval = null;
+      openTime = 0;
+      closeTime = 0;
+      open = high = low = close = volume = quoteVolume = Double.NaN;
+      closed = false;
+    }
+  }
+
+  private final Event event = new Event();
+  private final Canonical symbols = new Canonical();
+  private final Canonical intervals = new Canonical();
+
+  Event decode(char[] chars, int length) throws IOException {
+    event.reset();
+    try (JsonParser parser = JSON.createParser(chars, 0, length)) {
+      if (parser.nextToken() == JsonToken.START_OBJECT) {
+        readObject(parser);
+      }
+    }
+    return event;
+  }
+
+  /** Returns false when the parse stopped early. */
+  private boolean readObject(JsonParser parser) throws IOException {
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String name = parser.currentName();
+      JsonToken value = parser.nextToken();
+      switch (name) {
+        case "data" -> {
+          if (value == JsonToken.START_OBJECT) {
+            if (!readObject(parser)) {
+              return false;
+            }
+          } else {
+            parser.skipChildren();
+          }
+        }
+        case "e" -> {
+          if (value == JsonToken.VALUE_STRING && matches(parser, "24hrMiniTicker")) {
+            event.type = Type.MINI_TICKER;
+          }
+        }
+        case "s" -> event.symbol = symbols.canonical(parser);
+        case "q" -> event.quoteVolume = number(parser);
+        case "k" -> {
+          if (value != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+          } else {
+            event.type = Type.KLINE;
+            if (!readKline(parser)) {
+              return false;
+            }
+          }
+        }
+        default -> parser.skipChildren();
+      }
+    }
+    return true;
+  }
+
+  private boolean readKline(JsonParser parser) throws IOException {
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String name = parser.currentName();
+      parser.nextToken();
+      switch (name) {
+        case "t" -> event.openTime = parser.getValueAsLong();
+        case "T" -> event.closeTime = parser.getValueAsLong();
+        case "s" -> event.symbol = symbols.canonical(parser);
+        case "i" -> event.interval = intervals.canonical(parser);
+        case "o" -> event.open = number(parser);
+        case "h" -> event.high = number(parser);
+        case "l" -> event.low = number(parser);
+        case "c" -> event.close = number(parser);
+        case "v" -> event.volume = number(parser);
+        case "x" -> {
+          event.closed = parser.getValueAsBoolean();
+          if (!event.closed && event.symbol != null && event.interval != null) {
+            return false;
+          }
+        }
+        default -> parser.skipChildren();
+      }
+    }
+    return true;
+  }
+
+  private static boolean matches(JsonParser parser, String expected) throws IOException {
+    if (parser.getTextLength() != expected.length()) {
+      return false;
+    }
+    char[] chars = parser.getTextCharacters();
+    int offset = parser.getTextOffset();
+    for (int i = 0; i < expected.length(); i++) {
+      if (chars[offset + i] != expected.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static double number(JsonParser parser) throws IOException {
+    JsonToken token = parser.currentToken();
+    if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+      return parser.getDoubleValue();
+    }
+    if (token != JsonToken.VALUE_STRING) {
+      return Double.NaN;
+    }
+    return parseDouble(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+  }
+
+  /**
+   * Plain decimals ({@code -12.3400}) whose digits fit below 2^53 with at most 22 decimals take the
+   * exact fast path: an integer mantissa divided by a power of ten is correctly rounded when both
+   * are exact doubles. Anything else goes through {@link Double#parseDouble}.
+   */
+  static double parseDouble(char[] chars, int offset, int length) {
+    int i = offset;
+    int end = offset + length;
+    boolean negative = false;
+    if (i < end && (chars[i] == '-' || chars[i] == '+')) {
+      negative = chars[i] == '-';
+      i++;
+    }
+    long mantissa = 0;
+    int scale = 0;
+    boolean dot = false;
+    boolean digits = false;
+    for (; i < end; i++) {
+      char ch = chars[i];
+      if (ch >= '0' && ch <= '9') {
+        digits = true;
+        mantissa = mantissa * 10 + (ch - '0');
+        if (dot) {
+          scale++;
+        }
+        if (mantissa >= MAX_EXACT || scale >= POW10.length) {
+          return slow(chars, offset, length);
+        }
+      } else if (ch == '.' && !dot) {
+        dot = true;
+      } else {
+        return slow(chars, offset, length);
+      }
+    }
+    if (!digits) {
+      return slow(chars, offset, length);
+    }
+    double value = mantissa / POW10[scale];
+    return negative ? -value : value;
+  }
+
+  private static double slow(char[] chars, int offset, int length) {
+    return Double.parseDouble(new String(chars, offset, length));
+  }
+
+  /** Open-addressing table that hands out one String per distinct character sequence. */
+  static final class Canonical {
+    private String[] table = new String[64];
+    private int size;
+
+    String canonical(JsonParser parser) throws IOException {
+      if (parser.currentToken() != JsonToken.VALUE_STRING) {
+        return parser.getValueAsString();
+      }
+      return canonical(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+    }
+
+    String canonical(char[] chars, int offset, int length) {
+      int hash = 0;
+      for (int i = 0; i < length; i++) {
+        hash = 31 * hash + chars[offset + i];
+      }
+      int mask = table.length - 1;
+      for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+        String candidate = table[slot];
+        if (candidate == null) {
+          String created = new String(chars, offset, length);
+          table[slot] = created;
+          if (++size * 2 > table.length) {
+            grow();
+          }
+          return created;
+        }
+        if (candidate.hashCode() == hash && same(candidate, chars, offset, length)) {
+          return candidate;
+        }
+      }
+    }
+
+    private static boolean same(String candidate, char[] chars, int offset, int length) {
+      if (candidate.length() != length) {
+        return false;
+      }
+      for (int i = 0; i < length; i++) {
+        if (candidate.charAt(i) != chars[offset + i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private void grow() {
+      String[] old = table;
+      table = new String[old.length * 2];
+      int mask = table.length - 1;
+      for (String value : old) {
+        if (value != null) {
+          int slot = value.hashCode() & mask;
+          while (table[slot] != null) {
+            slot = (slot + 1) & mask;
+          }
+          table[slot] = value;
+        }
+      }
+    }
+  }
+}
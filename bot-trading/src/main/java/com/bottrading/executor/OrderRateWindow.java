@@ -0,0 +1,75 @@
+package com.bottrading.executor;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lock-free sliding one-minute order budget shared by all symbol lanes. Each slot holds the time an
+ * order was reserved; a slot older than the window is free and is claimed with a CAS, so two lanes
+ * can never both take the last slot. Raising the limit at runtime grows the slot array.
+ */
+class OrderRateWindow {
+
+  static final long WINDOW_MILLIS = 60_000L;
+  private static final long FREE = Long.MIN_VALUE;
+
+  private final AtomicReference<AtomicLongArray> slots = new AtomicReference<>(empty(16));
+
+  /**
+   * Returns the claimed slot, or -1 when {@code limit} orders were already reserved this window.
+   */
+  int tryAcquire(long nowMillis, int limit) {
+    AtomicLongArray current = ensureCapacity(limit);
+    long cutoff = nowMillis - WINDOW_MILLIS;
+    for (int i = 0; i < limit; i++) {
+      long stamp = current.get(i);
+      if (stamp < cutoff && current.compareAndSet(i, stamp, nowMillis)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /** Returns a slot claimed for an order that was never placed. */
+  void release(int slot, long stampMillis) {
+    if (slot >= 0) {
+      slots.get().compareAndSet(slot, stampMillis, FREE);
+    }
+  }
+
+  int used(long nowMillis, int limit) {
+    AtomicLongArray current = slots.get();
+    long cutoff = nowMillis - WINDOW_MILLIS;
+    int used = 0;
+    for (int i = 0; i < Math.min(limit, current.length()); i++) {
+      if (current.get(i) >= cutoff) {
+        used++;
+      }
+    }
+    return used;
+  }
+
+  private AtomicLongArray ensureCapacity(int limit) {
+    while (true) {
+      AtomicLongArray current = slots.get();
+      if (current.length() >= limit) {
+        return current;
+      }
+      AtomicLongArray grown = empty(Math.max(limit, current.length() * 2));
+      for (int i = 0; i < current.length(); i++) {
+        grown.set(i, current.get(i));
+      }
+      if (slots.compareAndSet(current, grown)) {
+        return grown;
+      }
+    }
+  }
+
+  private static AtomicLongArray empty(int size) {
+    AtomicLongArray array = new AtomicLongArray(size);
+    for (int i = 0; i < size; i++) {
+      array.set(i, FREE);
+    }
+    return array;
+  }
+}
@@ -0,0 +1,84 @@
+package com.bottrading.executor;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * One serialized queue per symbol. Tasks for the same symbol run one at a time in submission order;
+ * different symbols run in parallel on the executor. Lock-free: a lane schedules a drain on the
+ * executor only when its pending count goes from zero to one.
+ */
+class SymbolLanes {
+
+  private static final Logger log = LoggerFactory.getLogger(SymbolLanes.class);
+
+  private final Executor executor;
+  private final int maxDepth;
+  private final ConcurrentMap<String, Lane> lanes = new ConcurrentHashMap<>();
+
+  SymbolLanes(Executor executor, int maxDepth) {
+    if (maxDepth <= 0) {
+      throw new IllegalArgumentException("maxDepth must be positive");
+    }
+    this.executor = executor;
+    this.maxDepth = maxDepth;
+  }
+
+  /** Returns false, without queueing, when the symbol already has {@code maxDepth} tasks. */
+  boolean submit(String symbol, Runnable task) {
+    return lanes.computeIfAbsent(symbol, key -> new Lane(key)).offer(task);
+  }
+
+  /** Queued plus running tasks for the symbol. */
+  int pending(String symbol) {
+    Lane lane = lanes.get(symbol);
+    return lane == null ? 0 : lane.depth.get();
+  }
+
+  private final class Lane implements Runnable {
+    private final String symbol;
+    private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger depth = new AtomicInteger();
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private Lane(String symbol) {
+      this.symbol = symbol;
+    }
+
+    private boolean offer(Runnable task) {
+      int current;
+      do {
+        current = depth.get();
+        if (current >= maxDepth) {
+          return false;
+        }
+      } while (!depth.compareAndSet(current, current + 1));
+      queue.add(task);
+      // counted only after the task is visible, so a drain never polls an empty queue
+      if (pending.getAndIncrement() == 0) {
+        executor.execute(this);
+      }
+      return true;
+    }
+
+    @Override
+    public void run() {
+      do {
+        Runnable task = queue.poll();
+        try {
+          task.run();
+        } catch (RuntimeException ex) {
+          log.warn("Lane task for {} failed: {}", symbol, ex.getMessage(), ex);
+        } finally {
+          depth.decrementAndGet();
+        }
+      } while (pending.decrementAndGet() > 0);
+    }
+  }
+}
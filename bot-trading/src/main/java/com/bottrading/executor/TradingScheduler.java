@@ -2,27 +2,29 @@ package com.bottrading.executor;
 
 // FIX: Update Micrometer Timer.Sample usage for Java 21 compatibility.
 
+import com.bottrading.bandit.BanditArmRole;
+import com.bottrading.chaos.ChaosSuite;
 import com.bottrading.config.TradingProps;
 import com.bottrading.config.TradingProps.Mode;
-import com.bottrading.chaos.ChaosSuite;
+import com.bottrading.execution.ExecutionHandle;
 import com.bottrading.model.dto.Kline;
-import com.bottrading.repository.DecisionRepository;
 import com.bottrading.service.OrderExecutionService;
 import com.bottrading.service.StrategyService;
 import com.bottrading.service.anomaly.AnomalyDetector;
 import com.bottrading.service.binance.BinanceClient;
 import com.bottrading.service.health.HealthService;
-import com.bottrading.bandit.BanditArmRole;
+import com.bottrading.service.market.CandleSanitizer;
+import com.bottrading.service.market.CandleStore;
+import com.bottrading.service.market.MarketStats;
+import com.bottrading.service.preset.CanaryStageService;
 import com.bottrading.service.risk.RiskGuard;
 import com.bottrading.service.risk.TradingState;
 import com.bottrading.service.risk.drift.DriftWatchdog;
-import com.bottrading.service.market.CandleSanitizer;
 import com.bottrading.service.trading.AllocatorService;
 import com.bottrading.service.trading.AllocatorService.AllocationDecision;
 import com.bottrading.strategy.SignalResult;
 import com.bottrading.strategy.SignalSide;
 import com.bottrading.strategy.StrategyDecision;
-import com.bottrading.service.preset.CanaryStageService;
 import com.bottrading.throttle.Endpoint;
 import com.bottrading.throttle.Throttle;
 import io.micrometer.core.instrument.Gauge;
@@ -30,30 +32,32 @@ import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Tags;
 import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.math.BigDecimal;
 import java.time.Clock;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.ZoneId;
-import java.util.ArrayList;
-import java.util.Deque;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
@@ -61,6 +65,7 @@ import org.springframework.stereotype.Component;
 public class TradingScheduler {
 
   private static final Logger log = LoggerFactory.getLogger(TradingScheduler.class);
+  private static final int MAX_LANE_DEPTH = 8;
 
   private final TradingProps tradingProps;
   private final StrategyService strategyService;
@@ -68,7 +73,7 @@ public class TradingScheduler {
   private final RiskGuard riskGuard;
   private final BinanceClient binanceClient;
   private final OrderExecutionService orderExecutionService;
-  private final DecisionRepository decisionRepository;
+  private final DecisionJournal decisionJournal;
   private final MeterRegistry meterRegistry;
   private final WSKlineSubscriber klineSubscriber;
   private final AllocatorService allocatorService;
@@ -79,16 +84,21 @@ public class TradingScheduler {
   private final Throttle throttle;
   private final ChaosSuite chaosSuite;
   private final CandleSanitizer candleSanitizer;
+  private final CandleStore candleStore;
+  private final MarketStats marketStats;
   private final AnomalyDetector anomalyDetector;
   private final CanaryStageService canaryStageService;
 
-  private final Lock executionLock = new ReentrantLock();
+  private final SymbolLanes lanes;
+  private final ExecutorService ownedLaneExecutor;
+  private final OrderRateWindow orderRate = new OrderRateWindow();
   private final AtomicBoolean enabled = new AtomicBoolean(true);
   private final ConcurrentMap<String, AtomicLong> lastCloseTimes = new ConcurrentHashMap<>();
   private final AtomicReference<String> lastDecisionKey = new AtomicReference<>("NONE");
-  private final Deque<Instant> orderTimes = new ConcurrentLinkedDeque<>();
   private final ConcurrentMap<String, AtomicLong> backlogGauge = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, Timer> decisionLatency = new ConcurrentHashMap<>();
 
+  @Autowired
   public TradingScheduler(
       TradingProps tradingProps,
       StrategyService strategyService,
@@ -96,7 +106,7 @@ public class TradingScheduler {
       RiskGuard riskGuard,
       BinanceClient binanceClient,
       OrderExecutionService orderExecutionService,
-      DecisionRepository decisionRepository,
+      DecisionJournal decisionJournal,
       MeterRegistry meterRegistry,
       WSKlineSubscriber klineSubscriber,
       AllocatorService allocatorService,
@@ -107,14 +117,73 @@ public class TradingScheduler {
       ChaosSuite chaosSuite,
       AnomalyDetector anomalyDetector,
       CandleSanitizer candleSanitizer,
+      CandleStore candleStore,
+      MarketStats marketStats,
       CanaryStageService canaryStageService) {
+    this(
+        tradingProps,
+        strategyService,
+        tradingState,
+        riskGuard,
+        binanceClient,
+        orderExecutionService,
+        decisionJournal,
+        meterRegistry,
+        klineSubscriber,
+        allocatorService,
+        driftWatchdog,
+        healthService,
+        clockProvider,
+        throttle,
+        chaosSuite,
+        anomalyDetector,
+        candleSanitizer,
+        candleStore,
+        marketStats,
+        canaryStageService,
+        null);
+  }
+
+  /**
+   * Lanes run on {@code laneExecutor}, or on virtual threads owned by the scheduler when null;
+   * tests pass a direct executor to process candles synchronously.
+   */
+  TradingScheduler(
+      TradingProps tradingProps,
+      StrategyService strategyService,
+      TradingState tradingState,
+      RiskGuard riskGuard,
+      BinanceClient binanceClient,
+      OrderExecutionService orderExecutionService,
+      DecisionJournal decisionJournal,
+      MeterRegistry meterRegistry,
+      WSKlineSubscriber klineSubscriber,
+      AllocatorService allocatorService,
+      DriftWatchdog driftWatchdog,
+      HealthService healthService,
+      ObjectProvider<Clock> clockProvider,
+      Throttle throttle,
+      ChaosSuite chaosSuite,
+      AnomalyDetector anomalyDetector,
+      CandleSanitizer candleSanitizer,
+      CandleStore candleStore,
+      MarketStats marketStats,
+      CanaryStageService canaryStageService,
+      Executor laneExecutor) {
+    this.ownedLaneExecutor =
+        laneExecutor == null
+            ? Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("symbol-lane-", 0).factory())
+            : null;
+    this.lanes =
+        new SymbolLanes(laneExecutor != null ? laneExecutor : ownedLaneExecutor, MAX_LANE_DEPTH);
     this.tradingProps = tradingProps;
     this.strategyService = strategyService;
     this.tradingState = tradingState;
     this.riskGuard = riskGuard;
     this.binanceClient = binanceClient;
     this.orderExecutionService = orderExecutionService;
-    this.decisionRepository = decisionRepository;
+    this.decisionJournal = decisionJournal;
     this.meterRegistry = meterRegistry;
     this.klineSubscriber = klineSubscriber;
     this.allocatorService = allocatorService;
@@ -124,6 +193,8 @@ public class TradingScheduler {
     this.throttle = Objects.requireNonNull(throttle, "throttle");
     this.chaosSuite = Objects.requireNonNull(chaosSuite, "chaosSuite");
     this.candleSanitizer = Objects.requireNonNull(candleSanitizer, "candleSanitizer");
+    this.candleStore = Objects.requireNonNull(candleStore, "candleStore");
+    this.marketStats = Objects.requireNonNull(marketStats, "marketStats");
     this.anomalyDetector = Objects.requireNonNull(anomalyDetector, "anomalyDetector");
     this.canaryStageService = Objects.requireNonNull(canaryStageService, "canaryStageService");
     this.decisionTimer =
@@ -133,24 +204,43 @@ public class TradingScheduler {
     Gauge.builder("scheduler.candle.enabled", enabled, flag -> flag.get() ? 1.0 : 0.0)
         .tags(Tags.empty())
         .register(meterRegistry);
-    registerBacklogGauge(tradingProps.getSymbol());
-    for (String symbol : tradingProps.getSymbols()) {
+    for (String symbol : subscribedSymbols()) {
       registerBacklogGauge(symbol);
     }
   }
 
   @PostConstruct
   void init() {
-    for (String symbol : tradingProps.getSymbols()) {
+    Set<String> symbols = subscribedSymbols();
+    for (String symbol : symbols) {
       lastCloseTimes.putIfAbsent(symbol, new AtomicLong(-1));
+      // ahead of any candle on the same lane, so the first decision reads a full window
+      submit(symbol, () -> candleStore.backfill(symbol, tradingProps.getInterval()));
     }
     if (tradingProps.getMode() == Mode.WEBSOCKET) {
-      klineSubscriber.start(tradingProps.getSymbol(), tradingProps.getInterval(), this::onKline);
+      klineSubscriber.start(symbols, List.of(tradingProps.getInterval()), true, this::onKline);
     } else {
       log.info("Trading scheduler configured for polling mode");
     }
   }
 
+  /** The single configured symbol plus the symbol list; every one of them is streamed. */
+  private Set<String> subscribedSymbols() {
+    Set<String> symbols = new LinkedHashSet<>();
+    if (tradingProps.getSymbol() != null) {
+      symbols.add(tradingProps.getSymbol());
+    }
+    symbols.addAll(tradingProps.getSymbols());
+    return symbols;
+  }
+
+  @PreDestroy
+  void shutdown() {
+    if (ownedLaneExecutor != null) {
+      ownedLaneExecutor.shutdownNow();
+    }
+  }
+
   public void enable() {
     enabled.set(true);
   }
@@ -161,16 +251,15 @@ public class TradingScheduler {
 
   public SchedulerStatus status() {
     Instant cooldownUntil = tradingState.getCooldownUntil();
-    long secondsRemaining = Math.max(0, cooldownUntil.getEpochSecond() - Instant.now(clock).getEpochSecond());
+    long secondsRemaining =
+        Math.max(0, cooldownUntil.getEpochSecond() - Instant.now(clock).getEpochSecond());
     return new SchedulerStatus(
         tradingProps.getMode().name().toLowerCase(),
         lastDecisionKey.get(),
         enabled.get(),
         tradingProps.isLiveEnabled() && tradingState.isLiveEnabled(),
         secondsRemaining,
-        lastCloseTimes
-            .getOrDefault(tradingProps.getSymbol(), new AtomicLong(-1))
-            .get(),
+        lastCloseTimes.getOrDefault(tradingProps.getSymbol(), new AtomicLong(-1)).get(),
         tradingState.getMode().name().toLowerCase());
   }
 
@@ -181,12 +270,27 @@ public class TradingScheduler {
     onCandleClosed(event.symbol(), event.interval(), event.closeTime());
   }
 
+  /** Queues the candle on the symbol's lane; symbols are decided in parallel. */
   public void onCandleClosed(String symbol, String interval, long closeTime) {
-    List<Long> sanitized = candleSanitizer.sanitize(symbol, interval, closeTime);
-    for (int i = 0; i < sanitized.size(); i++) {
-      long ts = sanitized.get(i);
-      String source = i == sanitized.size() - 1 ? "websocket" : "websocket-gap";
-      processCandle(symbol, interval, ts, source);
+    submit(
+        symbol,
+        () -> {
+          List<Long> sanitized = candleSanitizer.sanitize(symbol, interval, closeTime);
+          if (sanitized.size() > 1) {
+            candleStore.repair(symbol, interval, sanitized.get(0));
+          }
+          for (int i = 0; i < sanitized.size(); i++) {
+            long ts = sanitized.get(i);
+            String source = i == sanitized.size() - 1 ? "websocket" : "websocket-gap";
+            processCandle(symbol, interval, ts, source);
+          }
+        });
+  }
+
+  private void submit(String symbol, Runnable task) {
+    if (!lanes.submit(symbol, task)) {
+      log.warn("Lane for {} is {} tasks deep; dropping candle", symbol, MAX_LANE_DEPTH);
+      incrementDecisionMetric("SKIPPED", "LANE_FULL");
     }
   }
 
@@ -197,42 +301,53 @@ public class TradingScheduler {
     }
     List<String> symbols = tradingProps.getSymbols();
     for (String symbol : symbols) {
-      if (!shouldPoll(symbol)) {
+      // a busy lane will see the candle on its next poll; queueing more polls only adds latency
+      if (!shouldPoll(symbol) || lanes.pending(symbol) > 0) {
         continue;
       }
-      try {
-        long baseDelayMs = Math.max(1000L, candleSanitizer.intervalMillis(tradingProps.getInterval()) / 4);
-        if (!chaosSuite.allowRestPoll(symbol, baseDelayMs, Instant.now(clock))) {
-          continue;
-        }
-        if (!throttle.canSchedule(Endpoint.KLINES, symbol)) {
-          continue;
-        }
-        long start = System.nanoTime();
-        List<Kline> klines = binanceClient.getKlines(symbol, tradingProps.getInterval(), 2);
-        long latencyMs = (System.nanoTime() - start) / 1_000_000;
-        healthService.onApiCall(latencyMs, klines != null);
-        if (klines == null || klines.isEmpty()) {
-          continue;
-        }
-        Kline last = klines.get(klines.size() - 1);
-        long closeTime = last.closeTime().toEpochMilli();
-        AtomicLong lastClose = lastCloseTimes.computeIfAbsent(symbol, s -> new AtomicLong(-1));
-        if (closeTime <= lastClose.get()) {
-          continue;
-        }
-        List<Long> sanitized = candleSanitizer.sanitize(symbol, tradingProps.getInterval(), closeTime);
-        for (int i = 0; i < sanitized.size(); i++) {
-          long ts = sanitized.get(i);
-          String source = i == sanitized.size() - 1 ? "polling" : "polling-gap";
-          processCandle(symbol, tradingProps.getInterval(), ts, source);
-        }
-        if (!sanitized.isEmpty()) {
-          chaosSuite.onWebsocketState(false);
-        }
-      } catch (Exception ex) {
-        log.warn("Polling klines failed for {}: {}", symbol, ex.getMessage());
+      submit(symbol, () -> pollSymbol(symbol));
+    }
+  }
+
+  private void pollSymbol(String symbol) {
+    try {
+      long baseDelayMs =
+          Math.max(1000L, candleSanitizer.intervalMillis(tradingProps.getInterval()) / 4);
+      if (!chaosSuite.allowRestPoll(symbol, baseDelayMs, Instant.now(clock))) {
+        return;
       }
+      if (!throttle.canSchedule(Endpoint.KLINES, symbol)) {
+        return;
+      }
+      long start = System.nanoTime();
+      List<Kline> klines = binanceClient.getKlines(symbol, tradingProps.getInterval(), 2);
+      long latencyMs = (System.nanoTime() - start) / 1_000_000;
+      healthService.onApiCall(latencyMs, klines != null);
+      if (klines == null || klines.isEmpty()) {
+        return;
+      }
+      candleStore.merge(symbol, tradingProps.getInterval(), klines);
+      Kline last = klines.get(klines.size() - 1);
+      long closeTime = last.closeTime().toEpochMilli();
+      AtomicLong lastClose = lastCloseTimes.computeIfAbsent(symbol, s -> new AtomicLong(-1));
+      if (closeTime <= lastClose.get()) {
+        return;
+      }
+      List<Long> sanitized =
+          candleSanitizer.sanitize(symbol, tradingProps.getInterval(), closeTime);
+      if (sanitized.size() > 1) {
+        candleStore.repair(symbol, tradingProps.getInterval(), sanitized.get(0));
+      }
+      for (int i = 0; i < sanitized.size(); i++) {
+        long ts = sanitized.get(i);
+        String source = i == sanitized.size() - 1 ? "polling" : "polling-gap";
+        processCandle(symbol, tradingProps.getInterval(), ts, source);
+      }
+      if (!sanitized.isEmpty()) {
+        chaosSuite.onWebsocketState(false);
+      }
+    } catch (Exception ex) {
+      log.warn("Polling klines failed for {}: {}", symbol, ex.getMessage());
     }
   }
 
@@ -243,10 +358,7 @@ public class TradingScheduler {
     if (tradingProps.getMode() == Mode.POLLING || chaosSuite.forceRestFallback()) {
       return true;
     }
-    if (symbol.equalsIgnoreCase(tradingProps.getSymbol())) {
-      return !klineSubscriber.isHealthy();
-    }
-    return true;
+    return !klineSubscriber.isHealthy(symbol);
   }
 
   private void processCandle(String symbol, String interval, long closeTime, String source) {
@@ -255,35 +367,27 @@ public class TradingScheduler {
       incrementDecisionMetric("SKIPPED", "DISABLED");
       return;
     }
-    if (!executionLock.tryLock()) {
-      log.debug("Execution lock busy; skipping candle {}", closeTime);
-      incrementDecisionMetric("SKIPPED", "LOCKED");
+    applyJitter();
+    Instant now = Instant.now(clock);
+    long backlog = Math.max(0, now.toEpochMilli() - closeTime);
+    registerBacklogGauge(symbol).set(backlog);
+    String decisionKey = decisionKey(symbol, interval, closeTime);
+    lastDecisionKey.set(decisionKey);
+    if (decisionJournal.isDuplicate(decisionKey, closeTime)) {
+      log.debug("Decision {} already processed", decisionKey);
+      incrementDecisionMetric("SKIPPED", "DUPLICATE");
       return;
     }
+    lastCloseTimes.computeIfAbsent(symbol, s -> new AtomicLong(-1)).set(closeTime);
+    Timer.Sample sample = Timer.start(meterRegistry);
     try {
-      applyJitter();
-      Instant now = Instant.now(clock);
-      long backlog = Math.max(0, now.toEpochMilli() - closeTime);
-      registerBacklogGauge(symbol).set(backlog);
-      String decisionKey = decisionKey(symbol, interval, closeTime);
-      lastDecisionKey.set(decisionKey);
-      if (decisionRepository.existsById(decisionKey)) {
-        log.debug("Decision {} already processed", decisionKey);
-        incrementDecisionMetric("SKIPPED", "DUPLICATE");
-        return;
-      }
-      lastCloseTimes.computeIfAbsent(symbol, s -> new AtomicLong(-1)).set(closeTime);
-      Timer.Sample sample = Timer.start(meterRegistry);
-      try {
-        StrategyDecision decision = strategyService.decide(symbol);
-        DecisionContext context =
-            new DecisionContext(decisionKey, symbol, interval, closeTime, now, source);
-        handleDecision(context, decision);
-      } finally {
-        sample.stop(decisionTimer);
-      }
+      StrategyDecision decision = strategyService.decide(symbol);
+      recordDecisionLatency(symbol, closeTime);
+      DecisionContext context =
+          new DecisionContext(decisionKey, symbol, interval, closeTime, now, source);
+      handleDecision(context, decision);
     } finally {
-      executionLock.unlock();
+      sample.stop(decisionTimer);
     }
   }
 
@@ -307,39 +411,64 @@ public class TradingScheduler {
       return;
     }
 
-    Optional<com.bottrading.execution.ExecutionEngine.ExecutionResult> response =
-        orderExecutionService.execute(
-            context.decisionKey(),
-            context.symbol(),
-            context.interval(),
-            decision,
-            context.closeTime(),
-            gateResult.sizingMultiplier());
-    if (response.isPresent()) {
-      record.executed(true);
-      var orders = response.get().orders();
-      if (!orders.isEmpty()) {
-        record.orderId(orders.get(orders.size() - 1).orderId());
-      }
+    long reservedAt = clock.millis();
+    int rateSlot = orderRate.tryAcquire(reservedAt, tradingProps.getMaxOrdersPerMinute());
+    if (rateSlot < 0) {
+      allocatorService.release(context.symbol());
+      record.reason(signal.note() + " | RATE_LIMIT");
+      record.executed(false);
       persistDecision(record);
-      registerOrder(signal.side());
-      incrementDecisionMetric(signal.side() == SignalSide.BUY ? "BUY" : "SELL", context.source());
-    } else {
+      incrementDecisionMetric("SKIPPED", "RATE_LIMIT");
+      return;
+    }
+    Optional<ExecutionHandle> handle;
+    try {
+      handle =
+          orderExecutionService.execute(
+              context.decisionKey(),
+              context.symbol(),
+              context.interval(),
+              decision,
+              context.closeTime(),
+              gateResult.sizingMultiplier());
+    } catch (RuntimeException ex) {
+      orderRate.release(rateSlot, reservedAt);
+      allocatorService.release(context.symbol());
+      throw ex;
+    }
+    if (handle.isEmpty()) {
+      allocatorService.release(context.symbol());
+      orderRate.release(rateSlot, reservedAt);
       record.reason(signal.note() + " | EXECUTION_FAILED");
       record.executed(false);
       persistDecision(record);
       incrementDecisionMetric("SKIPPED", "EXECUTION_FAILED");
+      return;
     }
-  }
-
-  private void registerOrder(SignalSide side) {
-    Instant now = Instant.now(clock);
-    orderTimes.addLast(now);
-    purgeOldOrders(now);
+    // the lane moves on while the parent order is worked; its children share this client id prefix
+    record.executed(true);
+    record.orderId(handle.get().parentId());
+    persistDecision(record);
+    incrementDecisionMetric(signal.side() == SignalSide.BUY ? "BUY" : "SELL", context.source());
+    // completes after the position is booked, so the reservation is never released too early
+    handle
+        .get()
+        .result()
+        .whenComplete(
+            (result, error) -> {
+              allocatorService.release(context.symbol());
+              if (error != null) {
+                orderRate.release(rateSlot, reservedAt);
+                record.reason(signal.note() + " | EXECUTION_FAILED");
+                record.executed(false);
+                persistDecision(record);
+              }
+            });
   }
 
   private void persistDecision(DecisionRecord record) {
-    com.bottrading.model.entity.DecisionEntity entity = new com.bottrading.model.entity.DecisionEntity();
+    com.bottrading.model.entity.DecisionEntity entity =
+        new com.bottrading.model.entity.DecisionEntity();
     entity.setDecisionKey(record.context().decisionKey());
     entity.setSymbol(record.context().symbol());
     entity.setInterval(record.context().interval());
@@ -359,18 +488,7 @@ public class TradingScheduler {
         record.decision().banditSelection() != null
             ? record.decision().banditSelection().presetId()
             : null);
-    decisionRepository.save(entity);
-  }
-
-  private void purgeOldOrders(Instant now) {
-    Instant cutoff = now.minusSeconds(60);
-    while (true) {
-      Instant first = orderTimes.peekFirst();
-      if (first == null || !first.isBefore(cutoff)) {
-        break;
-      }
-      orderTimes.pollFirst();
-    }
+    decisionJournal.record(entity);
   }
 
   private GateResult evaluateGates(DecisionContext context, StrategyDecision decision) {
@@ -386,7 +504,7 @@ public class TradingScheduler {
     if (!withinTradingWindow(context.decidedAt())) {
       return GateResult.blocked("WINDOW", 0);
     }
-    if (!hasSufficientVolume(context.symbol())) {
+    if (!hasSufficientVolume(context.symbol(), decision)) {
       return GateResult.blocked("VOLUME", 0);
     }
     if (!withinOrderRate(context.decidedAt())) {
@@ -401,7 +519,7 @@ public class TradingScheduler {
     if (tradingState.getMode() == TradingState.Mode.SHADOW) {
       return GateResult.blocked("DRIFT_SHADOW", 0);
     }
-    AllocationDecision allocation = allocatorService.evaluate(context.symbol());
+    AllocationDecision allocation = allocatorService.reserve(context.symbol());
     if (!allocation.allowed()) {
       return GateResult.blocked(allocation.reason(), 0);
     }
@@ -409,28 +527,29 @@ public class TradingScheduler {
     finalMultiplier *= anomalyDetector.sizingMultiplier(context.symbol());
     if (decision.banditSelection() != null
         && decision.banditSelection().role() == BanditArmRole.CANDIDATE) {
-      double stageMultiplier =
-          canaryStageService.multiplier(decision.banditSelection().presetId());
+      double stageMultiplier = canaryStageService.multiplier(decision.banditSelection().presetId());
       finalMultiplier *= stageMultiplier;
     }
     if (finalMultiplier <= 0) {
+      allocatorService.release(context.symbol());
       return GateResult.blocked("SIZING_ZERO", 0);
     }
     return GateResult.allowed(finalMultiplier);
   }
 
   private boolean withinOrderRate(Instant now) {
-    purgeOldOrders(now);
-    int placed = orderTimes.size();
-    return placed < tradingProps.getMaxOrdersPerMinute();
+    int limit = tradingProps.getMaxOrdersPerMinute();
+    return orderRate.used(now.toEpochMilli(), limit) < limit;
   }
 
-  private boolean hasSufficientVolume(String symbol) {
+  private boolean hasSufficientVolume(String symbol, StrategyDecision decision) {
     try {
-      return binanceClient
-              .get24hQuoteVolume(symbol)
-              .compareTo(tradingProps.getMinVolume24h())
-          >= 0;
+      // the decision already carries the volume it was made with
+      BigDecimal volume =
+          decision.context() != null && decision.context().volume24h() != null
+              ? decision.context().volume24h()
+              : marketStats.quoteVolume24h(symbol);
+      return volume.compareTo(tradingProps.getMinVolume24h()) >= 0;
     } catch (Exception ex) {
       log.warn("Unable to fetch 24h volume: {}", ex.getMessage());
       return false;
@@ -466,7 +585,23 @@ public class TradingScheduler {
   }
 
   private void incrementDecisionMetric(String result, String reason) {
-    meterRegistry.counter("scheduler.candle.decisions", Tags.of("result", result, "reason", reason)).increment();
+    meterRegistry
+        .counter("scheduler.candle.decisions", Tags.of("result", result, "reason", reason))
+        .increment();
+  }
+
+  /** Candle close to strategy decision, per symbol; includes lane queueing and jitter. */
+  private void recordDecisionLatency(String symbol, long closeTime) {
+    long latency = Math.max(0, clock.millis() - closeTime);
+    decisionLatency
+        .computeIfAbsent(
+            symbol,
+            key ->
+                Timer.builder("scheduler.candle.decision.latency")
+                    .tags("symbol", key)
+                    .publishPercentiles(0.99)
+                    .register(meterRegistry))
+        .record(latency, TimeUnit.MILLISECONDS);
   }
 
   private AtomicLong registerBacklogGauge(String symbol) {
@@ -486,7 +621,12 @@ public class TradingScheduler {
   }
 
   private record DecisionContext(
-      String decisionKey, String symbol, String interval, long closeTime, Instant decidedAt, String source) {}
+      String decisionKey,
+      String symbol,
+      String interval,
+      long closeTime,
+      Instant decidedAt,
+      String source) {}
 
   private static final class DecisionRecord {
     private final StrategyDecision decision;
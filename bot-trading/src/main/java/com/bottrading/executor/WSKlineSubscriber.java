@@ -2,86 +2,246 @@ package com.bottrading.executor;
 
 import com.bottrading.chaos.ChaosSuite;
 import com.bottrading.config.BinanceProperties;
+import com.bottrading.config.TradingProps;
 import com.bottrading.service.health.HealthService;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.bottrading.service.market.CandleStore;
+import com.bottrading.service.market.MarketStats;
+import com.bottrading.shadow.ShadowEngine;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import jakarta.annotation.PreDestroy;
 import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.WebSocket;
 import java.net.http.WebSocket.Listener;
+import java.nio.CharBuffer;
+import java.time.Clock;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+/**
+ * Kline streams for every traded symbol multiplexed over a few websocket connections. Streams are
+ * split into shards of at most {@code maxStreamsPerConnection}; each shard owns one connection and
+ * subscribes with a {@code SUBSCRIBE} request, so a dropped connection only reconnects and
+ * re-subscribes its own shard. Each stream tracks the time of its last kline update; a stream that
+ * goes quiet on an open connection is re-subscribed on its own, and reports unhealthy so the
+ * scheduler serves that symbol by REST polling until updates resume. Closed bars are written to the
+ * {@link CandleStore} and mini ticker volumes to {@link MarketStats}. Frames are decoded in place
+ * by a per-connection {@link MarketStreamDecoder}, so the hot path builds no JSON trees or strings.
+ */
 @Component
 public class WSKlineSubscriber {
 
   private static final Logger log = LoggerFactory.getLogger(WSKlineSubscriber.class);
+  static final int MAX_STREAMS_PER_CONNECTION = 1024;
 
-  private final BinanceProperties binanceProperties;
+  private final String streamUrl;
+  private final int maxStreamsPerConnection;
+  private final Duration staleAfter;
+  private final Duration retryBase;
+  private final Clock clock;
   private final HttpClient httpClient;
   private final ObjectMapper objectMapper;
   private final ScheduledExecutorService scheduler;
   private final HealthService healthService;
   private final ChaosSuite chaosSuite;
+  private final CandleStore candleStore;
+  private final MarketStats marketStats;
+  private final ShadowEngine shadowEngine;
   private final AtomicBoolean running = new AtomicBoolean(false);
-  private final AtomicBoolean healthy = new AtomicBoolean(false);
-  private final AtomicInteger reconnectAttempts = new AtomicInteger(0);
+  private final AtomicInteger requestIds = new AtomicInteger();
+  private final List<Connection> connections = new CopyOnWriteArrayList<>();
+  private final Map<String, Stream> streams = new ConcurrentHashMap<>();
+  // frame lookups by the symbol/interval as the exchange sends them, without building stream names
+  private final Map<String, Map<String, Stream>> klineStreams = new ConcurrentHashMap<>();
+  private final Map<String, Stream> tickerStreams = new ConcurrentHashMap<>();
 
-  private volatile WebSocket webSocket;
   private volatile Consumer<KlineEvent> listener;
-  private volatile String symbol;
-  private volatile String interval;
 
+  @Autowired
   public WSKlineSubscriber(
-      BinanceProperties binanceProperties, HealthService healthService, ChaosSuite chaosSuite) {
-    this.binanceProperties = binanceProperties;
+      BinanceProperties binanceProperties,
+      TradingProps tradingProps,
+      HealthService healthService,
+      ChaosSuite chaosSuite,
+      CandleStore candleStore,
+      MarketStats marketStats,
+      ShadowEngine shadowEngine) {
+    this(
+        binanceProperties.streamUrl(),
+        tradingProps.getWebsocket().getMaxStreamsPerConnection(),
+        Duration.ofSeconds(tradingProps.getWebsocket().getStaleAfterSeconds()),
+        Duration.ofSeconds(1),
+        Clock.systemUTC(),
+        healthService,
+        chaosSuite,
+        candleStore,
+        marketStats,
+        shadowEngine);
+  }
+
+  WSKlineSubscriber(
+      String streamUrl,
+      int maxStreamsPerConnection,
+      Duration staleAfter,
+      Duration retryBase,
+      Clock clock,
+      HealthService healthService,
+      ChaosSuite chaosSuite,
+      CandleStore candleStore,
+      MarketStats marketStats,
+      ShadowEngine shadowEngine) {
+    if (maxStreamsPerConnection <= 0 || maxStreamsPerConnection > MAX_STREAMS_PER_CONNECTION) {
+      throw new IllegalArgumentException(
+          "maxStreamsPerConnection must be between 1 and " + MAX_STREAMS_PER_CONNECTION);
+    }
+    if (staleAfter.isNegative() || staleAfter.isZero()) {
+      throw new IllegalArgumentException("staleAfter must be positive");
+    }
+    this.streamUrl =
+        streamUrl.endsWith("/") ? streamUrl.substring(0, streamUrl.length() - 1) : streamUrl;
+    this.maxStreamsPerConnection = maxStreamsPerConnection;
+    this.staleAfter = staleAfter;
+    this.retryBase = retryBase;
+    this.clock = clock;
     this.healthService = healthService;
     this.chaosSuite = Objects.requireNonNull(chaosSuite, "chaosSuite");
+    this.candleStore = Objects.requireNonNull(candleStore, "candleStore");
+    this.marketStats = Objects.requireNonNull(marketStats, "marketStats");
+    this.shadowEngine = Objects.requireNonNull(shadowEngine, "shadowEngine");
     this.httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
     this.objectMapper = new ObjectMapper();
-    this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
-      Thread t = new Thread(r, "ws-kline-subscriber");
-      t.setDaemon(true);
-      return t;
-    });
+    this.scheduler =
+        Executors.newSingleThreadScheduledExecutor(
+            r -> {
+              Thread t = new Thread(r, "ws-kline-subscriber");
+              t.setDaemon(true);
+              return t;
+            });
   }
 
   public void start(String symbol, String interval, Consumer<KlineEvent> listener) {
-    this.symbol = Objects.requireNonNull(symbol, "symbol");
-    this.interval = Objects.requireNonNull(interval, "interval");
+    start(List.of(symbol), List.of(interval), false, listener);
+  }
+
+  /**
+   * Subscribes every symbol/interval kline pair and, with {@code miniTickers}, each symbol's 24h
+   * mini ticker for {@link MarketStats}; later calls are ignored while running.
+   */
+  public void start(
+      Collection<String> symbols,
+      Collection<String> intervals,
+      boolean miniTickers,
+      Consumer<KlineEvent> listener) {
+    Objects.requireNonNull(symbols, "symbols");
+    Objects.requireNonNull(intervals, "intervals");
     this.listener = Objects.requireNonNull(listener, "listener");
-    if (running.compareAndSet(false, true)) {
-      log.info("Starting kline websocket stream for {} {}", symbol, interval);
-      connect(0);
+    if (symbols.isEmpty() || intervals.isEmpty()) {
+      throw new IllegalArgumentException("At least one symbol and interval are required");
+    }
+    if (!running.compareAndSet(false, true)) {
+      return;
+    }
+    Set<String> names = new LinkedHashSet<>();
+    for (String symbol : symbols) {
+      for (String interval : intervals) {
+        String name = streamName(symbol, interval);
+        if (names.add(name)) {
+          Stream stream = new Stream(symbol.toUpperCase(Locale.ROOT), true);
+          streams.put(name, stream);
+          klineStreams
+              .computeIfAbsent(stream.symbol, key -> new ConcurrentHashMap<>())
+              .put(interval, stream);
+        }
+      }
+      String ticker = miniTickerName(symbol);
+      if (miniTickers && names.add(ticker)) {
+        Stream stream = new Stream(symbol.toUpperCase(Locale.ROOT), false);
+        streams.put(ticker, stream);
+        tickerStreams.put(stream.symbol, stream);
+      }
+    }
+    List<String> ordered = new ArrayList<>(names);
+    for (int from = 0; from < ordered.size(); from += maxStreamsPerConnection) {
+      List<String> shard =
+          List.copyOf(
+              ordered.subList(from, Math.min(ordered.size(), from + maxStreamsPerConnection)));
+      connections.add(new Connection(connections.size(), shard));
     }
+    log.info(
+        "Starting {} market streams over {} websocket connection(s)",
+        ordered.size(),
+        connections.size());
+    connections.forEach(connection -> connection.connect(0));
+    long checkMillis = Math.max(1, staleAfter.toMillis() / 2);
+    scheduler.scheduleWithFixedDelay(
+        this::checkStreams, checkMillis, checkMillis, TimeUnit.MILLISECONDS);
   }
 
+  /** True while every connection is open. */
   public boolean isHealthy() {
-    return healthy.get();
+    return running.get() && !connections.isEmpty() && connections.stream().allMatch(c -> c.open);
+  }
+
+  /**
+   * True when every kline stream of the symbol is on an open connection and received a recent
+   * update.
+   */
+  public boolean isHealthy(String symbol) {
+    if (!running.get()) {
+      return false;
+    }
+    String key = symbol.toUpperCase(Locale.ROOT);
+    long now = clock.millis();
+    boolean found = false;
+    for (Connection connection : connections) {
+      for (String name : connection.streams) {
+        Stream stream = streams.get(name);
+        if (!stream.kline || !stream.symbol.equals(key)) {
+          continue;
+        }
+        found = true;
+        if (!connection.open || !stream.fresh(now)) {
+          return false;
+        }
+      }
+    }
+    return found;
+  }
+
+  int connectionCount() {
+    return connections.size();
   }
 
   public void stop() {
     running.set(false);
-    healthy.set(false);
-    if (webSocket != null) {
-      try {
-        webSocket.sendClose(WebSocket.NORMAL_CLOSURE, "shutdown");
-      } catch (Exception ignored) {
-      }
+    for (Connection connection : connections) {
+      connection.close();
     }
     scheduler.shutdownNow();
   }
@@ -91,106 +251,257 @@ public class WSKlineSubscriber {
     stop();
   }
 
-  private void connect(int attempt) {
-    if (!running.get()) {
-      return;
+  /** Re-subscribes streams that went quiet on a connection that is still open. */
+  void checkStreams() {
+    long now = clock.millis();
+    for (Connection connection : connections) {
+      if (!connection.open) {
+        continue;
+      }
+      List<String> stale = new ArrayList<>();
+      for (String name : connection.streams) {
+        Stream stream = streams.get(name);
+        if (!stream.fresh(now) && now - stream.subscribedAt.get() >= staleAfter.toMillis()) {
+          stale.add(name);
+        }
+      }
+      if (!stale.isEmpty()) {
+        log.warn(
+            "Re-subscribing {} stale kline stream(s) on connection #{}",
+            stale.size(),
+            connection.index);
+        connection.subscribe(stale);
+      }
     }
-    String stream = symbol.toLowerCase() + "@kline_" + interval;
-    String url = binanceProperties.streamUrl();
-    URI uri = URI.create(url.endsWith("/") ? url + stream : url + "/" + stream);
-    log.info("Connecting to Binance websocket {} (attempt #{})", uri, attempt + 1);
-    httpClient
-        .newWebSocketBuilder()
-        .connectTimeout(Duration.ofSeconds(10))
-        .buildAsync(uri, new KlineListener())
-        .whenComplete(
-            (ws, err) -> {
-              if (err != null) {
-                log.warn("Failed to connect to websocket: {}", err.getMessage());
-                scheduleReconnect();
-              } else {
-                this.webSocket = ws;
-              }
-            });
   }
 
-  private void scheduleReconnect() {
-    healthy.set(false);
-    healthService.onWebsocketReconnect();
-    chaosSuite.onWebsocketState(false);
-    if (!running.get()) {
+  private void dispatch(MarketStreamDecoder.Event event) {
+    if (event.symbol == null) {
       return;
     }
-    int attempt = reconnectAttempts.incrementAndGet();
-    long delay = Math.min(60, (long) Math.pow(2, Math.max(0, attempt - 1)));
-    log.info("Scheduling websocket reconnect in {}s (attempt #{})", delay, attempt + 1);
-    scheduler.schedule(() -> connect(attempt), delay, TimeUnit.SECONDS);
+    if (event.type == MarketStreamDecoder.Type.MINI_TICKER) {
+      Stream stream = tickerStreams.get(event.symbol);
+      if (stream != null) {
+        stream.lastUpdate.set(clock.millis());
+      }
+      if (Double.isNaN(event.quoteVolume)) {
+        log.warn("Invalid mini ticker volume for {}", event.symbol);
+        return;
+      }
+      marketStats.onMiniTicker(event.symbol, event.quoteVolume);
+      return;
+    }
+    if (event.type != MarketStreamDecoder.Type.KLINE || event.interval == null) {
+      return;
+    }
+    Map<String, Stream> byInterval = klineStreams.get(event.symbol);
+    Stream stream = byInterval == null ? null : byInterval.get(event.interval);
+    if (stream != null) {
+      stream.lastUpdate.set(clock.millis());
+    }
+    // every kline update carries the last trade price; open shadow positions are checked on each
+    shadowEngine.onPriceUpdate(event.symbol, event.close);
+    if (!event.closed) {
+      return;
+    }
+    // stored before the listener runs so the decision for this bar already sees it
+    candleStore.onKline(
+        event.symbol,
+        event.interval,
+        event.openTime,
+        event.closeTime,
+        event.open,
+        event.high,
+        event.low,
+        event.close,
+        event.volume,
+        true);
+    Consumer<KlineEvent> currentListener = listener;
+    if (currentListener != null) {
+      List<KlineEvent> events =
+          chaosSuite.applyWsChaos(
+              new KlineEvent(event.symbol, event.interval, event.closeTime, true));
+      for (KlineEvent evt : events) {
+        currentListener.accept(evt);
+      }
+    }
+  }
+
+  private static String miniTickerName(String symbol) {
+    return symbol.toLowerCase(Locale.ROOT) + "@miniTicker";
+  }
+
+  private static String streamName(String symbol, String interval) {
+    return symbol.toLowerCase(Locale.ROOT) + "@kline_" + interval;
+  }
+
+  private final class Stream {
+    private final String symbol;
+    private final boolean kline;
+    private final AtomicLong lastUpdate = new AtomicLong(Long.MIN_VALUE);
+    private final AtomicLong subscribedAt = new AtomicLong(Long.MIN_VALUE);
+
+    private Stream(String symbol, boolean kline) {
+      this.symbol = symbol;
+      this.kline = kline;
+    }
+
+    private boolean fresh(long now) {
+      long last = lastUpdate.get();
+      return last != Long.MIN_VALUE && now - last < staleAfter.toMillis();
+    }
   }
 
-  private class KlineListener implements Listener {
+  private final class Connection implements Listener {
+
+    private final int index;
+    private final List<String> streams;
+    private final AtomicInteger reconnectAttempts = new AtomicInteger(0);
+    private final MarketStreamDecoder decoder = new MarketStreamDecoder();
+    private char[] buffer = new char[4096];
+    private int length;
+
+    private volatile WebSocket webSocket;
+    private volatile boolean open;
+    private CompletableFuture<?> pendingSend = CompletableFuture.completedFuture(null);
+
+    private Connection(int index, List<String> streams) {
+      this.index = index;
+      this.streams = streams;
+    }
+
+    private void connect(int attempt) {
+      if (!running.get()) {
+        return;
+      }
+      log.info(
+          "Connecting websocket #{} for {} stream(s) (attempt #{})",
+          index,
+          streams.size(),
+          attempt + 1);
+      httpClient
+          .newWebSocketBuilder()
+          .connectTimeout(Duration.ofSeconds(10))
+          .buildAsync(URI.create(streamUrl), this)
+          .whenComplete(
+              (ws, err) -> {
+                if (err != null) {
+                  log.warn("Failed to connect websocket #{}: {}", index, err.getMessage());
+                  scheduleReconnect();
+                }
+              });
+    }
+
+    /** Sends are chained: the JDK websocket rejects a send while the previous one is pending. */
+    private synchronized void subscribe(List<String> names) {
+      WebSocket ws = webSocket;
+      if (ws == null) {
+        return;
+      }
+      ObjectNode request = objectMapper.createObjectNode();
+      request.put("method", "SUBSCRIBE");
+      ArrayNode params = request.putArray("params");
+      names.forEach(params::add);
+      request.put("id", requestIds.incrementAndGet());
+      String text = request.toString();
+      long now = clock.millis();
+      names.forEach(name -> WSKlineSubscriber.this.streams.get(name).subscribedAt.set(now));
+      pendingSend =
+          pendingSend
+              .handle((ignored, err) -> null)
+              .thenCompose(ignored -> ws.sendText(text, true))
+              .whenComplete(
+                  (ignored, err) -> {
+                    if (err != null) {
+                      log.warn("Subscribe on websocket #{} failed: {}", index, err.getMessage());
+                    }
+                  });
+    }
+
+    private void close() {
+      open = false;
+      WebSocket ws = webSocket;
+      if (ws != null) {
+        try {
+          ws.sendClose(WebSocket.NORMAL_CLOSURE, "shutdown");
+        } catch (Exception ignored) {
+        }
+      }
+    }
 
-    private final StringBuilder buffer = new StringBuilder();
+    private void scheduleReconnect() {
+      open = false;
+      webSocket = null;
+      healthService.onWebsocketReconnect();
+      chaosSuite.onWebsocketState(false);
+      if (!running.get()) {
+        return;
+      }
+      int attempt = reconnectAttempts.incrementAndGet();
+      long delay =
+          Math.min(60_000, retryBase.toMillis() * (1L << Math.min(16, Math.max(0, attempt - 1))));
+      log.info(
+          "Scheduling websocket #{} reconnect in {}ms (attempt #{})", index, delay, attempt + 1);
+      scheduler.schedule(() -> connect(attempt), delay, TimeUnit.MILLISECONDS);
+    }
 
     @Override
     public void onOpen(WebSocket webSocket) {
+      this.webSocket = webSocket;
       reconnectAttempts.set(0);
-      healthy.set(true);
-      log.info("Websocket stream opened for {} {}", symbol, interval);
-      chaosSuite.onWebsocketState(true);
+      open = true;
+      log.info("Websocket #{} opened; subscribing {} stream(s)", index, streams.size());
+      subscribe(streams);
+      chaosSuite.onWebsocketState(isHealthy());
       webSocket.request(1);
     }
 
     @Override
     public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
-      buffer.append(data);
+      append(data);
       if (last) {
-        String message = buffer.toString();
-        buffer.setLength(0);
-        handleMessage(message);
+        try {
+          dispatch(decoder.decode(buffer, length));
+        } catch (IOException | RuntimeException ex) {
+          // a bad frame or listener must not stop the next frame from being requested
+          log.warn("Failed to handle websocket payload: {}", ex.getMessage());
+        } finally {
+          length = 0;
+        }
       }
       webSocket.request(1);
       return CompletableFuture.completedFuture(null);
     }
 
+    /** Frames are copied into one growable buffer instead of a fresh String per message. */
+    private void append(CharSequence data) {
+      int size = data.length();
+      if (length + size > buffer.length) {
+        buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + size));
+      }
+      if (data instanceof String text) {
+        text.getChars(0, size, buffer, length);
+      } else if (data instanceof CharBuffer chars) {
+        chars.get(chars.position(), buffer, length, size);
+      } else {
+        for (int i = 0; i < size; i++) {
+          buffer[length + i] = data.charAt(i);
+        }
+      }
+      length += size;
+    }
+
     @Override
     public void onError(WebSocket webSocket, Throwable error) {
-      log.error("Websocket error: {}", error.getMessage(), error);
-      chaosSuite.onWebsocketState(false);
+      log.error("Websocket #{} error: {}", index, error.getMessage(), error);
       scheduleReconnect();
     }
 
     @Override
     public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
-      log.info("Websocket closed code={} reason={}", statusCode, reason);
-      chaosSuite.onWebsocketState(false);
+      log.info("Websocket #{} closed code={} reason={}", index, statusCode, reason);
       scheduleReconnect();
       return Listener.super.onClose(webSocket, statusCode, reason);
     }
-
-    private void handleMessage(String message) {
-      try {
-        JsonNode node = objectMapper.readTree(message);
-        JsonNode klineNode = node.path("k");
-        if (klineNode.isMissingNode()) {
-          return;
-        }
-        boolean closed = klineNode.path("x").asBoolean(false);
-        if (!closed) {
-          return;
-        }
-        String eventSymbol = klineNode.path("s").asText(symbol);
-        String eventInterval = klineNode.path("i").asText(interval);
-        long closeTime = klineNode.path("T").asLong();
-        Consumer<KlineEvent> currentListener = listener;
-        if (currentListener != null) {
-          List<KlineEvent> events = chaosSuite.applyWsChaos(new KlineEvent(eventSymbol, eventInterval, closeTime, true));
-          for (KlineEvent evt : events) {
-            currentListener.accept(evt);
-          }
-        }
-      } catch (IOException ex) {
-        log.warn("Failed to parse websocket payload: {}", ex.getMessage());
-      }
-    }
   }
 }
@@ -0,0 +1,427 @@
+package com.bottrading.model.entity;
+
+import com.bottrading.model.enums.OrderSide;
+import com.bottrading.model.enums.ParentOrderStatus;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Table;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+/** Persisted progress of a TWAP/POV/limit parent order so a restart can pick it up. */
+@Entity
+@Table(name = "parent_orders")
+public class ParentOrderEntity {
+
+  @Id
+  @Column(name = "id", length = 100)
+  private String id;
+
+  @Column(name = "tenant_id")
+  private UUID tenantId;
+
+  @Column(name = "symbol", length = 40, nullable = false)
+  private String symbol;
+
+  @Enumerated(EnumType.STRING)
+  private OrderSide side;
+
+  @Column(name = "plan_type", length = 20, nullable = false)
+  private String planType;
+
+  private Integer slices;
+
+  @Column(name = "window_ms")
+  private Long windowMs;
+
+  @Column(name = "ttl_ms")
+  private Long ttlMs;
+
+  @Column(name = "buffer_bps")
+  private Double bufferBps;
+
+  @Column(name = "max_retries")
+  private Integer maxRetries;
+
+  @Column(name = "target_participation")
+  private Double targetParticipation;
+
+  @Column(name = "quantity", nullable = false)
+  private BigDecimal quantity;
+
+  @Column(name = "reference_price", nullable = false)
+  private BigDecimal referencePrice;
+
+  @Column(name = "deadline", nullable = false)
+  private Instant deadline;
+
+  @Column(name = "dry_run")
+  private boolean dryRun;
+
+  @Column(name = "urgency", length = 10, nullable = false)
+  private String urgency;
+
+  @Column(name = "max_slippage_bps")
+  private double maxSlippageBps;
+
+  @Column(name = "tick_size")
+  private BigDecimal tickSize;
+
+  @Column(name = "step_size")
+  private BigDecimal stepSize;
+
+  @Column(name = "min_notional")
+  private BigDecimal minNotional;
+
+  @Column(name = "volume_24h")
+  private BigDecimal volume24h;
+
+  private BigDecimal atr;
+
+  @Column(name = "spread_bps")
+  private double spreadBps;
+
+  @Column(name = "volatility_bps")
+  private double volatilityBps;
+
+  @Column(name = "bar_volume")
+  private BigDecimal barVolume;
+
+  @Enumerated(EnumType.STRING)
+  private ParentOrderStatus status = ParentOrderStatus.WORKING;
+
+  private int step;
+
+  @Column(name = "executed_qty")
+  private BigDecimal executedQty = BigDecimal.ZERO;
+
+  @Column(name = "executed_quote")
+  private BigDecimal executedQuote = BigDecimal.ZERO;
+
+  @Column(name = "working_client_order_id", length = 100)
+  private String workingClientOrderId;
+
+  @Column(name = "working_order_id", length = 100)
+  private String workingOrderId;
+
+  @Column(name = "working_filled_qty")
+  private BigDecimal workingFilledQty;
+
+  @Column(name = "next_event_at")
+  private Instant nextEventAt;
+
+  @Column(name = "context", columnDefinition = "text")
+  private String context;
+
+  @Column(name = "created_at")
+  private Instant createdAt;
+
+  @Column(name = "updated_at")
+  private Instant updatedAt;
+
+  @PrePersist
+  void onCreate() {
+    Instant now = Instant.now();
+    this.createdAt = now;
+    this.updatedAt = now;
+  }
+
+  @PreUpdate
+  void onUpdate() {
+    this.updatedAt = Instant.now();
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public void setId(String id) {
+    this.id = id;
+  }
+
+  public UUID getTenantId() {
+    return tenantId;
+  }
+
+  public void setTenantId(UUID tenantId) {
+    this.tenantId = tenantId;
+  }
+
+  public String getSymbol() {
+    return symbol;
+  }
+
+  public void setSymbol(String symbol) {
+    this.symbol = symbol;
+  }
+
+  public OrderSide getSide() {
+    return side;
+  }
+
+  public void setSide(OrderSide side) {
+    this.side = side;
+  }
+
+  public String getPlanType() {
+    return planType;
+  }
+
+  public void setPlanType(String planType) {
+    this.planType = planType;
+  }
+
+  public Integer getSlices() {
+    return slices;
+  }
+
+  public void setSlices(Integer slices) {
+    this.slices = slices;
+  }
+
+  public Long getWindowMs() {
+    return windowMs;
+  }
+
+  public void setWindowMs(Long windowMs) {
+    this.windowMs = windowMs;
+  }
+
+  public Long getTtlMs() {
+    return ttlMs;
+  }
+
+  public void setTtlMs(Long ttlMs) {
+    this.ttlMs = ttlMs;
+  }
+
+  public Double getBufferBps() {
+    return bufferBps;
+  }
+
+  public void setBufferBps(Double bufferBps) {
+    this.bufferBps = bufferBps;
+  }
+
+  public Integer getMaxRetries() {
+    return maxRetries;
+  }
+
+  public void setMaxRetries(Integer maxRetries) {
+    this.maxRetries = maxRetries;
+  }
+
+  public Double getTargetParticipation() {
+    return targetParticipation;
+  }
+
+  public void setTargetParticipation(Double targetParticipation) {
+    this.targetParticipation = targetParticipation;
+  }
+
+  public BigDecimal getQuantity() {
+    return quantity;
+  }
+
+  public void setQuantity(BigDecimal quantity) {
+    this.quantity = quantity;
+  }
+
+  public BigDecimal getReferencePrice() {
+    return referencePrice;
+  }
+
+  public void setReferencePrice(BigDecimal referencePrice) {
+    this.referencePrice = referencePrice;
+  }
+
+  public Instant getDeadline() {
+    return deadline;
+  }
+
+  public void setDeadline(Instant deadline) {
+    this.deadline = deadline;
+  }
+
+  public boolean isDryRun() {
+    return dryRun;
+  }
+
+  public void setDryRun(boolean dryRun) {
+    this.dryRun = dryRun;
+  }
+
+  public String getUrgency() {
+    return urgency;
+  }
+
+  public void setUrgency(String urgency) {
+    this.urgency = urgency;
+  }
+
+  public double getMaxSlippageBps() {
+    return maxSlippageBps;
+  }
+
+  public void setMaxSlippageBps(double maxSlippageBps) {
+    this.maxSlippageBps = maxSlippageBps;
+  }
+
+  public BigDecimal getTickSize() {
+    return tickSize;
+  }
+
+  public void setTickSize(BigDecimal tickSize) {
+    this.tickSize = tickSize;
+  }
+
+  public BigDecimal getStepSize() {
+    return stepSize;
+  }
+
+  public void setStepSize(BigDecimal stepSize) {
+    this.stepSize = stepSize;
+  }
+
+  public BigDecimal getMinNotional() {
+    return minNotional;
+  }
+
+  public void setMinNotional(BigDecimal minNotional) {
+    this.minNotional = minNotional;
+  }
+
+  public BigDecimal getVolume24h() {
+    return volume24h;
+  }
+
+  public void setVolume24h(BigDecimal volume24h) {
+    this.volume24h = volume24h;
+  }
+
+  public BigDecimal getAtr() {
+    return atr;
+  }
+
+  public void setAtr(BigDecimal atr) {
+    this.atr = atr;
+  }
+
+  public double getSpreadBps() {
+    return spreadBps;
+  }
+
+  public void setSpreadBps(double spreadBps) {
+    this.spreadBps = spreadBps;
+  }
+
+  public double getVolatilityBps() {
+    return volatilityBps;
+  }
+
+  public void setVolatilityBps(double volatilityBps) {
+    this.volatilityBps = volatilityBps;
+  }
+
+  public BigDecimal getBarVolume() {
+    return barVolume;
+  }
+
+  public void setBarVolume(BigDecimal barVolume) {
+    this.barVolume = barVolume;
+  }
+
+  public ParentOrderStatus getStatus() {
+    return status;
+  }
+
+  public void setStatus(ParentOrderStatus status) {
+    this.status = status;
+  }
+
+  public int getStep() {
+    return step;
+  }
+
+  public void setStep(int step) {
+    this.step = step;
+  }
+
+  public BigDecimal getExecutedQty() {
+    return executedQty;
+  }
+
+  public void setExecutedQty(BigDecimal executedQty) {
+    this.executedQty = executedQty;
+  }
+
+  public BigDecimal getExecutedQuote() {
+    return executedQuote;
+  }
+
+  public void setExecutedQuote(BigDecimal executedQuote) {
+    this.executedQuote = executedQuote;
+  }
+
+  public String getWorkingClientOrderId() {
+    return workingClientOrderId;
+  }
+
+  public void setWorkingClientOrderId(String workingClientOrderId) {
+    this.workingClientOrderId = workingClientOrderId;
+  }
+
+  public String getWorkingOrderId() {
+    return workingOrderId;
+  }
+
+  public void setWorkingOrderId(String workingOrderId) {
+    this.workingOrderId = workingOrderId;
+  }
+
+  public BigDecimal getWorkingFilledQty() {
+    return workingFilledQty;
+  }
+
+  public void setWorkingFilledQty(BigDecimal workingFilledQty) {
+    this.workingFilledQty = workingFilledQty;
+  }
+
+  public Instant getNextEventAt() {
+    return nextEventAt;
+  }
+
+  public void setNextEventAt(Instant nextEventAt) {
+    this.nextEventAt = nextEventAt;
+  }
+
+  public String getContext() {
+    return context;
+  }
+
+  public void setContext(String context) {
+    this.context = context;
+  }
+
+  public Instant getCreatedAt() {
+    return createdAt;
+  }
+
+  public void setCreatedAt(Instant createdAt) {
+    this.createdAt = createdAt;
+  }
+
+  public Instant getUpdatedAt() {
+    return updatedAt;
+  }
+
+  public void setUpdatedAt(Instant updatedAt) {
+    this.updatedAt = updatedAt;
+  }
+}
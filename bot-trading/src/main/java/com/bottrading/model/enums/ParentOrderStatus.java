@@ -0,0 +1,7 @@
+package com.bottrading.model.enums;
+
+public enum ParentOrderStatus {
+  WORKING,
+  COMPLETED,
+  FAILED
+}
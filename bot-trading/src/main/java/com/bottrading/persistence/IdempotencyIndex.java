@@ -0,0 +1,100 @@
+package com.bottrading.persistence;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory answer to "was this key already handled?" so the common case never reaches the
+ * database. An exact LRU of recent keys answers {@link Membership#PRESENT}; a Bloom filter over
+ * every key ever added answers {@link Membership#ABSENT} with certainty. Only a Bloom hit that has
+ * aged out of the LRU is {@link Membership#UNKNOWN} and needs an authoritative lookup. The filter
+ * never forgets, so past {@code expectedKeys} it degrades towards more UNKNOWN answers, never
+ * towards wrong ones.
+ */
+public final class IdempotencyIndex {
+
+  public enum Membership {
+    PRESENT,
+    ABSENT,
+    UNKNOWN
+  }
+
+  private final AtomicLongArray bits;
+  private final long bitCount;
+  private final int hashes;
+  private final Map<String, Boolean> recent;
+
+  public IdempotencyIndex(int expectedKeys, double falsePositiveRate, int recentKeys) {
+    if (expectedKeys < 1 || recentKeys < 1) {
+      throw new IllegalArgumentException("expectedKeys and recentKeys must be positive");
+    }
+    if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+      throw new IllegalArgumentException("falsePositiveRate must be in (0, 1)");
+    }
+    double ln2 = Math.log(2);
+    long optimalBits = (long) Math.ceil(-expectedKeys * Math.log(falsePositiveRate) / (ln2 * ln2));
+    int words = (int) Math.max(1, (optimalBits + 63) / 64);
+    this.bits = new AtomicLongArray(words);
+    this.bitCount = words * 64L;
+    this.hashes = Math.max(1, (int) Math.round((double) bitCount / expectedKeys * ln2));
+    this.recent =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > recentKeys;
+          }
+        };
+  }
+
+  public void add(String key) {
+    long hash = hash64(key);
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> 32);
+    for (int i = 0; i < hashes; i++) {
+      long bit = Math.floorMod(h1 + (long) i * h2, bitCount);
+      int word = (int) (bit >>> 6);
+      long mask = 1L << bit;
+      long current;
+      do {
+        current = bits.get(word);
+      } while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+    }
+    synchronized (recent) {
+      recent.put(key, Boolean.TRUE);
+    }
+  }
+
+  public Membership check(String key) {
+    synchronized (recent) {
+      if (recent.get(key) != null) {
+        return Membership.PRESENT;
+      }
+    }
+    long hash = hash64(key);
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> 32);
+    for (int i = 0; i < hashes; i++) {
+      long bit = Math.floorMod(h1 + (long) i * h2, bitCount);
+      if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+        return Membership.ABSENT;
+      }
+    }
+    return Membership.UNKNOWN;
+  }
+
+  /** FNV-1a over the UTF-16 units, finished with the murmur3 avalanche. */
+  private static long hash64(String key) {
+    long hash = 0xcbf29ce484222325L;
+    for (int i = 0; i < key.length(); i++) {
+      hash ^= key.charAt(i);
+      hash *= 0x100000001b3L;
+    }
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+}
@@ -0,0 +1,280 @@
+package com.bottrading.persistence;
+
+import com.bottrading.config.PersistenceProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Component;
+
+/**
+ * Write-behind inserts for audit rows that nothing on the hot path reads back. Rows queue in a
+ * bounded buffer and a single flusher writes them as JDBC batches, one per statement, once {@code
+ * batchSize} rows are waiting or {@code flushIntervalMs} after the first one arrived. A producer
+ * that finds the buffer full for {@code offerTimeoutMs} is counted as overflow and keeps waiting
+ * for room, so back-pressure slows callers down instead of dropping or reordering data. Closing
+ * drains the buffer; rows enqueued after close are written synchronously. A reader that must see
+ * its own earlier rows calls {@link #flush()}, which waits until everything queued before it has
+ * been written.
+ */
+@Component
+public class WriteBehindWriter {
+
+  private static final Logger log = LoggerFactory.getLogger(WriteBehindWriter.class);
+
+  /** Longest the flusher blocks before re-checking for close. */
+  private static final long POLL_SLICE_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+  /** A parameterised insert and the table it targets, used as the metrics tag. */
+  public record Statement(String table, String sql) {}
+
+  /** A row to insert, or a flush marker ({@code statement == null}) completed once written. */
+  private record Row(
+      Statement statement, SqlParameterSource params, CompletableFuture<Void> flushed) {
+
+    static Row marker() {
+      return new Row(null, null, new CompletableFuture<>());
+    }
+
+    boolean isMarker() {
+      return statement == null;
+    }
+  }
+
+  private final NamedParameterJdbcTemplate jdbcTemplate;
+  private final MeterRegistry meterRegistry;
+  private final BlockingQueue<Row> queue;
+  private final int batchSize;
+  private final long flushIntervalNanos;
+  private final long offerTimeoutMs;
+  private final long drainTimeoutMs;
+  private final Thread flusher;
+  private final Counter overflow;
+  private final Timer flushTimer;
+  private final ConcurrentMap<String, Counter> written = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, Counter> failed = new ConcurrentHashMap<>();
+  private volatile boolean closed;
+
+  public WriteBehindWriter(
+      NamedParameterJdbcTemplate jdbcTemplate,
+      PersistenceProperties properties,
+      MeterRegistry meterRegistry) {
+    PersistenceProperties.WriteBehind config = properties.getWriteBehind();
+    if (config.getCapacity() < 1 || config.getBatchSize() < 1) {
+      throw new IllegalArgumentException("capacity and batchSize must be positive");
+    }
+    if (config.getFlushIntervalMs() <= 0) {
+      throw new IllegalArgumentException("flushIntervalMs must be positive");
+    }
+    this.jdbcTemplate = jdbcTemplate;
+    this.meterRegistry = meterRegistry;
+    this.queue = new ArrayBlockingQueue<>(config.getCapacity());
+    this.batchSize = config.getBatchSize();
+    this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(config.getFlushIntervalMs());
+    this.offerTimeoutMs = Math.max(0, config.getOfferTimeoutMs());
+    this.drainTimeoutMs = Math.max(0, config.getDrainTimeoutMs());
+    this.overflow = meterRegistry.counter("persistence.writebehind.overflow");
+    this.flushTimer = meterRegistry.timer("persistence.writebehind.flush");
+    Gauge.builder("persistence.writebehind.queue.depth", queue, BlockingQueue::size)
+        .register(meterRegistry);
+    Gauge.builder(
+            "persistence.writebehind.queue.remaining", queue, BlockingQueue::remainingCapacity)
+        .register(meterRegistry);
+    this.flusher = new Thread(this::run, "write-behind");
+    this.flusher.setDaemon(true);
+    this.flusher.start();
+  }
+
+  /**
+   * Queues the row, waiting for room while the buffer is full. Waiting rather than writing on the
+   * caller keeps rows in enqueue order, so a row never lands ahead of an older one still queued.
+   * Interrupts do not abort the wait; the flag is restored once the row is queued.
+   */
+  public void enqueue(Statement statement, Map<String, ?> params) {
+    put(new Row(statement, new MapSqlParameterSource(params), null));
+  }
+
+  /**
+   * Waits until every row enqueued before this call has been written, so a caller can read back
+   * rows it queued earlier. The flusher writes its batch as soon as it reaches the marker instead
+   * of waiting out {@code flushIntervalMs}. Gives up after {@code drainTimeoutMs}; returns whether
+   * the rows were written in time.
+   */
+  public boolean flush() {
+    Row marker = Row.marker();
+    put(marker);
+    try {
+      marker.flushed().get(drainTimeoutMs, TimeUnit.MILLISECONDS);
+      return true;
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException | TimeoutException ex) {
+      log.warn("Write-behind flush did not complete within {} ms", drainTimeoutMs);
+    }
+    return false;
+  }
+
+  private void put(Row row) {
+    boolean interrupted = false;
+    long waitNanos = TimeUnit.MILLISECONDS.toNanos(offerTimeoutMs);
+    boolean counted = false;
+    try {
+      while (!closed) {
+        try {
+          if (queue.offer(row, waitNanos, TimeUnit.NANOSECONDS)) {
+            if (closed) {
+              // close() may already have drained; do not strand the row
+              drainRemaining();
+            }
+            return;
+          }
+          if (!counted) {
+            overflow.increment();
+            counted = true;
+          }
+        } catch (InterruptedException ex) {
+          interrupted = true;
+        }
+        waitNanos = POLL_SLICE_NANOS;
+      }
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    write(List.of(row));
+  }
+
+  int pending() {
+    return queue.size();
+  }
+
+  @PreDestroy
+  public void close() {
+    closed = true;
+    try {
+      flusher.join(drainTimeoutMs);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+    if (flusher.isAlive()) {
+      log.warn(
+          "Write-behind flusher still busy after {} ms; draining on the caller", drainTimeoutMs);
+    }
+    drainRemaining();
+  }
+
+  private void drainRemaining() {
+    List<Row> rest = new ArrayList<>();
+    queue.drainTo(rest);
+    if (!rest.isEmpty()) {
+      write(rest);
+    }
+  }
+
+  private void run() {
+    List<Row> batch = new ArrayList<>(batchSize);
+    while (!closed || !queue.isEmpty()) {
+      try {
+        Row first =
+            queue.poll(Math.min(flushIntervalNanos, POLL_SLICE_NANOS), TimeUnit.NANOSECONDS);
+        if (first == null) {
+          continue;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + flushIntervalNanos;
+        while (batch.size() < batchSize) {
+          long remaining = deadline - System.nanoTime();
+          if (remaining <= 0 || closed) {
+            queue.drainTo(batch, batchSize - batch.size());
+            break;
+          }
+          if (first.isMarker()) {
+            // someone is waiting on this batch; write it now
+            break;
+          }
+          Row next = queue.poll(Math.min(remaining, POLL_SLICE_NANOS), TimeUnit.NANOSECONDS);
+          if (next != null) {
+            batch.add(next);
+            if (next.isMarker()) {
+              break;
+            }
+          }
+        }
+      } catch (InterruptedException ex) {
+        // only close() ends the loop; keep draining
+      }
+      if (!batch.isEmpty()) {
+        write(batch);
+        batch.clear();
+      }
+    }
+  }
+
+  private void write(List<Row> rows) {
+    Map<Statement, List<SqlParameterSource>> byStatement = new LinkedHashMap<>();
+    List<CompletableFuture<Void>> markers = new ArrayList<>();
+    for (Row row : rows) {
+      if (row.isMarker()) {
+        markers.add(row.flushed());
+      } else {
+        byStatement
+            .computeIfAbsent(row.statement(), ignored -> new ArrayList<>())
+            .add(row.params());
+      }
+    }
+    try {
+      if (!byStatement.isEmpty()) {
+        flushTimer.record(() -> byStatement.forEach(this::writeBatch));
+      }
+    } finally {
+      markers.forEach(marker -> marker.complete(null));
+    }
+  }
+
+  private void writeBatch(Statement statement, List<SqlParameterSource> params) {
+    try {
+      jdbcTemplate.batchUpdate(statement.sql(), params.toArray(SqlParameterSource[]::new));
+      counter(written, "persistence.writebehind.rows", statement).increment(params.size());
+      return;
+    } catch (DataAccessException ex) {
+      log.warn(
+          "Batch insert into {} failed, retrying row by row: {}",
+          statement.table(),
+          ex.getMessage());
+    }
+    for (SqlParameterSource row : params) {
+      try {
+        jdbcTemplate.update(statement.sql(), row);
+        counter(written, "persistence.writebehind.rows", statement).increment();
+      } catch (RuntimeException ex) {
+        counter(failed, "persistence.writebehind.failed", statement).increment();
+        log.warn("Dropping row for {}: {}", statement.table(), ex.getMessage());
+      }
+    }
+  }
+
+  private Counter counter(ConcurrentMap<String, Counter> cache, String name, Statement statement) {
+    return cache.computeIfAbsent(
+        statement.table(), table -> meterRegistry.counter(name, "table", table));
+  }
+}
@@ -2,8 +2,11 @@ package com.bottrading.repository;
 
 import com.bottrading.model.entity.DecisionEntity;
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
@@ -13,4 +16,7 @@ public interface DecisionRepository extends JpaRepository<DecisionEntity, String
   Optional<DecisionEntity> findByDecisionKey(String decisionKey);
 
   long countByDecidedAtAfter(Instant timestamp);
+
+  @Query("SELECT d.decisionKey FROM DecisionEntity d WHERE d.decidedAt >= :since")
+  List<String> findDecisionKeysSince(@Param("since") Instant since);
 }
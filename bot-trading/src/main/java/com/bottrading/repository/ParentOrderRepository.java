@@ -0,0 +1,10 @@
+package com.bottrading.repository;
+
+import com.bottrading.model.entity.ParentOrderEntity;
+import com.bottrading.model.enums.ParentOrderStatus;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ParentOrderRepository extends JpaRepository<ParentOrderEntity, String> {
+  List<ParentOrderEntity> findByStatus(ParentOrderStatus status);
+}
@@ -9,6 +9,10 @@ import org.springframework.data.jpa.repository.JpaRepository;
 public interface ShadowPositionRepository extends JpaRepository<ShadowPositionEntity, Long> {
   List<ShadowPositionEntity> findBySymbolOrderByOpenedAtDesc(String symbol);
 
+  List<ShadowPositionEntity> findByStatus(PositionStatus status);
+
+  long countBySymbolAndStatus(String symbol, PositionStatus status);
+
   List<ShadowPositionEntity> findByPresetIdAndStatusOrderByClosedAtAsc(
       UUID presetId, PositionStatus status);
 
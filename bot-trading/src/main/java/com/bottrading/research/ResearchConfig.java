@@ -2,14 +2,17 @@ package com.bottrading.research;
 
 import com.bottrading.research.backtest.BacktestEngine;
 import com.bottrading.research.backtest.ReportWriter;
-import com.bottrading.research.nightly.NightlyReportGenerator;
+import com.bottrading.research.ga.EvaluationPool;
 import com.bottrading.research.io.ChartExporter;
 import com.bottrading.research.io.CsvWriter;
 import com.bottrading.research.io.DataLoader;
 import com.bottrading.research.io.JsonWriter;
-import com.bottrading.research.io.KlineCache;
+import com.bottrading.research.io.KlineStore;
+import com.bottrading.research.nightly.NightlyReportGenerator;
+import com.bottrading.research.nightly.ResearchProperties;
 import com.bottrading.service.binance.BinanceClient;
 import com.bottrading.strategy.StrategyFactory;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.math.BigDecimal;
 import java.nio.file.Path;
 import org.springframework.context.annotation.Bean;
@@ -19,13 +22,13 @@ import org.springframework.context.annotation.Configuration;
 public class ResearchConfig {
 
   @Bean
-  public KlineCache klineCache() {
-    return new KlineCache(Path.of("research-cache"));
+  public KlineStore klineStore() {
+    return new KlineStore(Path.of("research-cache"));
   }
 
   @Bean
-  public DataLoader dataLoader(BinanceClient binanceClient, KlineCache cache) {
-    return new DataLoader(binanceClient, cache);
+  public DataLoader dataLoader(BinanceClient binanceClient, KlineStore store) {
+    return new DataLoader(binanceClient, store);
   }
 
   @Bean
@@ -44,7 +47,8 @@ public class ResearchConfig {
   }
 
   @Bean
-  public ReportWriter reportWriter(CsvWriter csvWriter, JsonWriter jsonWriter, ChartExporter chartExporter) {
+  public ReportWriter reportWriter(
+      CsvWriter csvWriter, JsonWriter jsonWriter, ChartExporter chartExporter) {
     return new ReportWriter(csvWriter, jsonWriter, chartExporter);
   }
 
@@ -54,6 +58,16 @@ public class ResearchConfig {
     return new BacktestEngine(dataLoader, strategyFactory, reportWriter, BigDecimal.valueOf(10000));
   }
 
+  @Bean(destroyMethod = "close")
+  public EvaluationPool evaluationPool(ResearchProperties properties, MeterRegistry meterRegistry) {
+    ResearchProperties.Evaluation evaluation = properties.getEvaluation();
+    return new EvaluationPool(
+        Math.max(1, evaluation.getParallelism()),
+        Math.max(1, evaluation.getMaxInFlight()),
+        evaluation.getTimeout(),
+        meterRegistry);
+  }
+
   @Bean
   public NightlyReportGenerator nightlyReportGenerator() {
     return new NightlyReportGenerator();
@@ -4,10 +4,13 @@ import com.bottrading.research.backtest.BacktestEngine;
 import com.bottrading.research.backtest.BacktestRequest;
 import com.bottrading.research.backtest.BacktestResult;
 import com.bottrading.research.backtest.MetricsSummary;
+import com.bottrading.research.ga.EvaluationPool;
 import com.bottrading.research.ga.Evaluator;
+import com.bottrading.research.ga.FitnessCache;
 import com.bottrading.research.ga.GaProgressReporter;
 import com.bottrading.research.ga.GaRunner;
 import com.bottrading.research.ga.Genome;
+import com.bottrading.research.ga.WalkForwardCheckpoint;
 import com.bottrading.research.ga.WalkForwardOptimizer;
 import com.bottrading.research.ga.io.GenomeFile;
 import com.bottrading.research.ga.io.GenomeIO;
@@ -37,11 +40,17 @@ public class ResearchRunner implements ApplicationRunner {
   private final BacktestEngine backtestEngine;
   private final DataLoader dataLoader;
   private final RegimeLabeler regimeLabeler;
+  private final EvaluationPool evaluationPool;
 
-  public ResearchRunner(BacktestEngine backtestEngine, DataLoader dataLoader, RegimeLabeler regimeLabeler) {
+  public ResearchRunner(
+      BacktestEngine backtestEngine,
+      DataLoader dataLoader,
+      RegimeLabeler regimeLabeler,
+      EvaluationPool evaluationPool) {
     this.backtestEngine = backtestEngine;
     this.dataLoader = dataLoader;
     this.regimeLabeler = regimeLabeler;
+    this.evaluationPool = evaluationPool;
   }
 
   @Override
@@ -132,11 +141,15 @@ public class ResearchRunner implements ApplicationRunner {
     int pop = option(args, "pop").map(Integer::parseInt).orElse(20);
     int gens = option(args, "gens").map(Integer::parseInt).orElse(10);
     long seed = option(args, "seed").map(Long::parseLong).orElse(42L);
-    int workers = option(args, "maxWorkers").map(Integer::parseInt).orElse(Runtime.getRuntime().availableProcessors());
+    if (option(args, "maxWorkers").isPresent()) {
+      log.warn(
+          "--maxWorkers is ignored; size the shared pool with research.evaluation.parallelism");
+    }
     String runId = option(args, "run-id").orElse("ga-" + System.currentTimeMillis());
     boolean plotEnabled = option(args, "ga.plot").map(Boolean::parseBoolean).orElse(true);
     Path reportsDir = Path.of("reports").resolve("ga");
-    double complexityPenalty = option(args, "complexity-penalty").map(Double::parseDouble).orElse(0.0);
+    double complexityPenalty =
+        option(args, "complexity-penalty").map(Double::parseDouble).orElse(0.0);
     int minTrades = option(args, "min-trades").map(Integer::parseInt).orElse(0);
     int minSamples = option(args, "min-samples").map(Integer::parseInt).orElse(0);
     String regimeOption = option(args, "regime").orElse("ALL");
@@ -153,13 +166,15 @@ public class ResearchRunner implements ApplicationRunner {
     RegimeFilter regimeFilter = null;
     if (regimeTrend != null) {
       if (labelSet == null || labelSet.isEmpty()) {
-        log.warn("Regime {} requested but no labels available; proceeding without filter", regimeTrend);
+        log.warn(
+            "Regime {} requested but no labels available; proceeding without filter", regimeTrend);
       } else {
         regimeFilter = new RegimeFilter(regimeTrend, labelSet);
       }
     }
     String wfRaw = option(args, "wf").orElse(null);
     int[] wfSplits = wfRaw == null ? null : parseWalkforward(wfRaw);
+    int wfParallel = option(args, "wf-parallel").map(Integer::parseInt).orElse(1);
 
     BacktestRequest baseRequest =
         new BacktestRequest(
@@ -188,27 +203,53 @@ public class ResearchRunner implements ApplicationRunner {
         log.warn("Walk-forward splits produced no valid windows; aborting GA run");
         return;
       }
+      FitnessCache fitnessCache = new FitnessCache();
       WalkForwardOptimizer optimizer =
           new WalkForwardOptimizer(
               windows,
-              request -> {
+              (index, request) -> {
                 Evaluator evaluator =
-                    new Evaluator(backtestEngine, request, workers, reportsDir, complexityPenalty, minTrades);
+                    new Evaluator(
+                        evaluationPool,
+                        backtestEngine,
+                        request,
+                        reportsDir,
+                        complexityPenalty,
+                        minTrades,
+                        fitnessCache);
                 GaRunner runner = new GaRunner(evaluator, pop, gens, 0.2, 3, 2, seed);
-                runner.addListener(new GaProgressReporter(reportsDir, request.runId(), plotEnabled));
+                String windowId = WalkForwardOptimizer.windowId(index, request);
+                runner.addListener(new GaProgressReporter(reportsDir, windowId, plotEnabled));
                 return runner;
               });
+      optimizer
+          .parallelism(Math.max(1, wfParallel))
+          .checkpoint(new WalkForwardCheckpoint(reportsDir.resolve(runId).resolve("walkforward")))
+          .onWindow(
+              result ->
+                  log.info(
+                      "Walk-forward window {} {} fitness={}",
+                      result.runId(),
+                      result.resumed() ? "resumed" : "finished",
+                      result.champion().fitness()));
       best = optimizer.optimize();
     } else {
       Evaluator evaluator =
-          new Evaluator(backtestEngine, baseRequest, workers, reportsDir, complexityPenalty, minTrades);
+          new Evaluator(
+              evaluationPool,
+              backtestEngine,
+              baseRequest,
+              reportsDir,
+              complexityPenalty,
+              minTrades);
       GaRunner runner = new GaRunner(evaluator, pop, gens, 0.2, 3, 2, seed);
       GaProgressReporter reporter = new GaProgressReporter(reportsDir, runId, plotEnabled);
       runner.addListener(reporter);
       best = runner.run();
     }
 
-    Path outPath = option(args, "out").map(Path::of).orElse(Path.of("presets", "best_genomes.yaml"));
+    Path outPath =
+        option(args, "out").map(Path::of).orElse(Path.of("presets", "best_genomes.yaml"));
     GenomeFile genomeFile = new GenomeFile(best.toBuySection(), best.toSellSection());
     try {
       GenomeIO.write(outPath, genomeFile);
@@ -255,7 +296,8 @@ public class ResearchRunner implements ApplicationRunner {
   private int[] parseWalkforward(String raw) {
     String[] parts = raw.split(",");
     if (parts.length != 3) {
-      throw new IllegalArgumentException("Walk-forward configuration must be train,val,test in days");
+      throw new IllegalArgumentException(
+          "Walk-forward configuration must be train,val,test in days");
     }
     return new int[] {
       Integer.parseInt(parts[0].trim()),
@@ -0,0 +1,43 @@
+package com.bottrading.research.backtest;
+
+import com.bottrading.model.dto.Kline;
+import com.bottrading.strategy.CandleSeries;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Klines loaded, regime-filtered and hashed once for a request, plus their columnar view with a
+ * shared indicator cache. Immutable and safe to share across evaluation threads.
+ */
+public final class BacktestDataset {
+
+  private final List<Kline> klines;
+  private final CandleSeries candles;
+  private final String dataHash;
+
+  public BacktestDataset(List<Kline> klines, String dataHash) {
+    Objects.requireNonNull(klines, "klines");
+    if (klines.isEmpty()) {
+      throw new IllegalArgumentException("No klines available for backtest");
+    }
+    this.klines = List.copyOf(klines);
+    this.candles = CandleSeries.fromKlines(this.klines).withIndicatorCache();
+    this.dataHash = dataHash;
+  }
+
+  public List<Kline> klines() {
+    return klines;
+  }
+
+  public CandleSeries candles() {
+    return candles;
+  }
+
+  public String dataHash() {
+    return dataHash;
+  }
+
+  public int size() {
+    return klines.size();
+  }
+}
@@ -1,31 +1,36 @@
 package com.bottrading.research.backtest;
 
 import com.bottrading.model.dto.Kline;
+import com.bottrading.research.backtest.realistic.RealisticExecutionSimulator;
 import com.bottrading.research.ga.GenomeStrategyBuilder;
 import com.bottrading.research.ga.io.GenomeFile;
 import com.bottrading.research.ga.io.GenomeIO;
-import com.bottrading.research.backtest.realistic.RealisticExecutionSimulator;
+import com.bottrading.research.io.DataLoader;
+import com.bottrading.research.regime.RegimeFilter;
+import com.bottrading.strategy.CandleSeries;
 import com.bottrading.strategy.CompositeStrategy;
 import com.bottrading.strategy.SignalResult;
 import com.bottrading.strategy.SignalSide;
 import com.bottrading.strategy.StrategyContext;
 import com.bottrading.strategy.StrategyFactory;
-import com.bottrading.strategy.StrategyFactory.StrategyCatalog;
-import com.bottrading.research.io.DataLoader;
-import com.bottrading.research.regime.RegimeFilter;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.CancellationException;
 
 public class BacktestEngine {
 
+  private static final int VOLUME_WINDOW_BARS = 1440;
+  private static final BigDecimal RISK_FRACTION = BigDecimal.valueOf(0.1);
+  private static final int INTERRUPT_CHECK_MASK = 1023;
+
   private final DataLoader dataLoader;
   private final StrategyFactory strategyFactory;
   private final ReportWriter reportWriter;
@@ -46,14 +51,32 @@ public class BacktestEngine {
     return run(request, reportDirectory, null);
   }
 
-  public BacktestResult run(BacktestRequest request, Path reportDirectory, CompositeStrategy override)
+  public BacktestResult run(
+      BacktestRequest request, Path reportDirectory, CompositeStrategy override)
       throws IOException {
+    return run(request, reportDirectory, override, prepare(request));
+  }
+
+  /** Loads, regime-filters and hashes the request's klines once so several runs can share them. */
+  public BacktestDataset prepare(BacktestRequest request) {
     List<Kline> klines =
-        dataLoader.load(request.symbol(), request.interval(), request.from(), request.to(), request.useCache());
+        dataLoader.load(
+            request.symbol(), request.interval(), request.from(), request.to(), request.useCache());
     klines = applyRegimeFilter(klines, request.regimeFilter());
     if (klines == null || klines.isEmpty()) {
       throw new IllegalArgumentException("No klines available for backtest");
     }
+    return new BacktestDataset(klines, computeDataHash(request, klines));
+  }
+
+  /** Runs against a dataset prepared for the same symbol, interval, range and regime filter. */
+  public BacktestResult run(
+      BacktestRequest request,
+      Path reportDirectory,
+      CompositeStrategy override,
+      BacktestDataset dataset)
+      throws IOException {
+    List<Kline> klines = dataset.klines();
     CompositeStrategy strategy = resolveStrategy(request, override);
 
     SimpleExecutionSimulator simulator =
@@ -72,26 +95,34 @@ public class BacktestEngine {
               request.takerFeeBps(),
               seed);
     }
-    Portfolio portfolio = new Portfolio(startingCapital);
+    Portfolio portfolio = new Portfolio(startingCapital, request.fastMetrics());
     ExecutionStatistics executionStats = new ExecutionStatistics();
-    List<String[]> buffer = new ArrayList<>();
+    CandleSeries candles = dataset.candles();
+    int lookback = strategy.lookback();
+    StrategyContext.Builder contextBuilder = StrategyContext.builder().symbol(request.symbol());
+    BigDecimal volume24h = BigDecimal.ZERO;
     for (int index = 0; index < klines.size(); index++) {
+      if ((index & INTERRUPT_CHECK_MASK) == 0 && Thread.currentThread().isInterrupted()) {
+        throw new CancellationException("Backtest interrupted at bar " + index);
+      }
       Kline kline = klines.get(index);
-      buffer.add(toArray(kline));
-      BigDecimal volume24h = trailingVolume(buffer, 1440);
+      volume24h = volume24h.add(kline.volume());
+      if (index >= VOLUME_WINDOW_BARS) {
+        volume24h = volume24h.subtract(klines.get(index - VOLUME_WINDOW_BARS).volume());
+      }
       StrategyContext context =
-          StrategyContext.builder()
-              .symbol(request.symbol())
+          contextBuilder
               .lastPrice(kline.close())
               .volume24h(volume24h)
+              .asOf(kline.closeTime() != null ? kline.closeTime() : kline.openTime())
               .build();
-      SignalResult decision = strategy.evaluate(List.copyOf(buffer), context);
+      int end = index + 1;
+      CandleSeries window =
+          lookback > 0 ? candles.view(Math.max(0, end - lookback), end) : candles.head(end);
+      SignalResult decision = strategy.evaluate(window, context);
       BigDecimal price = kline.close();
-      BigDecimal riskFraction = BigDecimal.valueOf(0.1);
-      Portfolio.TradeMetadata metadata =
-          new Portfolio.TradeMetadata(decision.side(), decision.note(), decision.voters());
       if (decision.side() == SignalSide.BUY && !portfolio.hasPosition()) {
-        BigDecimal allocation = portfolio.equity().multiply(riskFraction);
+        BigDecimal allocation = portfolio.equity().multiply(RISK_FRACTION);
         BigDecimal quantity = allocation.divide(price, 8, RoundingMode.DOWN);
         if (quantity.compareTo(BigDecimal.ZERO) > 0) {
           ExecutionResult fill;
@@ -101,16 +132,18 @@ public class BacktestEngine {
             fill = simulator.simulateBuy(price, quantity, false);
           }
           executionStats.recordLimitAttempt(quantity, fill);
-          portfolio.buy(fill, metadata);
+          portfolio.buy(fill, metadata(decision));
         }
       } else if (decision.side() == SignalSide.SELL && portfolio.hasPosition()) {
         ExecutionResult fill;
         if (realisticSimulator != null) {
-          fill = realisticSimulator.executeExit(SignalSide.SELL, klines, index, portfolio.positionSize());
+          fill =
+              realisticSimulator.executeExit(
+                  SignalSide.SELL, klines, index, portfolio.positionSize());
         } else {
           fill = simulator.simulateSell(price, portfolio.positionSize(), false);
         }
-        portfolio.sell(fill, metadata);
+        portfolio.sell(fill, metadata(decision));
       }
       portfolio.mark(kline.openTime(), price);
     }
@@ -130,8 +163,12 @@ public class BacktestEngine {
               SignalSide.SELL, "Force exit - end of data", List.of("FORCED_EXIT")));
     }
     MetricsSummary metrics =
-        MetricsCalculator.compute(portfolio.trades(), portfolio.equityCurve(), executionStats);
-    String dataHash = computeDataHash(request, klines);
+        request.fastMetrics()
+            ? MetricsCalculator.compute(
+                portfolio.trades(), portfolio.equitySeries(), executionStats)
+            : MetricsCalculator.compute(
+                portfolio.trades(), portfolio.equityCurve(), executionStats);
+    String dataHash = dataset.dataHash();
     BacktestResult result =
         new BacktestResult(
             request,
@@ -219,23 +256,7 @@ public class BacktestEngine {
     digest.update(value.getBytes(StandardCharsets.UTF_8));
   }
 
-  private BigDecimal trailingVolume(List<String[]> buffer, int maxBars) {
-    int count = Math.min(buffer.size(), maxBars);
-    BigDecimal sum = BigDecimal.ZERO;
-    for (int i = buffer.size() - count; i < buffer.size(); i++) {
-      sum = sum.add(new BigDecimal(buffer.get(i)[5]));
-    }
-    return sum;
-  }
-
-  private String[] toArray(Kline kline) {
-    return new String[] {
-      String.valueOf(kline.openTime().toEpochMilli()),
-      kline.open().toPlainString(),
-      kline.high().toPlainString(),
-      kline.low().toPlainString(),
-      kline.close().toPlainString(),
-      kline.volume().toPlainString()
-    };
+  private Portfolio.TradeMetadata metadata(SignalResult decision) {
+    return new Portfolio.TradeMetadata(decision.side(), decision.note(), decision.voters());
   }
 }
@@ -21,4 +21,65 @@ public record BacktestRequest(
     String runId,
     boolean useCache,
     RegimeFilter regimeFilter,
-    RealisticBacktestConfig realisticConfig) {}
+    RealisticBacktestConfig realisticConfig,
+    boolean fastMetrics) {
+
+  public BacktestRequest(
+      String symbol,
+      String interval,
+      Instant from,
+      Instant to,
+      Path strategyConfig,
+      Path genomesConfig,
+      BigDecimal slippageBps,
+      BigDecimal takerFeeBps,
+      BigDecimal makerFeeBps,
+      boolean useDynamicFees,
+      Long seed,
+      String runId,
+      boolean useCache,
+      RegimeFilter regimeFilter,
+      RealisticBacktestConfig realisticConfig) {
+    this(
+        symbol,
+        interval,
+        from,
+        to,
+        strategyConfig,
+        genomesConfig,
+        slippageBps,
+        takerFeeBps,
+        makerFeeBps,
+        useDynamicFees,
+        seed,
+        runId,
+        useCache,
+        regimeFilter,
+        realisticConfig,
+        false);
+  }
+
+  /** Research runs mark equity and compute metrics in double precision; see MetricsCalculator. */
+  public BacktestRequest withFastMetrics(boolean enabled) {
+    if (enabled == fastMetrics) {
+      return this;
+    }
+    return new BacktestRequest(
+        symbol,
+        interval,
+        from,
+        to,
+        strategyConfig,
+        genomesConfig,
+        slippageBps,
+        takerFeeBps,
+        makerFeeBps,
+        useDynamicFees,
+        seed,
+        runId,
+        useCache,
+        regimeFilter,
+        realisticConfig,
+        enabled);
+  }
+}
@@ -0,0 +1,73 @@
+package com.bottrading.research.backtest;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/** Growable, primitive-backed equity curve used by research runs instead of boxed points. */
+public final class EquitySeries {
+
+  private long[] times;
+  private double[] equity;
+  private int size;
+
+  public EquitySeries() {
+    this(256);
+  }
+
+  public EquitySeries(int initialCapacity) {
+    int capacity = Math.max(1, initialCapacity);
+    this.times = new long[capacity];
+    this.equity = new double[capacity];
+  }
+
+  public void add(long timeMillis, double value) {
+    if (size == times.length) {
+      int capacity = times.length + (times.length >> 1) + 1;
+      times = Arrays.copyOf(times, capacity);
+      equity = Arrays.copyOf(equity, capacity);
+    }
+    times[size] = timeMillis;
+    equity[size] = value;
+    size++;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public long time(int index) {
+    return times[Objects.checkIndex(index, size)];
+  }
+
+  public double equity(int index) {
+    return equity[Objects.checkIndex(index, size)];
+  }
+
+  public double lastEquity() {
+    return equity(size - 1);
+  }
+
+  /** Read-only view that converts to {@link EquityPoint} lazily, one point per access. */
+  public List<EquityPoint> asPoints() {
+    return new AbstractList<>() {
+      @Override
+      public EquityPoint get(int index) {
+        return new EquityPoint(
+            Instant.ofEpochMilli(time(index)), BigDecimal.valueOf(equity(index)));
+      }
+
+      @Override
+      public int size() {
+        return EquitySeries.this.size;
+      }
+    };
+  }
+}
@@ -13,9 +13,12 @@ public class Portfolio {
   private final MathContext mc = new MathContext(12, RoundingMode.HALF_UP);
   private final List<TradeRecord> trades = new ArrayList<>();
   private final List<EquityPoint> equityCurve = new ArrayList<>();
+  private final EquitySeries equitySeries;
 
   private BigDecimal quoteBalance;
   private BigDecimal basePosition = BigDecimal.ZERO;
+  private double quoteValue;
+  private double baseValue;
   private Instant openTime;
   private BigDecimal entryPrice;
   private TradeMetadata entryMetadata;
@@ -28,7 +31,17 @@ public class Portfolio {
   private ExecutionResult.ExecutionType entryExecutionType = ExecutionResult.ExecutionType.LIMIT;
 
   public Portfolio(BigDecimal startingCapital) {
+    this(startingCapital, false);
+  }
+
+  /**
+   * With {@code fastMetrics} the equity curve is marked in double precision into an {@link
+   * EquitySeries}; cash and fills are still booked in BigDecimal so trades are unaffected.
+   */
+  public Portfolio(BigDecimal startingCapital, boolean fastMetrics) {
     this.quoteBalance = startingCapital;
+    this.quoteValue = startingCapital.doubleValue();
+    this.equitySeries = fastMetrics ? new EquitySeries() : null;
   }
 
   public boolean buy(ExecutionResult execution, TradeMetadata metadata) {
@@ -42,6 +55,8 @@ public class Portfolio {
     BigDecimal fee = execution.totalFee();
     quoteBalance = quoteBalance.subtract(notional.add(fee, mc), mc);
     basePosition = execution.quantity();
+    quoteValue = quoteBalance.doubleValue();
+    baseValue = basePosition.doubleValue();
     entryPrice = execution.averagePrice();
     openTime = execution.firstFillTime();
     entryMetadata = metadata;
@@ -64,10 +79,10 @@ public class Portfolio {
     }
     BigDecimal proceeds = execution.totalNotional().subtract(execution.totalFee(), mc);
     quoteBalance = quoteBalance.add(proceeds, mc);
-    BigDecimal pnl =
-        proceeds.subtract(entryNotional.add(entryFees, mc), mc);
+    BigDecimal pnl = proceeds.subtract(entryNotional.add(entryFees, mc), mc);
     boolean win = pnl.compareTo(BigDecimal.ZERO) > 0;
-    TradeMetadata meta = entryMetadata != null ? entryMetadata : TradeMetadata.empty(SignalSide.BUY);
+    TradeMetadata meta =
+        entryMetadata != null ? entryMetadata : TradeMetadata.empty(SignalSide.BUY);
     TradeMetadata exitMeta = metadata != null ? metadata : TradeMetadata.empty(SignalSide.SELL);
     trades.add(
         new TradeRecord(
@@ -87,11 +102,15 @@ public class Portfolio {
             List.copyOf(execution.fills()),
             entryFees.add(execution.totalFee(), mc),
             entrySlippageBps.add(execution.slippageBps(), mc),
-            entryQueueTimeMs.add(execution.averageQueueTimeMs(), mc).divide(BigDecimal.valueOf(2), mc),
+            entryQueueTimeMs
+                .add(execution.averageQueueTimeMs(), mc)
+                .divide(BigDecimal.valueOf(2), mc),
             riskMultiple(pnl, execution.quantity()),
             entryExecutionType,
             execution.executionType()));
     basePosition = BigDecimal.ZERO;
+    quoteValue = quoteBalance.doubleValue();
+    baseValue = 0;
     entryPrice = null;
     openTime = null;
     entryMetadata = null;
@@ -104,6 +123,11 @@ public class Portfolio {
   }
 
   public void mark(Instant time, BigDecimal price) {
+    if (equitySeries != null) {
+      double equity = baseValue > 0 ? quoteValue + baseValue * price.doubleValue() : quoteValue;
+      equitySeries.add(time.toEpochMilli(), equity);
+      return;
+    }
     BigDecimal equity = quoteBalance;
     if (basePosition.compareTo(BigDecimal.ZERO) > 0) {
       equity = equity.add(price.multiply(basePosition, mc), mc);
@@ -112,6 +136,12 @@ public class Portfolio {
   }
 
   public BigDecimal equity() {
+    if (equitySeries != null) {
+      // flat equity is exactly the cash balance, which keeps position sizing identical
+      return hasPosition() && !equitySeries.isEmpty()
+          ? BigDecimal.valueOf(equitySeries.lastEquity())
+          : quoteBalance;
+    }
     if (equityCurve.isEmpty()) {
       return quoteBalance;
     }
@@ -131,7 +161,12 @@ public class Portfolio {
   }
 
   public List<EquityPoint> equityCurve() {
-    return equityCurve;
+    return equitySeries != null ? equitySeries.asPoints() : equityCurve;
+  }
+
+  /** Primitive equity curve, or {@code null} when the portfolio marks in BigDecimal. */
+  public EquitySeries equitySeries() {
+    return equitySeries;
   }
 
   public BigDecimal entryRequestedQuantity() {
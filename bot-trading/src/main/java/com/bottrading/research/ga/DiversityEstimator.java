@@ -0,0 +1,123 @@
+package com.bottrading.research.ga;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Mean pairwise L1 distance between {@link Genome#encode() encoded genomes}. L1 decomposes per
+ * dimension, so the sorted mode is exact in O(d·n·log n); pairwise is the O(n²·d) reference and
+ * sampled trades accuracy for a fixed budget of random pairs.
+ */
+public final class DiversityEstimator {
+
+  /** Populations up to this size use the pairwise reference under {@link #auto()}. */
+  public static final int PAIRWISE_LIMIT = 64;
+
+  private enum Mode {
+    AUTO,
+    PAIRWISE,
+    SORTED,
+    SAMPLED
+  }
+
+  private final Mode mode;
+  private final int pairs;
+  private final long seed;
+
+  private DiversityEstimator(Mode mode, int pairs, long seed) {
+    this.mode = mode;
+    this.pairs = pairs;
+    this.seed = seed;
+  }
+
+  public static DiversityEstimator auto() {
+    return new DiversityEstimator(Mode.AUTO, 0, 0);
+  }
+
+  public static DiversityEstimator pairwise() {
+    return new DiversityEstimator(Mode.PAIRWISE, 0, 0);
+  }
+
+  public static DiversityEstimator sorted() {
+    return new DiversityEstimator(Mode.SORTED, 0, 0);
+  }
+
+  /** Averages {@code pairs} uniformly drawn distinct pairs; exact once that covers every pair. */
+  public static DiversityEstimator sampled(int pairs, long seed) {
+    if (pairs <= 0) {
+      throw new IllegalArgumentException("pairs must be positive");
+    }
+    return new DiversityEstimator(Mode.SAMPLED, pairs, seed);
+  }
+
+  public double estimate(List<Genome> genomes) {
+    int n = genomes.size();
+    if (n < 2) {
+      return 0;
+    }
+    double[][] vectors = new double[n][];
+    for (int i = 0; i < n; i++) {
+      vectors[i] = genomes.get(i).encode();
+    }
+    return switch (mode) {
+      case AUTO -> n <= PAIRWISE_LIMIT ? pairwise(vectors) : sorted(vectors);
+      case PAIRWISE -> pairwise(vectors);
+      case SORTED -> sorted(vectors);
+      case SAMPLED -> (long) n * (n - 1) / 2 <= pairs ? pairwise(vectors) : sampled(vectors);
+    };
+  }
+
+  private static double pairwise(double[][] vectors) {
+    double total = 0;
+    long count = 0;
+    for (int i = 0; i < vectors.length; i++) {
+      for (int j = i + 1; j < vectors.length; j++) {
+        total += distance(vectors[i], vectors[j]);
+        count++;
+      }
+    }
+    return total / count;
+  }
+
+  /** Per dimension, sum over pairs of |a - b| equals sum of x(k)·(2k - n + 1) over sorted x. */
+  private static double sorted(double[][] vectors) {
+    int n = vectors.length;
+    int dimensions = vectors[0].length;
+    double[] column = new double[n];
+    double total = 0;
+    for (int d = 0; d < dimensions; d++) {
+      for (int i = 0; i < n; i++) {
+        column[i] = vectors[i][d];
+      }
+      Arrays.sort(column);
+      for (int k = 0; k < n; k++) {
+        total += column[k] * (2.0 * k - n + 1);
+      }
+    }
+    return total / ((double) n * (n - 1) / 2);
+  }
+
+  private double sampled(double[][] vectors) {
+    Random random = new Random(seed);
+    int n = vectors.length;
+    double total = 0;
+    for (int p = 0; p < pairs; p++) {
+      int i = random.nextInt(n);
+      int j = random.nextInt(n - 1);
+      if (j >= i) {
+        j++;
+      }
+      total += distance(vectors[i], vectors[j]);
+    }
+    return total / pairs;
+  }
+
+  private static double distance(double[] a, double[] b) {
+    double diff = 0;
+    for (int i = 0; i < a.length; i++) {
+      diff += Math.abs(a[i] - b[i]);
+    }
+    return diff;
+  }
+}
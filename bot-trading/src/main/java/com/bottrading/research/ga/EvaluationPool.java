@@ -0,0 +1,219 @@
+package com.bottrading.research.ga;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Long-lived work-stealing pool for CPU-bound genome evaluations. Submission is bounded by {@code
+ * maxInFlight}, each task is cancelled (interrupted) once it runs longer than the timeout, and a
+ * batch whose caller is interrupted cancels every task it still owns.
+ */
+public class EvaluationPool implements AutoCloseable {
+
+  private static final Logger log = LoggerFactory.getLogger(EvaluationPool.class);
+
+  private final ForkJoinPool pool;
+  private final ScheduledThreadPoolExecutor watchdog;
+  private final Semaphore permits;
+  private final Duration timeout;
+  private final AtomicInteger queued = new AtomicInteger();
+  private final AtomicInteger running = new AtomicInteger();
+  private final Counter evaluations;
+  private final Counter failures;
+  private final Counter timeouts;
+  private final Timer duration;
+
+  public EvaluationPool(
+      int parallelism, int maxInFlight, Duration timeout, MeterRegistry registry) {
+    if (parallelism <= 0 || maxInFlight <= 0) {
+      throw new IllegalArgumentException("parallelism and maxInFlight must be positive");
+    }
+    this.pool =
+        new ForkJoinPool(parallelism, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+    this.watchdog =
+        new ScheduledThreadPoolExecutor(
+            1,
+            runnable -> {
+              Thread thread = new Thread(runnable, "ga-eval-watchdog");
+              thread.setDaemon(true);
+              return thread;
+            });
+    this.watchdog.setRemoveOnCancelPolicy(true);
+    this.watchdog.setKeepAliveTime(30, TimeUnit.SECONDS);
+    this.watchdog.allowCoreThreadTimeOut(true);
+    this.permits = new Semaphore(maxInFlight);
+    this.timeout = timeout == null || timeout.isZero() || timeout.isNegative() ? null : timeout;
+    MeterRegistry meters = registry == null ? new SimpleMeterRegistry() : registry;
+    this.evaluations = meters.counter("research.ga.evaluations");
+    this.failures = meters.counter("research.ga.evaluation.failures", "reason", "error");
+    this.timeouts = meters.counter("research.ga.evaluation.failures", "reason", "timeout");
+    this.duration =
+        Timer.builder("research.ga.evaluation.duration").publishPercentiles(0.99).register(meters);
+    Gauge.builder("research.ga.evaluation.queue", queued, AtomicInteger::get).register(meters);
+    Gauge.builder("research.ga.evaluation.running", running, AtomicInteger::get).register(meters);
+  }
+
+  /**
+   * Runs {@code task} for every item and blocks until all have finished, failed or timed out;
+   * {@code onFailure} receives the item and cause for the latter two. If the calling thread is
+   * interrupted the remaining tasks are cancelled and {@link InterruptedException} is rethrown.
+   */
+  public <T> void runAll(List<T> items, Consumer<T> task, BiConsumer<T, Throwable> onFailure)
+      throws InterruptedException {
+    List<Job<T>> jobs = new ArrayList<>(items.size());
+    try {
+      for (T item : items) {
+        permits.acquire();
+        queued.incrementAndGet();
+        Job<T> job = new Job<>(item);
+        jobs.add(job);
+        try {
+          job.future = pool.submit(ForkJoinTask.adaptInterruptible(() -> execute(job, task)));
+        } catch (RuntimeException ex) {
+          job.abandon();
+          throw ex;
+        }
+      }
+      for (Job<T> job : jobs) {
+        try {
+          job.future.get();
+        } catch (ExecutionException ex) {
+          Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+          if (cause instanceof TimeoutCancellation) {
+            timeouts.increment();
+          } else {
+            failures.increment();
+            log.warn("Genome evaluation failed", cause);
+          }
+          onFailure.accept(job.item, cause);
+        } catch (CancellationException ex) {
+          failures.increment();
+          onFailure.accept(job.item, ex);
+        }
+      }
+    } catch (InterruptedException ex) {
+      for (Job<T> job : jobs) {
+        if (job.future != null) {
+          job.future.cancel(true);
+        }
+        job.abandon();
+      }
+      throw ex;
+    }
+  }
+
+  public int queued() {
+    return queued.get();
+  }
+
+  public int running() {
+    return running.get();
+  }
+
+  private <T> Void execute(Job<T> job, Consumer<T> task) {
+    if (!job.claim()) {
+      return null;
+    }
+    running.incrementAndGet();
+    job.worker = Thread.currentThread();
+    ScheduledFuture<?> deadline =
+        timeout == null
+            ? null
+            : watchdog.schedule(job::expire, timeout.toMillis(), TimeUnit.MILLISECONDS);
+    long start = System.nanoTime();
+    try {
+      task.accept(job.item);
+      evaluations.increment();
+      return null;
+    } catch (RuntimeException ex) {
+      if (job.expired) {
+        throw new TimeoutCancellation(timeout);
+      }
+      throw ex;
+    } finally {
+      if (deadline != null) {
+        deadline.cancel(false);
+      }
+      job.finish();
+      // clear any timeout or cancel interrupt so it does not leak into the next task on this worker
+      Thread.interrupted();
+      duration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      running.decrementAndGet();
+      permits.release();
+    }
+  }
+
+  @Override
+  public void close() {
+    watchdog.shutdownNow();
+    pool.shutdownNow();
+  }
+
+  /** One submitted item; the monitor orders the watchdog interrupt against task completion. */
+  private final class Job<T> {
+    private final T item;
+    private final AtomicBoolean claimed = new AtomicBoolean();
+    private volatile Future<?> future;
+    private Thread worker;
+    private boolean finished;
+    private volatile boolean expired;
+
+    private Job(T item) {
+      this.item = item;
+    }
+
+    private boolean claim() {
+      if (!claimed.compareAndSet(false, true)) {
+        return false;
+      }
+      queued.decrementAndGet();
+      return true;
+    }
+
+    /** Releases the slot of a job that never started. */
+    private void abandon() {
+      if (claimed.compareAndSet(false, true)) {
+        queued.decrementAndGet();
+        permits.release();
+      }
+    }
+
+    private synchronized void expire() {
+      if (!finished) {
+        expired = true;
+        worker.interrupt();
+      }
+    }
+
+    private synchronized void finish() {
+      finished = true;
+    }
+  }
+
+  static final class TimeoutCancellation extends RuntimeException {
+    TimeoutCancellation(Duration timeout) {
+      super("Evaluation exceeded " + timeout);
+    }
+  }
+}
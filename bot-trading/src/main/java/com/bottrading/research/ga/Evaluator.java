@@ -1,28 +1,36 @@
 package com.bottrading.research.ga;
 
+import com.bottrading.research.backtest.BacktestDataset;
 import com.bottrading.research.backtest.BacktestEngine;
 import com.bottrading.research.backtest.BacktestRequest;
 import com.bottrading.research.backtest.BacktestResult;
 import com.bottrading.research.backtest.MetricsSummary;
+import com.bottrading.research.backtest.realistic.RealisticBacktestConfig;
+import com.bottrading.strategy.CompositeStrategy;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
+import java.util.Map;
 
-public class Evaluator {
+public class Evaluator implements AutoCloseable {
 
+  private final EvaluationPool pool;
+  private final boolean ownsPool;
   private final BacktestEngine engine;
   private final BacktestRequest request;
-  private final int maxWorkers;
   private final Path reportsDir;
   private final double complexityPenalty;
   private final int minTrades;
+  private final FitnessCache cache;
 
+  /**
+   * Standalone evaluator backed by its own pool of {@code maxWorkers} threads, shut down by {@link
+   * #close()}.
+   */
   public Evaluator(
       BacktestEngine engine,
       BacktestRequest request,
@@ -30,40 +38,141 @@ public class Evaluator {
       Path reportsDir,
       double complexityPenalty,
       int minTrades) {
+    this(
+        new EvaluationPool(Math.max(1, maxWorkers), Math.max(1, maxWorkers) * 2, null, null),
+        true,
+        engine,
+        request,
+        reportsDir,
+        complexityPenalty,
+        minTrades,
+        new FitnessCache());
+  }
+
+  public Evaluator(
+      EvaluationPool pool,
+      BacktestEngine engine,
+      BacktestRequest request,
+      Path reportsDir,
+      double complexityPenalty,
+      int minTrades) {
+    this(pool, engine, request, reportsDir, complexityPenalty, minTrades, new FitnessCache());
+  }
+
+  public Evaluator(
+      EvaluationPool pool,
+      BacktestEngine engine,
+      BacktestRequest request,
+      Path reportsDir,
+      double complexityPenalty,
+      int minTrades,
+      FitnessCache cache) {
+    this(pool, false, engine, request, reportsDir, complexityPenalty, minTrades, cache);
+  }
+
+  private Evaluator(
+      EvaluationPool pool,
+      boolean ownsPool,
+      BacktestEngine engine,
+      BacktestRequest request,
+      Path reportsDir,
+      double complexityPenalty,
+      int minTrades,
+      FitnessCache cache) {
+    this.pool = pool;
+    this.ownsPool = ownsPool;
     this.engine = engine;
-    this.request = request;
-    this.maxWorkers = Math.max(1, maxWorkers);
+    this.request = request.withFastMetrics(true);
     this.reportsDir = reportsDir;
     this.complexityPenalty = Math.max(0, complexityPenalty);
     this.minTrades = Math.max(0, minTrades);
+    this.cache = cache;
+  }
+
+  /**
+   * Loads the evaluation data once; pass the result to {@link #evaluate(List, BacktestDataset)}.
+   */
+  public BacktestDataset prepareDataset() {
+    return engine.prepare(request);
   }
 
-  public void evaluate(List<Genome> genomes) throws InterruptedException {
-    ExecutorService executor = Executors.newFixedThreadPool(maxWorkers);
-    List<Future<?>> futures = new ArrayList<>();
+  public int evaluate(List<Genome> genomes) throws InterruptedException {
+    return evaluate(genomes, null);
+  }
+
+  /**
+   * Scores every genome, backtesting each distinct {@link Genome#fingerprint()} at most once. With
+   * a dataset, metrics are also looked up in and stored to the fitness cache under its data hash.
+   *
+   * @return number of genomes scored without running a backtest
+   */
+  public int evaluate(List<Genome> genomes, BacktestDataset dataset) throws InterruptedException {
+    EvaluationContext context = dataset == null ? null : context(dataset);
+    Map<String, List<Genome>> pending = new LinkedHashMap<>();
+    int hits = 0;
     for (Genome genome : genomes) {
-      futures.add(
-          executor.submit(
-              () -> {
-                try {
-                  BacktestResult result = engine.run(request, null, genome.toStrategy());
-                  MetricsSummary metrics = result.metrics();
-                  genome.metrics(metrics);
-                  genome.fitness(applyPenalties(genome, metrics));
-                } catch (IOException ex) {
-                  genome.fitness(Double.NEGATIVE_INFINITY);
-                }
-              }));
-    }
-    for (Future<?> future : futures) {
-      try {
-        future.get();
-      } catch (ExecutionException ex) {
-        // ignore individual failures
+      String fingerprint = genome.fingerprint();
+      MetricsSummary cached = context == null ? null : cache.get(context, fingerprint);
+      if (cached != null) {
+        assign(genome, cached);
+        hits++;
+        continue;
+      }
+      List<Genome> group = pending.computeIfAbsent(fingerprint, key -> new ArrayList<>());
+      if (!group.isEmpty()) {
+        hits++;
       }
+      group.add(genome);
     }
-    executor.shutdown();
-    executor.awaitTermination(1, TimeUnit.HOURS);
+    pool.runAll(
+        new ArrayList<>(pending.entrySet()),
+        entry -> {
+          try {
+            CompositeStrategy strategy = entry.getValue().get(0).toStrategy();
+            BacktestResult result =
+                dataset == null
+                    ? engine.run(request, null, strategy)
+                    : engine.run(request, null, strategy, dataset);
+            MetricsSummary metrics = result.metrics();
+            for (Genome genome : entry.getValue()) {
+              assign(genome, metrics);
+            }
+            if (context != null) {
+              cache.put(context, entry.getKey(), metrics);
+            }
+          } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+          }
+        },
+        (entry, cause) -> entry.getValue().forEach(g -> g.fitness(Double.NEGATIVE_INFINITY)));
+    return hits;
+  }
+
+  /** Shuts down the pool if this evaluator created it; a shared pool is left to its owner. */
+  @Override
+  public void close() {
+    if (ownsPool) {
+      pool.close();
+    }
+  }
+
+  private void assign(Genome genome, MetricsSummary metrics) {
+    genome.metrics(metrics);
+    genome.fitness(applyPenalties(genome, metrics));
+  }
+
+  /** Everything besides the genome that determines a backtest's metrics. */
+  private EvaluationContext context(BacktestDataset dataset) {
+    return new EvaluationContext(
+        dataset.dataHash(),
+        request.symbol(),
+        request.interval(),
+        request.slippageBps(),
+        request.takerFeeBps(),
+        request.makerFeeBps(),
+        request.useDynamicFees(),
+        request.seed(),
+        request.realisticConfig());
   }
 
   private double applyPenalties(Genome genome, MetricsSummary metrics) {
@@ -85,4 +194,15 @@ public class Evaluator {
     double dd = metrics.maxDrawdown().doubleValue();
     return (pf * 2.0) + sharpe + cagr - dd;
   }
+
+  private record EvaluationContext(
+      String dataHash,
+      String symbol,
+      String interval,
+      BigDecimal slippageBps,
+      BigDecimal takerFeeBps,
+      BigDecimal makerFeeBps,
+      boolean useDynamicFees,
+      Long seed,
+      RealisticBacktestConfig realisticConfig) {}
 }
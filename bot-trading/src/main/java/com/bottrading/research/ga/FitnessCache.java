@@ -0,0 +1,68 @@
+package com.bottrading.research.ga;
+
+import com.bottrading.research.backtest.MetricsSummary;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU memo of backtest metrics keyed by evaluation context (data hash and execution costs)
+ * and {@link Genome#fingerprint()}. Share one instance across the walk-forward windows of a run so
+ * a genome seen before on the same data is never backtested again.
+ */
+public class FitnessCache {
+
+  public static final int DEFAULT_CAPACITY = 10_000;
+
+  private final int capacity;
+  private final Map<Key, MetricsSummary> entries;
+  private long hits;
+  private long misses;
+
+  public FitnessCache() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public FitnessCache(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be positive");
+    }
+    this.capacity = capacity;
+    this.entries =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<Key, MetricsSummary> eldest) {
+            return size() > FitnessCache.this.capacity;
+          }
+        };
+  }
+
+  public synchronized MetricsSummary get(Object context, String fingerprint) {
+    MetricsSummary metrics = entries.get(new Key(context, fingerprint));
+    if (metrics == null) {
+      misses++;
+    } else {
+      hits++;
+    }
+    return metrics;
+  }
+
+  public synchronized void put(Object context, String fingerprint, MetricsSummary metrics) {
+    if (metrics != null) {
+      entries.put(new Key(context, fingerprint), metrics);
+    }
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  public synchronized long hits() {
+    return hits;
+  }
+
+  public synchronized long misses() {
+    return misses;
+  }
+
+  private record Key(Object context, String fingerprint) {}
+}
@@ -61,19 +61,17 @@ public class GaProgressReporter implements GaListener {
     boolean writeHeader = !Files.exists(csvPath);
     try (OutputStreamWriter writer =
         new OutputStreamWriter(
-            Files.newOutputStream(
-                csvPath,
-                StandardOpenOption.CREATE,
-                StandardOpenOption.APPEND),
+            Files.newOutputStream(csvPath, StandardOpenOption.CREATE, StandardOpenOption.APPEND),
             StandardCharsets.UTF_8)) {
       if (writeHeader) {
         writer.write(
-            "gen,maxFitness,avgFitness,minFitness,diversity,maxProfitRiskRatio,avgProfitRiskRatio,bestGenomeSummary\n");
+            "gen,maxFitness,avgFitness,minFitness,diversity,maxProfitRiskRatio,"
+                + "avgProfitRiskRatio,bestGenomeSummary,cacheHitRate\n");
       }
       writer.write(
           String.format(
               Locale.US,
-              "%d,%.6f,%.6f,%.6f,%.6f,%.6f,%.6f,%s%n",
+              "%d,%.6f,%.6f,%.6f,%.6f,%.6f,%.6f,%s,%.4f%n",
               stats.generation(),
               stats.maxFitness(),
               stats.avgFitness(),
@@ -81,7 +79,8 @@ public class GaProgressReporter implements GaListener {
               stats.diversity(),
               stats.maxProfitRiskRatio(),
               stats.averageProfitRiskRatio(),
-              quote(stats.bestGenomeSummary())));
+              quote(stats.bestGenomeSummary()),
+              stats.cacheHitRate()));
     }
   }
 
@@ -96,12 +95,24 @@ public class GaProgressReporter implements GaListener {
             .build();
     chart.getStyler().setLegendPosition(LegendPosition.OutsideE);
     chart.getStyler().setDatePattern(null);
-    chart.addSeries("Máximo Fitness", generations, maxFitness).setLineColor(new java.awt.Color(243, 156, 18));
-    chart.addSeries("Fitness Promedio", generations, avgFitness).setLineColor(new java.awt.Color(241, 196, 15));
-    chart.addSeries("Mínimo Fitness", generations, minFitness).setLineColor(new java.awt.Color(39, 174, 96));
-    chart.addSeries("Diversidad Genética", generations, diversity).setLineColor(new java.awt.Color(52, 152, 219));
-    chart.addSeries("maxProfitRiskRatio", generations, maxProfitRisk).setLineColor(new java.awt.Color(155, 89, 182));
-    chart.addSeries("averageProfitRiskRatio", generations, avgProfitRisk).setLineColor(new java.awt.Color(187, 143, 206));
+    chart
+        .addSeries("Máximo Fitness", generations, maxFitness)
+        .setLineColor(new java.awt.Color(243, 156, 18));
+    chart
+        .addSeries("Fitness Promedio", generations, avgFitness)
+        .setLineColor(new java.awt.Color(241, 196, 15));
+    chart
+        .addSeries("Mínimo Fitness", generations, minFitness)
+        .setLineColor(new java.awt.Color(39, 174, 96));
+    chart
+        .addSeries("Diversidad Genética", generations, diversity)
+        .setLineColor(new java.awt.Color(52, 152, 219));
+    chart
+        .addSeries("maxProfitRiskRatio", generations, maxProfitRisk)
+        .setLineColor(new java.awt.Color(155, 89, 182));
+    chart
+        .addSeries("averageProfitRiskRatio", generations, avgProfitRisk)
+        .setLineColor(new java.awt.Color(187, 143, 206));
     if (chartPath.getParent() != null && !Files.exists(chartPath.getParent())) {
       Files.createDirectories(chartPath.getParent());
     }
@@ -1,12 +1,11 @@
 package com.bottrading.research.ga;
 
+import com.bottrading.research.backtest.BacktestDataset;
 import com.bottrading.research.backtest.MetricsSummary;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Objects;
 import java.util.Random;
-import java.util.Set;
 import java.util.stream.Collectors;
 
 public class GaRunner {
@@ -19,6 +18,7 @@ public class GaRunner {
   private final int elitism;
   private final long seed;
   private final List<GaListener> listeners = new ArrayList<>();
+  private DiversityEstimator diversityEstimator = DiversityEstimator.auto();
 
   public GaRunner(
       Evaluator evaluator,
@@ -39,13 +39,14 @@ public class GaRunner {
 
   public Genome run() throws InterruptedException {
     Random random = new Random(seed);
+    BacktestDataset dataset = evaluator.prepareDataset();
     Population population = new Population();
     for (int i = 0; i < populationSize; i++) {
       population.add(new Genome(random));
     }
-    evaluator.evaluate(population.genomes());
+    int hits = evaluator.evaluate(population.genomes(), dataset);
     population.sort();
-    notifyListeners(0, population);
+    notifyListeners(0, population, hits);
 
     for (int gen = 0; gen < generations; gen++) {
       List<Genome> nextGen = new ArrayList<>();
@@ -61,27 +62,35 @@ public class GaRunner {
       }
       population.genomes().clear();
       population.genomes().addAll(nextGen);
-      evaluator.evaluate(population.genomes());
+      hits = evaluator.evaluate(population.genomes(), dataset);
       population.sort();
-      notifyListeners(gen + 1, population);
+      notifyListeners(gen + 1, population, hits);
     }
     return population.best();
   }
 
+  /**
+   * Sets how the diversity statistic is computed; defaults to {@link DiversityEstimator#auto()}.
+   */
+  public GaRunner diversityEstimator(DiversityEstimator estimator) {
+    this.diversityEstimator = Objects.requireNonNull(estimator, "estimator");
+    return this;
+  }
+
   public void addListener(GaListener listener) {
     if (listener != null) {
       listeners.add(listener);
     }
   }
 
-  private void notifyListeners(int generation, Population population) {
+  private void notifyListeners(int generation, Population population, int cacheHits) {
     if (listeners.isEmpty()) {
       return;
     }
     double max = population.best().fitness();
     double min = population.genomes().get(population.genomes().size() - 1).fitness();
     double avg = population.genomes().stream().mapToDouble(Genome::fitness).average().orElse(0);
-    double diversity = computeDiversity(population.genomes());
+    double diversity = diversityEstimator.estimate(population.genomes());
     ProfitRiskAggregate aggregate = computeProfitRisk(population.genomes());
     String summary = summarize(population.best());
     GenStats stats =
@@ -93,59 +102,14 @@ public class GaRunner {
             diversity,
             aggregate.max,
             aggregate.avg,
-            summary);
+            summary,
+            population.genomes().size(),
+            cacheHits);
     for (GaListener listener : listeners) {
       listener.onGeneration(stats);
     }
   }
 
-  private double computeDiversity(List<Genome> genomes) {
-    if (genomes.size() < 2) {
-      return 0;
-    }
-    double total = 0;
-    int pairs = 0;
-    for (int i = 0; i < genomes.size(); i++) {
-      for (int j = i + 1; j < genomes.size(); j++) {
-        total += genomeDistance(genomes.get(i), genomes.get(j));
-        pairs++;
-      }
-    }
-    return pairs == 0 ? 0 : total / pairs;
-  }
-
-  private double genomeDistance(Genome a, Genome b) {
-    double diff =
-        Math.abs(a.buyThreshold() - b.buyThreshold()) + Math.abs(a.sellThreshold() - b.sellThreshold());
-    Set<String> keys = new HashSet<>();
-    keys.addAll(a.genes().keySet());
-    keys.addAll(b.genes().keySet());
-    for (String key : keys) {
-      Gene ga = a.genes().get(key);
-      Gene gb = b.genes().get(key);
-      if (ga == null || gb == null) {
-        diff += 1;
-        continue;
-      }
-      diff += Math.abs(ga.weight() - gb.weight());
-      diff += Math.abs(ga.confidence() - gb.confidence());
-      diff += ga.enabled() == gb.enabled() ? 0 : 1;
-      diff += parameterDistance(ga.params(), gb.params());
-    }
-    return diff;
-  }
-
-  private double parameterDistance(Map<String, Double> a, Map<String, Double> b) {
-    Set<String> keys = new HashSet<>();
-    keys.addAll(a.keySet());
-    keys.addAll(b.keySet());
-    double diff = 0;
-    for (String key : keys) {
-      diff += Math.abs(a.getOrDefault(key, 0.0) - b.getOrDefault(key, 0.0));
-    }
-    return diff;
-  }
-
   private ProfitRiskAggregate computeProfitRisk(List<Genome> genomes) {
     double sum = 0;
     double max = Double.NEGATIVE_INFINITY;
@@ -159,8 +123,7 @@ public class GaRunner {
         continue;
       }
       double ratio =
-          metrics.expectancy().doubleValue()
-              / Math.abs(metrics.maxDrawdown().doubleValue());
+          metrics.expectancy().doubleValue() / Math.abs(metrics.maxDrawdown().doubleValue());
       sum += ratio;
       count++;
       if (ratio > max) {
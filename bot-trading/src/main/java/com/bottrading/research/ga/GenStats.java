@@ -8,4 +8,12 @@ public record GenStats(
     double diversity,
     double maxProfitRiskRatio,
     double averageProfitRiskRatio,
-    String bestGenomeSummary) {}
+    String bestGenomeSummary,
+    int genomes,
+    int cacheHits) {
+
+  /** Share of this generation's genomes scored from the fitness cache or a duplicate. */
+  public double cacheHitRate() {
+    return genomes == 0 ? 0 : (double) cacheHits / genomes;
+  }
+}
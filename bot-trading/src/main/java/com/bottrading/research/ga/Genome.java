@@ -1,26 +1,40 @@
 package com.bottrading.research.ga;
 
+import com.bottrading.research.backtest.MetricsSummary;
 import com.bottrading.research.ga.io.GenomeSection;
 import com.bottrading.strategy.CompositeStrategy;
 import com.bottrading.strategy.Signal;
-import com.bottrading.strategy.signals.BollingerBandsSignal;
-import com.bottrading.strategy.signals.EmaCrossoverSignal;
-import com.bottrading.strategy.signals.MacdSignal;
-import com.bottrading.strategy.signals.RsiSignal;
-import com.bottrading.strategy.signals.SmaCrossoverSignal;
-import com.bottrading.strategy.signals.SupertrendSignal;
-import com.bottrading.research.backtest.MetricsSummary;
+import com.bottrading.strategy.signals.StreamingBollingerBandsSignal;
+import com.bottrading.strategy.signals.StreamingEmaCrossoverSignal;
+import com.bottrading.strategy.signals.StreamingMacdSignal;
+import com.bottrading.strategy.signals.StreamingRsiSignal;
+import com.bottrading.strategy.signals.StreamingSmaCrossoverSignal;
+import com.bottrading.strategy.signals.StreamingSupertrendSignal;
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
 
 public class Genome {
 
   private static final String[] SIGNAL_TYPES = {
     "SMA_CROSS", "EMA_CROSS", "MACD", "RSI", "BOLLINGER", "SUPERTREND"
   };
+  private static final String[][] SIGNAL_PARAMS = {
+    {"fast", "slow"},
+    {"fast", "slow"},
+    {"fast", "slow", "signal"},
+    {"period", "lower", "upper", "trendSma"},
+    {"period", "stdDevs"},
+    {"atrPeriod", "multiplier"}
+  };
+  private static final int VECTOR_LENGTH = vectorLength();
+  private static final Set<String> INTEGER_PARAMS =
+      Set.of("fast", "slow", "signal", "period", "trendSma", "atrPeriod");
+  private static final double QUANTUM = 1e-6;
 
   private final Map<String, Gene> genes = new HashMap<>();
   private double buyThreshold;
@@ -105,6 +119,76 @@ public class Genome {
     return new Genome(copy, buyThreshold, sellThreshold);
   }
 
+  /**
+   * Canonical form of the strategy this genome builds: thresholds and the enabled genes in type
+   * order, with period params rounded the way {@link #toStrategy()} rounds them and continuous
+   * values quantized to 1e-6. Disabled genes do not contribute, so genomes that only differ there
+   * share a fingerprint and a fitness.
+   */
+  public String fingerprint() {
+    StringBuilder sb = new StringBuilder(256);
+    sb.append("b=").append(quantize(buyThreshold)).append(";s=").append(quantize(sellThreshold));
+    for (Map.Entry<String, Gene> entry : new TreeMap<>(genes).entrySet()) {
+      Gene gene = entry.getValue();
+      if (!gene.enabled) {
+        continue;
+      }
+      sb.append(';')
+          .append(entry.getKey())
+          .append("[w=")
+          .append(quantize(gene.weight))
+          .append(",c=")
+          .append(quantize(gene.confidence));
+      for (Map.Entry<String, Double> param : new TreeMap<>(gene.params).entrySet()) {
+        long value =
+            INTEGER_PARAMS.contains(param.getKey())
+                ? Math.round(param.getValue())
+                : quantize(param.getValue());
+        sb.append(',').append(param.getKey()).append('=').append(value);
+      }
+      sb.append(']');
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Fixed-index vector of thresholds followed by (enabled, weight, confidence, params...) for each
+   * signal type; a missing gene or param encodes as zeros. The L1 distance between two encodings is
+   * the genome distance used for the population diversity statistic.
+   */
+  public double[] encode() {
+    double[] vector = new double[VECTOR_LENGTH];
+    int index = 0;
+    vector[index++] = buyThreshold;
+    vector[index++] = sellThreshold;
+    for (int type = 0; type < SIGNAL_TYPES.length; type++) {
+      Gene gene = genes.get(SIGNAL_TYPES[type]);
+      if (gene == null) {
+        index += 3 + SIGNAL_PARAMS[type].length;
+        continue;
+      }
+      vector[index++] = gene.enabled ? 1 : 0;
+      vector[index++] = gene.weight;
+      vector[index++] = gene.confidence;
+      for (String param : SIGNAL_PARAMS[type]) {
+        vector[index++] = gene.params.getOrDefault(param, 0.0);
+      }
+    }
+    return vector;
+  }
+
+  private static int vectorLength() {
+    int length = 2;
+    for (String[] params : SIGNAL_PARAMS) {
+      length += 3 + params.length;
+    }
+    return length;
+  }
+
+  private static long quantize(double value) {
+    return Math.round(value / QUANTUM);
+  }
+
   public int activeSignals() {
     int count = 0;
     for (Gene gene : genes.values()) {
@@ -163,35 +247,35 @@ public class Genome {
   private Signal createSignal(String type, Gene gene) {
     return switch (type) {
       case "SMA_CROSS" ->
-          new SmaCrossoverSignal(
+          new StreamingSmaCrossoverSignal(
               (int) Math.round(gene.params.getOrDefault("fast", 9.0)),
               (int) Math.round(gene.params.getOrDefault("slow", 21.0)),
               gene.confidence);
       case "EMA_CROSS" ->
-          new EmaCrossoverSignal(
+          new StreamingEmaCrossoverSignal(
               (int) Math.round(gene.params.getOrDefault("fast", 12.0)),
               (int) Math.round(gene.params.getOrDefault("slow", 26.0)),
               gene.confidence);
       case "MACD" ->
-          new MacdSignal(
+          new StreamingMacdSignal(
               (int) Math.round(gene.params.getOrDefault("fast", 12.0)),
               (int) Math.round(gene.params.getOrDefault("slow", 26.0)),
               (int) Math.round(gene.params.getOrDefault("signal", 9.0)),
               gene.confidence);
       case "RSI" ->
-          new RsiSignal(
+          new StreamingRsiSignal(
               (int) Math.round(gene.params.getOrDefault("period", 14.0)),
               gene.params.getOrDefault("lower", 30.0),
               gene.params.getOrDefault("upper", 70.0),
               (int) Math.round(gene.params.getOrDefault("trendSma", 50.0)),
               gene.confidence);
       case "BOLLINGER" ->
-          new BollingerBandsSignal(
+          new StreamingBollingerBandsSignal(
               (int) Math.round(gene.params.getOrDefault("period", 20.0)),
               gene.params.getOrDefault("stdDevs", 2.0),
               gene.confidence);
       case "SUPERTREND" ->
-          new SupertrendSignal(
+          new StreamingSupertrendSignal(
               (int) Math.round(gene.params.getOrDefault("atrPeriod", 10.0)),
               gene.params.getOrDefault("multiplier", 3.0),
               gene.confidence);
@@ -232,8 +316,7 @@ public class Genome {
         gene.params.put("atrPeriod", 7.0 + random.nextInt(7));
         gene.params.put("multiplier", 2.0 + random.nextDouble() * 2);
       }
-      default -> {
-      }
+      default -> {}
     }
     return gene;
   }
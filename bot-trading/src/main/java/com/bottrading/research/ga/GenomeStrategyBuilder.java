@@ -4,14 +4,14 @@ import com.bottrading.research.ga.io.GenomeFile;
 import com.bottrading.research.ga.io.GenomeSection;
 import com.bottrading.strategy.CompositeStrategy;
 import com.bottrading.strategy.Signal;
-import com.bottrading.strategy.signals.BollingerBandsSignal;
-import com.bottrading.strategy.signals.DonchianChannelSignal;
-import com.bottrading.strategy.signals.EmaCrossoverSignal;
-import com.bottrading.strategy.signals.MacdSignal;
-import com.bottrading.strategy.signals.RsiSignal;
-import com.bottrading.strategy.signals.SmaCrossoverSignal;
-import com.bottrading.strategy.signals.StochasticSignal;
-import com.bottrading.strategy.signals.SupertrendSignal;
+import com.bottrading.strategy.signals.StreamingBollingerBandsSignal;
+import com.bottrading.strategy.signals.StreamingDonchianChannelSignal;
+import com.bottrading.strategy.signals.StreamingEmaCrossoverSignal;
+import com.bottrading.strategy.signals.StreamingMacdSignal;
+import com.bottrading.strategy.signals.StreamingRsiSignal;
+import com.bottrading.strategy.signals.StreamingSmaCrossoverSignal;
+import com.bottrading.strategy.signals.StreamingStochasticSignal;
+import com.bottrading.strategy.signals.StreamingSupertrendSignal;
 import com.bottrading.strategy.signals.VwapSignal;
 import java.util.LinkedHashSet;
 import java.util.Map;
@@ -80,45 +80,46 @@ public final class GenomeStrategyBuilder {
   private static Signal createSignal(String type, Map<String, Double> params, double confidence) {
     return switch (type.toUpperCase()) {
       case "SMA_CROSS" ->
-          new SmaCrossoverSignal(
+          new StreamingSmaCrossoverSignal(
               (int) Math.round(params.getOrDefault("fast", 9.0)),
               (int) Math.round(params.getOrDefault("slow", 21.0)),
               confidence);
       case "EMA_CROSS" ->
-          new EmaCrossoverSignal(
+          new StreamingEmaCrossoverSignal(
               (int) Math.round(params.getOrDefault("fast", 12.0)),
               (int) Math.round(params.getOrDefault("slow", 26.0)),
               confidence);
       case "MACD" ->
-          new MacdSignal(
+          new StreamingMacdSignal(
               (int) Math.round(params.getOrDefault("fast", 12.0)),
               (int) Math.round(params.getOrDefault("slow", 26.0)),
               (int) Math.round(params.getOrDefault("signal", 9.0)),
               confidence);
       case "RSI" ->
-          new RsiSignal(
+          new StreamingRsiSignal(
               (int) Math.round(params.getOrDefault("period", 14.0)),
               params.getOrDefault("lower", 30.0),
               params.getOrDefault("upper", 70.0),
               (int) Math.round(params.getOrDefault("trendSma", 50.0)),
               confidence);
       case "BOLLINGER" ->
-          new BollingerBandsSignal(
+          new StreamingBollingerBandsSignal(
               (int) Math.round(params.getOrDefault("period", 20.0)),
               params.getOrDefault("stdDevs", 2.0),
               confidence);
       case "SUPERTREND" ->
-          new SupertrendSignal(
+          new StreamingSupertrendSignal(
               (int) Math.round(params.getOrDefault("atrPeriod", 10.0)),
               params.getOrDefault("multiplier", 3.0),
               confidence);
       case "STOCHASTIC" ->
-          new StochasticSignal(
+          new StreamingStochasticSignal(
               (int) Math.round(params.getOrDefault("k", 14.0)),
               (int) Math.round(params.getOrDefault("d", 3.0)),
               confidence);
       case "DONCHIAN" ->
-          new DonchianChannelSignal((int) Math.round(params.getOrDefault("period", 20.0)), confidence);
+          new StreamingDonchianChannelSignal(
+              (int) Math.round(params.getOrDefault("period", 20.0)), confidence);
       case "VWAP" ->
           new VwapSignal(
               params.getOrDefault("confirmation", 0.0) >= 0.5,
@@ -0,0 +1,106 @@
+package com.bottrading.research.ga;
+
+import com.bottrading.research.backtest.BacktestRequest;
+import com.bottrading.research.backtest.MetricsSummary;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Persists each finished walk-forward window's champion as {@code <runId>-w<index>.json} (see
+ * {@link WalkForwardOptimizer#windowId}) so an interrupted walk-forward can be resumed with the
+ * same run id. A checkpoint is only reused when its window (symbol, interval, from, to) matches the
+ * request.
+ */
+public class WalkForwardCheckpoint {
+
+  private final Path directory;
+  private final ObjectMapper mapper =
+      new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+  public WalkForwardCheckpoint(Path directory) {
+    this.directory = directory;
+  }
+
+  public Optional<Genome> load(int index, BacktestRequest window) throws IOException {
+    Path path = path(index, window);
+    if (!Files.exists(path)) {
+      return Optional.empty();
+    }
+    Snapshot snapshot = mapper.readValue(path.toFile(), Snapshot.class);
+    if (!describe(window).equals(snapshot.window())) {
+      return Optional.empty();
+    }
+    Map<String, Gene> genes = new HashMap<>();
+    snapshot.genes().forEach((type, value) -> genes.put(type, value.toGene()));
+    Genome genome = Genome.fromGenes(genes, snapshot.buyThreshold(), snapshot.sellThreshold());
+    genome.fitness(Double.parseDouble(snapshot.fitness()));
+    genome.metrics(snapshot.metrics());
+    return Optional.of(genome);
+  }
+
+  /** Writes through a temporary file so a crash never leaves a truncated checkpoint behind. */
+  public void save(int index, BacktestRequest window, Genome champion) throws IOException {
+    Files.createDirectories(directory);
+    Map<String, GeneSnapshot> genes = new LinkedHashMap<>();
+    champion.genes().forEach((type, gene) -> genes.put(type, GeneSnapshot.of(gene)));
+    Snapshot snapshot =
+        new Snapshot(
+            describe(window),
+            Double.toString(champion.fitness()),
+            champion.buyThreshold(),
+            champion.sellThreshold(),
+            genes,
+            champion.metrics());
+    Path target = path(index, window);
+    Path temp = Files.createTempFile(directory, "window", ".tmp");
+    try {
+      mapper.writerWithDefaultPrettyPrinter().writeValue(temp.toFile(), snapshot);
+      Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  private Path path(int index, BacktestRequest window) {
+    return directory.resolve(WalkForwardOptimizer.windowId(index, window) + ".json");
+  }
+
+  private static String describe(BacktestRequest window) {
+    return window.symbol() + "|" + window.interval() + "|" + window.from() + "|" + window.to();
+  }
+
+  /** Fitness is kept as text so -Infinity survives the JSON round trip. */
+  private record Snapshot(
+      String window,
+      String fitness,
+      double buyThreshold,
+      double sellThreshold,
+      Map<String, GeneSnapshot> genes,
+      MetricsSummary metrics) {}
+
+  private record GeneSnapshot(
+      boolean enabled, double weight, double confidence, Map<String, Double> params) {
+
+    static GeneSnapshot of(Gene gene) {
+      return new GeneSnapshot(
+          gene.enabled, gene.weight, gene.confidence, new LinkedHashMap<>(gene.params));
+    }
+
+    Gene toGene() {
+      Gene gene = new Gene();
+      gene.enabled = enabled;
+      gene.weight = weight;
+      gene.confidence = confidence;
+      gene.params = new HashMap<>(params);
+      return gene;
+    }
+  }
+}
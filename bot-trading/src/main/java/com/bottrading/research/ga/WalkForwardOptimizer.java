@@ -1,24 +1,103 @@
 package com.bottrading.research.ga;
 
 import com.bottrading.research.backtest.BacktestRequest;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class WalkForwardOptimizer {
 
+  private static final Logger log = LoggerFactory.getLogger(WalkForwardOptimizer.class);
+
   private final List<BacktestRequest> windows;
   private final GaRunnerFactory factory;
+  private int parallelism = 1;
+  private WalkForwardCheckpoint checkpoint;
+  private WindowListener listener;
 
   public WalkForwardOptimizer(List<BacktestRequest> windows, GaRunnerFactory factory) {
     this.windows = windows;
     this.factory = factory;
   }
 
+  /**
+   * Number of windows optimized concurrently. Their genome evaluations all go through the shared
+   * {@link EvaluationPool}, so the pool's parallelism stays the global CPU budget.
+   */
+  public WalkForwardOptimizer parallelism(int windows) {
+    if (windows <= 0) {
+      throw new IllegalArgumentException("parallelism must be positive");
+    }
+    this.parallelism = windows;
+    return this;
+  }
+
+  public WalkForwardOptimizer checkpoint(WalkForwardCheckpoint checkpoint) {
+    this.checkpoint = checkpoint;
+    return this;
+  }
+
+  /** Called with each window's champion as soon as that window finishes. */
+  public WalkForwardOptimizer onWindow(WindowListener listener) {
+    this.listener = listener;
+    return this;
+  }
+
   public Genome optimize() throws InterruptedException {
+    return champion(run());
+  }
+
+  /**
+   * Optimizes every window, skipping those with a matching checkpoint, and returns the results in
+   * window order. The first failing window cancels the others and its exception is rethrown.
+   */
+  public List<WindowResult> run() throws InterruptedException {
+    WindowResult[] results = new WindowResult[windows.size()];
+    List<Integer> pending = new ArrayList<>();
+    for (int i = 0; i < windows.size(); i++) {
+      Genome resumed = loadCheckpoint(i, windows.get(i));
+      if (resumed == null) {
+        pending.add(i);
+      } else {
+        results[i] = new WindowResult(i, windows.get(i).runId(), resumed, true);
+        publish(results[i]);
+      }
+    }
+    if (!pending.isEmpty()) {
+      int threads = Math.min(parallelism, pending.size());
+      ExecutorService executor =
+          Executors.newFixedThreadPool(
+              threads, Thread.ofPlatform().name("walk-forward-", 0).daemon().factory());
+      try {
+        CompletionService<WindowResult> completion = new ExecutorCompletionService<>(executor);
+        for (int index : pending) {
+          completion.submit(() -> optimizeWindow(index));
+        }
+        for (int i = 0; i < pending.size(); i++) {
+          WindowResult result = await(completion.take());
+          results[result.index()] = result;
+          publish(result);
+        }
+      } finally {
+        executor.shutdownNow();
+      }
+    }
+    return List.of(results);
+  }
+
+  /** Highest fitness wins; ties go to the earliest window, as in a sequential run. */
+  public static Genome champion(List<WindowResult> results) {
     Genome champion = null;
-    for (BacktestRequest request : windows) {
-      GaRunner runner = factory.create(request);
-      Genome candidate = runner.run();
+    for (WindowResult result : results) {
+      Genome candidate = result.champion();
       if (champion == null || candidate.fitness() > champion.fitness()) {
         champion = candidate;
       }
@@ -26,7 +105,65 @@ public class WalkForwardOptimizer {
     return champion;
   }
 
-  public static List<BacktestRequest> split(BacktestRequest base, int trainDays, int validationDays, int testDays) {
+  private WindowResult optimizeWindow(int index) throws InterruptedException {
+    BacktestRequest window = windows.get(index);
+    Genome champion = factory.create(index, window).run();
+    if (checkpoint != null) {
+      try {
+        checkpoint.save(index, window, champion);
+      } catch (IOException ex) {
+        log.warn("Unable to checkpoint walk-forward window {}", window.runId(), ex);
+      }
+    }
+    return new WindowResult(index, window.runId(), champion, false);
+  }
+
+  private Genome loadCheckpoint(int index, BacktestRequest window) {
+    if (checkpoint == null) {
+      return null;
+    }
+    try {
+      return checkpoint.load(index, window).orElse(null);
+    } catch (IOException ex) {
+      log.warn("Ignoring unreadable checkpoint for window {}", window.runId(), ex);
+      return null;
+    }
+  }
+
+  private void publish(WindowResult result) {
+    if (listener != null) {
+      listener.onWindow(result);
+    }
+  }
+
+  private static WindowResult await(Future<WindowResult> future) throws InterruptedException {
+    try {
+      return future.get();
+    } catch (ExecutionException ex) {
+      Throwable cause = ex.getCause();
+      if (cause instanceof InterruptedException interrupted) {
+        throw interrupted;
+      }
+      if (cause instanceof RuntimeException runtime) {
+        throw runtime;
+      }
+      if (cause instanceof Error error) {
+        throw error;
+      }
+      throw new IllegalStateException("Walk-forward window failed", cause);
+    }
+  }
+
+  /**
+   * Key for per-window files such as checkpoints and progress reports. Plain {@link #split} gives
+   * every window the base run id, so the window index is part of the key.
+   */
+  public static String windowId(int index, BacktestRequest window) {
+    return window.runId() + "-w" + index;
+  }
+
+  public static List<BacktestRequest> split(
+      BacktestRequest base, int trainDays, int validationDays, int testDays) {
     List<BacktestRequest> segments = new ArrayList<>();
     if (base.from() == null || base.to() == null) {
       segments.add(base);
@@ -92,7 +229,10 @@ public class WalkForwardOptimizer {
       long trainCount = regimeFilter.count(request.from(), trainEnd);
       long validationCount = regimeFilter.count(trainEnd, validationEnd);
       long testCount = regimeFilter.count(validationEnd, request.to());
-      if ((minSamples > 0 && (trainCount < minSamples || validationCount < minSamples || testCount < minSamples))
+      if ((minSamples > 0
+              && (trainCount < minSamples
+                  || validationCount < minSamples
+                  || testCount < minSamples))
           || trainCount == 0
           || validationCount == 0
           || testCount == 0) {
@@ -120,6 +260,11 @@ public class WalkForwardOptimizer {
   }
 
   public interface GaRunnerFactory {
-    GaRunner create(BacktestRequest request);
+    /** Creates the runner for the window at {@code index} in the optimizer's window list. */
+    GaRunner create(int index, BacktestRequest request);
+  }
+
+  public interface WindowListener {
+    void onWindow(WindowResult result);
   }
 }
@@ -0,0 +1,4 @@
+package com.bottrading.research.ga;
+
+/** Champion of one walk-forward window; {@code resumed} when it was loaded from a checkpoint. */
+public record WindowResult(int index, String runId, Genome champion, boolean resumed) {}
@@ -2,47 +2,179 @@ package com.bottrading.research.io;
 
 import com.bottrading.model.dto.Kline;
 import com.bottrading.service.binance.BinanceClient;
+import java.io.IOException;
+import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class DataLoader {
 
+  private static final Logger log = LoggerFactory.getLogger(DataLoader.class);
+
+  /** Largest page Binance serves per klines request. */
+  private static final int PAGE_LIMIT = 1000;
+
   private final BinanceClient binanceClient;
-  private final KlineCache cache;
+  private final KlineStore store;
+  private final Clock clock;
+
+  public DataLoader(BinanceClient binanceClient, KlineStore store) {
+    this(binanceClient, store, Clock.systemUTC());
+  }
 
-  public DataLoader(BinanceClient binanceClient, KlineCache cache) {
+  DataLoader(BinanceClient binanceClient, KlineStore store, Clock clock) {
     this.binanceClient = binanceClient;
-    this.cache = cache;
+    this.store = store;
+    this.clock = clock;
   }
 
-  public List<Kline> load(String symbol, String interval, Instant from, Instant to, boolean useCache) {
+  /**
+   * Returns the bars in {@code [from, to)}. With the cache on, stored bars are used and only the
+   * stretches missing before, between or after them are fetched from Binance and merged into the
+   * store; the bar still forming is not required. Without a lower bound, or for intervals that are
+   * not a fixed length, any stored bars are returned as they are.
+   */
+  public List<Kline> load(
+      String symbol, String interval, Instant from, Instant to, boolean useCache) {
     if (useCache) {
-      List<Kline> cached = cache.read(symbol, interval).orElse(null);
-      if (cached != null && !cached.isEmpty()) {
+      List<Kline> cached = readCache(symbol, interval, from, to);
+      long step = intervalMillis(interval);
+      if (from != null && step > 0) {
+        List<Kline> missing = fetchMissing(symbol, interval, from, to, step, cached);
+        if (missing.isEmpty()) {
+          return cached;
+        }
+        try {
+          store.merge(symbol, interval, missing);
+        } catch (IOException | IllegalArgumentException ex) {
+          log.warn("Unable to merge {} {} klines into cache", symbol, interval, ex);
+        }
+        return union(cached, missing);
+      }
+      if (!cached.isEmpty()) {
         return cached;
       }
     }
     int limit = estimateLimit(from, to, interval);
     List<Kline> klines = binanceClient.getKlines(symbol, interval, limit);
     if (useCache) {
-      cache.write(symbol, interval, klines);
+      try {
+        store.append(symbol, interval, klines);
+      } catch (IOException | IllegalArgumentException ex) {
+        log.warn("Unable to append {} {} klines to cache", symbol, interval, ex);
+      }
     }
     return klines;
   }
 
+  private List<Kline> readCache(String symbol, String interval, Instant from, Instant to) {
+    try {
+      return store.read(symbol, interval, from, to).orElse(List.of());
+    } catch (IOException ex) {
+      log.warn("Unable to read {} {} klines from cache", symbol, interval, ex);
+      return List.of();
+    }
+  }
+
+  /** Fetches every closed bar in {@code [from, to)} that {@code cached} does not hold. */
+  private List<Kline> fetchMissing(
+      String symbol, String interval, Instant from, Instant to, long step, List<Kline> cached) {
+    long closedBefore = Math.floorDiv(clock.millis(), step) * step;
+    long end = to == null ? closedBefore : Math.min(to.toEpochMilli(), closedBefore);
+    long expected = Math.floorDiv(from.toEpochMilli() + step - 1, step) * step;
+    List<Kline> missing = new ArrayList<>();
+    for (Kline kline : cached) {
+      long open = kline.openTime().toEpochMilli();
+      if (open > expected) {
+        fetch(symbol, interval, expected, Math.min(open, end), step, missing);
+      }
+      expected = Math.max(expected, open + step);
+    }
+    fetch(symbol, interval, expected, end, step, missing);
+    return missing;
+  }
+
+  private void fetch(
+      String symbol, String interval, long start, long end, long step, List<Kline> into) {
+    while (start < end) {
+      List<Kline> page =
+          binanceClient.getKlines(
+              symbol, interval, Instant.ofEpochMilli(start), Instant.ofEpochMilli(end), PAGE_LIMIT);
+      if (page == null || page.isEmpty()) {
+        // the exchange has no bars there; nothing more to fill
+        return;
+      }
+      into.addAll(page);
+      long next = page.get(page.size() - 1).openTime().toEpochMilli() + step;
+      if (next <= start) {
+        return;
+      }
+      start = next;
+    }
+  }
+
+  /** Both lists sorted by open time; on equal open times the fetched bar wins. */
+  private static List<Kline> union(List<Kline> cached, List<Kline> fetched) {
+    List<Kline> merged = new ArrayList<>(cached.size() + fetched.size());
+    int i = 0;
+    int j = 0;
+    while (i < cached.size() || j < fetched.size()) {
+      if (j == fetched.size()) {
+        merged.add(cached.get(i++));
+      } else if (i == cached.size()) {
+        merged.add(fetched.get(j++));
+      } else {
+        int order = cached.get(i).openTime().compareTo(fetched.get(j).openTime());
+        if (order < 0) {
+          merged.add(cached.get(i++));
+        } else {
+          if (order == 0) {
+            i++;
+          }
+          merged.add(fetched.get(j++));
+        }
+      }
+    }
+    return merged;
+  }
+
+  /** Length of a fixed interval such as {@code 1m}, {@code 4h} or {@code 1d}; -1 otherwise. */
+  private static long intervalMillis(String interval) {
+    if (interval == null || interval.length() < 2) {
+      return -1;
+    }
+    long value;
+    try {
+      value = Long.parseLong(interval.substring(0, interval.length() - 1));
+    } catch (NumberFormatException ex) {
+      return -1;
+    }
+    return switch (interval.charAt(interval.length() - 1)) {
+      case 'm' -> TimeUnit.MINUTES.toMillis(value);
+      case 'h' -> TimeUnit.HOURS.toMillis(value);
+      case 'd' -> TimeUnit.DAYS.toMillis(value);
+      default -> -1;
+    };
+  }
+
   private int estimateLimit(Instant from, Instant to, String interval) {
     if (from == null || to == null) {
       return 1000;
     }
     long minutes = Math.max(1, Duration.between(from, to).toMinutes());
-    int factor = switch (interval) {
-      case "1m" -> 1;
-      case "5m" -> 5;
-      case "15m" -> 15;
-      case "1h" -> 60;
-      default -> 1;
-    };
+    int factor =
+        switch (interval) {
+          case "1m" -> 1;
+          case "5m" -> 5;
+          case "15m" -> 15;
+          case "1h" -> 60;
+          default -> 1;
+        };
     long candles = minutes / factor;
     candles = Math.min(1000, Math.max(100, candles));
     return (int) candles;
@@ -0,0 +1,297 @@
+package com.bottrading.research.io;
+
+import com.bottrading.model.dto.Kline;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.RandomAccess;
+
+/**
+ * Append-only binary kline files ({@code <symbol>-<interval>.klines}), one fixed-width record per
+ * bar sorted by open time, read through a read-only memory map. Records are the time index: range
+ * reads binary-search the open times and return a lazy list over the mapped bytes, so opening years
+ * of 1m data costs a map call and no per-bar heap until bars are actually read.
+ *
+ * <p>Layout: a 16-byte header (magic, version, record size, reserved) followed by little-endian
+ * records of open time and close time (epoch millis) and open, high, low, close, volume (doubles).
+ * A torn trailing record from an interrupted append is ignored and overwritten by the next one.
+ */
+public class KlineStore {
+
+  static final int MAGIC = 0x4b4c4e31; // "KLN1"
+  static final int VERSION = 1;
+  static final int HEADER_BYTES = 16;
+  static final int RECORD_BYTES = 2 * Long.BYTES + 5 * Double.BYTES;
+
+  private final Path directory;
+
+  public KlineStore(Path directory) {
+    this.directory = directory;
+  }
+
+  public Path file(String symbol, String interval) {
+    return directory.resolve(symbol + "-" + interval + ".klines");
+  }
+
+  public Optional<List<Kline>> read(String symbol, String interval) throws IOException {
+    return read(symbol, interval, null, null);
+  }
+
+  /** Bars with {@code from <= openTime < to}; a null bound is open. Empty if nothing is stored. */
+  public Optional<List<Kline>> read(String symbol, String interval, Instant from, Instant to)
+      throws IOException {
+    Path file = file(symbol, interval);
+    if (!Files.exists(file)) {
+      return Optional.empty();
+    }
+    ByteBuffer records = map(file);
+    int size = records.capacity() / RECORD_BYTES;
+    int start = from == null ? 0 : lowerBound(records, size, from.toEpochMilli());
+    int end = to == null ? size : lowerBound(records, size, to.toEpochMilli());
+    return Optional.of(new MappedKlines(records, start, Math.max(start, end)));
+  }
+
+  public int size(String symbol, String interval) throws IOException {
+    Path file = file(symbol, interval);
+    return Files.exists(file) ? records(Files.size(file)) : 0;
+  }
+
+  /**
+   * Appends bars newer than the last stored one. A bar with the same open time as the last stored
+   * bar replaces it, so a candle persisted while still open is completed by a later fetch; older
+   * bars are skipped. Input must be sorted by open time.
+   *
+   * @return number of bars added
+   */
+  public synchronized int append(String symbol, String interval, List<Kline> klines)
+      throws IOException {
+    return append(file(symbol, interval), klines);
+  }
+
+  /**
+   * Adds bars anywhere in the series, filling gaps before or between stored bars; a bar with the
+   * open time of a stored one replaces it. Bars that all start at or after the last stored one are
+   * appended in place; otherwise the merged series is written to a temporary file and moved over
+   * the old one, so a reader still holding the previous mapping keeps a consistent view. Input must
+   * be sorted by open time.
+   *
+   * @return number of bars added
+   */
+  public synchronized int merge(String symbol, String interval, List<Kline> klines)
+      throws IOException {
+    if (klines.isEmpty()) {
+      return 0;
+    }
+    Path file = file(symbol, interval);
+    List<Kline> stored = read(symbol, interval).orElse(List.of());
+    if (stored.isEmpty()
+        || !klines.get(0).openTime().isBefore(stored.get(stored.size() - 1).openTime())) {
+      return append(file, klines);
+    }
+    List<Kline> merged = new ArrayList<>(stored.size() + klines.size());
+    int i = 0;
+    int j = 0;
+    while (i < stored.size() || j < klines.size()) {
+      if (j == klines.size()) {
+        merged.add(stored.get(i++));
+      } else if (i == stored.size()) {
+        merged.add(klines.get(j++));
+      } else {
+        int order = stored.get(i).openTime().compareTo(klines.get(j).openTime());
+        if (order < 0) {
+          merged.add(stored.get(i++));
+        } else {
+          if (order == 0) {
+            i++;
+          }
+          merged.add(klines.get(j++));
+        }
+      }
+    }
+    Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+    Files.deleteIfExists(temp);
+    append(temp, merged);
+    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    return merged.size() - stored.size();
+  }
+
+  private int append(Path file, List<Kline> klines) throws IOException {
+    if (klines.isEmpty()) {
+      return 0;
+    }
+    Files.createDirectories(directory);
+    try (FileChannel channel =
+        FileChannel.open(
+            file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      int size;
+      if (channel.size() < HEADER_BYTES) {
+        writeHeader(channel);
+        size = 0;
+      } else {
+        checkHeader(channel, file);
+        size = records(channel.size());
+      }
+      long lastOpen = Long.MIN_VALUE;
+      if (size > 0) {
+        ByteBuffer last = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        channel.read(last, offset(size - 1));
+        lastOpen = last.getLong(0);
+      }
+      ByteBuffer buffer =
+          ByteBuffer.allocate(RECORD_BYTES * Math.min(klines.size(), 4096))
+              .order(ByteOrder.LITTLE_ENDIAN);
+      long position = offset(size);
+      long previous = Long.MIN_VALUE;
+      for (Kline kline : klines) {
+        long openTime = kline.openTime().toEpochMilli();
+        if (openTime < previous) {
+          throw new IllegalArgumentException("klines must be sorted by open time");
+        }
+        previous = openTime;
+        if (openTime < lastOpen) {
+          continue;
+        }
+        if (openTime == lastOpen) {
+          if (buffer.position() > 0) {
+            buffer.position(buffer.position() - RECORD_BYTES);
+          } else {
+            position -= RECORD_BYTES;
+          }
+        } else if (!buffer.hasRemaining()) {
+          position = flush(channel, buffer, position);
+        }
+        lastOpen = openTime;
+        buffer
+            .putLong(openTime)
+            .putLong(kline.closeTime().toEpochMilli())
+            .putDouble(kline.open().doubleValue())
+            .putDouble(kline.high().doubleValue())
+            .putDouble(kline.low().doubleValue())
+            .putDouble(kline.close().doubleValue())
+            .putDouble(kline.volume().doubleValue());
+      }
+      position = flush(channel, buffer, position);
+      channel.truncate(position);
+      return records(position) - size;
+    }
+  }
+
+  private static long flush(FileChannel channel, ByteBuffer buffer, long position)
+      throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      position += channel.write(buffer, position);
+    }
+    buffer.clear();
+    return position;
+  }
+
+  private static ByteBuffer map(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      checkHeader(channel, file);
+      long length = (long) records(channel.size()) * RECORD_BYTES;
+      if (length > Integer.MAX_VALUE) {
+        throw new IOException("Kline file too large to map: " + file);
+      }
+      MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, length);
+      return mapped.order(ByteOrder.LITTLE_ENDIAN);
+    }
+  }
+
+  private static void writeHeader(FileChannel channel) throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    header.putInt(MAGIC).putInt(VERSION).putInt(RECORD_BYTES).putInt(0).flip();
+    channel.truncate(0);
+    channel.write(header, 0);
+  }
+
+  private static void checkHeader(FileChannel channel, Path file) throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    channel.read(header, 0);
+    if (header.getInt(0) != MAGIC
+        || header.getInt(4) != VERSION
+        || header.getInt(8) != RECORD_BYTES) {
+      throw new IOException("Not a kline store file: " + file);
+    }
+  }
+
+  private static int records(long fileSize) {
+    return (int) Math.max(0, (fileSize - HEADER_BYTES) / RECORD_BYTES);
+  }
+
+  private static long offset(int record) {
+    return HEADER_BYTES + (long) record * RECORD_BYTES;
+  }
+
+  /** First record whose open time is {@code >= millis}. */
+  private static int lowerBound(ByteBuffer records, int size, long millis) {
+    int low = 0;
+    int high = size;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (records.getLong(mid * RECORD_BYTES) < millis) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  private static final class MappedKlines extends AbstractList<Kline> implements RandomAccess {
+    private final ByteBuffer records;
+    private final int start;
+    private final int end;
+
+    private MappedKlines(ByteBuffer records, int start, int end) {
+      this.records = records;
+      this.start = start;
+      this.end = end;
+    }
+
+    @Override
+    public Kline get(int index) {
+      if (index < 0 || index >= size()) {
+        throw new IndexOutOfBoundsException(index);
+      }
+      int base = (start + index) * RECORD_BYTES;
+      return new Kline(
+          Instant.ofEpochMilli(records.getLong(base)),
+          Instant.ofEpochMilli(records.getLong(base + 8)),
+          BigDecimal.valueOf(records.getDouble(base + 16)),
+          BigDecimal.valueOf(records.getDouble(base + 24)),
+          BigDecimal.valueOf(records.getDouble(base + 32)),
+          BigDecimal.valueOf(records.getDouble(base + 40)),
+          BigDecimal.valueOf(records.getDouble(base + 48)));
+    }
+
+    @Override
+    public int size() {
+      return end - start;
+    }
+
+    @Override
+    public List<Kline> subList(int fromIndex, int toIndex) {
+      subListRangeCheck(fromIndex, toIndex);
+      return new MappedKlines(records, start + fromIndex, start + toIndex);
+    }
+
+    private void subListRangeCheck(int fromIndex, int toIndex) {
+      if (fromIndex < 0 || toIndex > size() || fromIndex > toIndex) {
+        throw new IndexOutOfBoundsException(fromIndex + ".." + toIndex);
+      }
+    }
+  }
+}
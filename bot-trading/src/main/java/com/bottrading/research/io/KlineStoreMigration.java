@@ -0,0 +1,57 @@
+package com.bottrading.research.io;
+
+import com.bottrading.model.dto.Kline;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * One-shot conversion of the legacy {@code <symbol>-<interval>.csv} cache files into {@link
+ * KlineStore} files. Re-running is safe: bars already stored are skipped by the append. CSV files
+ * are left in place.
+ *
+ * <p>Usage: {@code KlineStoreMigration <csv-dir> [store-dir]}; the store defaults to the CSV dir.
+ */
+public final class KlineStoreMigration {
+
+  private static final Logger log = LoggerFactory.getLogger(KlineStoreMigration.class);
+
+  private KlineStoreMigration() {}
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1) {
+      System.err.println("usage: KlineStoreMigration <csv-dir> [store-dir]");
+      System.exit(2);
+    }
+    Path csvDir = Path.of(args[0]);
+    Path storeDir = args.length > 1 ? Path.of(args[1]) : csvDir;
+    int bars = migrate(csvDir, new KlineStore(storeDir));
+    log.info("Migrated {} bars from {} into {}", bars, csvDir, storeDir);
+  }
+
+  /**
+   * @return number of bars added to the store
+   */
+  public static int migrate(Path csvDir, KlineStore store) throws IOException {
+    KlineCache csv = new KlineCache(csvDir);
+    int total = 0;
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(csvDir, "*-*.csv")) {
+      for (Path file : files) {
+        String name = file.getFileName().toString();
+        String stem = name.substring(0, name.length() - ".csv".length());
+        int split = stem.lastIndexOf('-');
+        String symbol = stem.substring(0, split);
+        String interval = stem.substring(split + 1);
+        List<Kline> klines = csv.read(symbol, interval).orElse(List.of());
+        int added = store.append(symbol, interval, klines);
+        log.info("{}: {} bars read, {} added", name, klines.size(), added);
+        total += added;
+      }
+    }
+    return total;
+  }
+}
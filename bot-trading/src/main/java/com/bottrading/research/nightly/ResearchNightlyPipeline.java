@@ -11,10 +11,15 @@ import com.bottrading.research.backtest.BacktestRequest;
 import com.bottrading.research.backtest.BacktestResult;
 import com.bottrading.research.backtest.MetricsSummary;
 import com.bottrading.research.backtest.ReportWriter;
+import com.bottrading.research.ga.DiversityEstimator;
+import com.bottrading.research.ga.EvaluationPool;
 import com.bottrading.research.ga.Evaluator;
+import com.bottrading.research.ga.FitnessCache;
 import com.bottrading.research.ga.GaRunner;
 import com.bottrading.research.ga.Genome;
+import com.bottrading.research.ga.WalkForwardCheckpoint;
 import com.bottrading.research.ga.WalkForwardOptimizer;
+import com.bottrading.research.ga.WindowResult;
 import com.bottrading.research.io.DataLoader;
 import com.bottrading.research.nightly.NightlyReportGenerator.ReportData;
 import com.bottrading.research.nightly.NightlyReportGenerator.WindowMetrics;
@@ -46,7 +51,6 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicReference;
@@ -71,22 +75,24 @@ public class ResearchNightlyPipeline {
   private final TelegramNotifier notifier;
   private final Clock clock;
   private final MeterRegistry meterRegistry;
+  private final EvaluationPool evaluationPool;
   private final ConcurrentMap<String, Timer> stageTimers = new ConcurrentHashMap<>();
   private final AtomicReference<Double> lastDurationSeconds = new AtomicReference<>(0.0);
 
   public ResearchNightlyPipeline(
-          ResearchProperties properties,
-          BacktestEngine backtestEngine,
-          DataLoader dataLoader,
-          RegimeLabeler regimeLabeler,
-          ReportWriter reportWriter,
-          NightlyReportGenerator reportGenerator,
-          PresetService presetService,
-          SnapshotService snapshotService,
-          CanaryStageService canaryStageService,
-          TelegramNotifier notifier,
-          Optional<Clock> clock,
-          MeterRegistry meterRegistry) {
+      ResearchProperties properties,
+      BacktestEngine backtestEngine,
+      DataLoader dataLoader,
+      RegimeLabeler regimeLabeler,
+      ReportWriter reportWriter,
+      NightlyReportGenerator reportGenerator,
+      PresetService presetService,
+      SnapshotService snapshotService,
+      CanaryStageService canaryStageService,
+      TelegramNotifier notifier,
+      Optional<Clock> clock,
+      MeterRegistry meterRegistry,
+      EvaluationPool evaluationPool) {
     this.properties = properties;
     this.backtestEngine = backtestEngine;
     this.dataLoader = dataLoader;
@@ -98,9 +104,11 @@ public class ResearchNightlyPipeline {
     this.canaryStageService = canaryStageService;
     this.notifier = notifier;
     this.clock = clock.orElse(Clock.systemUTC());
+    this.evaluationPool = evaluationPool;
     this.meterRegistry = meterRegistry;
-    Gauge.builder("research.nightly.last_duration.seconds", lastDurationSeconds, AtomicReference::get)
-            .register(meterRegistry);
+    Gauge.builder(
+            "research.nightly.last_duration.seconds", lastDurationSeconds, AtomicReference::get)
+        .register(meterRegistry);
   }
 
   public void runNightly() {
@@ -129,12 +137,13 @@ public class ResearchNightlyPipeline {
     Instant from = to.minus(Duration.ofDays(Math.max(1, dataset.getHistoryDays())));
     String symbol = dataset.getSymbol();
     String interval = dataset.getInterval();
-    log.info("Nightly research start symbol={} interval={} from={} to={}", symbol, interval, from, to);
+    log.info(
+        "Nightly research start symbol={} interval={} from={} to={}", symbol, interval, from, to);
     incrementNightlyRuns(symbol, interval);
 
     Timer.Sample loadSample = Timer.start(meterRegistry);
     List<com.bottrading.model.dto.Kline> klines =
-            dataLoader.load(symbol, interval, from, to, dataset.isUseCache());
+        dataLoader.load(symbol, interval, from, to, dataset.isUseCache());
     loadSample.stop(stageTimer("load_data"));
 
     Timer.Sample labelSample = Timer.start(meterRegistry);
@@ -153,7 +162,8 @@ public class ResearchNightlyPipeline {
 
     for (RegimeTrend trend : RegimeTrend.values()) {
       try {
-        runForTrend(nightly, trend, symbol, interval, from, to, labelSet, labelsHash, codeSha, baseDir);
+        runForTrend(
+            nightly, trend, symbol, interval, from, to, labelSet, labelsHash, codeSha, baseDir);
       } catch (Exception ex) {
         log.warn("Nightly research failed for regime {}: {}", trend, ex.getMessage());
         notify("Nightly regime " + trend + " failed: " + ex.getMessage());
@@ -165,31 +175,31 @@ public class ResearchNightlyPipeline {
     canaryEval.stop(stageTimer("canary_eval"));
     for (CanaryStageService.StageUpdate update : updates) {
       notify(
-              "Canary update preset="
-                      + update.presetId()
-                      + " status="
-                      + update.status()
-                      + " stage="
-                      + update.stageIndex()
-                      + " multiplier="
-                      + update.multiplier()
-                      + " -> "
-                      + update.message());
+          "Canary update preset="
+              + update.presetId()
+              + " status="
+              + update.status()
+              + " stage="
+              + update.stageIndex()
+              + " multiplier="
+              + update.multiplier()
+              + " -> "
+              + update.message());
     }
   }
 
   private void runForTrend(
-          ResearchProperties.Nightly nightly,
-          RegimeTrend trend,
-          String symbol,
-          String interval,
-          Instant from,
-          Instant to,
-          RegimeLabelSet labelSet,
-          String labelsHash,
-          String codeSha,
-          Path baseDir)
-          throws IOException, InterruptedException {
+      ResearchProperties.Nightly nightly,
+      RegimeTrend trend,
+      String symbol,
+      String interval,
+      Instant from,
+      Instant to,
+      RegimeLabelSet labelSet,
+      String labelsHash,
+      String codeSha,
+      Path baseDir)
+      throws IOException, InterruptedException {
     ResearchProperties.Ga ga = nightly.getGa();
     ResearchProperties.Nightly.Gate gate = nightly.getGate();
 
@@ -199,62 +209,90 @@ public class ResearchNightlyPipeline {
 
     RegimeFilter filter = new RegimeFilter(trend, labelSet);
     BacktestRequest baseRequest =
-            new BacktestRequest(
-                    symbol,
-                    interval,
-                    from,
-                    to,
-                    null,
-                    null,
-                    ga.getSlippageBps(),
-                    ga.getTakerFeeBps(),
-                    ga.getMakerFeeBps(),
-                    ga.isUseDynamicFees(),
-                    ga.getSeed(),
-                    runId,
-                    nightly.getDataset().isUseCache(),
-                    filter,
-                    null);
+        new BacktestRequest(
+            symbol,
+            interval,
+            from,
+            to,
+            null,
+            null,
+            ga.getSlippageBps(),
+            ga.getTakerFeeBps(),
+            ga.getMakerFeeBps(),
+            ga.isUseDynamicFees(),
+            ga.getSeed(),
+            runId,
+            nightly.getDataset().isUseCache(),
+            filter,
+            null);
 
     Timer.Sample splitSample = Timer.start(meterRegistry);
     List<BacktestRequest> windows =
-            WalkForwardOptimizer.splitByRegime(
-                    baseRequest,
-                    ga.getTrainDays(),
-                    ga.getValidationDays(),
-                    ga.getTestDays(),
-                    filter,
-                    ga.getMinSamples());
+        WalkForwardOptimizer.splitByRegime(
+            baseRequest,
+            ga.getTrainDays(),
+            ga.getValidationDays(),
+            ga.getTestDays(),
+            filter,
+            ga.getMinSamples());
     splitSample.stop(stageTimer("window_split"));
     if (windows.isEmpty()) {
       log.info("No valid walk-forward windows for regime {}", trend);
       return;
     }
 
-    Genome champion = null;
     List<WindowMetrics> windowMetrics = new ArrayList<>();
     Map<String, Object> perSplitMetrics = new LinkedHashMap<>();
 
+    FitnessCache fitnessCache = new FitnessCache(properties.getEvaluation().getFitnessCacheSize());
+    WalkForwardOptimizer optimizer =
+        new WalkForwardOptimizer(
+                windows,
+                (index, window) -> {
+                  Evaluator evaluator =
+                      new Evaluator(
+                          evaluationPool,
+                          backtestEngine,
+                          window,
+                          regimeDir,
+                          ga.getComplexityPenalty(),
+                          ga.getMinTrades(),
+                          fitnessCache);
+                  GaRunner runner =
+                      new GaRunner(
+                          evaluator,
+                          ga.getPopulation(),
+                          ga.getGenerations(),
+                          0.2,
+                          3,
+                          2,
+                          ga.getSeed());
+                  if (ga.getDiversitySamples() > 0) {
+                    runner.diversityEstimator(
+                        DiversityEstimator.sampled(ga.getDiversitySamples(), ga.getSeed()));
+                  }
+                  return runner;
+                })
+            .parallelism(Math.max(1, ga.getWalkForwardParallelism()))
+            .checkpoint(new WalkForwardCheckpoint(regimeDir.resolve("walkforward")))
+            .onWindow(
+                result ->
+                    log.info(
+                        "Regime {} window {} {} fitness={}",
+                        trend,
+                        result.runId(),
+                        result.resumed() ? "resumed" : "finished",
+                        result.champion().fitness()));
     Timer.Sample gaSample = Timer.start(meterRegistry);
-    for (BacktestRequest window : windows) {
-      Evaluator evaluator =
-              new Evaluator(
-                      backtestEngine,
-                      window,
-                      Math.max(1, ga.getMaxWorkers()),
-                      regimeDir,
-                      ga.getComplexityPenalty(),
-                      ga.getMinTrades());
-      GaRunner runner = new GaRunner(evaluator, ga.getPopulation(), ga.getGenerations(), 0.2, 3, 2, ga.getSeed());
-      Genome candidate = runner.run();
+    List<WindowResult> results = optimizer.run();
+    for (WindowResult result : results) {
+      Genome candidate = result.champion();
       if (candidate.metrics() != null) {
-        windowMetrics.add(new WindowMetrics(window.runId(), candidate.metrics()));
-        perSplitMetrics.put(window.runId(), toMetricsMap(candidate.metrics()));
-      }
-      if (champion == null || candidate.fitness() > champion.fitness()) {
-        champion = candidate;
+        windowMetrics.add(new WindowMetrics(result.runId(), candidate.metrics()));
+        perSplitMetrics.put(result.runId(), toMetricsMap(candidate.metrics()));
       }
     }
+    Genome champion = WalkForwardOptimizer.champion(results);
     gaSample.stop(stageTimer("ga_training"));
 
     if (champion == null) {
@@ -270,7 +308,7 @@ public class ResearchNightlyPipeline {
 
     Timer.Sample gateSample = Timer.start(meterRegistry);
     PromotionGate.GateDecision gateDecision =
-            PromotionGate.evaluateOos(result.metrics(), gate, gate.getPfBaseline());
+        PromotionGate.evaluateOos(result.metrics(), gate, gate.getPfBaseline());
     gateSample.stop(stageTimer("gate_evaluation"));
 
     Map<String, Object> shadowMetrics = Map.of();
@@ -279,7 +317,16 @@ public class ResearchNightlyPipeline {
 
     Timer.Sample reportSample = Timer.start(meterRegistry);
     ReportData reportData =
-            new ReportData(runId, symbol, trend, status, note, oosMetrics, shadowMetrics, windowMetrics, regimeDir);
+        new ReportData(
+            runId,
+            symbol,
+            trend,
+            status,
+            note,
+            oosMetrics,
+            shadowMetrics,
+            windowMetrics,
+            regimeDir);
     reportGenerator.generate(reportData);
     reportSample.stop(stageTimer("report_generation"));
 
@@ -296,33 +343,33 @@ public class ResearchNightlyPipeline {
     Map<String, Object> signalsJson = genomeToSignals(champion);
 
     BacktestMetadata metadata =
-            new BacktestMetadata(
-                    runId,
-                    symbol,
-                    interval,
-                    from,
-                    to,
-                    trend.name(),
-                    ga.getPopulation(),
-                    ga.getGenerations(),
-                    "nightly-ga",
-                    ga.getSeed(),
-                    perSplitMetrics,
-                    codeSha,
-                    result.dataHash(),
-                    labelsHash);
+        new BacktestMetadata(
+            runId,
+            symbol,
+            interval,
+            from,
+            to,
+            trend.name(),
+            ga.getPopulation(),
+            ga.getGenerations(),
+            "nightly-ga",
+            ga.getSeed(),
+            perSplitMetrics,
+            codeSha,
+            result.dataHash(),
+            labelsHash);
 
     PresetImportRequest request =
-            new PresetImportRequest(
-                    trend,
-                    OrderSide.BUY,
-                    paramsJson,
-                    signalsJson,
-                    oosMetrics,
-                    metadata,
-                    codeSha,
-                    result.dataHash(),
-                    labelsHash);
+        new PresetImportRequest(
+            trend,
+            OrderSide.BUY,
+            paramsJson,
+            signalsJson,
+            oosMetrics,
+            metadata,
+            codeSha,
+            result.dataHash(),
+            labelsHash);
 
     Timer.Sample importSample = Timer.start(meterRegistry);
     PresetVersion preset = presetService.importPreset(request);
@@ -330,7 +377,7 @@ public class ResearchNightlyPipeline {
 
     Timer.Sample snapshotSample = Timer.start(meterRegistry);
     snapshotService.createSnapshot(
-            preset.getId(), SnapshotWindow.CUSTOM, oosMetrics, Map.of(), Map.of());
+        preset.getId(), SnapshotWindow.CUSTOM, oosMetrics, Map.of(), Map.of());
     snapshotSample.stop(stageTimer("snapshot"));
 
     MetricsSummary metrics = result.metrics();
@@ -344,22 +391,27 @@ public class ResearchNightlyPipeline {
   }
 
   private void incrementNightlyRuns(String symbol, String interval) {
-    meterRegistry.counter("research.nightly.runs", "symbol", symbol, "interval", interval).increment();
+    meterRegistry
+        .counter("research.nightly.runs", "symbol", symbol, "interval", interval)
+        .increment();
   }
 
   private void recordCandidate(RegimeTrend trend, String status) {
-    meterRegistry.counter("research.nightly.candidates", "trend", trend.name().toLowerCase(), "status", status).increment();
+    meterRegistry
+        .counter(
+            "research.nightly.candidates", "trend", trend.name().toLowerCase(), "status", status)
+        .increment();
   }
 
   private Timer stageTimer(String stage) {
     return stageTimers.computeIfAbsent(
-            stage,
-            key ->
-                    Timer.builder("research.nightly.stage.duration")
-                            .description("Nightly research stage duration")
-                            .tag("stage", key)
-                            .publishPercentileHistogram()
-                            .register(meterRegistry));
+        stage,
+        key ->
+            Timer.builder("research.nightly.stage.duration")
+                .description("Nightly research stage duration")
+                .tag("stage", key)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
   }
 
   private void recordRunDuration(Instant start) {
@@ -418,7 +470,8 @@ public class ResearchNightlyPipeline {
 
   private String resolveCodeRevision() {
     try {
-      Process process = new ProcessBuilder("git", "rev-parse", "HEAD").directory(Path.of(".").toFile()).start();
+      Process process =
+          new ProcessBuilder("git", "rev-parse", "HEAD").directory(Path.of(".").toFile()).start();
       int exit = process.waitFor();
       if (exit == 0) {
         return new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
@@ -435,8 +488,10 @@ public class ResearchNightlyPipeline {
       for (RegimeLabel label : labels) {
         if (label == null || label.timestamp() == null) continue;
         digest.update(label.timestamp().toString().getBytes(StandardCharsets.UTF_8));
-        if (label.trend() != null) digest.update(label.trend().name().getBytes(StandardCharsets.UTF_8));
-        if (label.volatility() != null) digest.update(label.volatility().name().getBytes(StandardCharsets.UTF_8));
+        if (label.trend() != null)
+          digest.update(label.trend().name().getBytes(StandardCharsets.UTF_8));
+        if (label.volatility() != null)
+          digest.update(label.volatility().name().getBytes(StandardCharsets.UTF_8));
       }
       return bytesToHex(digest.digest());
     } catch (Exception ex) {
@@ -1,13 +1,14 @@
 package com.bottrading.research.nightly;
 
 import java.math.BigDecimal;
-import java.util.List;
+import java.time.Duration;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 @ConfigurationProperties(prefix = "research")
 public class ResearchProperties {
 
   private Nightly nightly = new Nightly();
+  private Evaluation evaluation = new Evaluation();
 
   public Nightly getNightly() {
     return nightly;
@@ -17,6 +18,14 @@ public class ResearchProperties {
     this.nightly = nightly;
   }
 
+  public Evaluation getEvaluation() {
+    return evaluation;
+  }
+
+  public void setEvaluation(Evaluation evaluation) {
+    this.evaluation = evaluation;
+  }
+
   public static class Nightly {
     private boolean enabled = false;
     private String startCron = "0 20 * * *";
@@ -194,6 +203,8 @@ public class ResearchProperties {
     private BigDecimal takerFeeBps = BigDecimal.ZERO;
     private BigDecimal makerFeeBps = BigDecimal.ZERO;
     private boolean useDynamicFees = false;
+    private int diversitySamples = 0;
+    private int walkForwardParallelism = 4;
 
     public int getPopulation() {
       return population;
@@ -306,6 +317,24 @@ public class ResearchProperties {
     public void setUseDynamicFees(boolean useDynamicFees) {
       this.useDynamicFees = useDynamicFees;
     }
+
+    /** Random pairs sampled for the diversity statistic; 0 computes it exactly. */
+    public int getDiversitySamples() {
+      return diversitySamples;
+    }
+
+    public void setDiversitySamples(int diversitySamples) {
+      this.diversitySamples = diversitySamples;
+    }
+
+    /** Walk-forward windows optimized concurrently; all share the evaluation pool. */
+    public int getWalkForwardParallelism() {
+      return walkForwardParallelism;
+    }
+
+    public void setWalkForwardParallelism(int walkForwardParallelism) {
+      this.walkForwardParallelism = walkForwardParallelism;
+    }
   }
 
   public static class Reporting {
@@ -328,4 +357,43 @@ public class ResearchProperties {
       this.includeCharts = includeCharts;
     }
   }
+
+  public static class Evaluation {
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private int maxInFlight = Runtime.getRuntime().availableProcessors() * 2;
+    private Duration timeout = Duration.ofMinutes(10);
+    private int fitnessCacheSize = 10_000;
+
+    public int getParallelism() {
+      return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+      this.parallelism = parallelism;
+    }
+
+    public int getMaxInFlight() {
+      return maxInFlight;
+    }
+
+    public void setMaxInFlight(int maxInFlight) {
+      this.maxInFlight = maxInFlight;
+    }
+
+    public Duration getTimeout() {
+      return timeout;
+    }
+
+    public void setTimeout(Duration timeout) {
+      this.timeout = timeout;
+    }
+
+    public int getFitnessCacheSize() {
+      return fitnessCacheSize;
+    }
+
+    public void setFitnessCacheSize(int fitnessCacheSize) {
+      this.fitnessCacheSize = fitnessCacheSize;
+    }
+  }
 }
@@ -1,12 +1,12 @@
 package com.bottrading.research.regime;
 
 import com.bottrading.model.dto.Kline;
+import com.bottrading.strategy.CandleSeries;
 import com.bottrading.strategy.Series;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Tags;
-import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
@@ -41,9 +41,16 @@ public class RegimeEngine {
   }
 
   public Regime classify(String symbol, String interval, List<Kline> klines) {
+    Instant asOf =
+        klines == null || klines.isEmpty() ? null : klines.get(klines.size() - 1).closeTime();
+    return classify(symbol, interval, CandleSeries.fromKlines(klines), asOf);
+  }
+
+  /** {@code asOf} is the close time of the last candle; now when null. */
+  public Regime classify(String symbol, String interval, CandleSeries candles, Instant asOf) {
     Objects.requireNonNull(symbol, "symbol");
     Objects.requireNonNull(interval, "interval");
-    if (klines == null || klines.size() < EMA_SLOW + 5) {
+    if (candles == null || candles.size() < EMA_SLOW + 5) {
       Regime fallback =
           new Regime(
               symbol,
@@ -58,9 +65,9 @@ public class RegimeEngine {
       return fallback;
     }
 
-    double[] closes = toDoubleArray(klines, k -> k.close());
-    double[] highs = toDoubleArray(klines, k -> k.high());
-    double[] lows = toDoubleArray(klines, k -> k.low());
+    double[] closes = candles.closes();
+    double[] highs = candles.highs();
+    double[] lows = candles.lows();
 
     int last = closes.length - 1;
     double[] emaFast = Series.ema(closes, EMA_FAST);
@@ -80,7 +87,7 @@ public class RegimeEngine {
     RegimeTrend trend = classifyTrend(emaFast[last], emaSlow[last], adx);
     RegimeVolatility volatility = classifyVolatility(symbol, normalizedAtr);
 
-    Instant ts = Optional.ofNullable(klines.get(last).closeTime()).orElseGet(Instant::now);
+    Instant ts = Optional.ofNullable(asOf).orElseGet(Instant::now);
     Regime regime =
         new Regime(symbol, interval, trend, volatility, normalizedAtr, adx, rangeScore, ts);
     updateState(symbol, regime);
@@ -142,15 +149,6 @@ public class RegimeEngine {
     return normalizedAtr >= threshold ? RegimeVolatility.HI : RegimeVolatility.LO;
   }
 
-  private double[] toDoubleArray(List<Kline> klines, java.util.function.Function<Kline, BigDecimal> fn) {
-    double[] values = new double[klines.size()];
-    for (int i = 0; i < klines.size(); i++) {
-      BigDecimal v = fn.apply(klines.get(i));
-      values[i] = v == null ? Double.NaN : v.doubleValue();
-    }
-    return values;
-  }
-
   private double[] computeAdx(double[] highs, double[] lows, double[] closes, int period) {
     double[] atr = Series.atr(highs, lows, closes, period);
     double[] plusDm = Series.plusDirectionalMovement(highs, lows);
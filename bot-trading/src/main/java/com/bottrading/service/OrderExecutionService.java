@@ -1,20 +1,21 @@
 package com.bottrading.service;
 
 import com.bottrading.config.TradingProps;
-import com.bottrading.model.dto.AccountBalancesResponse;
+import com.bottrading.execution.ExecutionEngine;
+import com.bottrading.execution.ExecutionEngine.ExecutionResult;
+import com.bottrading.execution.ExecutionHandle;
+import com.bottrading.execution.ExecutionRequest;
+import com.bottrading.execution.ExecutionRequest.Urgency;
+import com.bottrading.execution.MarketSnapshot;
 import com.bottrading.execution.OrderSizingService;
 import com.bottrading.execution.OrderSizingService.OrderSizingResult;
 import com.bottrading.execution.PositionManager;
 import com.bottrading.execution.StopEngine;
 import com.bottrading.execution.StopEngine.StopPlan;
+import com.bottrading.model.dto.AccountBalancesResponse;
 import com.bottrading.model.dto.ExchangeInfo;
 import com.bottrading.model.dto.PriceTicker;
 import com.bottrading.model.enums.OrderSide;
-import com.bottrading.execution.ExecutionEngine;
-import com.bottrading.execution.ExecutionEngine.ExecutionResult;
-import com.bottrading.execution.ExecutionRequest;
-import com.bottrading.execution.ExecutionRequest.Urgency;
-import com.bottrading.execution.MarketSnapshot;
 import com.bottrading.service.anomaly.AnomalyDetector;
 import com.bottrading.service.binance.BinanceClient;
 import com.bottrading.service.risk.IntradayVarService;
@@ -22,11 +23,13 @@ import com.bottrading.service.risk.IntradayVarService.VarAssessment;
 import com.bottrading.service.risk.IntradayVarService.VarInput;
 import com.bottrading.service.risk.RiskGuard;
 import com.bottrading.service.risk.TradeEvent;
+import com.bottrading.shadow.ShadowEngine;
 import com.bottrading.strategy.SignalResult;
 import com.bottrading.strategy.SignalSide;
-import com.bottrading.strategy.StrategyDecision;
 import com.bottrading.strategy.StrategyContext;
-import com.bottrading.shadow.ShadowEngine;
+import com.bottrading.strategy.StrategyDecision;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Tags;
 import java.math.BigDecimal;
@@ -34,8 +37,12 @@ import java.math.RoundingMode;
 import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -57,20 +64,21 @@ public class OrderExecutionService {
   private final ExecutionEngine executionEngine;
   private final IntradayVarService intradayVarService;
   private final AnomalyDetector anomalyDetector;
+  private final ObjectMapper objectMapper = new ObjectMapper();
 
   public OrderExecutionService(
-          TradingProps tradingProps,
-          BinanceClient binanceClient,
-          com.bottrading.service.trading.OrderService orderService,
-          RiskGuard riskGuard,
-          MeterRegistry meterRegistry,
-          OrderSizingService orderSizingService,
-          StopEngine stopEngine,
-          PositionManager positionManager,
-          ShadowEngine shadowEngine,
-          ExecutionEngine executionEngine,
-          IntradayVarService intradayVarService,
-          AnomalyDetector anomalyDetector) {
+      TradingProps tradingProps,
+      BinanceClient binanceClient,
+      com.bottrading.service.trading.OrderService orderService,
+      RiskGuard riskGuard,
+      MeterRegistry meterRegistry,
+      OrderSizingService orderSizingService,
+      StopEngine stopEngine,
+      PositionManager positionManager,
+      ShadowEngine shadowEngine,
+      ExecutionEngine executionEngine,
+      IntradayVarService intradayVarService,
+      AnomalyDetector anomalyDetector) {
     this.tradingProps = tradingProps;
     this.binanceClient = binanceClient;
     this.orderService = orderService;
@@ -85,13 +93,19 @@ public class OrderExecutionService {
     this.anomalyDetector = anomalyDetector;
   }
 
-  public Optional<ExecutionResult> execute(
-          String decisionKey,
-          String symbol,
-          String interval,
-          StrategyDecision decision,
-          long closeTime,
-          double sizingMultiplier) {
+  /**
+   * Sizes and submits the order and returns as soon as the parent order is working. The returned
+   * handle's {@link ExecutionHandle#result()} completes only after the fill has been booked as a
+   * position, so callers releasing per-symbol reservations on it never leave a gap in which neither
+   * the reservation nor the position is visible.
+   */
+  public Optional<ExecutionHandle> execute(
+      String decisionKey,
+      String symbol,
+      String interval,
+      StrategyDecision decision,
+      long closeTime,
+      double sizingMultiplier) {
     SignalResult signal = decision.signal();
     if (signal.side() == SignalSide.FLAT) {
       log.debug("Decision {} is flat, no order to execute", decisionKey);
@@ -101,18 +115,17 @@ public class OrderExecutionService {
     ExchangeInfo exchangeInfo = binanceClient.getExchangeInfo(symbol);
     PriceTicker priceTicker = binanceClient.getPrice(symbol);
     StrategyContext context = decision.context();
-    BigDecimal lastPrice =
-            context.lastPrice() != null ? context.lastPrice() : priceTicker.price();
+    BigDecimal lastPrice = context.lastPrice() != null ? context.lastPrice() : priceTicker.price();
     BigDecimal volume24h = context.volume24h();
     Double normalizedAtr = context.normalizedAtr();
     BigDecimal atr =
-            normalizedAtr == null || lastPrice == null
-                    ? null
-                    : BigDecimal.valueOf(normalizedAtr).multiply(lastPrice);
+        normalizedAtr == null || lastPrice == null
+            ? null
+            : BigDecimal.valueOf(normalizedAtr).multiply(lastPrice);
 
     Assets assets = resolveAssets(symbol);
     AccountBalancesResponse balances =
-            orderService.getBalances(List.of(assets.base(), assets.quote()));
+        orderService.getBalances(List.of(assets.base(), assets.quote()));
     BigDecimal baseBalance = balanceOf(balances, assets.base());
     BigDecimal quoteBalance = balanceOf(balances, assets.quote());
 
@@ -124,27 +137,33 @@ public class OrderExecutionService {
     OrderSizingResult sizingResult;
     try {
       sizingResult =
-              orderSizingService.size(
-                      orderSide, lastPrice, stopPlan.stopLoss(), atr, equity, exchangeInfo, sizingMultiplier);
+          orderSizingService.size(
+              orderSide,
+              lastPrice,
+              stopPlan.stopLoss(),
+              atr,
+              equity,
+              exchangeInfo,
+              sizingMultiplier);
     } catch (IllegalStateException | IllegalArgumentException ex) {
       log.warn("Sizing failed for {}: {}", decisionKey, ex.getMessage());
       return Optional.empty();
     }
 
     VarAssessment varAssessment =
-            intradayVarService.assess(
-                    new VarInput(
-                            symbol,
-                            decision.preset(),
-                            decision.banditSelection() != null ? decision.banditSelection().presetId() : null,
-                            decision.regime() != null ? decision.regime().trend().name() : null,
-                            decision.regime() != null ? decision.regime().volatility().name() : null,
-                            orderSide,
-                            lastPrice,
-                            stopPlan.stopLoss(),
-                            sizingResult.quantity(),
-                            equity,
-                            exchangeInfo.stepSize()));
+        intradayVarService.assess(
+            new VarInput(
+                symbol,
+                decision.preset(),
+                decision.banditSelection() != null ? decision.banditSelection().presetId() : null,
+                decision.regime() != null ? decision.regime().trend().name() : null,
+                decision.regime() != null ? decision.regime().volatility().name() : null,
+                orderSide,
+                lastPrice,
+                stopPlan.stopLoss(),
+                sizingResult.quantity(),
+                equity,
+                exchangeInfo.stepSize()));
     if (varAssessment.blocked()) {
       log.info("VAR guard blocked {} reasons={}", decisionKey, varAssessment.reasons());
       return Optional.empty();
@@ -172,86 +191,162 @@ public class OrderExecutionService {
 
     BigDecimal notional = quantity.multiply(lastPrice);
     ExecutionRequest request =
-            new ExecutionRequest(
-                    symbol,
-                    orderSide,
-                    quantity,
-                    lastPrice,
-                    notional,
-                    exchangeInfo,
-                    resolveUrgency(decision.signal().confidence()),
-                    estimateMaxSlippageBps(lastPrice, atr),
-                    Instant.ofEpochMilli(closeTime).plusSeconds(120),
-                    tradingProps.isDryRun(),
-                    volume24h,
-                    atr,
-                    estimateSpreadBps(exchangeInfo, lastPrice),
-                    estimateVolatilityBps(atr, lastPrice),
-                    0,
-                    newClientOrderId(symbol, interval, closeTime));
+        new ExecutionRequest(
+            symbol,
+            orderSide,
+            quantity,
+            lastPrice,
+            notional,
+            exchangeInfo,
+            resolveUrgency(decision.signal().confidence()),
+            estimateMaxSlippageBps(lastPrice, atr),
+            Instant.ofEpochMilli(closeTime).plusSeconds(120),
+            tradingProps.isDryRun(),
+            volume24h,
+            atr,
+            estimateSpreadBps(exchangeInfo, lastPrice),
+            estimateVolatilityBps(atr, lastPrice),
+            0,
+            newClientOrderId(symbol, interval, closeTime));
 
     MarketSnapshot snapshot =
-            new MarketSnapshot(
-                    lastPrice,
-                    request.spreadBps(),
-                    request.expectedVolatilityBps(),
-                    request.latencyMs(),
-                    estimateBarVolume(volume24h),
-                    estimateQuoteBarVolume(volume24h, lastPrice));
+        new MarketSnapshot(
+            lastPrice,
+            request.spreadBps(),
+            request.expectedVolatilityBps(),
+            request.latencyMs(),
+            estimateBarVolume(volume24h),
+            estimateQuoteBarVolume(volume24h, lastPrice));
+
+    FillIntent intent =
+        new FillIntent(
+            decisionKey,
+            symbol,
+            orderSide,
+            quantity,
+            lastPrice,
+            atr,
+            decision.regime() != null ? decision.regime().trend().name() : null,
+            decision.regime() != null ? decision.regime().volatility().name() : null,
+            decision.preset(),
+            decision.banditSelection() != null ? decision.banditSelection().presetId() : null);
+    ExecutionHandle handle;
+    try {
+      handle = executionEngine.submit(request, snapshot, writeIntent(intent));
+    } catch (Exception ex) {
+      log.error("Failed to execute order for {}: {}", decisionKey, ex.getMessage(), ex);
+      anomalyDetector.recordFillRate(symbol, 0.0);
+      return Optional.empty();
+    }
+    return Optional.of(booked(handle, intent, stopPlan));
+  }
+
+  /** Re-attaches position booking to parent orders a previous run left working. */
+  @EventListener(ApplicationReadyEvent.class)
+  public void resumeInFlight() {
+    for (ExecutionHandle handle : executionEngine.resumeInFlight()) {
+      FillIntent intent = readIntent(handle.context());
+      if (intent == null) {
+        log.warn(
+            "Resumed parent order {} has no fill intent; fills will not be booked",
+            handle.parentId());
+        continue;
+      }
+      StopPlan stopPlan =
+          stopEngine.plan(intent.symbol(), intent.side(), intent.referencePrice(), intent.atr());
+      booked(handle, intent, stopPlan);
+    }
+  }
+
+  private ExecutionHandle booked(ExecutionHandle handle, FillIntent intent, StopPlan stopPlan) {
+    return new ExecutionHandle(
+        handle.parentId(),
+        handle.context(),
+        handle
+            .result()
+            .whenComplete((result, error) -> onExecuted(intent, stopPlan, result, error)));
+  }
 
+  private void onExecuted(
+      FillIntent intent, StopPlan stopPlan, ExecutionResult result, Throwable error) {
+    String symbol = intent.symbol();
+    if (error != null) {
+      Throwable cause =
+          error instanceof CompletionException && error.getCause() != null
+              ? error.getCause()
+              : error;
+      log.error(
+          "Failed to execute order for {}: {}", intent.decisionKey(), cause.getMessage(), cause);
+      anomalyDetector.recordFillRate(symbol, 0.0);
+      return;
+    }
     try {
-      ExecutionResult result = executionEngine.execute(request, snapshot);
       log.info(
-              "Order {} executed plan={} executedQty={} avgPrice={} dryRun={}",
-              decisionKey,
-              result.plan().getClass().getSimpleName(),
-              result.executedQty(),
-              result.averagePrice(),
-              tradingProps.isDryRun());
+          "Order {} executed plan={} executedQty={} avgPrice={} dryRun={}",
+          intent.decisionKey(),
+          result.plan().getClass().getSimpleName(),
+          result.executedQty(),
+          result.averagePrice(),
+          tradingProps.isDryRun());
       if (!tradingProps.isDryRun() && result.executedQty().compareTo(BigDecimal.ZERO) > 0) {
         BigDecimal executedNotional = result.averagePrice().multiply(result.executedQty());
         riskGuard.onTrade(new TradeEvent(symbol, true, BigDecimal.ZERO, null, executedNotional));
         String lastClientOrderId =
-                result.orders().isEmpty()
-                        ? request.baseClientOrderId()
-                        : result.orders().get(result.orders().size() - 1).clientOrderId();
+            result.orders().isEmpty()
+                ? intent.decisionKey()
+                : result.orders().get(result.orders().size() - 1).clientOrderId();
         positionManager.openPosition(
-                new PositionManager.OpenPositionCommand(
-                        symbol,
-                        orderSide,
-                        result.averagePrice(),
-                        result.executedQty(),
-                        stopPlan.stopLoss(),
-                        stopPlan.takeProfit(),
-                        null,
-                        lastClientOrderId,
-                        decision.regime() != null ? decision.regime().trend().name() : null,
-                        decision.regime() != null ? decision.regime().volatility().name() : null,
-                        decision.preset(),
-                        decision.banditSelection() != null ? decision.banditSelection().presetId() : null));
-        shadowEngine.registerShadow(
+            new PositionManager.OpenPositionCommand(
                 symbol,
-                orderSide,
+                intent.side(),
                 result.averagePrice(),
                 result.executedQty(),
-                stopPlan,
-                decision.regime() != null ? decision.regime().trend().name() : null,
-                decision.regime() != null ? decision.regime().volatility().name() : null,
-                decision.preset(),
-                decision.banditSelection() != null ? decision.banditSelection().presetId() : null);
+                stopPlan.stopLoss(),
+                stopPlan.takeProfit(),
+                null,
+                lastClientOrderId,
+                intent.regimeTrend(),
+                intent.regimeVolatility(),
+                intent.presetKey(),
+                intent.presetId()));
+        shadowEngine.registerShadow(
+            symbol,
+            intent.side(),
+            result.averagePrice(),
+            result.executedQty(),
+            stopPlan,
+            intent.regimeTrend(),
+            intent.regimeVolatility(),
+            intent.presetKey(),
+            intent.presetId());
       }
-      if (request.quantity().compareTo(BigDecimal.ZERO) > 0) {
+      if (intent.quantity().compareTo(BigDecimal.ZERO) > 0) {
         double fillRate =
-                result.executedQty()
-                        .divide(request.quantity(), 6, RoundingMode.HALF_UP)
-                        .doubleValue();
+            result.executedQty().divide(intent.quantity(), 6, RoundingMode.HALF_UP).doubleValue();
         anomalyDetector.recordFillRate(symbol, fillRate);
       }
-      return Optional.of(result);
     } catch (Exception ex) {
-      log.error("Failed to execute order for {}: {}", decisionKey, ex.getMessage(), ex);
-      anomalyDetector.recordFillRate(symbol, 0.0);
-      return Optional.empty();
+      log.error("Failed to book execution for {}: {}", intent.decisionKey(), ex.getMessage(), ex);
+    }
+  }
+
+  private String writeIntent(FillIntent intent) {
+    try {
+      return objectMapper.writeValueAsString(intent);
+    } catch (JsonProcessingException ex) {
+      throw new IllegalStateException("Unable to serialise fill intent", ex);
+    }
+  }
+
+  private FillIntent readIntent(String context) {
+    if (context == null || context.isBlank()) {
+      return null;
+    }
+    try {
+      return objectMapper.readValue(context, FillIntent.class);
+    } catch (JsonProcessingException ex) {
+      log.warn("Unreadable fill intent {}: {}", context, ex.getMessage());
+      return null;
     }
   }
 
@@ -270,7 +365,9 @@ public class OrderExecutionService {
       return 10.0;
     }
     if (atr != null && atr.compareTo(BigDecimal.ZERO) > 0) {
-      return atr.divide(price, 8, RoundingMode.HALF_UP).multiply(BigDecimal.valueOf(10000)).doubleValue();
+      return atr.divide(price, 8, RoundingMode.HALF_UP)
+          .multiply(BigDecimal.valueOf(10000))
+          .doubleValue();
     }
     return 10.0;
   }
@@ -280,17 +377,19 @@ public class OrderExecutionService {
       return 5.0;
     }
     return exchangeInfo
-            .tickSize()
-            .divide(price, 8, RoundingMode.HALF_UP)
-            .multiply(BigDecimal.valueOf(10000))
-            .doubleValue();
+        .tickSize()
+        .divide(price, 8, RoundingMode.HALF_UP)
+        .multiply(BigDecimal.valueOf(10000))
+        .doubleValue();
   }
 
   private double estimateVolatilityBps(BigDecimal atr, BigDecimal price) {
     if (atr == null || price == null || price.compareTo(BigDecimal.ZERO) <= 0) {
       return 0.0;
     }
-    return atr.divide(price, 8, RoundingMode.HALF_UP).multiply(BigDecimal.valueOf(10000)).doubleValue();
+    return atr.divide(price, 8, RoundingMode.HALF_UP)
+        .multiply(BigDecimal.valueOf(10000))
+        .doubleValue();
   }
 
   private BigDecimal estimateBarVolume(BigDecimal volume24h) {
@@ -317,16 +416,16 @@ public class OrderExecutionService {
       return BigDecimal.ZERO;
     }
     return response.balances().stream()
-            .filter(balance -> balance.asset().equalsIgnoreCase(asset))
-            .findFirst()
-            .map(AccountBalancesResponse.Balance::free)
-            .orElse(BigDecimal.ZERO);
+        .filter(balance -> balance.asset().equalsIgnoreCase(asset))
+        .findFirst()
+        .map(AccountBalancesResponse.Balance::free)
+        .orElse(BigDecimal.ZERO);
   }
 
   private Assets resolveAssets(String symbol) {
     String upper = symbol.toUpperCase();
     List<String> knownQuotes =
-            List.of("USDT", "BUSD", "USDC", "BTC", "ETH", "BNB", "EUR", "TRY", "BIDR", "AUD");
+        List.of("USDT", "BUSD", "USDC", "BTC", "ETH", "BNB", "EUR", "TRY", "BIDR", "AUD");
     for (String quote : knownQuotes) {
       if (upper.endsWith(quote)) {
         String base = upper.substring(0, upper.length() - quote.length());
@@ -338,4 +437,17 @@ public class OrderExecutionService {
   }
 
   private record Assets(String base, String quote) {}
-}
\ No newline at end of file
+
+  /** What to book once the parent completes; persisted with it as the parent order context. */
+  record FillIntent(
+      String decisionKey,
+      String symbol,
+      OrderSide side,
+      BigDecimal quantity,
+      BigDecimal referencePrice,
+      BigDecimal atr,
+      String regimeTrend,
+      String regimeVolatility,
+      String presetKey,
+      UUID presetId) {}
+}
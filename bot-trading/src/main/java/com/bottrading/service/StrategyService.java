@@ -2,26 +2,25 @@ package com.bottrading.service;
 
 import com.bottrading.bandit.BanditContext;
 import com.bottrading.bandit.BanditContextFactory;
-import com.bottrading.bandit.BanditSelector;
 import com.bottrading.bandit.BanditSelection;
+import com.bottrading.bandit.BanditSelector;
 import com.bottrading.config.TradingProps;
-import com.bottrading.model.dto.Kline;
 import com.bottrading.model.entity.PresetVersion;
 import com.bottrading.model.enums.OrderSide;
-import com.bottrading.service.binance.BinanceClient;
+import com.bottrading.research.regime.Regime;
+import com.bottrading.research.regime.RegimeEngine;
+import com.bottrading.service.market.CandleStore;
+import com.bottrading.service.market.MarketStats;
 import com.bottrading.service.preset.PresetService;
+import com.bottrading.service.risk.RiskGuard;
+import com.bottrading.strategy.CandleSeries;
 import com.bottrading.strategy.CompositeStrategy;
 import com.bottrading.strategy.SignalResult;
 import com.bottrading.strategy.StrategyContext;
-import com.bottrading.strategy.StrategyFactory;
 import com.bottrading.strategy.StrategyDecision;
-import com.bottrading.research.regime.Regime;
-import com.bottrading.research.regime.RegimeEngine;
-import com.bottrading.service.risk.RiskGuard;
+import com.bottrading.strategy.StrategyFactory;
 import com.bottrading.strategy.router.StrategyRouter;
 import java.math.BigDecimal;
-import java.util.ArrayList;
-import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -32,7 +31,8 @@ public class StrategyService {
   private static final Logger log = LoggerFactory.getLogger(StrategyService.class);
   private static final int DEFAULT_KLINE_LIMIT = 200;
 
-  private final BinanceClient binanceClient;
+  private final CandleStore candleStore;
+  private final MarketStats marketStats;
   private final StrategyFactory strategyFactory;
   private final TradingProps tradingProps;
   private final RegimeEngine regimeEngine;
@@ -43,7 +43,8 @@ public class StrategyService {
   private final PresetService presetService;
 
   public StrategyService(
-      BinanceClient binanceClient,
+      CandleStore candleStore,
+      MarketStats marketStats,
       StrategyFactory strategyFactory,
       TradingProps tradingProps,
       RegimeEngine regimeEngine,
@@ -52,7 +53,8 @@ public class StrategyService {
       BanditSelector banditSelector,
       BanditContextFactory banditContextFactory,
       PresetService presetService) {
-    this.binanceClient = binanceClient;
+    this.candleStore = candleStore;
+    this.marketStats = marketStats;
     this.strategyFactory = strategyFactory;
     this.tradingProps = tradingProps;
     this.regimeEngine = regimeEngine;
@@ -73,24 +75,25 @@ public class StrategyService {
           SignalResult.flat("Risk guard pause in effect"), context, null, "default", null);
     }
     String interval = tradingProps.getInterval();
-    List<Kline> klines = binanceClient.getKlines(effectiveSymbol, interval, DEFAULT_KLINE_LIMIT);
-    if (klines == null || klines.isEmpty()) {
+    CandleStore.Window window = candleStore.window(effectiveSymbol, interval, DEFAULT_KLINE_LIMIT);
+    if (window.isEmpty()) {
       log.warn("No klines available for symbol {}", effectiveSymbol);
       StrategyContext context =
           StrategyContext.builder().symbol(effectiveSymbol).preset("default").build();
       return new StrategyDecision(
           SignalResult.flat("No klines available"), context, null, "default", null);
     }
-    BigDecimal volume24h = binanceClient.get24hQuoteVolume(effectiveSymbol);
-    Kline last = klines.get(klines.size() - 1);
-    Regime regime = regimeEngine.classify(effectiveSymbol, interval, klines);
+    BigDecimal volume24h = marketStats.quoteVolume24h(effectiveSymbol);
+    CandleSeries candles = window.candles();
+    Regime regime =
+        regimeEngine.classify(effectiveSymbol, interval, candles, window.lastCloseTime());
     StrategyRouter.Selection selection = strategyRouter.select(effectiveSymbol, regime);
     StrategyContext.Builder contextBuilder =
         StrategyContext.builder()
             .symbol(effectiveSymbol)
-            .lastPrice(last.close())
+            .lastPrice(BigDecimal.valueOf(candles.lastClose()))
             .volume24h(volume24h)
-            .asOf(last.closeTime())
+            .asOf(window.lastCloseTime())
             .regime(regime)
             .normalizedAtr(Double.isNaN(regime.normalizedAtr()) ? null : regime.normalizedAtr())
             .adx(Double.isNaN(regime.adx()) ? null : regime.adx())
@@ -106,7 +109,8 @@ public class StrategyService {
       BanditContext banditContext =
           banditContextFactory.build(regime, contextForBandit, null, null, null, null);
       BanditSelector.BanditSelectionResult banditResult =
-          banditSelector.pickPresetOrFallback(effectiveSymbol, regime, OrderSide.BUY, banditContext);
+          banditSelector.pickPresetOrFallback(
+              effectiveSymbol, regime, OrderSide.BUY, banditContext);
       if (banditResult.eligible() && banditResult.selection() != null) {
         try {
           PresetVersion preset = presetService.getPreset(banditResult.selection().presetId());
@@ -125,13 +129,16 @@ public class StrategyService {
             contextBuilder.preset(presetKey);
           }
         } catch (IllegalArgumentException ex) {
-          log.warn("Failed to hydrate preset {}: {}", banditResult.selection().presetId(), ex.getMessage());
+          log.warn(
+              "Failed to hydrate preset {}: {}",
+              banditResult.selection().presetId(),
+              ex.getMessage());
         }
       }
     }
 
     StrategyContext context = contextBuilder.build();
-    SignalResult result = strategy.evaluate(convert(klines), context);
+    SignalResult result = strategy.evaluate(candles, context);
     log.debug(
         "Strategy decision symbol={} preset={} side={} confidence={} note={}",
         effectiveSymbol,
@@ -142,22 +149,6 @@ public class StrategyService {
     return new StrategyDecision(result, context, regime, presetKey, banditSelection);
   }
 
-  private List<String[]> convert(List<Kline> klines) {
-    List<String[]> list = new ArrayList<>(klines.size());
-    for (Kline kline : klines) {
-      list.add(
-          new String[] {
-            String.valueOf(kline.openTime().toEpochMilli()),
-            kline.open().toPlainString(),
-            kline.high().toPlainString(),
-            kline.low().toPlainString(),
-            kline.close().toPlainString(),
-            kline.volume().toPlainString()
-          });
-    }
-    return list;
-  }
-
   private String deriveStrategyKey(java.util.Map<String, Object> params, String fallback) {
     if (params == null || params.isEmpty()) {
       return fallback;
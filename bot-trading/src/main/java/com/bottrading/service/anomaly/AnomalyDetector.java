@@ -43,7 +43,8 @@ public class AnomalyDetector {
   private final Clock clock;
   private final ConcurrentMap<MetricKey, RollingWindow> windows = new ConcurrentHashMap<>();
   private final ConcurrentMap<String, SymbolState> states = new ConcurrentHashMap<>();
-  private final ConcurrentMap<MetricKey, AtomicReference<Double>> metricGauges = new ConcurrentHashMap<>();
+  private final ConcurrentMap<MetricKey, AtomicReference<Double>> metricGauges =
+      new ConcurrentHashMap<>();
   private final TenantMetrics tenantMetrics;
 
   public AnomalyDetector(
@@ -125,7 +126,6 @@ public class AnomalyDetector {
     MetricKey key = new MetricKey(symbol, metric);
     RollingWindow window =
         windows.computeIfAbsent(key, ignored -> new RollingWindow(properties.getWindow()));
-    Instant now = Instant.now(clock);
     AtomicReference<Double> gauge =
         metricGauges.computeIfAbsent(
             key,
@@ -137,7 +137,18 @@ public class AnomalyDetector {
               return ref;
             });
     gauge.set(value);
-    Stats stats = window.add(value);
+    RollingWindow.Sink sink = (sample, stats) -> evaluate(symbol, metric, window, sample, stats);
+    while (!window.offer(value)) {
+      // inbox full: help the draining thread catch up
+      window.drain(sink);
+      Thread.onSpinWait();
+    }
+    window.drain(sink);
+  }
+
+  private void evaluate(
+      String symbol, AnomalyMetric metric, RollingWindow window, double value, Stats stats) {
+    Instant now = Instant.now(clock);
     SymbolState state = states.computeIfAbsent(symbol, this::newSymbolState);
     state.append(metric, value);
     state.removeExpired(now);
@@ -152,7 +163,7 @@ public class AnomalyDetector {
     if (abs < properties.getZscore().getWarn()) {
       return;
     }
-    if (properties.isEsdEnabled() && !isRobustOutlier(window.values(), value)) {
+    if (properties.isEsdEnabled() && !isRobustOutlier(window, value)) {
       return;
     }
     AnomalySeverity severity = classify(abs);
@@ -175,7 +186,8 @@ public class AnomalyDetector {
     ActiveAnomaly previous = state.active.get(metric);
     Instant expiresAt = now.plusSeconds(Math.max(1, properties.getCoolDownSec()));
     if (previous != null && previous.severity == severity) {
-      previous.refresh(zScore, value, stats.mean(), expiresAt, detailFor(metric, value, stats, zScore));
+      previous.refresh(
+          zScore, value, stats.mean(), expiresAt, detailFor(metric, value, stats, zScore));
       state.updateGauge();
       return;
     }
@@ -257,19 +269,12 @@ public class AnomalyDetector {
     return (value - stats.mean()) / stats.stdDev();
   }
 
-  private boolean isRobustOutlier(List<Double> values, double sample) {
-    if (values.size() < 5) {
+  private boolean isRobustOutlier(RollingWindow window, double sample) {
+    if (window.size() < 5) {
       return true;
     }
-    List<Double> copy = new ArrayList<>(values);
-    Collections.sort(copy);
-    double median = median(copy);
-    List<Double> deviations = new ArrayList<>(copy.size());
-    for (double v : copy) {
-      deviations.add(Math.abs(v - median));
-    }
-    Collections.sort(deviations);
-    double mad = median(deviations);
+    double median = window.median();
+    double mad = window.medianAbsoluteDeviation();
     if (mad == 0) {
       return true;
     }
@@ -277,17 +282,6 @@ public class AnomalyDetector {
     return modifiedZ >= properties.getZscore().getWarn();
   }
 
-  private double median(List<Double> sortedValues) {
-    int size = sortedValues.size();
-    if (size == 0) {
-      return 0;
-    }
-    if (size % 2 == 1) {
-      return sortedValues.get(size / 2);
-    }
-    return (sortedValues.get(size / 2 - 1) + sortedValues.get(size / 2)) / 2.0;
-  }
-
   private String detailFor(AnomalyMetric metric, double value, Stats stats, double zScore) {
     return switch (metric) {
       case FILL_RATE ->
@@ -328,38 +322,7 @@ public class AnomalyDetector {
 
   private record MetricKey(String symbol, AnomalyMetric metric) {}
 
-  private static class RollingWindow {
-    private final int capacity;
-    private final Deque<Double> values = new ArrayDeque<>();
-    private double sum;
-    private double sumSquares;
-
-    private RollingWindow(int capacity) {
-      this.capacity = Math.max(1, capacity);
-    }
-
-    synchronized Stats add(double value) {
-      if (values.size() == capacity) {
-        double removed = values.removeFirst();
-        sum -= removed;
-        sumSquares -= removed * removed;
-      }
-      values.addLast(value);
-      sum += value;
-      sumSquares += value * value;
-      int count = values.size();
-      double mean = sum / count;
-      double variance = Math.max(0.0, (sumSquares / count) - (mean * mean));
-      double stdDev = Math.sqrt(variance);
-      return new Stats(count, mean, stdDev);
-    }
-
-    synchronized List<Double> values() {
-      return new ArrayList<>(values);
-    }
-  }
-
-  private record Stats(int count, double mean, double stdDev) {}
+  record Stats(int count, double mean, double stdDev) {}
 
   public enum ExecutionOverride {
     NONE,
@@ -428,8 +391,7 @@ public class AnomalyDetector {
     private final String symbol;
     private final AtomicInteger gauge;
     private final EnumMap<AnomalyMetric, ActiveAnomaly> active = new EnumMap<>(AnomalyMetric.class);
-    private final EnumMap<AnomalyMetric, Deque<Double>> series =
-        new EnumMap<>(AnomalyMetric.class);
+    private final EnumMap<AnomalyMetric, Deque<Double>> series = new EnumMap<>(AnomalyMetric.class);
 
     private SymbolState(String symbol, AtomicInteger gauge) {
       this.symbol = symbol;
@@ -470,7 +432,8 @@ public class AnomalyDetector {
       }
       ActiveAnomaly anomaly =
           Collections.max(active.values(), Comparator.comparing(a -> a.severity.gaugeLevel()));
-      List<Double> sparkline = new ArrayList<>(series.getOrDefault(anomaly.metric, new ArrayDeque<>()));
+      List<Double> sparkline =
+          new ArrayList<>(series.getOrDefault(anomaly.metric, new ArrayDeque<>()));
       return Optional.of(
           new AnomalySnapshot(
               symbol,
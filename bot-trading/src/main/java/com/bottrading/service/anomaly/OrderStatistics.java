@@ -0,0 +1,241 @@
+package com.bottrading.service.anomaly;
+
+/**
+ * Multiset of doubles with rank queries, stored as a size-augmented treap in parallel primitive
+ * arrays with a fixed node pool. Insert, remove and {@link #select} are O(log n) expected; {@link
+ * #median} and {@link #medianAbsoluteDeviation} are O(log n) and O(log² n). Not thread-safe.
+ */
+final class OrderStatistics {
+
+  private static final int NIL = -1;
+
+  private final double[] keys;
+  private final int[] priorities;
+  private final int[] left;
+  private final int[] right;
+  private final int[] sizes;
+  private final int[] free;
+  private int freeCount;
+  private int root = NIL;
+  private int seed = 0x2545F491;
+
+  OrderStatistics(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("capacity must be positive");
+    }
+    keys = new double[capacity];
+    priorities = new int[capacity];
+    left = new int[capacity];
+    right = new int[capacity];
+    sizes = new int[capacity];
+    free = new int[capacity];
+    for (int i = 0; i < capacity; i++) {
+      free[i] = capacity - 1 - i;
+    }
+    freeCount = capacity;
+  }
+
+  int size() {
+    return size(root);
+  }
+
+  void insert(double key) {
+    if (freeCount == 0) {
+      throw new IllegalStateException("order statistics full");
+    }
+    int node = free[--freeCount];
+    keys[node] = key;
+    priorities[node] = nextPriority();
+    left[node] = NIL;
+    right[node] = NIL;
+    sizes[node] = 1;
+    long parts = splitLess(root, key);
+    root = merge(merge(first(parts), node), second(parts));
+  }
+
+  /** Removes one occurrence of {@code key}; returns false when absent. */
+  boolean remove(double key) {
+    long lower = splitLess(root, key);
+    long upper = splitLessOrEqual(second(lower), key);
+    int equal = first(upper);
+    boolean removed = equal != NIL;
+    if (removed) {
+      free[freeCount++] = equal;
+      equal = merge(left[equal], right[equal]);
+    }
+    root = merge(first(lower), merge(equal, second(upper)));
+    return removed;
+  }
+
+  /** The {@code k}-th smallest key, 0-based. */
+  double select(int k) {
+    if (k < 0 || k >= size()) {
+      throw new IllegalArgumentException("rank out of range: " + k);
+    }
+    int node = root;
+    while (true) {
+      int leftSize = size(left[node]);
+      if (k < leftSize) {
+        node = left[node];
+      } else if (k == leftSize) {
+        return keys[node];
+      } else {
+        k -= leftSize + 1;
+        node = right[node];
+      }
+    }
+  }
+
+  /** Number of keys less than or equal to {@code key}. */
+  int countLessOrEqual(double key) {
+    int count = 0;
+    int node = root;
+    while (node != NIL) {
+      if (keys[node] <= key) {
+        count += size(left[node]) + 1;
+        node = right[node];
+      } else {
+        node = left[node];
+      }
+    }
+    return count;
+  }
+
+  double median() {
+    int n = size();
+    if (n == 0) {
+      return 0;
+    }
+    if (n % 2 == 1) {
+      return select(n / 2);
+    }
+    return (select(n / 2 - 1) + select(n / 2)) / 2.0;
+  }
+
+  /**
+   * Median of {@code |x - median|}. The deviations of keys at or below the median, read outwards,
+   * and of keys above it are two ascending sequences, so each order statistic of their union is a
+   * binary search over ranks.
+   */
+  double medianAbsoluteDeviation() {
+    int n = size();
+    if (n == 0) {
+      return 0;
+    }
+    double median = median();
+    int below = countLessOrEqual(median);
+    if (n % 2 == 1) {
+      return deviation(median, below, n / 2);
+    }
+    return (deviation(median, below, n / 2 - 1) + deviation(median, below, n / 2)) / 2.0;
+  }
+
+  private double deviation(double median, int below, int k) {
+    int above = size() - below;
+    int need = k + 1;
+    int lo = Math.max(0, need - above);
+    int hi = Math.min(need, below);
+    while (true) {
+      int i = (lo + hi) >>> 1;
+      int j = need - i;
+      if (i < below && j > 0 && upper(median, below, j - 1) > lower(median, below, i)) {
+        lo = i + 1;
+      } else if (i > 0 && j < above && lower(median, below, i - 1) > upper(median, below, j)) {
+        hi = i - 1;
+      } else {
+        double fromLower = i > 0 ? lower(median, below, i - 1) : Double.NEGATIVE_INFINITY;
+        double fromUpper = j > 0 ? upper(median, below, j - 1) : Double.NEGATIVE_INFINITY;
+        return Math.max(fromLower, fromUpper);
+      }
+    }
+  }
+
+  /** {@code i}-th smallest deviation among keys at or below the median. */
+  private double lower(double median, int below, int i) {
+    return median - select(below - 1 - i);
+  }
+
+  /** {@code j}-th smallest deviation among keys above the median. */
+  private double upper(double median, int below, int j) {
+    return select(below + j) - median;
+  }
+
+  private int size(int node) {
+    return node == NIL ? 0 : sizes[node];
+  }
+
+  private void update(int node) {
+    sizes[node] = 1 + size(left[node]) + size(right[node]);
+  }
+
+  private int merge(int a, int b) {
+    if (a == NIL) {
+      return b;
+    }
+    if (b == NIL) {
+      return a;
+    }
+    if (priorities[a] > priorities[b]) {
+      right[a] = merge(right[a], b);
+      update(a);
+      return a;
+    }
+    left[b] = merge(a, left[b]);
+    update(b);
+    return b;
+  }
+
+  /** Splits into keys {@code < key} and keys {@code >= key}. */
+  private long splitLess(int node, double key) {
+    if (node == NIL) {
+      return pack(NIL, NIL);
+    }
+    if (keys[node] < key) {
+      long parts = splitLess(right[node], key);
+      right[node] = first(parts);
+      update(node);
+      return pack(node, second(parts));
+    }
+    long parts = splitLess(left[node], key);
+    left[node] = second(parts);
+    update(node);
+    return pack(first(parts), node);
+  }
+
+  /** Splits into keys {@code <= key} and keys {@code > key}. */
+  private long splitLessOrEqual(int node, double key) {
+    if (node == NIL) {
+      return pack(NIL, NIL);
+    }
+    if (keys[node] <= key) {
+      long parts = splitLessOrEqual(right[node], key);
+      right[node] = first(parts);
+      update(node);
+      return pack(node, second(parts));
+    }
+    long parts = splitLessOrEqual(left[node], key);
+    left[node] = second(parts);
+    update(node);
+    return pack(first(parts), node);
+  }
+
+  private int nextPriority() {
+    // xorshift32; treap shape only needs the priorities to look random
+    seed ^= seed << 13;
+    seed ^= seed >>> 17;
+    seed ^= seed << 5;
+    return seed;
+  }
+
+  private static long pack(int first, int second) {
+    return ((long) first << 32) | (second & 0xFFFFFFFFL);
+  }
+
+  private static int first(long parts) {
+    return (int) (parts >> 32);
+  }
+
+  private static int second(long parts) {
+    return (int) parts;
+  }
+}
@@ -0,0 +1,131 @@
+package com.bottrading.service.anomaly;
+
+import com.bottrading.service.anomaly.AnomalyDetector.Stats;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The last {@code capacity} samples of one metric in a primitive ring, with running moments and an
+ * {@link OrderStatistics} index for the robust median/MAD check. Recording threads never block:
+ * {@link #offer} publishes into a bounded multi-producer inbox, and {@link #drain} lets whichever
+ * thread wins a {@code tryLock} apply every pending sample in publication order, handing each one
+ * with the window state after it to the sink, exactly as a serial caller would see it.
+ */
+final class RollingWindow {
+
+  static final int INBOX_CAPACITY = 1024;
+
+  @FunctionalInterface
+  interface Sink {
+    /** Called by the draining thread with the window already including {@code value}. */
+    void accept(double value, Stats stats);
+  }
+
+  private final int capacity;
+  private final double[] values;
+  private final OrderStatistics order;
+  private int head;
+  private int count;
+  private double sum;
+  private double sumSquares;
+
+  private final double[] inbox = new double[INBOX_CAPACITY];
+  private final AtomicLongArray published = new AtomicLongArray(INBOX_CAPACITY);
+  private final AtomicLong tail = new AtomicLong();
+  private volatile long next;
+  private final ReentrantLock drainLock = new ReentrantLock();
+
+  RollingWindow(int capacity) {
+    this.capacity = Math.max(1, capacity);
+    this.values = new double[this.capacity];
+    this.order = new OrderStatistics(this.capacity);
+    for (int i = 0; i < INBOX_CAPACITY; i++) {
+      published.set(i, i);
+    }
+  }
+
+  /** Publishes a sample for the next {@link #drain}; false when the inbox is full. */
+  boolean offer(double value) {
+    while (true) {
+      long slot = tail.get();
+      int index = (int) (slot & (INBOX_CAPACITY - 1));
+      long sequence = published.get(index);
+      if (sequence == slot) {
+        if (tail.compareAndSet(slot, slot + 1)) {
+          inbox[index] = value;
+          // a full volatile write: the producer's next step reads the drain lock, and drain()
+          // unlocks before re-reading this slot, so both sides need the StoreLoad fence
+          published.set(index, slot + 1);
+          return true;
+        }
+      } else if (sequence < slot) {
+        return false;
+      }
+    }
+  }
+
+  /**
+   * Applies pending samples unless another thread is already doing so; that thread then also
+   * applies anything published before it lets go.
+   */
+  void drain(Sink sink) {
+    while (drainLock.tryLock()) {
+      try {
+        double value;
+        while (!Double.isNaN(value = poll())) {
+          sink.accept(value, add(value));
+        }
+      } finally {
+        drainLock.unlock();
+      }
+      if (published.get((int) (next & (INBOX_CAPACITY - 1))) != next + 1) {
+        return;
+      }
+    }
+  }
+
+  /** Adds directly; callers must hold the drain role or confine the window to one thread. */
+  Stats add(double value) {
+    if (count == capacity) {
+      double removed = values[head];
+      order.remove(removed);
+      sum -= removed;
+      sumSquares -= removed * removed;
+      count--;
+      head = (head + 1) % capacity;
+    }
+    values[(head + count) % capacity] = value;
+    order.insert(value);
+    count++;
+    sum += value;
+    sumSquares += value * value;
+    double mean = sum / count;
+    double variance = Math.max(0.0, (sumSquares / count) - (mean * mean));
+    return new Stats(count, mean, Math.sqrt(variance));
+  }
+
+  int size() {
+    return count;
+  }
+
+  double median() {
+    return order.median();
+  }
+
+  double medianAbsoluteDeviation() {
+    return order.medianAbsoluteDeviation();
+  }
+
+  /** Next published sample, or NaN when none; recorded samples are always finite. */
+  private double poll() {
+    int index = (int) (next & (INBOX_CAPACITY - 1));
+    if (published.get(index) != next + 1) {
+      return Double.NaN;
+    }
+    double value = inbox[index];
+    published.lazySet(index, next + INBOX_CAPACITY);
+    next++;
+    return value;
+  }
+}
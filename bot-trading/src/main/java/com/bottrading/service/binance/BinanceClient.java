@@ -8,7 +8,11 @@ import com.bottrading.model.dto.OrderResponse;
 import com.bottrading.model.dto.PriceTicker;
 import com.bottrading.model.entity.ManagedOrderEntity;
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Consumer;
 
 public interface BinanceClient {
@@ -16,8 +20,29 @@ public interface BinanceClient {
 
   List<Kline> getKlines(String symbol, String interval, int limit);
 
+  /**
+   * Up to {@code limit} bars opening in {@code [startTime, endTime)}, oldest first. The default
+   * filters the latest {@code limit} bars, so it only reaches recent history.
+   */
+  default List<Kline> getKlines(
+      String symbol, String interval, Instant startTime, Instant endTime, int limit) {
+    return getKlines(symbol, interval, limit).stream()
+        .filter(
+            kline -> !kline.openTime().isBefore(startTime) && kline.openTime().isBefore(endTime))
+        .toList();
+  }
+
   BigDecimal get24hQuoteVolume(String symbol);
 
+  /** 24h quote volume for several symbols; implementations may answer in a single request. */
+  default Map<String, BigDecimal> get24hQuoteVolumes(Collection<String> symbols) {
+    Map<String, BigDecimal> volumes = new LinkedHashMap<>();
+    for (String symbol : symbols) {
+      volumes.put(symbol, get24hQuoteVolume(symbol));
+    }
+    return volumes;
+  }
+
   ExchangeInfo getExchangeInfo(String symbol);
 
   AccountBalancesResponse getAccountBalances(List<String> assets);
@@ -28,6 +53,9 @@ public interface BinanceClient {
 
   OrderResponse getOrder(String symbol, String orderId);
 
+  /** Looks an order up by the client id it was placed with; null when the exchange has none. */
+  OrderResponse getOrderByClientOrderId(String symbol, String clientOrderId);
+
   boolean placeOcoOrder(String symbol, ManagedOrderEntity stopLoss, ManagedOrderEntity takeProfit);
 
   void placeChildOrder(ManagedOrderEntity order);
@@ -46,7 +74,8 @@ public interface BinanceClient {
 
   void closeUserDataStream(String listenKey);
 
-  void connectUserDataStream(String listenKey, Consumer<String> onMessage, Consumer<Throwable> onError);
+  void connectUserDataStream(
+      String listenKey, Consumer<String> onMessage, Consumer<Throwable> onError);
 
   record ExchangeOrder(
       String symbol,
@@ -31,7 +31,10 @@ import io.micrometer.core.instrument.Timer;
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CancellationException;
@@ -51,6 +54,10 @@ import org.springframework.stereotype.Component;
 public class BinanceClientImpl implements BinanceClient {
 
   private static final Logger log = LoggerFactory.getLogger(BinanceClientImpl.class);
+  // ticker/24hr costs weight 2 for 1-20 symbols, 40 above that
+  static final int TICKER_BATCH_LIMIT = 20;
+  // -2013 NO_SUCH_ORDER
+  private static final int ORDER_DOES_NOT_EXIST = -2013;
 
   private final SpotClientImpl spotClient;
   private final CacheManager cacheManager;
@@ -93,7 +100,8 @@ public class BinanceClientImpl implements BinanceClient {
     Map<String, Object> params = new HashMap<>();
     params.put("symbol", symbol);
     String response =
-        execute(Endpoint.PRICE_TICKER, symbol, () -> spotClient.createMarket().tickerSymbol(params));
+        execute(
+            Endpoint.PRICE_TICKER, symbol, () -> spotClient.createMarket().tickerSymbol(params));
     JsonNode node = readTree(response);
     return new PriceTicker(symbol, new BigDecimal(node.get("price").asText()));
   }
@@ -106,6 +114,25 @@ public class BinanceClientImpl implements BinanceClient {
     params.put("limit", limit);
     String response =
         execute(Endpoint.KLINES, symbol, () -> spotClient.createMarket().klines(params));
+    return parseKlines(response);
+  }
+
+  @Override
+  public List<Kline> getKlines(
+      String symbol, String interval, Instant startTime, Instant endTime, int limit) {
+    Map<String, Object> params = new HashMap<>();
+    params.put("symbol", symbol);
+    params.put("interval", interval);
+    params.put("startTime", startTime.toEpochMilli());
+    // Binance treats endTime as inclusive
+    params.put("endTime", endTime.toEpochMilli() - 1);
+    params.put("limit", limit);
+    String response =
+        execute(Endpoint.KLINES, symbol, () -> spotClient.createMarket().klines(params));
+    return parseKlines(response);
+  }
+
+  private List<Kline> parseKlines(String response) {
     JsonNode array = readTree(response);
     List<Kline> klines = new ArrayList<>();
     for (JsonNode kline : array) {
@@ -132,6 +159,35 @@ public class BinanceClientImpl implements BinanceClient {
     return new BigDecimal(node.get("quoteVolume").asText());
   }
 
+  /**
+   * One {@code ticker/24hr?symbols=[..]&type=MINI} request per {@value #TICKER_BATCH_LIMIT}
+   * symbols.
+   */
+  @Override
+  public Map<String, BigDecimal> get24hQuoteVolumes(Collection<String> symbols) {
+    Map<String, BigDecimal> volumes = new LinkedHashMap<>();
+    List<String> pending = new ArrayList<>(new LinkedHashSet<>(symbols));
+    for (int from = 0; from < pending.size(); from += TICKER_BATCH_LIMIT) {
+      ArrayList<String> chunk =
+          new ArrayList<>(
+              pending.subList(from, Math.min(pending.size(), from + TICKER_BATCH_LIMIT)));
+      if (chunk.size() == 1) {
+        volumes.put(chunk.get(0), get24hQuoteVolume(chunk.get(0)));
+        continue;
+      }
+      Map<String, Object> params = new HashMap<>();
+      params.put("symbols", chunk);
+      params.put("type", "MINI");
+      String response =
+          execute(
+              Endpoint.TICKER_24H_BATCH, null, () -> spotClient.createMarket().ticker24H(params));
+      for (JsonNode node : readTree(response)) {
+        volumes.put(node.get("symbol").asText(), new BigDecimal(node.get("quoteVolume").asText()));
+      }
+    }
+    return volumes;
+  }
+
   @Override
   public ExchangeInfo getExchangeInfo(String symbol) {
     Cache cache = cacheManager.getCache(CacheConfig.EXCHANGE_INFO_CACHE);
@@ -142,7 +198,8 @@ public class BinanceClientImpl implements BinanceClient {
     Map<String, Object> params = new HashMap<>();
     params.put("symbol", symbol);
     String response =
-        execute(Endpoint.EXCHANGE_INFO, symbol, () -> spotClient.createMarket().exchangeInfo(params));
+        execute(
+            Endpoint.EXCHANGE_INFO, symbol, () -> spotClient.createMarket().exchangeInfo(params));
     JsonNode root = readTree(response);
     JsonNode symbolNode = root.path("symbols").get(0);
     BigDecimal tickSize = BigDecimal.ONE;
@@ -155,8 +212,7 @@ public class BinanceClientImpl implements BinanceClient {
         case "LOT_SIZE" -> stepSize = new BigDecimal(filter.get("stepSize").asText());
         case "MIN_NOTIONAL", "NOTIONAL" ->
             minNotional = new BigDecimal(filter.get("minNotional").asText());
-        default -> {
-        }
+        default -> {}
       }
     }
     ExchangeInfo info = new ExchangeInfo(tickSize, stepSize, minNotional);
@@ -166,7 +222,11 @@ public class BinanceClientImpl implements BinanceClient {
 
   @Override
   public AccountBalancesResponse getAccountBalances(List<String> assets) {
-    String response = execute(Endpoint.ACCOUNT_INFORMATION, null, () -> spotClient.createTrade().account(new HashMap<>()));
+    String response =
+        execute(
+            Endpoint.ACCOUNT_INFORMATION,
+            null,
+            () -> spotClient.createTrade().account(new HashMap<>()));
     JsonNode node = readTree(response);
     List<AccountBalancesResponse.Balance> balances = new ArrayList<>();
     for (JsonNode balance : node.path("balances")) {
@@ -206,12 +266,15 @@ public class BinanceClientImpl implements BinanceClient {
     params.put("side", request.getSide().name());
     params.put("type", request.getType().name());
     String clientOrderId =
-        request.getClientOrderId() != null ? request.getClientOrderId() : IdGenerator.newClientOrderId();
+        request.getClientOrderId() != null
+            ? request.getClientOrderId()
+            : IdGenerator.newClientOrderId();
     params.put("newClientOrderId", clientOrderId);
     if (request.getType() == OrderType.LIMIT) {
       params.put("price", request.getPrice().toPlainString());
       params.put("quantity", request.getQuantity().toPlainString());
-      params.put("timeInForce", request.getTimeInForce() != null ? request.getTimeInForce() : "GTC");
+      params.put(
+          "timeInForce", request.getTimeInForce() != null ? request.getTimeInForce() : "GTC");
     } else {
       if (request.getSide() == OrderSide.BUY && request.getQuoteAmount() != null) {
         params.put("quoteOrderQty", request.getQuoteAmount().toPlainString());
@@ -224,7 +287,10 @@ public class BinanceClientImpl implements BinanceClient {
     }
 
     String response =
-        execute(Endpoint.NEW_ORDER, request.getSymbol(), () -> spotClient.createTrade().newOrder(params));
+        execute(
+            Endpoint.NEW_ORDER,
+            request.getSymbol(),
+            () -> spotClient.createTrade().newOrder(params));
     return mapOrderResponse(response);
   }
 
@@ -239,7 +305,27 @@ public class BinanceClientImpl implements BinanceClient {
   }
 
   @Override
-  public boolean placeOcoOrder(String symbol, ManagedOrderEntity stopLoss, ManagedOrderEntity takeProfit) {
+  public OrderResponse getOrderByClientOrderId(String symbol, String clientOrderId) {
+    Map<String, Object> params = new HashMap<>();
+    params.put("symbol", symbol);
+    params.put("origClientOrderId", clientOrderId);
+    try {
+      String response =
+          execute(Endpoint.ORDER_STATUS, symbol, () -> spotClient.createTrade().getOrder(params));
+      return mapOrderResponse(response);
+    } catch (RuntimeException ex) {
+      Throwable cause = ex.getCause() instanceof BinanceClientException ? ex.getCause() : ex;
+      if (cause instanceof BinanceClientException client
+          && client.getErrorCode() == ORDER_DOES_NOT_EXIST) {
+        return null;
+      }
+      throw ex;
+    }
+  }
+
+  @Override
+  public boolean placeOcoOrder(
+      String symbol, ManagedOrderEntity stopLoss, ManagedOrderEntity takeProfit) {
     throw new UnsupportedOperationException("OCO not implemented for Spot connector");
   }
 
@@ -284,7 +370,8 @@ public class BinanceClientImpl implements BinanceClient {
   }
 
   @Override
-  public void connectUserDataStream(String listenKey, Consumer<String> onMessage, Consumer<Throwable> onError) {
+  public void connectUserDataStream(
+      String listenKey, Consumer<String> onMessage, Consumer<Throwable> onError) {
     throw new UnsupportedOperationException("User data stream WS not implemented");
   }
 
@@ -370,7 +457,8 @@ public class BinanceClientImpl implements BinanceClient {
         key,
         ignored ->
             meterRegistry.counter(
-                "binance.api.requests", Tags.of("endpoint", endpoint.name().toLowerCase(), "status", status)));
+                "binance.api.requests",
+                Tags.of("endpoint", endpoint.name().toLowerCase(), "status", status)));
   }
 
   private Timer timerFor(Endpoint endpoint) {
@@ -381,7 +469,8 @@ public class BinanceClientImpl implements BinanceClient {
     Throwable cause = throwable;
     if (throwable instanceof CompletionException completion && completion.getCause() != null) {
       cause = completion.getCause();
-    } else if (throwable instanceof CancellationException cancellation && cancellation.getCause() != null) {
+    } else if (throwable instanceof CancellationException cancellation
+        && cancellation.getCause() != null) {
       cause = cancellation.getCause();
     }
     if (cause instanceof RuntimeException runtime) {
@@ -0,0 +1,406 @@
+package com.bottrading.service.binance;
+
+import com.bottrading.model.dto.AccountBalancesResponse;
+import com.bottrading.model.dto.ExchangeInfo;
+import com.bottrading.model.dto.Kline;
+import com.bottrading.model.dto.OrderRequest;
+import com.bottrading.model.dto.OrderResponse;
+import com.bottrading.model.dto.PriceTicker;
+import com.bottrading.model.entity.ManagedOrderEntity;
+import com.bottrading.throttle.Endpoint;
+import com.bottrading.throttle.ThrottleProperties;
+import com.bottrading.throttle.ThrottleProperties.CoalesceProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+/**
+ * Read-side front for {@link BinanceClientImpl}. Identical concurrent reads share one in-flight
+ * request and results are reused for a per-endpoint freshness window. A 24h volume miss also
+ * refreshes the other recently requested symbols, in one {@code ticker/24hr} call. Writes go
+ * straight through and drop cached balances. Outcomes are counted per endpoint as {@code
+ * binance.client.reads{result=hit|coalesced|miss}}.
+ */
+@Primary
+@Component
+public class CoalescingBinanceClient implements BinanceClient {
+
+  // symbols asked for within this window ride along on 24h volume misses
+  private static final long PIGGYBACK_WINDOW_MS = 60_000;
+
+  private final BinanceClient delegate;
+  private final CoalesceProperties properties;
+  private final MeterRegistry meterRegistry;
+  private final Clock clock;
+  private final ConcurrentMap<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+  private final ConcurrentMap<Key, Entry> fresh = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, Long> volumeSymbols = new ConcurrentHashMap<>();
+  private final AtomicLong accountGeneration = new AtomicLong();
+  private final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<>();
+
+  private record Key(Endpoint endpoint, Object args) {}
+
+  private record Entry(Object value, long at) {}
+
+  @Autowired
+  public CoalescingBinanceClient(
+      BinanceClientImpl delegate,
+      ThrottleProperties throttleProperties,
+      MeterRegistry meterRegistry,
+      Clock clock) {
+    this((BinanceClient) delegate, throttleProperties.getCoalesce(), meterRegistry, clock);
+  }
+
+  public CoalescingBinanceClient(
+      BinanceClient delegate,
+      CoalesceProperties properties,
+      MeterRegistry meterRegistry,
+      Clock clock) {
+    if (properties.getTicker24hBatchSize() < 1) {
+      throw new IllegalArgumentException("ticker24hBatchSize must be positive");
+    }
+    this.delegate = delegate;
+    this.properties = properties;
+    this.meterRegistry = meterRegistry;
+    this.clock = clock;
+  }
+
+  @Override
+  public PriceTicker getPrice(String symbol) {
+    return read(
+        Endpoint.PRICE_TICKER, symbol, properties.getPriceTtlMs(), () -> delegate.getPrice(symbol));
+  }
+
+  @Override
+  public List<Kline> getKlines(String symbol, String interval, int limit) {
+    List<Kline> klines =
+        read(
+            Endpoint.KLINES,
+            List.of(symbol, interval, limit),
+            properties.getKlinesTtlMs(),
+            () -> delegate.getKlines(symbol, interval, limit));
+    // callers own their copy; the shared one stays untouched
+    return klines == null ? null : new ArrayList<>(klines);
+  }
+
+  @Override
+  public List<Kline> getKlines(
+      String symbol, String interval, Instant startTime, Instant endTime, int limit) {
+    List<Kline> klines =
+        read(
+            Endpoint.KLINES,
+            List.of(symbol, interval, startTime, endTime, limit),
+            properties.getKlinesTtlMs(),
+            () -> delegate.getKlines(symbol, interval, startTime, endTime, limit));
+    return klines == null ? null : new ArrayList<>(klines);
+  }
+
+  @Override
+  public BigDecimal get24hQuoteVolume(String symbol) {
+    return get24hQuoteVolumes(List.of(symbol)).get(symbol);
+  }
+
+  @Override
+  public Map<String, BigDecimal> get24hQuoteVolumes(Collection<String> symbols) {
+    long ttl = properties.getTicker24hTtlMs();
+    long now = clock.millis();
+    symbols.forEach(symbol -> volumeSymbols.put(symbol, now));
+    Map<String, BigDecimal> result = new LinkedHashMap<>();
+    Map<String, CompletableFuture<Object>> joined = new LinkedHashMap<>();
+    Map<String, CompletableFuture<Object>> owned = new LinkedHashMap<>();
+    for (String symbol : symbols) {
+      if (result.containsKey(symbol) || joined.containsKey(symbol) || owned.containsKey(symbol)) {
+        continue;
+      }
+      Key key = new Key(Endpoint.TICKER_24H, symbol);
+      Object cached = ttl > 0 ? freshValue(key, ttl, now) : null;
+      if (cached != null) {
+        count(Endpoint.TICKER_24H, "hit");
+        result.put(symbol, (BigDecimal) cached);
+        continue;
+      }
+      CompletableFuture<Object> mine = new CompletableFuture<>();
+      CompletableFuture<Object> running = inFlight.putIfAbsent(key, mine);
+      if (running != null) {
+        count(Endpoint.TICKER_24H, "coalesced");
+        joined.put(symbol, running);
+      } else {
+        count(Endpoint.TICKER_24H, "miss");
+        owned.put(symbol, mine);
+      }
+    }
+    if (!owned.isEmpty()) {
+      piggyback(owned, ttl, now);
+      Map<String, BigDecimal> fetched = fetchVolumes(owned, ttl, now);
+      for (String symbol : symbols) {
+        if (owned.containsKey(symbol)) {
+          result.put(symbol, fetched.get(symbol));
+        }
+      }
+    }
+    joined.forEach((symbol, future) -> result.put(symbol, (BigDecimal) await(future)));
+    return result;
+  }
+
+  private void piggyback(Map<String, CompletableFuture<Object>> owned, long ttl, long now) {
+    for (Map.Entry<String, Long> requested : volumeSymbols.entrySet()) {
+      if (owned.size() >= properties.getTicker24hBatchSize()) {
+        return;
+      }
+      String symbol = requested.getKey();
+      if (now - requested.getValue() > PIGGYBACK_WINDOW_MS) {
+        volumeSymbols.remove(symbol, requested.getValue());
+        continue;
+      }
+      Key key = new Key(Endpoint.TICKER_24H, symbol);
+      if (owned.containsKey(symbol) || (ttl > 0 && freshValue(key, ttl, now) != null)) {
+        continue;
+      }
+      CompletableFuture<Object> mine = new CompletableFuture<>();
+      if (inFlight.putIfAbsent(key, mine) == null) {
+        owned.put(symbol, mine);
+      }
+    }
+  }
+
+  private Map<String, BigDecimal> fetchVolumes(
+      Map<String, CompletableFuture<Object>> owned, long ttl, long now) {
+    Map<String, BigDecimal> fetched;
+    try {
+      if (owned.size() == 1) {
+        String symbol = owned.keySet().iterator().next();
+        fetched = new LinkedHashMap<>();
+        fetched.put(symbol, delegate.get24hQuoteVolume(symbol));
+      } else {
+        fetched = delegate.get24hQuoteVolumes(List.copyOf(owned.keySet()));
+      }
+    } catch (RuntimeException ex) {
+      owned.forEach(
+          (symbol, future) -> {
+            future.completeExceptionally(ex);
+            inFlight.remove(new Key(Endpoint.TICKER_24H, symbol), future);
+          });
+      throw ex;
+    }
+    owned.forEach(
+        (symbol, future) -> {
+          Key key = new Key(Endpoint.TICKER_24H, symbol);
+          BigDecimal volume = fetched.get(symbol);
+          if (ttl > 0 && volume != null) {
+            fresh.put(key, new Entry(volume, now));
+          }
+          future.complete(volume);
+          inFlight.remove(key, future);
+        });
+    return fetched;
+  }
+
+  @Override
+  public ExchangeInfo getExchangeInfo(String symbol) {
+    // the delegate keeps exchange info in the long-lived cache; only concurrent misses are shared
+    return read(Endpoint.EXCHANGE_INFO, symbol, 0, () -> delegate.getExchangeInfo(symbol));
+  }
+
+  @Override
+  public AccountBalancesResponse getAccountBalances(List<String> assets) {
+    List<Object> args =
+        List.of(accountGeneration.get(), assets == null ? List.of() : List.copyOf(assets));
+    return read(
+        Endpoint.ACCOUNT_INFORMATION,
+        args,
+        properties.getAccountTtlMs(),
+        () -> delegate.getAccountBalances(assets));
+  }
+
+  @Override
+  public BigDecimal getTradingCommission(String symbol) {
+    return delegate.getTradingCommission(symbol);
+  }
+
+  @Override
+  public OrderResponse placeOrder(OrderRequest request) {
+    try {
+      return delegate.placeOrder(request);
+    } finally {
+      invalidateBalances();
+    }
+  }
+
+  @Override
+  public OrderResponse getOrder(String symbol, String orderId) {
+    return read(
+        Endpoint.ORDER_STATUS,
+        List.of(symbol, orderId),
+        0,
+        () -> delegate.getOrder(symbol, orderId));
+  }
+
+  @Override
+  public OrderResponse getOrderByClientOrderId(String symbol, String clientOrderId) {
+    return read(
+        Endpoint.ORDER_STATUS,
+        List.of(symbol, "origClientOrderId", clientOrderId),
+        0,
+        () -> delegate.getOrderByClientOrderId(symbol, clientOrderId));
+  }
+
+  @Override
+  public boolean placeOcoOrder(
+      String symbol, ManagedOrderEntity stopLoss, ManagedOrderEntity takeProfit) {
+    try {
+      return delegate.placeOcoOrder(symbol, stopLoss, takeProfit);
+    } finally {
+      invalidateBalances();
+    }
+  }
+
+  @Override
+  public void placeChildOrder(ManagedOrderEntity order) {
+    try {
+      delegate.placeChildOrder(order);
+    } finally {
+      invalidateBalances();
+    }
+  }
+
+  @Override
+  public void cancelOrder(ManagedOrderEntity order) {
+    try {
+      delegate.cancelOrder(order);
+    } finally {
+      invalidateBalances();
+    }
+  }
+
+  @Override
+  public void cancelOrder(String symbol, String clientOrderId) {
+    try {
+      delegate.cancelOrder(symbol, clientOrderId);
+    } finally {
+      invalidateBalances();
+    }
+  }
+
+  @Override
+  public List<ExchangeOrder> getOpenOrders(String symbol) {
+    return delegate.getOpenOrders(symbol);
+  }
+
+  @Override
+  public List<ExchangeOrder> getRecentOrders(String symbol, int lookbackMinutes) {
+    return delegate.getRecentOrders(symbol, lookbackMinutes);
+  }
+
+  @Override
+  public String startUserDataStream() {
+    return delegate.startUserDataStream();
+  }
+
+  @Override
+  public void keepAliveUserDataStream(String listenKey) {
+    delegate.keepAliveUserDataStream(listenKey);
+  }
+
+  @Override
+  public void closeUserDataStream(String listenKey) {
+    delegate.closeUserDataStream(listenKey);
+  }
+
+  @Override
+  public void connectUserDataStream(
+      String listenKey, Consumer<String> onMessage, Consumer<Throwable> onError) {
+    delegate.connectUserDataStream(listenKey, onMessage, onError);
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> T read(Endpoint endpoint, Object args, long ttlMs, Supplier<T> loader) {
+    Key key = new Key(endpoint, args);
+    long now = clock.millis();
+    if (ttlMs > 0) {
+      Object cached = freshValue(key, ttlMs, now);
+      if (cached != null) {
+        count(endpoint, "hit");
+        return (T) cached;
+      }
+    }
+    CompletableFuture<Object> mine = new CompletableFuture<>();
+    CompletableFuture<Object> running = inFlight.putIfAbsent(key, mine);
+    if (running != null) {
+      count(endpoint, "coalesced");
+      return (T) await(running);
+    }
+    count(endpoint, "miss");
+    try {
+      T value = loader.get();
+      if (ttlMs > 0 && value != null) {
+        fresh.put(key, new Entry(value, now));
+      }
+      mine.complete(value);
+      return value;
+    } catch (RuntimeException ex) {
+      mine.completeExceptionally(ex);
+      throw ex;
+    } finally {
+      inFlight.remove(key, mine);
+    }
+  }
+
+  private Object freshValue(Key key, long ttlMs, long now) {
+    Entry entry = fresh.get(key);
+    if (entry == null) {
+      return null;
+    }
+    long age = now - entry.at();
+    if (age >= 0 && age < ttlMs) {
+      return entry.value();
+    }
+    fresh.remove(key, entry);
+    return null;
+  }
+
+  private void invalidateBalances() {
+    // reads started before the write keep their old generation and can no longer be served
+    accountGeneration.incrementAndGet();
+    fresh.keySet().removeIf(key -> key.endpoint() == Endpoint.ACCOUNT_INFORMATION);
+  }
+
+  private static Object await(CompletableFuture<Object> future) {
+    try {
+      return future.join();
+    } catch (CompletionException ex) {
+      if (ex.getCause() instanceof RuntimeException runtime) {
+        throw runtime;
+      }
+      throw new IllegalStateException("Binance call failed", ex.getCause());
+    }
+  }
+
+  private void count(Endpoint endpoint, String result) {
+    counters
+        .computeIfAbsent(
+            endpoint.name() + "|" + result,
+            ignored ->
+                meterRegistry.counter(
+                    "binance.client.reads",
+                    Tags.of("endpoint", endpoint.name().toLowerCase(), "result", result)))
+        .increment();
+  }
+}
@@ -0,0 +1,99 @@
+package com.bottrading.service.exchange;
+
+import com.bottrading.execution.PositionManager.ManagedOrderUpdate;
+import com.bottrading.model.enums.ManagedOrderStatus;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Streaming decoder for user data stream frames. Only the fields an {@link ManagedOrderUpdate}
+ * needs are materialised, decimals are built straight from the parser's character buffer, and any
+ * event other than {@code executionReport} is abandoned at its {@code e} field.
+ */
+final class ExecutionReportDecoder {
+
+  private static final JsonFactory JSON = new JsonFactory();
+
+  /** Returns null for frames that are not execution reports. */
+  ManagedOrderUpdate decode(String payload) throws IOException {
+    try (JsonParser parser = JSON.createParser(payload)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        return null;
+      }
+      String symbol = "";
+      String clientOrderId = "";
+      String exchangeOrderId = "";
+      ManagedOrderStatus status = ManagedOrderStatus.ERROR;
+      BigDecimal lastQty = BigDecimal.ZERO;
+      BigDecimal cumulative = BigDecimal.ZERO;
+      BigDecimal lastPrice = null;
+      BigDecimal orderPrice = null;
+      long eventTime = 0;
+      boolean report = false;
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String name = parser.currentName();
+        JsonToken value = parser.nextToken();
+        if (value == JsonToken.START_OBJECT || value == JsonToken.START_ARRAY) {
+          parser.skipChildren();
+          continue;
+        }
+        switch (name) {
+          case "e" -> {
+            if (!"executionReport".equals(parser.getText())) {
+              return null;
+            }
+            report = true;
+          }
+          case "E" -> eventTime = parser.getValueAsLong();
+          case "s" -> symbol = parser.getText();
+          case "c" -> clientOrderId = parser.getText();
+          case "i" -> exchangeOrderId = parser.getText();
+          case "X" -> status = mapStatus(parser.getText());
+          case "l" -> lastQty = decimal(parser, lastQty);
+          case "z" -> cumulative = decimal(parser, cumulative);
+          case "L" -> lastPrice = decimal(parser, null);
+          case "p" -> orderPrice = decimal(parser, null);
+          default -> {}
+        }
+      }
+      if (!report) {
+        return null;
+      }
+      BigDecimal price =
+          lastPrice != null ? lastPrice : orderPrice != null ? orderPrice : BigDecimal.ZERO;
+      return new ManagedOrderUpdate(
+          symbol,
+          clientOrderId,
+          exchangeOrderId,
+          status,
+          lastQty,
+          cumulative,
+          price,
+          Instant.ofEpochMilli(eventTime));
+    }
+  }
+
+  static ManagedOrderStatus mapStatus(String status) {
+    return switch (status) {
+      case "NEW", "ACCEPTED" -> ManagedOrderStatus.NEW;
+      case "PARTIALLY_FILLED" -> ManagedOrderStatus.PARTIAL;
+      case "FILLED" -> ManagedOrderStatus.FILLED;
+      case "CANCELED" -> ManagedOrderStatus.CANCELED;
+      case "REJECTED" -> ManagedOrderStatus.REJECTED;
+      case "EXPIRED" -> ManagedOrderStatus.CANCELED;
+      default -> ManagedOrderStatus.ERROR;
+    };
+  }
+
+  private static BigDecimal decimal(JsonParser parser, BigDecimal fallback) throws IOException {
+    if (parser.currentToken() == JsonToken.VALUE_NULL) {
+      return fallback;
+    }
+    return new BigDecimal(
+        parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+  }
+}
@@ -1,16 +1,12 @@
 package com.bottrading.service.exchange;
 
 import com.bottrading.config.UserDataStreamProperties;
+import com.bottrading.execution.ExecutionEngine;
 import com.bottrading.execution.PositionManager;
 import com.bottrading.execution.PositionManager.ManagedOrderUpdate;
-import com.bottrading.model.enums.ManagedOrderStatus;
 import com.bottrading.service.binance.BinanceClient;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
 import java.io.IOException;
-import java.math.BigDecimal;
-import java.time.Instant;
-import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -19,7 +15,6 @@ import java.util.concurrent.atomic.AtomicReference;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
-import jakarta.annotation.PreDestroy;
 
 @Service
 public class UserDataStreamService {
@@ -28,17 +23,20 @@ public class UserDataStreamService {
 
   private final BinanceClient binanceClient;
   private final PositionManager positionManager;
+  private final ExecutionEngine executionEngine;
   private final UserDataStreamProperties properties;
-  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final ExecutionReportDecoder decoder = new ExecutionReportDecoder();
   private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
   private final AtomicReference<String> listenKey = new AtomicReference<>();
 
   public UserDataStreamService(
       BinanceClient binanceClient,
       PositionManager positionManager,
+      ExecutionEngine executionEngine,
       UserDataStreamProperties properties) {
     this.binanceClient = binanceClient;
     this.positionManager = positionManager;
+    this.executionEngine = executionEngine;
     this.properties = properties;
     startListenKey();
   }
@@ -86,44 +84,16 @@ public class UserDataStreamService {
 
   private void handleMessage(String payload) {
     try {
-      JsonNode node = objectMapper.readTree(payload);
-      if (node == null) {
-        return;
+      ManagedOrderUpdate update = decoder.decode(payload);
+      if (update != null) {
+        executionEngine.onOrderUpdate(update);
+        positionManager.onOrderUpdate(update);
       }
-      String eventType = node.path("e").asText();
-      if (!Objects.equals(eventType, "executionReport")) {
-        return;
-      }
-      ManagedOrderUpdate update = mapExecutionReport(node);
-      positionManager.onOrderUpdate(update);
-    } catch (IOException ex) {
+    } catch (IOException | NumberFormatException ex) {
       log.warn("Failed to parse user data stream payload: {}", ex.getMessage());
     }
   }
 
-  private ManagedOrderUpdate mapExecutionReport(JsonNode node) {
-    String clientOrderId = node.path("c").asText();
-    String exchangeOrderId = node.path("i").asText();
-    ManagedOrderStatus status = mapStatus(node.path("X").asText());
-    BigDecimal lastQty = new BigDecimal(node.path("l").asText("0"));
-    BigDecimal cumulative = new BigDecimal(node.path("z").asText("0"));
-    BigDecimal price = new BigDecimal(node.path("L").asText(node.path("p").asText("0")));
-    Instant eventTime = Instant.ofEpochMilli(node.path("E").asLong());
-    return new ManagedOrderUpdate(node.path("s").asText(), clientOrderId, exchangeOrderId, status, lastQty, cumulative, price, eventTime);
-  }
-
-  private ManagedOrderStatus mapStatus(String status) {
-    return switch (status) {
-      case "NEW", "ACCEPTED" -> ManagedOrderStatus.NEW;
-      case "PARTIALLY_FILLED" -> ManagedOrderStatus.PARTIAL;
-      case "FILLED" -> ManagedOrderStatus.FILLED;
-      case "CANCELED" -> ManagedOrderStatus.CANCELED;
-      case "REJECTED" -> ManagedOrderStatus.REJECTED;
-      case "EXPIRED" -> ManagedOrderStatus.CANCELED;
-      default -> ManagedOrderStatus.ERROR;
-    };
-  }
-
   private void handleError(Throwable throwable) {
     log.warn("User data stream error: {}", throwable.getMessage());
     restart();
@@ -0,0 +1,321 @@
+package com.bottrading.service.market;
+
+import com.bottrading.model.dto.Kline;
+import com.bottrading.service.binance.BinanceClient;
+import com.bottrading.strategy.CandleSeries;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.OptionalDouble;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Last {@link #CAPACITY} closed candles per symbol and interval, held in columnar ring buffers of
+ * primitives. The kline websocket and the REST poller write every bar they see, so decisions read
+ * from memory instead of fetching 200 klines per candle. REST is only used to backfill a series on
+ * first use, to repair gaps the {@link CandleSanitizer} reports and to catch up a series that fell
+ * behind the clock (no stream, no poll).
+ */
+@Component
+public class CandleStore {
+
+  private static final Logger log = LoggerFactory.getLogger(CandleStore.class);
+  public static final int CAPACITY = 500;
+
+  private final BinanceClient binanceClient;
+  private final CandleSanitizer candleSanitizer;
+  private final Clock clock;
+  private final ConcurrentMap<String, Ring> rings = new ConcurrentHashMap<>();
+
+  public CandleStore(BinanceClient binanceClient, CandleSanitizer candleSanitizer, Clock clock) {
+    this.binanceClient = binanceClient;
+    this.candleSanitizer = candleSanitizer;
+    this.clock = clock;
+  }
+
+  /** Closed candles in time order, the most recent {@code limit} (up to {@link #CAPACITY}). */
+  public record Window(CandleSeries candles, Instant lastCloseTime) {
+    public boolean isEmpty() {
+      return candles.isEmpty();
+    }
+  }
+
+  /** Stream/poll update. Bars that are still open are ignored. */
+  public void onKline(
+      String symbol,
+      String interval,
+      long openTime,
+      long closeTime,
+      double open,
+      double high,
+      double low,
+      double close,
+      double volume,
+      boolean closed) {
+    if (!closed) {
+      return;
+    }
+    ring(symbol, interval).put(openTime, closeTime, open, high, low, close, volume);
+  }
+
+  /** Merges REST klines, dropping the bar that has not closed yet. */
+  public void merge(String symbol, String interval, List<Kline> klines) {
+    if (klines == null || klines.isEmpty()) {
+      return;
+    }
+    long now = clock.millis();
+    Ring ring = ring(symbol, interval);
+    for (Kline kline : klines) {
+      long closeTime = kline.closeTime().toEpochMilli();
+      if (closeTime >= now) {
+        continue;
+      }
+      ring.put(
+          kline.openTime().toEpochMilli(),
+          closeTime,
+          kline.open().doubleValue(),
+          kline.high().doubleValue(),
+          kline.low().doubleValue(),
+          kline.close().doubleValue(),
+          kline.volume().doubleValue());
+    }
+  }
+
+  /** Fills the series once from REST; later calls are no-ops. */
+  public void backfill(String symbol, String interval) {
+    Ring ring = ring(symbol, interval);
+    if (ring.backfilled) {
+      return;
+    }
+    fetch(symbol, interval, CAPACITY);
+    ring.backfilled = true;
+  }
+
+  /**
+   * Re-fetches every bar from {@code fromCloseTime} onwards, e.g. the first gap the sanitizer saw.
+   */
+  public void repair(String symbol, String interval, long fromCloseTime) {
+    long step = candleSanitizer.intervalMillis(interval);
+    long bars = (clock.millis() - fromCloseTime) / step + 2;
+    log.debug("Repairing {} {} from {} ({} bars)", symbol, interval, fromCloseTime, bars);
+    fetch(symbol, interval, (int) Math.min(CAPACITY, Math.max(2, bars)));
+  }
+
+  /**
+   * The latest {@code limit} closed candles. Backfills on first use and catches up from REST when
+   * the newest stored bar is older than one interval.
+   */
+  public Window window(String symbol, String interval, int limit) {
+    if (limit <= 0 || limit > CAPACITY) {
+      throw new IllegalArgumentException("limit must be between 1 and " + CAPACITY);
+    }
+    Ring ring = ring(symbol, interval);
+    if (!ring.backfilled) {
+      backfill(symbol, interval);
+    } else {
+      long lastClose = ring.lastCloseTime();
+      long step = candleSanitizer.intervalMillis(interval);
+      if (lastClose == Long.MIN_VALUE || clock.millis() - lastClose > step) {
+        repair(symbol, interval, lastClose == Long.MIN_VALUE ? 0 : lastClose);
+      }
+    }
+    return ring.window(limit);
+  }
+
+  /** Close of the bar that closed at {@code closeTime}, if it is still held. */
+  public OptionalDouble closeAt(String symbol, String interval, Instant closeTime) {
+    Ring ring = rings.get(key(symbol, interval));
+    return ring == null ? OptionalDouble.empty() : ring.closeAt(closeTime.toEpochMilli());
+  }
+
+  public int size(String symbol, String interval) {
+    Ring ring = rings.get(key(symbol, interval));
+    return ring == null ? 0 : ring.size();
+  }
+
+  private void fetch(String symbol, String interval, int limit) {
+    try {
+      merge(symbol, interval, binanceClient.getKlines(symbol, interval, limit));
+    } catch (RuntimeException ex) {
+      log.warn("Unable to fetch {} {} klines: {}", symbol, interval, ex.getMessage());
+    }
+  }
+
+  private Ring ring(String symbol, String interval) {
+    Objects.requireNonNull(symbol, "symbol");
+    Objects.requireNonNull(interval, "interval");
+    return rings.computeIfAbsent(key(symbol, interval), key -> new Ring(CAPACITY));
+  }
+
+  private static String key(String symbol, String interval) {
+    return symbol.toUpperCase() + "|" + interval;
+  }
+
+  /** Sorted by open time; {@code start} is the oldest bar. Guarded by its own monitor. */
+  static final class Ring {
+    private final int capacity;
+    private final long[] openTimes;
+    private final long[] closeTimes;
+    private final double[] opens;
+    private final double[] highs;
+    private final double[] lows;
+    private final double[] closes;
+    private final double[] volumes;
+    private int start;
+    private int count;
+    private volatile boolean backfilled;
+
+    Ring(int capacity) {
+      this.capacity = capacity;
+      this.openTimes = new long[capacity];
+      this.closeTimes = new long[capacity];
+      this.opens = new double[capacity];
+      this.highs = new double[capacity];
+      this.lows = new double[capacity];
+      this.closes = new double[capacity];
+      this.volumes = new double[capacity];
+    }
+
+    synchronized int size() {
+      return count;
+    }
+
+    synchronized long lastCloseTime() {
+      return count == 0 ? Long.MIN_VALUE : closeTimes[physical(count - 1)];
+    }
+
+    synchronized void put(
+        long openTime,
+        long closeTime,
+        double open,
+        double high,
+        double low,
+        double close,
+        double volume) {
+      int slot;
+      if (count == 0 || openTime > openTimes[physical(count - 1)]) {
+        if (count < capacity) {
+          slot = physical(count++);
+        } else {
+          slot = start;
+          start = (start + 1) % capacity;
+        }
+      } else {
+        int index = search(openTime);
+        if (index >= 0) {
+          slot = physical(index);
+        } else {
+          int insertion = -index - 1;
+          if (insertion == 0 && count == capacity) {
+            return; // older than everything held
+          }
+          slot = insert(insertion);
+        }
+      }
+      openTimes[slot] = openTime;
+      closeTimes[slot] = closeTime;
+      opens[slot] = open;
+      highs[slot] = high;
+      lows[slot] = low;
+      closes[slot] = close;
+      volumes[slot] = volume;
+    }
+
+    synchronized CandleStore.Window window(int limit) {
+      int n = Math.min(limit, count);
+      long[] times = new long[n];
+      double[] o = new double[n];
+      double[] h = new double[n];
+      double[] l = new double[n];
+      double[] c = new double[n];
+      double[] v = new double[n];
+      int first = count - n;
+      for (int i = 0; i < n; i++) {
+        int slot = physical(first + i);
+        times[i] = openTimes[slot];
+        o[i] = opens[slot];
+        h[i] = highs[slot];
+        l[i] = lows[slot];
+        c[i] = closes[slot];
+        v[i] = volumes[slot];
+      }
+      Instant lastClose = n == 0 ? null : Instant.ofEpochMilli(closeTimes[physical(count - 1)]);
+      return new CandleStore.Window(CandleSeries.of(times, o, h, l, c, v), lastClose);
+    }
+
+    synchronized OptionalDouble closeAt(long closeTime) {
+      int low = 0;
+      int high = count - 1;
+      while (low <= high) {
+        int mid = (low + high) >>> 1;
+        long value = closeTimes[physical(mid)];
+        if (value < closeTime) {
+          low = mid + 1;
+        } else if (value > closeTime) {
+          high = mid - 1;
+        } else {
+          return OptionalDouble.of(closes[physical(mid)]);
+        }
+      }
+      return OptionalDouble.empty();
+    }
+
+    /** Logical index of {@code openTime}, or {@code -(insertion point) - 1}. */
+    private int search(long openTime) {
+      int low = 0;
+      int high = count - 1;
+      while (low <= high) {
+        int mid = (low + high) >>> 1;
+        long value = openTimes[physical(mid)];
+        if (value < openTime) {
+          low = mid + 1;
+        } else if (value > openTime) {
+          high = mid - 1;
+        } else {
+          return mid;
+        }
+      }
+      return -(low + 1);
+    }
+
+    /**
+     * Opens a slot at logical {@code index} by shifting older bars one step towards the front,
+     * evicting the oldest when full. Only gap repairs land here, so the linear shift is fine.
+     */
+    private int insert(int index) {
+      if (count < capacity) {
+        start = (start - 1 + capacity) % capacity;
+        count++;
+        shift(0, index);
+        return physical(index);
+      }
+      // full: drop the oldest and shift the bars before the insertion point down by one
+      shift(0, index - 1);
+      return physical(index - 1);
+    }
+
+    /** Moves bars at logical {@code [from + 1, to]} to {@code [from, to - 1]}. */
+    private void shift(int from, int to) {
+      for (int i = from; i < to; i++) {
+        int target = physical(i);
+        int source = physical(i + 1);
+        openTimes[target] = openTimes[source];
+        closeTimes[target] = closeTimes[source];
+        opens[target] = opens[source];
+        highs[target] = highs[source];
+        lows[target] = lows[source];
+        closes[target] = closes[source];
+        volumes[target] = volumes[source];
+      }
+    }
+
+    private int physical(int logical) {
+      return (start + logical) % capacity;
+    }
+  }
+}
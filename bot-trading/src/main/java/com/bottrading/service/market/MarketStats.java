@@ -0,0 +1,87 @@
+package com.bottrading.service.market;
+
+import com.bottrading.config.TradingProps;
+import com.bottrading.service.binance.BinanceClient;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rolling 24h quote volume per symbol, pushed once a second by the {@code <symbol>@miniTicker}
+ * streams. A value older than {@code maxAge} is refreshed from the REST ticker and that value is
+ * held for the same bound, so without a stream each symbol costs at most one ticker request per
+ * {@code maxAge} instead of two per decision.
+ */
+@Component
+public class MarketStats {
+
+  private final BinanceClient binanceClient;
+  private final Clock clock;
+  private final long maxAgeMillis;
+  private final Counter restFallbacks;
+  private final ConcurrentMap<String, Sample> volumes = new ConcurrentHashMap<>();
+
+  private record Sample(double quoteVolume, BigDecimal exact, long at) {}
+
+  @Autowired
+  public MarketStats(
+      BinanceClient binanceClient,
+      TradingProps tradingProps,
+      MeterRegistry meterRegistry,
+      Clock clock) {
+    this(
+        binanceClient,
+        Duration.ofSeconds(tradingProps.getWebsocket().getStatsMaxAgeSeconds()),
+        meterRegistry,
+        clock);
+  }
+
+  public MarketStats(
+      BinanceClient binanceClient, Duration maxAge, MeterRegistry meterRegistry, Clock clock) {
+    if (maxAge.isNegative() || maxAge.isZero()) {
+      throw new IllegalArgumentException("maxAge must be positive");
+    }
+    this.binanceClient = binanceClient;
+    this.clock = clock;
+    this.maxAgeMillis = maxAge.toMillis();
+    this.restFallbacks = meterRegistry.counter("market.stats.volume24h.rest");
+  }
+
+  public void onMiniTicker(String symbol, double quoteVolume) {
+    if (!Double.isFinite(quoteVolume)) {
+      return;
+    }
+    volumes.put(key(symbol), new Sample(quoteVolume, null, clock.millis()));
+  }
+
+  /** Volume no older than {@code maxAge}; falls back to REST, whose errors propagate. */
+  public BigDecimal quoteVolume24h(String symbol) {
+    String key = key(symbol);
+    Sample sample = volumes.get(key);
+    long now = clock.millis();
+    if (sample != null && now - sample.at() <= maxAgeMillis) {
+      return sample.exact() != null ? sample.exact() : BigDecimal.valueOf(sample.quoteVolume());
+    }
+    restFallbacks.increment();
+    BigDecimal fetched = binanceClient.get24hQuoteVolume(symbol);
+    if (fetched != null) {
+      // keep a newer streamed value that arrived while the request was in flight
+      volumes.merge(
+          key,
+          new Sample(fetched.doubleValue(), fetched, now),
+          (old, rest) -> old.at() >= rest.at() ? old : rest);
+    }
+    return fetched;
+  }
+
+  private static String key(String symbol) {
+    return Objects.requireNonNull(symbol, "symbol").toUpperCase();
+  }
+}
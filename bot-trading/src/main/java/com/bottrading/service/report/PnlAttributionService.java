@@ -12,16 +12,17 @@ import com.bottrading.model.enums.OrderSide;
 import com.bottrading.repository.DecisionRepository;
 import com.bottrading.repository.PnlAttributionRepository;
 import com.bottrading.repository.TradeFillRepository;
+import com.bottrading.service.market.CandleStore;
 import com.bottrading.service.market.MarketDataService;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
-import io.micrometer.core.instrument.Tags;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.Instant;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.OptionalDouble;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicReference;
@@ -38,6 +39,7 @@ public class PnlAttributionService {
   private final DecisionRepository decisionRepository;
   private final TradeFillRepository tradeFillRepository;
   private final MarketDataService marketDataService;
+  private final CandleStore candleStore;
   private final FeeService feeService;
   private final MeterRegistry meterRegistry;
 
@@ -54,18 +56,18 @@ public class PnlAttributionService {
       DecisionRepository decisionRepository,
       TradeFillRepository tradeFillRepository,
       MarketDataService marketDataService,
+      CandleStore candleStore,
       FeeService feeService,
       MeterRegistry meterRegistry) {
     this.repository = repository;
     this.decisionRepository = decisionRepository;
     this.tradeFillRepository = tradeFillRepository;
     this.marketDataService = marketDataService;
+    this.candleStore = candleStore;
     this.feeService = feeService;
     this.meterRegistry = meterRegistry;
-    Gauge.builder("attr.timing.avg_bps", timingGauge, AtomicReference::get)
-        .register(meterRegistry);
-    Gauge.builder("attr.fees.avg_bps", feesGauge, AtomicReference::get)
-        .register(meterRegistry);
+    Gauge.builder("attr.timing.avg_bps", timingGauge, AtomicReference::get).register(meterRegistry);
+    Gauge.builder("attr.fees.avg_bps", feesGauge, AtomicReference::get).register(meterRegistry);
   }
 
   @Transactional
@@ -82,7 +84,8 @@ public class PnlAttributionService {
     if (entryPrice == null || fillPrice == null) {
       return;
     }
-    BigDecimal direction = position.getSide() == OrderSide.BUY ? BigDecimal.ONE : BigDecimal.valueOf(-1);
+    BigDecimal direction =
+        position.getSide() == OrderSide.BUY ? BigDecimal.ONE : BigDecimal.valueOf(-1);
     BigDecimal pnlGross = fillPrice.subtract(entryPrice).multiply(quantity).multiply(direction);
     pnlGross = scaleMoney(pnlGross);
 
@@ -110,14 +113,20 @@ public class PnlAttributionService {
       BigDecimal denom = referencePrice.multiply(quantity).abs();
       if (denom.compareTo(BigDecimal.ZERO) > 0) {
         slippageBps =
-            slippageCost.divide(denom, 8, RoundingMode.HALF_UP).multiply(TEN_THOUSAND).setScale(4, RoundingMode.HALF_UP);
+            slippageCost
+                .divide(denom, 8, RoundingMode.HALF_UP)
+                .multiply(TEN_THOUSAND)
+                .setScale(4, RoundingMode.HALF_UP);
       }
     }
 
     BigDecimal notional = fillPrice.multiply(quantity).abs();
     notional = scaleMoney(notional);
     FeeInfo feeInfo = fetchFees(position.getSymbol());
-    BigDecimal feeRate = feeInfo == null ? BigDecimal.ZERO : Optional.ofNullable(feeInfo.taker()).orElse(BigDecimal.ZERO);
+    BigDecimal feeRate =
+        feeInfo == null
+            ? BigDecimal.ZERO
+            : Optional.ofNullable(feeInfo.taker()).orElse(BigDecimal.ZERO);
     BigDecimal feesCost = notional.multiply(feeRate);
     feesCost = scaleMoney(feesCost);
     BigDecimal feesBps = feeRate.multiply(TEN_THOUSAND).setScale(4, RoundingMode.HALF_UP);
@@ -125,8 +134,12 @@ public class PnlAttributionService {
     BigDecimal timingBps = BigDecimal.ZERO;
     if (notional.compareTo(BigDecimal.ZERO) > 0) {
       timingBps =
-          timingCost.divide(notional, 8, RoundingMode.HALF_UP).multiply(TEN_THOUSAND).setScale(4, RoundingMode.HALF_UP);
-      if (slippageBps.compareTo(BigDecimal.ZERO) == 0 && slippageCost.compareTo(BigDecimal.ZERO) != 0) {
+          timingCost
+              .divide(notional, 8, RoundingMode.HALF_UP)
+              .multiply(TEN_THOUSAND)
+              .setScale(4, RoundingMode.HALF_UP);
+      if (slippageBps.compareTo(BigDecimal.ZERO) == 0
+          && slippageCost.compareTo(BigDecimal.ZERO) != 0) {
         slippageBps =
             slippageCost
                 .divide(notional, 8, RoundingMode.HALF_UP)
@@ -157,7 +170,15 @@ public class PnlAttributionService {
     entity.setTimestamp(Optional.ofNullable(trade.getExecutedAt()).orElse(Instant.now()));
     repository.save(entity);
 
-    updateMetrics(position.getSymbol(), slippageBps, slippageCost, timingBps, timingCost, feesBps, feesCost, notional);
+    updateMetrics(
+        position.getSymbol(),
+        slippageBps,
+        slippageCost,
+        timingBps,
+        timingCost,
+        feesBps,
+        feesCost,
+        notional);
   }
 
   private DecisionEntity resolveDecision(PositionEntity position, TradeEntity trade) {
@@ -175,14 +196,24 @@ public class PnlAttributionService {
     return tradeFillRepository.findTopByOrderIdOrderByExecutedAtDesc(orderId);
   }
 
-  private BigDecimal resolveBenchmarkPrice(PositionEntity position, DecisionEntity decision, BigDecimal fallback) {
+  private BigDecimal resolveBenchmarkPrice(
+      PositionEntity position, DecisionEntity decision, BigDecimal fallback) {
     if (decision == null || decision.getCloseTime() == null || decision.getInterval() == null) {
       return fallback;
     }
+    OptionalDouble stored =
+        candleStore.closeAt(position.getSymbol(), decision.getInterval(), decision.getCloseTime());
+    if (stored.isPresent()) {
+      return BigDecimal.valueOf(stored.getAsDouble());
+    }
     try {
       List<Kline> klines =
           marketDataService.getKlines(
-              position.getSymbol(), decision.getInterval(), decision.getCloseTime(), decision.getCloseTime(), 5);
+              position.getSymbol(),
+              decision.getInterval(),
+              decision.getCloseTime(),
+              decision.getCloseTime(),
+              5);
       return klines.stream()
           .filter(k -> decision.getCloseTime().equals(k.closeTime()))
           .map(Kline::close)
@@ -219,8 +250,12 @@ public class PnlAttributionService {
   }
 
   private String resolveRegime(PositionEntity position, DecisionEntity decision) {
-    String trend = Optional.ofNullable(position.getRegimeTrend()).orElseGet(() -> decision != null ? decision.getRegimeTrend() : null);
-    String vol = Optional.ofNullable(position.getRegimeVolatility()).orElseGet(() -> decision != null ? decision.getRegimeVolatility() : null);
+    String trend =
+        Optional.ofNullable(position.getRegimeTrend())
+            .orElseGet(() -> decision != null ? decision.getRegimeTrend() : null);
+    String vol =
+        Optional.ofNullable(position.getRegimeVolatility())
+            .orElseGet(() -> decision != null ? decision.getRegimeVolatility() : null);
     if (trend == null && vol == null) {
       return null;
     }
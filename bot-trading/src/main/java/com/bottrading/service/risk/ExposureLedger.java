@@ -0,0 +1,226 @@
+package com.bottrading.service.risk;
+
+import com.bottrading.model.entity.PositionEntity;
+import com.bottrading.model.enums.OrderSide;
+import com.bottrading.model.enums.PositionStatus;
+import com.bottrading.repository.PositionRepository;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory CVaR exposure of the open book. Position events from {@code PositionManager} keep one
+ * entry per position and a running total, so reading the exposure is O(1). Each entry caches its
+ * CVaR per unit of quantity; a quantity change only rescales it, while a new stop or entry price
+ * (or a change to a pool its sample universe reads, see {@link #invalidateSamples(Predicate)})
+ * marks it stale and it is recomputed once on the next read. The book is loaded from the table on
+ * first use.
+ */
+@Component
+public class ExposureLedger {
+
+  private static final Set<PositionStatus> OPEN_STATUSES =
+      Set.of(PositionStatus.OPEN, PositionStatus.OPENING, PositionStatus.CLOSING);
+  private static final int MAX_REFRESH_ROUNDS = 3;
+
+  /** Everything a position's CVaR per unit depends on except the sample universe. */
+  public record RiskKey(
+      String symbol,
+      OrderSide side,
+      BigDecimal entryPrice,
+      BigDecimal stopLoss,
+      String presetKey,
+      String regimeTrend,
+      String regimeVolatility) {}
+
+  private static final class Entry {
+    private final RiskKey key;
+    private final double quantity;
+    private double riskPerUnit = Double.NaN;
+    // samplesVersion of the last invalidation that hit this entry
+    private long invalidatedAt;
+
+    private Entry(RiskKey key, double quantity) {
+      this.key = key;
+      this.quantity = quantity;
+    }
+
+    private boolean stale() {
+      return Double.isNaN(riskPerUnit);
+    }
+
+    private double contribution() {
+      return stale() ? 0 : riskPerUnit * quantity;
+    }
+  }
+
+  private record Pending(long id, Entry entry) {}
+
+  private final PositionRepository positionRepository;
+  private final Map<Long, Entry> entries = new HashMap<>();
+  private boolean seeded;
+  private double total;
+  private int stale;
+  private volatile long samplesVersion;
+
+  public ExposureLedger(PositionRepository positionRepository) {
+    this.positionRepository = positionRepository;
+  }
+
+  public synchronized void onPositionChanged(PositionEntity position) {
+    if (!seeded || position == null || position.getId() == null) {
+      // the first read loads the book from the table, including this change
+      return;
+    }
+    apply(position);
+  }
+
+  /** Marks every cached CVaR stale; called when every sample pool was dropped. */
+  public void invalidateSamples() {
+    invalidateSamples(key -> true);
+  }
+
+  /**
+   * Marks stale the cached CVaR of every position whose sample universe reads from a pool that
+   * changed; {@code affected} is asked under the ledger lock and must not block.
+   */
+  public synchronized void invalidateSamples(Predicate<RiskKey> affected) {
+    long version = ++samplesVersion;
+    for (Entry entry : entries.values()) {
+      if (!affected.test(entry.key)) {
+        continue;
+      }
+      entry.invalidatedAt = version;
+      if (!entry.stale()) {
+        total -= entry.contribution();
+        entry.riskPerUnit = Double.NaN;
+        stale++;
+      }
+    }
+    if (stale == entries.size()) {
+      total = 0;
+    }
+  }
+
+  public long samplesVersion() {
+    return samplesVersion;
+  }
+
+  /**
+   * Current exposure. Stale entries are priced with {@code riskPerUnit} outside the lock, so a
+   * position event never waits for a sample query. A price is cached only if its entry was not
+   * invalidated meanwhile; once {@code MAX_REFRESH_ROUNDS} are used up under steady invalidation,
+   * the last round's prices are added in uncached rather than counted as zero.
+   */
+  public double exposure(ToDoubleFunction<RiskKey> riskPerUnit) {
+    for (int round = 1; ; round++) {
+      List<Pending> pending;
+      double known;
+      long version;
+      synchronized (this) {
+        if (!seeded) {
+          seed();
+        }
+        if (stale == 0) {
+          return Math.max(0, total);
+        }
+        known = total;
+        version = samplesVersion;
+        pending = new ArrayList<>(stale);
+        for (Map.Entry<Long, Entry> entry : entries.entrySet()) {
+          if (entry.getValue().stale()) {
+            pending.add(new Pending(entry.getKey(), entry.getValue()));
+          }
+        }
+      }
+      double[] priced = new double[pending.size()];
+      for (int i = 0; i < priced.length; i++) {
+        double value = riskPerUnit.applyAsDouble(pending.get(i).entry().key);
+        priced[i] = Double.isFinite(value) && value > 0 ? value : 0;
+      }
+      synchronized (this) {
+        for (int i = 0; i < priced.length; i++) {
+          Pending item = pending.get(i);
+          Entry current = entries.get(item.id());
+          // skip entries replaced or invalidated while pricing; they are picked up next round
+          if (current == item.entry() && current.stale() && current.invalidatedAt <= version) {
+            current.riskPerUnit = priced[i];
+            stale--;
+            total += current.contribution();
+          }
+        }
+        if (stale == 0) {
+          return Math.max(0, total);
+        }
+        if (round < MAX_REFRESH_ROUNDS) {
+          continue;
+        }
+      }
+      // the snapshot taken this round is fully priced; report it even though it was not cached
+      double exposure = known;
+      for (int i = 0; i < priced.length; i++) {
+        exposure += priced[i] * pending.get(i).entry().quantity;
+      }
+      return Math.max(0, exposure);
+    }
+  }
+
+  synchronized int size() {
+    return entries.size();
+  }
+
+  private void seed() {
+    for (PositionStatus status : OPEN_STATUSES) {
+      positionRepository.findByStatus(status).forEach(this::apply);
+    }
+    seeded = true;
+  }
+
+  private void apply(PositionEntity position) {
+    Entry previous = entries.remove(position.getId());
+    if (previous != null) {
+      remove(previous);
+    }
+    if (!OPEN_STATUSES.contains(position.getStatus())
+        || position.getStopLoss() == null
+        || position.getEntryPrice() == null
+        || position.getQtyRemaining() == null
+        || position.getQtyRemaining().signum() <= 0) {
+      if (entries.isEmpty()) {
+        total = 0;
+      }
+      return;
+    }
+    RiskKey key =
+        new RiskKey(
+            position.getSymbol(),
+            position.getSide(),
+            position.getEntryPrice(),
+            position.getStopLoss(),
+            position.getPresetKey(),
+            position.getRegimeTrend(),
+            position.getRegimeVolatility());
+    Entry entry = new Entry(key, position.getQtyRemaining().doubleValue());
+    if (previous != null && !previous.stale() && previous.key.equals(key)) {
+      entry.riskPerUnit = previous.riskPerUnit;
+      total += entry.contribution();
+    } else {
+      stale++;
+    }
+    entries.put(position.getId(), entry);
+  }
+
+  private void remove(Entry entry) {
+    if (entry.stale()) {
+      stale--;
+    } else {
+      total -= entry.contribution();
+    }
+  }
+}
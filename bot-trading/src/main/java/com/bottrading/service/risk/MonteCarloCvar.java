@@ -0,0 +1,258 @@
+package com.bottrading.service.risk;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.IntStream;
+
+/**
+ * Bootstrap VaR/CVaR over R-multiple samples on primitive arrays. Moments are computed once per
+ * estimate, draws come from one {@link SplittableRandom} stream per fixed-size chunk split off the
+ * seed, and the quantile is found by selection rather than a sort. Chunks are filled in parallel
+ * for large iteration counts; since the chunking does not depend on the thread count, a seed gives
+ * the same result either way. Draw buffers come from a small shared pool rather than a thread
+ * local, since callers run on short-lived virtual threads.
+ */
+final class MonteCarloCvar {
+
+  static final int PARALLEL_THRESHOLD = 100_000;
+  private static final int CHUNK = 8192;
+  private static final int MAX_POOLED_DRAWS = 1 << 18;
+  private static final double STUDENT_DF = 5.0;
+  private static final AtomicReferenceArray<double[]> POOL = new AtomicReferenceArray<>(4);
+
+  /** {@code cvarR} is NaN when no draw reaches the chosen quantile. */
+  record Tail(double varR, double cvarR) {}
+
+  private MonteCarloCvar() {}
+
+  static Tail estimate(
+      double[] samples, int iterations, double quantile, boolean heavyTails, long seed) {
+    return estimate(samples, iterations, quantile, heavyTails, seed, PARALLEL_THRESHOLD);
+  }
+
+  static Tail estimate(
+      double[] samples,
+      int iterations,
+      double quantile,
+      boolean heavyTails,
+      long seed,
+      int parallelThreshold) {
+    if (samples.length == 0 || iterations <= 0) {
+      return new Tail(0, Double.NaN);
+    }
+    Moments moments = Moments.of(samples);
+    double[] draws = borrow(iterations);
+    try {
+      simulate(
+          samples,
+          draws,
+          iterations,
+          heavyTails ? moments.shockScale() : 0,
+          seed,
+          parallelThreshold);
+      double alpha = 1.0 - quantile;
+      int index = Math.min(Math.max((int) Math.floor(alpha * iterations), 0), iterations - 1);
+      double simulated = select(draws, iterations, index);
+      double chosen = heavyTails ? Math.min(simulated, moments.cornishFisher(alpha)) : simulated;
+      double sum = 0;
+      int count = 0;
+      for (int i = 0; i < iterations; i++) {
+        if (draws[i] <= chosen) {
+          sum -= draws[i];
+          count++;
+        }
+      }
+      return new Tail(Math.max(0, -chosen), count == 0 ? Double.NaN : sum / count);
+    } finally {
+      release(draws);
+    }
+  }
+
+  /**
+   * Fills {@code draws[0, iterations)} with resampled values, each shifted by a Student-t shock of
+   * {@code shockScale} when non-zero.
+   */
+  static void simulate(
+      double[] samples,
+      double[] draws,
+      int iterations,
+      double shockScale,
+      long seed,
+      int parallelThreshold) {
+    int chunks = (iterations + CHUNK - 1) / CHUNK;
+    SplittableRandom root = new SplittableRandom(seed);
+    SplittableRandom[] streams = new SplittableRandom[chunks];
+    for (int c = 0; c < chunks; c++) {
+      streams[c] = root.split();
+    }
+    IntStream range = IntStream.range(0, chunks);
+    if (iterations >= parallelThreshold) {
+      range = range.parallel();
+    }
+    range.forEach(
+        c -> {
+          SplittableRandom random = streams[c];
+          int end = Math.min(iterations, (c + 1) * CHUNK);
+          for (int i = c * CHUNK; i < end; i++) {
+            double value = samples[random.nextInt(samples.length)];
+            if (shockScale != 0) {
+              value += studentT(random) * shockScale;
+            }
+            draws[i] = value;
+          }
+        });
+  }
+
+  /**
+   * Partially orders {@code values[0, length)} so the k-th smallest sits at {@code k}, and returns
+   * it.
+   */
+  static double select(double[] values, int length, int k) {
+    int left = 0;
+    int right = length - 1;
+    while (right > left) {
+      int mid = (left + right) >>> 1;
+      // median of three into values[mid], with values[left] <= values[mid] <= values[right]
+      if (values[mid] < values[left]) {
+        swap(values, mid, left);
+      }
+      if (values[right] < values[left]) {
+        swap(values, right, left);
+      }
+      if (values[right] < values[mid]) {
+        swap(values, right, mid);
+      }
+      double pivot = values[mid];
+      int i = left;
+      int j = right;
+      while (i <= j) {
+        while (values[i] < pivot) {
+          i++;
+        }
+        while (values[j] > pivot) {
+          j--;
+        }
+        if (i <= j) {
+          swap(values, i, j);
+          i++;
+          j--;
+        }
+      }
+      if (k <= j) {
+        right = j;
+      } else if (k >= i) {
+        left = i;
+      } else {
+        break;
+      }
+    }
+    return values[k];
+  }
+
+  private static double studentT(SplittableRandom random) {
+    double u = random.nextGaussian();
+    double v = random.nextGaussian();
+    double w = random.nextGaussian();
+    double chi2 = u * u + v * v + w * w;
+    return u / Math.sqrt(chi2 / STUDENT_DF);
+  }
+
+  private static void swap(double[] values, int a, int b) {
+    double tmp = values[a];
+    values[a] = values[b];
+    values[b] = tmp;
+  }
+
+  /** A pooled buffer of at least {@code size} doubles, or a fresh one when none fits. */
+  private static double[] borrow(int size) {
+    if (size <= MAX_POOLED_DRAWS) {
+      for (int i = 0; i < POOL.length(); i++) {
+        double[] buffer = POOL.get(i);
+        if (buffer != null && buffer.length >= size && POOL.compareAndSet(i, buffer, null)) {
+          return buffer;
+        }
+      }
+    }
+    return new double[size];
+  }
+
+  private static void release(double[] buffer) {
+    if (buffer.length > MAX_POOLED_DRAWS) {
+      return;
+    }
+    for (int i = 0; i < POOL.length(); i++) {
+      double[] pooled = POOL.get(i);
+      // keep the larger buffers, so the pool converges on the configured iteration count
+      if ((pooled == null || pooled.length < buffer.length)
+          && POOL.compareAndSet(i, pooled, buffer)) {
+        return;
+      }
+    }
+  }
+
+  /** Population mean, standard deviation, skewness and excess kurtosis of the samples. */
+  private record Moments(int count, double mean, double std, double skew, double kurtosis) {
+
+    static Moments of(double[] samples) {
+      int n = samples.length;
+      double sum = 0;
+      for (double value : samples) {
+        sum += value;
+      }
+      double mean = sum / n;
+      double m2 = 0;
+      double m3 = 0;
+      double m4 = 0;
+      for (double value : samples) {
+        double d = value - mean;
+        double d2 = d * d;
+        m2 += d2;
+        m3 += d2 * d;
+        m4 += d2 * d2;
+      }
+      double variance = m2 / n;
+      if (variance <= 0) {
+        return new Moments(n, mean, 0, 0, 0);
+      }
+      double std = Math.sqrt(variance);
+      double skew = m3 / n / (variance * std);
+      double kurtosis = m4 / n / (variance * variance) - 3.0;
+      return new Moments(n, mean, std, skew, kurtosis);
+    }
+
+    double shockScale() {
+      return std / Math.sqrt(count);
+    }
+
+    double cornishFisher(double alpha) {
+      if (std <= 0) {
+        return mean;
+      }
+      double z = inverseNormal(alpha);
+      double z2 = z * z;
+      double z3 = z2 * z;
+      double cf =
+          z
+              + (skew / 6.0) * (z2 - 1)
+              + (kurtosis / 24.0) * (z3 - 3 * z)
+              - (skew * skew / 36.0) * (2 * z3 - 5 * z);
+      return mean + cf * std;
+    }
+
+    private static double inverseNormal(double p) {
+      if (p <= 0 || p >= 1) {
+        return 0;
+      }
+      return Math.sqrt(2) * erfinv(2 * p - 1);
+    }
+
+    private static double erfinv(double x) {
+      double a = 0.147;
+      double ln = Math.log(1 - x * x);
+      double first = 2 / (Math.PI * a) + ln / 2.0;
+      double second = ln / a;
+      double sign = x < 0 ? -1 : 1;
+      return sign * Math.sqrt(Math.sqrt(first * first - second) - first);
+    }
+  }
+}
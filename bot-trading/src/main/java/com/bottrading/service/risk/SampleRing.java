@@ -0,0 +1,82 @@
+package com.bottrading.service.risk;
+
+/**
+ * The newest {@code capacity} trade samples of one pool, kept oldest to newest in parallel
+ * primitive arrays used as a ring. A NaN pnlR marks a row that exists but yields no sample; it
+ * still takes a slot, as it does under the SQL {@code LIMIT}. Rows normally arrive in time order
+ * and append in O(1); a late row is shifted into place and dropped if older than a full ring.
+ */
+final class SampleRing {
+
+  private final long[] executedAt;
+  private final long[] tradeIds;
+  private final double[] pnlR;
+  private final double[] slippageBps;
+  private int head;
+  private int size;
+
+  SampleRing(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("capacity must be positive");
+    }
+    this.executedAt = new long[capacity];
+    this.tradeIds = new long[capacity];
+    this.pnlR = new double[capacity];
+    this.slippageBps = new double[capacity];
+  }
+
+  int size() {
+    return size;
+  }
+
+  boolean containsTrade(long tradeId) {
+    for (int i = 0; i < size; i++) {
+      if (tradeIds[physical(i)] == tradeId) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  void add(long at, long tradeId, double pnl, double slippage) {
+    int capacity = executedAt.length;
+    if (size == capacity) {
+      if (at < executedAt[head]) {
+        return;
+      }
+      head = (head + 1) % capacity;
+      size--;
+    }
+    int position = size;
+    while (position > 0 && executedAt[physical(position - 1)] > at) {
+      copy(physical(position - 1), physical(position));
+      position--;
+    }
+    int slot = physical(position);
+    executedAt[slot] = at;
+    tradeIds[slot] = tradeId;
+    pnlR[slot] = pnl;
+    slippageBps[slot] = slippage;
+    size++;
+  }
+
+  /** pnlR of the {@code index}-th newest row. */
+  double pnlR(int index) {
+    return pnlR[physical(size - 1 - index)];
+  }
+
+  double slippageBps(int index) {
+    return slippageBps[physical(size - 1 - index)];
+  }
+
+  private void copy(int from, int to) {
+    executedAt[to] = executedAt[from];
+    tradeIds[to] = tradeIds[from];
+    pnlR[to] = pnlR[from];
+    slippageBps[to] = slippageBps[from];
+  }
+
+  private int physical(int logical) {
+    return (head + logical) % executedAt.length;
+  }
+}
@@ -0,0 +1,509 @@
+package com.bottrading.service.risk;
+
+import com.bottrading.config.VarProperties;
+import com.bottrading.model.entity.ShadowPositionEntity;
+import com.bottrading.model.enums.OrderSide;
+import com.bottrading.model.enums.PositionStatus;
+import com.bottrading.persistence.WriteBehindWriter;
+import com.bottrading.repository.ShadowPositionRepository;
+import com.bottrading.service.risk.IntradayVarService.HistoricalSample;
+import com.bottrading.service.risk.IntradayVarService.SampleUniverse;
+import com.bottrading.service.risk.IntradayVarService.VarReason;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Predicate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * VaR sample universes kept in memory. Each pool the sample query can read from (symbol and preset,
+ * regime, global) is a {@link SampleRing} seeded once from {@code vw_trades_enriched} with that
+ * query's own predicate and limit, then extended as trades commit; closed shadow positions are kept
+ * per symbol the same way. {@link #universe} reproduces the query results, fallback order and
+ * reasons without touching the database.
+ */
+@Component
+public class VarSampleStore {
+
+  private static final Logger log = LoggerFactory.getLogger(VarSampleStore.class);
+  private static final String COLUMNS =
+      "SELECT trade_id, executed_at, symbol, side, pnl_r, pnl, slippage_bps, entry_price,"
+          + " stop_loss, preset_key, position_preset_key, regime_trend, regime_volatility"
+          + " FROM vw_trades_enriched ";
+  static final String SYMBOL_QUERY =
+      COLUMNS
+          + "WHERE symbol = :symbol AND (:presetKey IS NULL OR preset_key = :presetKey"
+          + " OR position_preset_key = :presetKey) ORDER BY executed_at DESC LIMIT :limit";
+  static final String REGIME_QUERY =
+      COLUMNS
+          + "WHERE (:regimeTrend IS NULL OR regime_trend = :regimeTrend)"
+          + " AND (:regimeVolatility IS NULL OR regime_volatility = :regimeVolatility)"
+          + " ORDER BY executed_at DESC LIMIT :limit";
+  static final String GLOBAL_QUERY = COLUMNS + "ORDER BY executed_at DESC LIMIT :limit";
+  private static final String TRADE_QUERY = COLUMNS + "WHERE trade_id = :tradeId";
+
+  private record SymbolKey(String symbol, String presetKey) {}
+
+  private record RegimeKey(String regimeTrend, String regimeVolatility) {}
+
+  private record TradeRow(
+      long tradeId,
+      long executedAt,
+      String symbol,
+      String presetKey,
+      String positionPresetKey,
+      String regimeTrend,
+      String regimeVolatility,
+      double pnlR,
+      double slippageBps) {}
+
+  private record ShadowSample(
+      Long id,
+      long openedAt,
+      String presetKey,
+      String regimeTrend,
+      String regimeVolatility,
+      UUID presetId,
+      double pnlR) {}
+
+  private final VarProperties properties;
+  private final NamedParameterJdbcTemplate jdbcTemplate;
+  private final ShadowPositionRepository shadowPositionRepository;
+  private final ExposureLedger exposureLedger;
+  private final WriteBehindWriter writeBehindWriter;
+  private final Map<SymbolKey, SampleRing> symbolRings = new HashMap<>();
+  private final Map<RegimeKey, SampleRing> regimeRings = new HashMap<>();
+  private final Map<String, ShadowHistory> shadowHistories = new HashMap<>();
+  private SampleRing globalRing;
+
+  public VarSampleStore(
+      VarProperties properties,
+      NamedParameterJdbcTemplate jdbcTemplate,
+      ShadowPositionRepository shadowPositionRepository,
+      ExposureLedger exposureLedger,
+      WriteBehindWriter writeBehindWriter) {
+    this.properties = properties;
+    this.jdbcTemplate = jdbcTemplate;
+    this.shadowPositionRepository = shadowPositionRepository;
+    this.exposureLedger = exposureLedger;
+    this.writeBehindWriter = writeBehindWriter;
+  }
+
+  public synchronized SampleUniverse universe(
+      String symbol, String presetKey, String regimeTrend, String regimeVolatility) {
+    List<VarReason> reasons = new ArrayList<>();
+    List<HistoricalSample> samples = new ArrayList<>();
+    // rows without a usable pnlR count towards the fallback thresholds, as they did in SQL
+    int rows = collect(symbolRing(symbol, presetKey), samples);
+    if (rows < properties.getMinTradesForSymbolPreset() && properties.isFallbackToRegimePool()) {
+      reasons.add(VarReason.of("FALLBACK_REGIME", "Using regime pool"));
+      rows += collect(regimeRing(regimeTrend, regimeVolatility), samples);
+    }
+    if (rows == 0) {
+      reasons.add(VarReason.of("FALLBACK_GLOBAL", "Using global pool"));
+      collect(globalRing(), samples);
+    }
+    shadowHistory(symbol).collect(presetKey, regimeTrend, regimeVolatility, samples);
+    return new SampleUniverse(samples, reasons);
+  }
+
+  /**
+   * Adds the trade's enriched rows to every seeded pool they belong to once the surrounding
+   * transaction commits, or immediately outside a transaction. The decision row that supplies the
+   * trade's regime and preset is written behind, so it is flushed before the trade is routed.
+   */
+  public void onTradeRecorded(long tradeId) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              appendTrade(tradeId);
+            }
+          });
+    } else {
+      appendTrade(tradeId);
+    }
+  }
+
+  public void onShadowClosed(ShadowPositionEntity position) {
+    if (position == null || position.getSymbol() == null) {
+      return;
+    }
+    synchronized (this) {
+      shadowHistories
+          .computeIfAbsent(position.getSymbol(), s -> new ShadowHistory(capacity()))
+          .add(toShadowSample(position));
+    }
+    // shadow history is kept per symbol; other symbols' universes did not change
+    String symbol = position.getSymbol();
+    exposureLedger.invalidateSamples(key -> symbol.equals(key.symbol()));
+  }
+
+  /** Drops every trade pool; each is reseeded from the database on its next use. */
+  public void reset() {
+    synchronized (this) {
+      symbolRings.clear();
+      regimeRings.clear();
+      globalRing = null;
+    }
+    exposureLedger.invalidateSamples();
+  }
+
+  private void appendTrade(long tradeId) {
+    if (!writeBehindWriter.flush()) {
+      // the decision row may still be queued; reseed later rather than route without it
+      reset();
+      return;
+    }
+    List<TradeRow> rows = loadTrade(tradeId);
+    if (rows == null) {
+      reset();
+      return;
+    }
+    if (rows.isEmpty()) {
+      return;
+    }
+    Predicate<ExposureLedger.RiskKey> affected;
+    synchronized (this) {
+      Set<SymbolKey> symbolKeys = new HashSet<>();
+      symbolRings.forEach(
+          (key, ring) -> {
+            if (append(
+                ring,
+                tradeId,
+                rows.stream()
+                    .filter(
+                        row ->
+                            key.symbol() != null
+                                && key.symbol().equals(row.symbol())
+                                && (key.presetKey() == null
+                                    || key.presetKey().equals(row.presetKey())
+                                    || key.presetKey().equals(row.positionPresetKey())))
+                    .toList())) {
+              symbolKeys.add(key);
+            }
+          });
+      Set<RegimeKey> regimeKeys = new HashSet<>();
+      regimeRings.forEach(
+          (key, ring) -> {
+            if (append(
+                ring,
+                tradeId,
+                rows.stream()
+                    .filter(
+                        row ->
+                            (key.regimeTrend() == null
+                                    || key.regimeTrend().equals(row.regimeTrend()))
+                                && (key.regimeVolatility() == null
+                                    || key.regimeVolatility().equals(row.regimeVolatility())))
+                    .toList())) {
+              regimeKeys.add(key);
+            }
+          });
+      boolean global = globalRing != null && append(globalRing, tradeId, rows);
+      affected = readsFrom(symbolKeys, regimeKeys, global);
+    }
+    exposureLedger.invalidateSamples(affected);
+  }
+
+  /**
+   * Whether a position's universe reads one of the changed pools, following the fallback order of
+   * {@link #universe}. Ring sizes are copied so the ledger can ask without taking this lock.
+   */
+  private Predicate<ExposureLedger.RiskKey> readsFrom(
+      Set<SymbolKey> symbolKeys, Set<RegimeKey> regimeKeys, boolean global) {
+    if (symbolKeys.isEmpty() && regimeKeys.isEmpty() && !global) {
+      return key -> false;
+    }
+    Map<SymbolKey, Integer> symbolRows = new HashMap<>();
+    symbolRings.forEach((key, ring) -> symbolRows.put(key, ring.size()));
+    Map<RegimeKey, Integer> regimeRows = new HashMap<>();
+    regimeRings.forEach((key, ring) -> regimeRows.put(key, ring.size()));
+    int minRows = properties.getMinTradesForSymbolPreset();
+    boolean fallback = properties.isFallbackToRegimePool();
+    return key -> {
+      SymbolKey symbolKey = new SymbolKey(key.symbol(), key.presetKey());
+      Integer rows = symbolRows.get(symbolKey);
+      // a pool that was never seeded has not priced anything yet
+      if (rows == null || symbolKeys.contains(symbolKey)) {
+        return true;
+      }
+      if (rows < minRows && fallback) {
+        RegimeKey regimeKey = new RegimeKey(key.regimeTrend(), key.regimeVolatility());
+        Integer regime = regimeRows.get(regimeKey);
+        if (regime == null || regimeKeys.contains(regimeKey)) {
+          return true;
+        }
+        rows += regime;
+      }
+      return rows == 0 && global;
+    };
+  }
+
+  private List<TradeRow> loadTrade(long tradeId) {
+    try {
+      return jdbcTemplate.query(
+          TRADE_QUERY, new MapSqlParameterSource("tradeId", tradeId), this::mapRow);
+    } catch (RuntimeException ex) {
+      log.warn("Unable to load trade {} for VaR samples; reseeding: {}", tradeId, ex.getMessage());
+      return null;
+    }
+  }
+
+  private static boolean append(SampleRing ring, long tradeId, List<TradeRow> rows) {
+    // a ring seeded after the commit already holds the trade
+    if (rows.isEmpty() || ring.containsTrade(tradeId)) {
+      return false;
+    }
+    for (TradeRow row : rows) {
+      ring.add(row.executedAt(), row.tradeId(), row.pnlR(), row.slippageBps());
+    }
+    return true;
+  }
+
+  private static int collect(SampleRing ring, List<HistoricalSample> samples) {
+    for (int i = 0; i < ring.size(); i++) {
+      double pnlR = ring.pnlR(i);
+      if (!Double.isNaN(pnlR)) {
+        samples.add(new HistoricalSample(pnlR, ring.slippageBps(i), null, null, null, null));
+      }
+    }
+    return ring.size();
+  }
+
+  private SampleRing symbolRing(String symbol, String presetKey) {
+    return symbolRings.computeIfAbsent(
+        new SymbolKey(symbol, presetKey),
+        key ->
+            seed(
+                SYMBOL_QUERY,
+                new MapSqlParameterSource()
+                    .addValue("symbol", symbol)
+                    .addValue("presetKey", presetKey)));
+  }
+
+  private SampleRing regimeRing(String regimeTrend, String regimeVolatility) {
+    return regimeRings.computeIfAbsent(
+        new RegimeKey(regimeTrend, regimeVolatility),
+        key ->
+            seed(
+                REGIME_QUERY,
+                new MapSqlParameterSource()
+                    .addValue("regimeTrend", regimeTrend)
+                    .addValue("regimeVolatility", regimeVolatility)));
+  }
+
+  private SampleRing globalRing() {
+    if (globalRing == null) {
+      globalRing = seed(GLOBAL_QUERY, new MapSqlParameterSource());
+    }
+    return globalRing;
+  }
+
+  private SampleRing seed(String sql, MapSqlParameterSource params) {
+    List<TradeRow> rows =
+        jdbcTemplate.query(sql, params.addValue("limit", capacity()), this::mapRow);
+    SampleRing ring = new SampleRing(capacity());
+    // newest first from the query; oldest first appends in O(1) and keeps tie order
+    for (int i = rows.size() - 1; i >= 0; i--) {
+      TradeRow row = rows.get(i);
+      ring.add(row.executedAt(), row.tradeId(), row.pnlR(), row.slippageBps());
+    }
+    return ring;
+  }
+
+  private ShadowHistory shadowHistory(String symbol) {
+    ShadowHistory history =
+        shadowHistories.computeIfAbsent(symbol, s -> new ShadowHistory(capacity()));
+    if (!history.seeded) {
+      List<ShadowPositionEntity> closed =
+          shadowPositionRepository.findBySymbolOrderByOpenedAtDesc(symbol).stream()
+              .filter(p -> p.getStatus() == PositionStatus.CLOSED)
+              .limit(capacity())
+              .toList();
+      history.seed(closed.stream().map(VarSampleStore::toShadowSample).toList());
+    }
+    return history;
+  }
+
+  private int capacity() {
+    return Math.max(1, properties.getLookbackTrades());
+  }
+
+  private TradeRow mapRow(ResultSet rs, int rowNum) throws SQLException {
+    double pnlR = optionalDouble(rs, "pnl_r");
+    double pnl = optionalDouble(rs, "pnl");
+    double entry = optionalDouble(rs, "entry_price");
+    double stop = optionalDouble(rs, "stop_loss");
+    String side = rs.getString("side");
+    double slippage = optionalDouble(rs, "slippage_bps");
+    if (Double.isNaN(pnlR) && !Double.isNaN(entry) && !Double.isNaN(stop) && side != null) {
+      double distance = stopDistance(parseSide(side), entry, stop);
+      if (distance > 0) {
+        pnlR = pnl / distance;
+      }
+    }
+    Timestamp executedAt = rs.getTimestamp("executed_at");
+    return new TradeRow(
+        rs.getLong("trade_id"),
+        // NULLs sort first under ORDER BY ... DESC
+        executedAt != null ? epochMicros(executedAt.toInstant()) : Long.MAX_VALUE,
+        rs.getString("symbol"),
+        rs.getString("preset_key"),
+        rs.getString("position_preset_key"),
+        rs.getString("regime_trend"),
+        rs.getString("regime_volatility"),
+        pnlR,
+        Double.isNaN(slippage) ? 0 : slippage);
+  }
+
+  private static ShadowSample toShadowSample(ShadowPositionEntity position) {
+    double pnlR = Double.NaN;
+    if (position.getRealizedPnl() != null
+        && position.getStopLoss() != null
+        && position.getEntryPrice() != null
+        && position.getQuantity() != null
+        && position.getQuantity().compareTo(BigDecimal.ZERO) > 0) {
+      double stopDistance =
+          stopDistance(
+              position.getSide(),
+              position.getEntryPrice().doubleValue(),
+              position.getStopLoss().doubleValue());
+      double risk = stopDistance * position.getQuantity().doubleValue();
+      if (stopDistance > 0 && risk > 0) {
+        pnlR = position.getRealizedPnl().doubleValue() / risk;
+      }
+    }
+    return new ShadowSample(
+        position.getId(),
+        position.getOpenedAt() != null ? epochMicros(position.getOpenedAt()) : Long.MAX_VALUE,
+        position.getPresetKey(),
+        position.getRegimeTrend(),
+        position.getRegimeVolatility(),
+        position.getPresetId(),
+        pnlR);
+  }
+
+  private static OrderSide parseSide(String side) {
+    try {
+      return OrderSide.valueOf(side);
+    } catch (IllegalArgumentException ex) {
+      return null;
+    }
+  }
+
+  private static double stopDistance(OrderSide side, double entry, double stop) {
+    if (side == OrderSide.BUY) {
+      return entry - stop;
+    }
+    return stop - entry;
+  }
+
+  private static long epochMicros(Instant instant) {
+    return instant.getEpochSecond() * 1_000_000L + instant.getNano() / 1_000;
+  }
+
+  private static double optionalDouble(ResultSet rs, String column) throws SQLException {
+    double value = rs.getDouble(column);
+    return rs.wasNull() ? Double.NaN : value;
+  }
+
+  /**
+   * The newest {@code capacity} closed shadow positions of one symbol by open time. Closes seen
+   * before the history is seeded are kept and win over the seeded copy of the same row, which may
+   * still be waiting in the write-behind queue.
+   */
+  private static final class ShadowHistory {
+
+    private final int capacity;
+    private final List<ShadowSample> newestFirst = new ArrayList<>();
+    private boolean seeded;
+
+    private ShadowHistory(int capacity) {
+      this.capacity = capacity;
+    }
+
+    private void seed(List<ShadowSample> closed) {
+      for (ShadowSample sample : closed) {
+        if (sample.id() == null || indexOf(sample.id()) < 0) {
+          insert(sample);
+        }
+      }
+      seeded = true;
+    }
+
+    private void add(ShadowSample sample) {
+      if (sample.id() != null) {
+        int existing = indexOf(sample.id());
+        if (existing >= 0) {
+          newestFirst.remove(existing);
+        }
+      }
+      insert(sample);
+    }
+
+    private void insert(ShadowSample sample) {
+      int position = newestFirst.size();
+      while (position > 0 && newestFirst.get(position - 1).openedAt() < sample.openedAt()) {
+        position--;
+      }
+      newestFirst.add(position, sample);
+      if (newestFirst.size() > capacity) {
+        newestFirst.remove(newestFirst.size() - 1);
+      }
+    }
+
+    private int indexOf(long id) {
+      for (int i = 0; i < newestFirst.size(); i++) {
+        if (Objects.equals(newestFirst.get(i).id(), id)) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    private void collect(
+        String presetKey,
+        String regimeTrend,
+        String regimeVolatility,
+        List<HistoricalSample> samples) {
+      for (ShadowSample sample : newestFirst) {
+        if (Double.isNaN(sample.pnlR())
+            || !matches(presetKey, sample.presetKey())
+            || !matches(regimeTrend, sample.regimeTrend())
+            || !matches(regimeVolatility, sample.regimeVolatility())) {
+          continue;
+        }
+        samples.add(
+            new HistoricalSample(
+                sample.pnlR(),
+                0,
+                sample.regimeTrend(),
+                sample.regimeVolatility(),
+                sample.presetKey(),
+                sample.presetId()));
+      }
+    }
+
+    private static boolean matches(String wanted, String actual) {
+      return wanted == null || actual == null || wanted.equalsIgnoreCase(actual);
+    }
+  }
+}
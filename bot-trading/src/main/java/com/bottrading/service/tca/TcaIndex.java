@@ -0,0 +1,226 @@
+package com.bottrading.service.tca;
+
+import com.bottrading.model.enums.OrderType;
+import com.bottrading.service.tca.TcaService.TcaSample;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Retained TCA samples with running aggregates per (symbol, order type, hour of day), per symbol
+ * and overall, kept in step as samples enter and leave, so lookups never scan the history. The
+ * sample log itself is only walked to evict; ranged queries work on a {@link #snapshot()}. Not
+ * thread-safe.
+ */
+final class TcaIndex {
+
+  record BucketKey(String symbol, OrderType type, int hour) {}
+
+  /** One retained sample with its routing resolved at insertion. */
+  record Entry(TcaSample sample, String symbol, int hour) {}
+
+  private final int historySize;
+  private final Duration retention;
+  private final Duration decayHalfLife;
+  private final Deque<Entry> log = new ArrayDeque<>();
+  private final Map<BucketKey, Accumulator> buckets = new HashMap<>();
+  private final Map<String, HourlyAccumulator> symbols = new HashMap<>();
+  private final HourlyAccumulator all;
+
+  TcaIndex(int historySize, Duration retention, Duration decayHalfLife) {
+    this.historySize = Math.max(1, historySize);
+    this.retention = retention;
+    this.decayHalfLife = decayHalfLife;
+    this.all = new HourlyAccumulator(decayHalfLife);
+  }
+
+  static String symbolKey(String symbol) {
+    return symbol == null ? null : symbol.toUpperCase(Locale.ROOT);
+  }
+
+  void add(TcaSample sample, int hour, Instant now) {
+    Entry entry = new Entry(sample, symbolKey(sample.symbol()), hour);
+    log.addLast(entry);
+    apply(entry, accumulator -> accumulator.add(entry.sample()));
+    while (log.size() > historySize) {
+      evict();
+    }
+    expire(now);
+  }
+
+  void expire(Instant now) {
+    Instant cutoff = now.minus(retention);
+    while (!log.isEmpty() && log.peekFirst().sample().timestamp().isBefore(cutoff)) {
+      evict();
+    }
+  }
+
+  Accumulator bucket(String symbol, OrderType type, int hour) {
+    return buckets.get(new BucketKey(symbolKey(symbol), type, hour));
+  }
+
+  /** Aggregates for one symbol, or for every sample when {@code symbol} is null. */
+  HourlyAccumulator symbol(String symbol) {
+    return symbol == null ? all : symbols.get(symbolKey(symbol));
+  }
+
+  /**
+   * Retained entries, oldest first, copied so they can be read without holding the owner's lock.
+   */
+  Entry[] snapshot() {
+    return log.toArray(Entry[]::new);
+  }
+
+  int size() {
+    return log.size();
+  }
+
+  private void evict() {
+    Entry entry = log.removeFirst();
+    apply(entry, accumulator -> accumulator.remove(entry.sample()));
+  }
+
+  private void apply(Entry entry, Consumer<Accumulator> update) {
+    update.accept(all.total());
+    update.accept(all.hour(entry.hour()));
+    if (entry.symbol() == null) {
+      return;
+    }
+    HourlyAccumulator symbol =
+        symbols.computeIfAbsent(entry.symbol(), s -> new HourlyAccumulator(decayHalfLife));
+    update.accept(symbol.total());
+    update.accept(symbol.hour(entry.hour()));
+    BucketKey key = new BucketKey(entry.symbol(), entry.sample().type(), entry.hour());
+    Accumulator bucket = buckets.computeIfAbsent(key, k -> new Accumulator(decayHalfLife));
+    update.accept(bucket);
+    if (bucket.count() == 0) {
+      buckets.remove(key);
+    }
+    if (symbol.total().count() == 0) {
+      symbols.remove(entry.symbol());
+    }
+  }
+
+  /** A total plus one accumulator per hour of day. */
+  static final class HourlyAccumulator {
+    private final Accumulator total;
+    private final Accumulator[] hours = new Accumulator[24];
+
+    HourlyAccumulator(Duration decayHalfLife) {
+      this.total = new Accumulator(decayHalfLife);
+      for (int i = 0; i < hours.length; i++) {
+        hours[i] = new Accumulator(decayHalfLife);
+      }
+    }
+
+    Accumulator total() {
+      return total;
+    }
+
+    Accumulator hour(int hour) {
+      return hours[hour];
+    }
+  }
+
+  /**
+   * Count, sum and sum of squares of slippage, summed queue time, and an exponentially time-decayed
+   * slippage mean referenced to the newest sample seen. A NaN slippage makes the means NaN while it
+   * is retained, as averaging the raw samples would.
+   */
+  static final class Accumulator {
+    private final double decayMillis;
+    private int count;
+    private int nanCount;
+    private double sum;
+    private double sumSquares;
+    private long queueSum;
+    private double decayedSum;
+    private double decayedWeight;
+    private long decayedAt = Long.MIN_VALUE;
+
+    Accumulator(Duration halfLife) {
+      this.decayMillis = halfLife.toMillis() / Math.log(2);
+    }
+
+    void add(TcaSample sample) {
+      count++;
+      queueSum += sample.queueTimeMs();
+      double value = sample.slippageBps();
+      if (Double.isNaN(value)) {
+        nanCount++;
+        return;
+      }
+      sum += value;
+      sumSquares += value * value;
+      long at = sample.timestamp().toEpochMilli();
+      if (at >= decayedAt) {
+        double factor = decayedAt == Long.MIN_VALUE ? 0 : Math.exp(-(at - decayedAt) / decayMillis);
+        decayedSum = decayedSum * factor + value;
+        decayedWeight = decayedWeight * factor + 1;
+        decayedAt = at;
+      } else {
+        double weight = Math.exp(-(decayedAt - at) / decayMillis);
+        decayedSum += value * weight;
+        decayedWeight += weight;
+      }
+    }
+
+    void remove(TcaSample sample) {
+      count--;
+      queueSum -= sample.queueTimeMs();
+      double value = sample.slippageBps();
+      if (Double.isNaN(value)) {
+        nanCount--;
+      } else {
+        sum -= value;
+        sumSquares -= value * value;
+        double weight = Math.exp(-(decayedAt - sample.timestamp().toEpochMilli()) / decayMillis);
+        decayedSum -= value * weight;
+        decayedWeight -= weight;
+      }
+      if (count - nanCount == 0) {
+        // drop accumulated rounding once nothing finite is left
+        sum = 0;
+        sumSquares = 0;
+        decayedSum = 0;
+        decayedWeight = 0;
+        decayedAt = Long.MIN_VALUE;
+      }
+    }
+
+    int count() {
+      return count;
+    }
+
+    double mean() {
+      if (count == 0 || nanCount > 0) {
+        return Double.NaN;
+      }
+      return sum / count;
+    }
+
+    double stdDev() {
+      if (count == 0 || nanCount > 0) {
+        return Double.NaN;
+      }
+      double mean = sum / count;
+      return Math.sqrt(Math.max(0, sumSquares / count - mean * mean));
+    }
+
+    double decayedMean() {
+      if (count == 0 || nanCount > 0 || decayedWeight <= 0) {
+        return Double.NaN;
+      }
+      return decayedSum / decayedWeight;
+    }
+
+    double queueMean() {
+      return count == 0 ? Double.NaN : (double) queueSum / count;
+    }
+  }
+}
@@ -1,9 +1,10 @@
 package com.bottrading.service.tca;
 
 import com.bottrading.config.TradingProps;
+import com.bottrading.model.entity.TradeFillEntity;
 import com.bottrading.model.enums.OrderSide;
 import com.bottrading.model.enums.OrderType;
-import com.bottrading.model.entity.TradeFillEntity;
+import com.bottrading.persistence.WriteBehindWriter;
 import com.bottrading.repository.TradeFillRepository;
 import com.bottrading.saas.security.TenantAccessGuard;
 import io.micrometer.core.instrument.Gauge;
@@ -12,12 +13,13 @@ import io.micrometer.core.instrument.Tags;
 import java.math.BigDecimal;
 import java.time.Duration;
 import java.time.Instant;
+import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
-import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Deque;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -29,22 +31,40 @@ import org.springframework.stereotype.Service;
 public class TcaService {
 
   private static final Duration SAMPLE_RETENTION = Duration.ofDays(7);
+  private static final Duration DECAY_HALF_LIFE = Duration.ofHours(6);
+  private static final Duration FALLBACK_TTL = Duration.ofMinutes(1);
+  private static final WriteBehindWriter.Statement INSERT_FILL =
+      new WriteBehindWriter.Statement(
+          "trade_fill",
+          "INSERT INTO trade_fill (order_id, client_order_id, symbol, order_type, order_side,"
+              + " ref_price, fill_price, slippage_bps, queue_time_ms, executed_at, tenant_id)"
+              + " VALUES (:orderId, :clientOrderId, :symbol, :orderType, :orderSide, :refPrice,"
+              + " :fillPrice, :slippageBps, :queueTimeMs, :executedAt, :tenantId)");
 
   private final TradingProps tradingProps;
   private final MeterRegistry meterRegistry;
   private final TradeFillRepository tradeFillRepository;
   private final TenantAccessGuard tenantAccessGuard;
-  private final Deque<TcaSample> samples;
+  private final WriteBehindWriter writeBehindWriter;
+  private final TcaIndex index;
+  private final ConcurrentMap<TcaIndex.BucketKey, Fallback> fallbacks = new ConcurrentHashMap<>();
   private final ConcurrentMap<String, PendingOrder> pending = new ConcurrentHashMap<>();
-  private final ConcurrentMap<String, AtomicReference<Double>> averageGauge = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, AtomicReference<Double>> averageGauge =
+      new ConcurrentHashMap<>();
 
   public TcaService(
-      TradingProps tradingProps, MeterRegistry meterRegistry, TradeFillRepository tradeFillRepository, TenantAccessGuard tenantAccessGuard) {
+      TradingProps tradingProps,
+      MeterRegistry meterRegistry,
+      TradeFillRepository tradeFillRepository,
+      TenantAccessGuard tenantAccessGuard,
+      WriteBehindWriter writeBehindWriter) {
     this.tradingProps = tradingProps;
     this.meterRegistry = meterRegistry;
     this.tradeFillRepository = tradeFillRepository;
     this.tenantAccessGuard = tenantAccessGuard;
-    this.samples = new ArrayDeque<>(tradingProps.getTca().getHistorySize());
+    this.writeBehindWriter = writeBehindWriter;
+    this.index =
+        new TcaIndex(tradingProps.getTca().getHistorySize(), SAMPLE_RETENTION, DECAY_HALF_LIFE);
   }
 
   public void recordSubmission(
@@ -88,9 +108,7 @@ public class TcaService {
     long queueMs = Duration.between(pendingOrder.timestamp(), filledAt).toMillis();
     double slippageBps =
         computeSlippage(
-            pendingOrder.side(),
-            pendingOrder.referencePrice(),
-            fillPrice.doubleValue());
+            pendingOrder.side(), pendingOrder.referencePrice(), fillPrice.doubleValue());
     TcaSample sample =
         new TcaSample(
             pendingOrder.symbol(),
@@ -113,28 +131,14 @@ public class TcaService {
       return Double.NaN;
     }
     int targetHour = hourOf(timestamp);
-    List<TcaSample> relevant = new ArrayList<>();
-    synchronized (samples) {
-      for (TcaSample sample : samples) {
-        if (!sample.symbol().equalsIgnoreCase(symbol)) {
-          continue;
-        }
-        if (sample.type() != type) {
-          continue;
-        }
-        if (hourOf(sample.timestamp()) == targetHour) {
-          relevant.add(sample);
-        }
-      }
-    }
-    if (relevant.isEmpty()) {
-      List<TcaSample> persisted = fromRepository(symbol, type, targetHour);
-      if (persisted.isEmpty()) {
-        return averageSlippage(symbol);
+    synchronized (index) {
+      index.expire(Instant.now());
+      TcaIndex.Accumulator bucket = index.bucket(symbol, type, targetHour);
+      if (bucket != null) {
+        return bucket.mean();
       }
-      return persisted.stream().mapToDouble(TcaSample::slippageBps).average().orElse(Double.NaN);
     }
-    return relevant.stream().mapToDouble(TcaSample::slippageBps).average().orElse(Double.NaN);
+    return fallback(symbol, type, targetHour);
   }
 
   public OrderType recommendOrderType(String symbol, OrderType baseline, Instant now) {
@@ -152,73 +156,108 @@ public class TcaService {
   }
 
   public AggregatedStats aggregate(String symbol, Instant from, Instant to) {
-    List<TcaSample> filtered = new ArrayList<>();
-    synchronized (samples) {
-      for (TcaSample sample : samples) {
-        if (symbol != null && !symbol.equalsIgnoreCase(sample.symbol())) {
-          continue;
-        }
-        if (from != null && sample.timestamp().isBefore(from)) {
-          continue;
-        }
-        if (to != null && sample.timestamp().isAfter(to)) {
-          continue;
-        }
-        filtered.add(sample);
+    TcaIndex.Entry[] entries;
+    synchronized (index) {
+      index.expire(Instant.now());
+      if (from == null && to == null) {
+        return stats(index.symbol(symbol));
+      }
+      entries = index.snapshot();
+    }
+    // a time range needs the samples themselves; scan a copy so planFor lookups are not held up
+    String key = TcaIndex.symbolKey(symbol);
+    TcaIndex.HourlyAccumulator ranged = new TcaIndex.HourlyAccumulator(DECAY_HALF_LIFE);
+    for (TcaIndex.Entry entry : entries) {
+      TcaSample sample = entry.sample();
+      if (key != null && !key.equals(entry.symbol())) {
+        continue;
+      }
+      if (from != null && sample.timestamp().isBefore(from)) {
+        continue;
       }
+      if (to != null && sample.timestamp().isAfter(to)) {
+        continue;
+      }
+      ranged.total().add(sample);
+      ranged.hour(entry.hour()).add(sample);
     }
-    Map<Integer, List<TcaSample>> byHour = new HashMap<>();
-    for (TcaSample sample : filtered) {
-      byHour.computeIfAbsent(hourOf(sample.timestamp()), h -> new ArrayList<>()).add(sample);
+    return stats(ranged);
+  }
+
+  private AggregatedStats stats(TcaIndex.HourlyAccumulator aggregates) {
+    if (aggregates == null) {
+      return new AggregatedStats(0, Double.NaN, Double.NaN, Map.of(), Double.NaN, Double.NaN);
     }
     Map<Integer, Double> avgByHour = new HashMap<>();
-    for (Map.Entry<Integer, List<TcaSample>> entry : byHour.entrySet()) {
-      avgByHour.put(
-          entry.getKey(),
-          entry.getValue().stream().mapToDouble(TcaSample::slippageBps).average().orElse(Double.NaN));
+    for (int hour = 0; hour < 24; hour++) {
+      TcaIndex.Accumulator accumulator = aggregates.hour(hour);
+      if (accumulator.count() > 0) {
+        avgByHour.put(hour, accumulator.mean());
+      }
     }
-    double avg = filtered.stream().mapToDouble(TcaSample::slippageBps).average().orElse(Double.NaN);
-    double avgQueue = filtered.stream().mapToLong(TcaSample::queueTimeMs).average().orElse(Double.NaN);
-    return new AggregatedStats(filtered.size(), avg, avgQueue, avgByHour);
+    TcaIndex.Accumulator total = aggregates.total();
+    return new AggregatedStats(
+        total.count(),
+        total.mean(),
+        total.queueMean(),
+        avgByHour,
+        total.stdDev(),
+        total.decayedMean());
   }
 
   private void append(TcaSample sample) {
-    synchronized (samples) {
-      samples.addLast(sample);
-      while (samples.size() > tradingProps.getTca().getHistorySize()) {
-        samples.removeFirst();
-      }
-      pruneOld();
-      double avg = samples.stream().mapToDouble(TcaSample::slippageBps).average().orElse(0);
-      AtomicReference<Double> gaugeRef =
-          averageGauge.computeIfAbsent(
-              sample.symbol(),
-              sym -> {
+    int hour = hourOf(sample.timestamp());
+    double avg;
+    synchronized (index) {
+      index.add(sample, hour, Instant.now());
+      TcaIndex.HourlyAccumulator symbolStats = index.symbol(sample.symbol());
+      avg =
+          symbolStats == null || symbolStats.total().count() == 0 ? 0 : symbolStats.total().mean();
+    }
+    if (sample.symbol() == null) {
+      return;
+    }
+    AtomicReference<Double> gaugeRef =
+        averageGauge.computeIfAbsent(
+            sample.symbol(),
+            sym -> {
               AtomicReference<Double> ref = new AtomicReference<>(0.0);
               Gauge.builder("tca.slippage.avg_bps", ref, AtomicReference::get)
                   .tags("symbol", sym)
                   .register(meterRegistry);
               return ref;
-              });
-      gaugeRef.set(avg);
-      meterRegistry.counter("tca.samples", Tags.of("symbol", sample.symbol(), "type", sample.type().name())).increment();
-    }
+            });
+    gaugeRef.set(avg);
+    meterRegistry
+        .counter("tca.samples", Tags.of("symbol", sample.symbol(), "type", sample.type().name()))
+        .increment();
   }
 
-  private void pruneOld() {
-    Instant cutoff = Instant.now().minus(SAMPLE_RETENTION);
-    while (!samples.isEmpty() && samples.peekFirst().timestamp().isBefore(cutoff)) {
-      samples.removeFirst();
+  /**
+   * Expected slippage when no retained sample matches: fills persisted over the last 12 hours for
+   * the same hour, else the symbol's overall average. The persisted lookup is cached briefly so
+   * order planning does not query on every call for a quiet hour.
+   */
+  private double fallback(String symbol, OrderType type, int hour) {
+    TcaIndex.BucketKey key = new TcaIndex.BucketKey(TcaIndex.symbolKey(symbol), type, hour);
+    long now = System.nanoTime();
+    Fallback cached = fallbacks.get(key);
+    if (cached == null || now - cached.loadedAt() > FALLBACK_TTL.toNanos()) {
+      List<TcaSample> persisted = fromRepository(symbol, type, hour);
+      cached =
+          new Fallback(
+              now,
+              !persisted.isEmpty(),
+              persisted.stream().mapToDouble(TcaSample::slippageBps).average().orElse(Double.NaN));
+      fallbacks.put(key, cached);
     }
+    return cached.found() ? cached.mean() : averageSlippage(symbol);
   }
 
   private double averageSlippage(String symbol) {
-    synchronized (samples) {
-      return samples.stream()
-          .filter(sample -> symbol == null || sample.symbol().equalsIgnoreCase(symbol))
-          .mapToDouble(TcaSample::slippageBps)
-          .average()
-          .orElse(Double.NaN);
+    synchronized (index) {
+      TcaIndex.HourlyAccumulator aggregates = index.symbol(symbol);
+      return aggregates == null ? Double.NaN : aggregates.total().mean();
     }
   }
 
@@ -251,19 +290,23 @@ public class TcaService {
 
   private void persist(TcaSample sample, String orderId, String clientOrderId) {
     try {
-      TradeFillEntity entity = new TradeFillEntity();
-      entity.setOrderId(orderId);
-      entity.setClientOrderId(clientOrderId);
-      entity.setSymbol(sample.symbol());
-      entity.setOrderType(sample.type());
-      entity.setOrderSide(sample.side());
-      entity.setRefPrice(sample.referencePrice() == null ? null : BigDecimal.valueOf(sample.referencePrice()));
-      entity.setFillPrice(sample.fillPrice() == null ? null : BigDecimal.valueOf(sample.fillPrice()));
-      entity.setSlippageBps(sample.slippageBps());
-      entity.setQueueTimeMs(sample.queueTimeMs());
-      entity.setExecutedAt(sample.timestamp());
-      entity.setTenantId(tenantAccessGuard.requireCurrentTenant());
-      tradeFillRepository.save(entity);
+      Map<String, Object> params = new LinkedHashMap<>();
+      params.put("orderId", orderId);
+      params.put("clientOrderId", clientOrderId);
+      params.put("symbol", sample.symbol());
+      params.put("orderType", sample.type() == null ? null : sample.type().name());
+      params.put("orderSide", sample.side() == null ? null : sample.side().name());
+      params.put(
+          "refPrice",
+          sample.referencePrice() == null ? null : BigDecimal.valueOf(sample.referencePrice()));
+      params.put(
+          "fillPrice", sample.fillPrice() == null ? null : BigDecimal.valueOf(sample.fillPrice()));
+      params.put("slippageBps", sample.slippageBps());
+      params.put("queueTimeMs", sample.queueTimeMs());
+      params.put("executedAt", LocalDateTime.ofInstant(sample.timestamp(), ZoneOffset.UTC));
+      // the tenant lives in the caller's context, so resolve it before handing the row off
+      params.put("tenantId", tenantAccessGuard.requireCurrentTenant());
+      writeBehindWriter.enqueue(INSERT_FILL, params);
     } catch (Exception ex) {
       // ignore persistence issues but keep in-memory samples
     }
@@ -284,6 +327,8 @@ public class TcaService {
     return ZonedDateTime.ofInstant(timestamp, ZoneId.systemDefault()).getHour();
   }
 
+  private record Fallback(long loadedAt, boolean found, double mean) {}
+
   private record PendingOrder(
       String symbol,
       OrderSide side,
@@ -306,5 +351,11 @@ public class TcaService {
       Double atr,
       Double spread) {}
 
-  public record AggregatedStats(int samples, double averageBps, double averageQueueMs, Map<Integer, Double> hourlyAverage) {}
+  public record AggregatedStats(
+      int samples,
+      double averageBps,
+      double averageQueueMs,
+      Map<Integer, Double> hourlyAverage,
+      double stdDevBps,
+      double decayedAverageBps) {}
 }
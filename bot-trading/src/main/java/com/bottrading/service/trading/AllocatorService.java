@@ -6,7 +6,7 @@ import com.bottrading.config.TradingProps;
 import com.bottrading.model.entity.PositionEntity;
 import com.bottrading.model.enums.PositionStatus;
 import com.bottrading.repository.PositionRepository;
-import com.bottrading.service.binance.BinanceClient;
+import com.bottrading.service.market.CandleStore;
 import com.bottrading.service.risk.IntradayVarService;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Tags;
@@ -15,10 +15,10 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -33,35 +33,77 @@ public class AllocatorService {
 
   private final TradingProps tradingProps;
   private final PositionRepository positionRepository;
-  private final BinanceClient binanceClient;
+  private final CandleStore candleStore;
   private final MeterRegistry meterRegistry;
   private final IntradayVarService intradayVarService;
-  private final ConcurrentMap<String, CachedCorrelation> correlationCache = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, CachedCorrelation> correlationCache =
+      new ConcurrentHashMap<>();
   private final ConcurrentMap<String, AllocationStatus> lastStatus = new ConcurrentHashMap<>();
+  private final AtomicInteger pendingOpens = new AtomicInteger();
+  private final ConcurrentMap<String, AtomicInteger> pendingBySymbol = new ConcurrentHashMap<>();
 
   public AllocatorService(
-          TradingProps tradingProps,
-          PositionRepository positionRepository,
-          BinanceClient binanceClient,
-          MeterRegistry meterRegistry,
-          IntradayVarService intradayVarService) {
+      TradingProps tradingProps,
+      PositionRepository positionRepository,
+      CandleStore candleStore,
+      MeterRegistry meterRegistry,
+      IntradayVarService intradayVarService) {
     this.tradingProps = tradingProps;
     this.positionRepository = positionRepository;
-    this.binanceClient = binanceClient;
+    this.candleStore = candleStore;
     this.meterRegistry = meterRegistry;
     this.intradayVarService = intradayVarService;
   }
 
   public AllocationDecision evaluate(String symbol) {
+    return evaluate(symbol, 0, 0);
+  }
+
+  /**
+   * Like {@link #evaluate(String)} but, when allowed, holds a slot against the caps until {@link
+   * #release(String)} is called once the order has been placed (and shows up as a position) or
+   * abandoned. The slot is taken before the caps are checked, so concurrent callers each count the
+   * others and can never jointly overshoot; at worst they are both blocked.
+   */
+  public AllocationDecision reserve(String symbol) {
+    if (!tradingProps.getAllocator().isEnabled()) {
+      return evaluate(symbol);
+    }
+    AtomicInteger symbolPending =
+        pendingBySymbol.computeIfAbsent(symbol, key -> new AtomicInteger());
+    int others = pendingOpens.incrementAndGet() - 1;
+    int symbolOthers = symbolPending.incrementAndGet() - 1;
+    AllocationDecision decision = evaluate(symbol, others, symbolOthers);
+    if (!decision.allowed()) {
+      release(symbol);
+    }
+    return decision;
+  }
+
+  public void release(String symbol) {
+    AtomicInteger symbolPending = pendingBySymbol.get(symbol);
+    if (symbolPending == null || symbolPending.getAndUpdate(v -> Math.max(0, v - 1)) == 0) {
+      return;
+    }
+    pendingOpens.updateAndGet(v -> Math.max(0, v - 1));
+  }
+
+  private AllocationDecision evaluate(String symbol, int pending, int symbolPending) {
     if (!tradingProps.getAllocator().isEnabled()) {
       AllocationDecision decision = AllocationDecision.ok();
-      lastStatus.put(symbol, new AllocationStatus(symbol, decision.allowed(), decision.reason(), 1.0));
+      lastStatus.put(
+          symbol, new AllocationStatus(symbol, decision.allowed(), decision.reason(), 1.0));
       return decision;
     }
-    AllocationDecision decision = doEvaluate(symbol);
-    lastStatus.put(symbol, new AllocationStatus(symbol, decision.allowed(), decision.reason(), decision.sizingMultiplier()));
+    AllocationDecision decision = doEvaluate(symbol, pending, symbolPending);
+    lastStatus.put(
+        symbol,
+        new AllocationStatus(
+            symbol, decision.allowed(), decision.reason(), decision.sizingMultiplier()));
     String metricName = decision.allowed() ? "allocator.opens.allowed" : "allocator.opens.blocked";
-    meterRegistry.counter(metricName, Tags.of("symbol", symbol, "reason", decision.reason())).increment();
+    meterRegistry
+        .counter(metricName, Tags.of("symbol", symbol, "reason", decision.reason()))
+        .increment();
     return decision;
   }
 
@@ -69,43 +111,43 @@ public class AllocatorService {
     return lastStatus.getOrDefault(symbol, new AllocationStatus(symbol, true, "INIT", 1.0));
   }
 
-  private AllocationDecision doEvaluate(String symbol) {
+  private AllocationDecision doEvaluate(String symbol, int pending, int symbolPending) {
     TradingProps.AllocatorProperties props = tradingProps.getAllocator();
     List<PositionEntity> open = openPositions();
-    int active = open.size();
+    int active = open.size() + pending;
     double riskPerTrade = tradingProps.getRiskPerTradePct().doubleValue();
     double portfolioRisk = (active + 1) * riskPerTrade;
     if (props.getMaxSimultaneous() > 0 && active >= props.getMaxSimultaneous()) {
       return AllocationDecision.blocked("MAX_SIMULTANEOUS");
     }
     if (props.getPortfolioMaxTotalRiskPct() != null
-            && props.getPortfolioMaxTotalRiskPct().doubleValue() > 0
-            && portfolioRisk > props.getPortfolioMaxTotalRiskPct().doubleValue()) {
+        && props.getPortfolioMaxTotalRiskPct().doubleValue() > 0
+        && portfolioRisk > props.getPortfolioMaxTotalRiskPct().doubleValue()) {
       return AllocationDecision.blocked("PORTFOLIO_RISK");
     }
 
     long symbolPositions =
-            open.stream().filter(p -> symbol.equalsIgnoreCase(p.getSymbol())).count();
+        open.stream().filter(p -> symbol.equalsIgnoreCase(p.getSymbol())).count() + symbolPending;
     double symbolRisk = (symbolPositions + 1) * riskPerTrade;
     if (props.getPerSymbolMaxRiskPct() != null
-            && props.getPerSymbolMaxRiskPct().doubleValue() > 0
-            && symbolRisk > props.getPerSymbolMaxRiskPct().doubleValue()) {
+        && props.getPerSymbolMaxRiskPct().doubleValue() > 0
+        && symbolRisk > props.getPerSymbolMaxRiskPct().doubleValue()) {
       return AllocationDecision.blocked("SYMBOL_RISK");
     }
 
     if (intradayVarService != null && intradayVarService.isEnabled()) {
       IntradayVarService.ExposureSnapshot exposure = intradayVarService.exposure(null);
       if (exposure.limit().compareTo(BigDecimal.ZERO) > 0
-              && exposure.ratio().compareTo(BigDecimal.ONE) >= 0) {
+          && exposure.ratio().compareTo(BigDecimal.ONE) >= 0) {
         return AllocationDecision.blocked("VAR_BUDGET");
       }
     }
 
     Set<String> otherSymbols =
-            open.stream()
-                    .map(PositionEntity::getSymbol)
-                    .filter(s -> !symbol.equalsIgnoreCase(s))
-                    .collect(Collectors.toSet());
+        open.stream()
+            .map(PositionEntity::getSymbol)
+            .filter(s -> !symbol.equalsIgnoreCase(s))
+            .collect(Collectors.toSet());
 
     for (String other : otherSymbols) {
       double corr = correlation(symbol, other);
@@ -135,32 +177,32 @@ public class AllocatorService {
       return cached.value();
     }
     try {
-      List<com.bottrading.model.dto.Kline> seriesA =
-              binanceClient.getKlines(symbolA, CORR_INTERVAL, tradingProps.getAllocator().getCorrLookbackDays() + 1);
-      List<com.bottrading.model.dto.Kline> seriesB =
-              binanceClient.getKlines(symbolB, CORR_INTERVAL, tradingProps.getAllocator().getCorrLookbackDays() + 1);
-      double value = computeCorrelation(seriesA, seriesB);
+      int bars =
+          Math.min(CandleStore.CAPACITY, tradingProps.getAllocator().getCorrLookbackDays() + 1);
+      double[] closesA = candleStore.window(symbolA, CORR_INTERVAL, bars).candles().closes();
+      double[] closesB = candleStore.window(symbolB, CORR_INTERVAL, bars).candles().closes();
+      double value = computeCorrelation(closesA, closesB);
       correlationCache.put(key, new CachedCorrelation(value, Instant.now()));
       return value;
     } catch (Exception ex) {
-      log.debug("Unable to compute correlation between {} and {}: {}", symbolA, symbolB, ex.getMessage());
+      log.debug(
+          "Unable to compute correlation between {} and {}: {}", symbolA, symbolB, ex.getMessage());
       return Double.NaN;
     }
   }
 
-  private double computeCorrelation(
-          List<com.bottrading.model.dto.Kline> seriesA, List<com.bottrading.model.dto.Kline> seriesB) {
-    if (seriesA == null || seriesB == null || seriesA.size() < 3 || seriesB.size() < 3) {
+  private double computeCorrelation(double[] closesA, double[] closesB) {
+    if (closesA.length < 3 || closesB.length < 3) {
       return Double.NaN;
     }
-    int length = Math.min(seriesA.size(), seriesB.size());
+    int length = Math.min(closesA.length, closesB.length);
     double[] returnsA = new double[length - 1];
     double[] returnsB = new double[length - 1];
     for (int i = 1; i < length; i++) {
-      double prevA = seriesA.get(i - 1).close().doubleValue();
-      double currA = seriesA.get(i).close().doubleValue();
-      double prevB = seriesB.get(i - 1).close().doubleValue();
-      double currB = seriesB.get(i).close().doubleValue();
+      double prevA = closesA[i - 1];
+      double currA = closesA[i];
+      double prevB = closesB[i - 1];
+      double currB = closesB[i];
       returnsA[i - 1] = safeLogReturn(currA, prevA);
       returnsB[i - 1] = safeLogReturn(currB, prevB);
     }
@@ -231,5 +273,6 @@ public class AllocatorService {
     // Accessors (allowed(), reason(), sizingMultiplier()) los genera el record automáticamente.
   }
 
-  public record AllocationStatus(String symbol, boolean allowed, String reason, double sizingMultiplier) {}
+  public record AllocationStatus(
+      String symbol, boolean allowed, String reason, double sizingMultiplier) {}
 }
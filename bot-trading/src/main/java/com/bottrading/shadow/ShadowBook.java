@@ -0,0 +1,86 @@
+package com.bottrading.shadow;
+
+import com.bottrading.model.entity.ShadowPositionEntity;
+import com.bottrading.model.enums.OrderSide;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * Open shadow positions of one symbol, indexed by the price levels that close them. Every stop and
+ * take-profit is a leg in one of two sorted sets: legs that fire when price falls to or through
+ * them (long stops, short targets) and legs that fire when price rises to or through them (long
+ * targets, short stops). A tick walks only the triggered end of each set, so it costs O(log n +
+ * hits). Stops win over targets when both fire on the same tick.
+ */
+final class ShadowBook {
+
+  record Hit(ShadowPositionEntity position, boolean stop) {}
+
+  private record Leg(BigDecimal level, long seq, ShadowPositionEntity position, boolean stop) {}
+
+  private static final Comparator<Leg> ORDER =
+      Comparator.comparing(Leg::level).thenComparingLong(Leg::seq);
+
+  private final NavigableSet<Leg> fallingTo = new TreeSet<>(ORDER);
+  private final NavigableSet<Leg> risingTo = new TreeSet<>(ORDER);
+  private final Map<ShadowPositionEntity, List<Leg>> legs = new IdentityHashMap<>();
+  private long seq;
+
+  synchronized void add(ShadowPositionEntity position) {
+    if (legs.containsKey(position)) {
+      return;
+    }
+    boolean buy = position.getSide() != OrderSide.SELL;
+    List<Leg> added = new ArrayList<>(2);
+    long id = seq++;
+    if (position.getStopLoss() != null) {
+      Leg leg = new Leg(position.getStopLoss(), id, position, true);
+      (buy ? fallingTo : risingTo).add(leg);
+      added.add(leg);
+    }
+    if (position.getTakeProfit() != null) {
+      Leg leg = new Leg(position.getTakeProfit(), id, position, false);
+      (buy ? risingTo : fallingTo).add(leg);
+      added.add(leg);
+    }
+    legs.put(position, added);
+  }
+
+  /** Removes and returns the positions closed by {@code price}. */
+  synchronized List<Hit> hits(BigDecimal price) {
+    if (legs.isEmpty()) {
+      return List.of();
+    }
+    List<Leg> triggered = new ArrayList<>();
+    // levels >= price have been reached from above, levels <= price from below
+    fallingTo.tailSet(new Leg(price, Long.MIN_VALUE, null, false), true).forEach(triggered::add);
+    risingTo.headSet(new Leg(price, Long.MAX_VALUE, null, false), true).forEach(triggered::add);
+    if (triggered.isEmpty()) {
+      return List.of();
+    }
+    triggered.sort(Comparator.comparing((Leg leg) -> !leg.stop()).thenComparingLong(Leg::seq));
+    List<Hit> result = new ArrayList<>();
+    for (Leg leg : triggered) {
+      List<Leg> positionLegs = legs.remove(leg.position());
+      if (positionLegs == null) {
+        continue;
+      }
+      for (Leg other : positionLegs) {
+        fallingTo.remove(other);
+        risingTo.remove(other);
+      }
+      result.add(new Hit(leg.position(), leg.stop()));
+    }
+    return result;
+  }
+
+  synchronized int size() {
+    return legs.size();
+  }
+}
@@ -6,25 +6,47 @@ import com.bottrading.model.entity.ShadowPositionEntity;
 import com.bottrading.model.enums.OrderSide;
 import com.bottrading.model.enums.PositionStatus;
 import com.bottrading.notify.TelegramNotifier;
+import com.bottrading.persistence.WriteBehindWriter;
 import com.bottrading.repository.ShadowPositionRepository;
+import com.bottrading.service.risk.VarSampleStore;
+import com.bottrading.service.risk.drift.DriftWatchdog;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
-import com.bottrading.service.risk.drift.DriftWatchdog;
+import jakarta.annotation.PostConstruct;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.Clock;
 import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+/**
+ * Open shadow positions live in per-symbol {@link ShadowBook}s loaded once at startup, so price
+ * ticks from the market stream resolve stop and target hits without reading the database. Opens are
+ * saved synchronously to obtain the row id; closes are written behind.
+ */
 @Service
 public class ShadowEngine {
 
+  private static final Logger log = LoggerFactory.getLogger(ShadowEngine.class);
+  private static final WriteBehindWriter.Statement UPDATE_CLOSE =
+      new WriteBehindWriter.Statement(
+          "shadow_positions",
+          "UPDATE shadow_positions SET exit_price = :exitPrice, closed_at = :closedAt,"
+              + " status = :status, realized_pnl = :realizedPnl, trades = :trades WHERE id = :id");
+
   private final ShadowProperties properties;
   private final ShadowPositionRepository repository;
   private final TelegramNotifier notifier;
@@ -33,6 +55,11 @@ public class ShadowEngine {
   private final ConcurrentMap<String, BigDecimal> livePnl = new ConcurrentHashMap<>();
   private final ConcurrentMap<String, BigDecimal> shadowPnl = new ConcurrentHashMap<>();
   private final DriftWatchdog driftWatchdog;
+  private final WriteBehindWriter writeBehindWriter;
+  private final VarSampleStore varSampleStore;
+  private final MeterRegistry meterRegistry;
+  private final ConcurrentMap<String, ShadowBook> books = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, AtomicLong> closedTrades = new ConcurrentHashMap<>();
 
   public ShadowEngine(
       ShadowProperties properties,
@@ -40,21 +67,48 @@ public class ShadowEngine {
       TelegramNotifier notifier,
       MeterRegistry meterRegistry,
       Optional<Clock> clock,
-      DriftWatchdog driftWatchdog) {
+      DriftWatchdog driftWatchdog,
+      WriteBehindWriter writeBehindWriter,
+      VarSampleStore varSampleStore) {
     this.properties = properties;
     this.repository = repository;
     this.notifier = notifier;
     this.clock = clock.orElse(Clock.systemUTC());
     this.driftWatchdog = driftWatchdog;
+    this.writeBehindWriter = writeBehindWriter;
+    this.varSampleStore = varSampleStore;
+    this.meterRegistry = meterRegistry;
     this.divergenceAlerts = meterRegistry.counter("shadow.divergence.alerts");
-    Gauge.builder("shadow.pnl.live", () -> livePnl.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add).doubleValue())
+    Gauge.builder(
+            "shadow.pnl.live",
+            () -> livePnl.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add).doubleValue())
         .register(meterRegistry);
     Gauge.builder(
             "shadow.pnl.shadow",
-            () -> shadowPnl.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add).doubleValue())
+            () ->
+                shadowPnl.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add).doubleValue())
+        .register(meterRegistry);
+    Gauge.builder(
+            "shadow.positions.open",
+            books,
+            b -> b.values().stream().mapToInt(ShadowBook::size).sum())
         .register(meterRegistry);
   }
 
+  @PostConstruct
+  public void loadOpenPositions() {
+    if (!isEnabled()) {
+      return;
+    }
+    try {
+      List<ShadowPositionEntity> open = repository.findByStatus(PositionStatus.OPEN);
+      open.forEach(position -> book(position.getSymbol()).add(position));
+      log.info("Loaded {} open shadow positions", open.size());
+    } catch (RuntimeException ex) {
+      log.warn("Failed to load open shadow positions: {}", ex.getMessage());
+    }
+  }
+
   public boolean isEnabled() {
     return properties.isEnabled();
   }
@@ -84,39 +138,32 @@ public class ShadowEngine {
     entity.setRegimeVolatility(regimeVolatility);
     entity.setPresetKey(presetKey);
     entity.setPresetId(presetId);
-    return repository.save(entity);
+    ShadowPositionEntity saved = repository.save(entity);
+    book(symbol).add(saved);
+    return saved;
+  }
+
+  /** Stream entry point; skips the decimal conversion when the symbol has nothing open. */
+  public void onPriceUpdate(String symbol, double price) {
+    ShadowBook book = books.get(symbol);
+    if (book == null || book.size() == 0 || !Double.isFinite(price)) {
+      return;
+    }
+    onPriceUpdate(symbol, BigDecimal.valueOf(price));
   }
 
   public void onPriceUpdate(String symbol, BigDecimal price) {
     if (!isEnabled()) {
       return;
     }
-    List<ShadowPositionEntity> openPositions = repository.findBySymbolOrderByOpenedAtDesc(symbol);
-    for (ShadowPositionEntity position : openPositions) {
-      if (position.getStatus() != PositionStatus.OPEN) {
-        continue;
-      }
-      boolean hit = false;
-      if (position.getSide() == OrderSide.BUY) {
-        if (price.compareTo(position.getStopLoss()) <= 0) {
-          closeShadow(position, price);
-          hit = true;
-        } else if (price.compareTo(position.getTakeProfit()) >= 0) {
-          closeShadow(position, price);
-          hit = true;
-        }
-      } else {
-        if (price.compareTo(position.getStopLoss()) >= 0) {
-          closeShadow(position, price);
-          hit = true;
-        } else if (price.compareTo(position.getTakeProfit()) <= 0) {
-          closeShadow(position, price);
-          hit = true;
-        }
-      }
-      if (hit) {
-        evaluateDivergence(symbol);
-      }
+    ShadowBook book = books.get(symbol);
+    if (book == null) {
+      return;
+    }
+    for (ShadowBook.Hit hit : book.hits(price)) {
+      meterRegistry.counter("shadow.closes", "reason", hit.stop() ? "stop" : "target").increment();
+      closeShadow(hit.position(), price);
+      evaluateDivergence(symbol);
     }
   }
 
@@ -142,7 +189,19 @@ public class ShadowEngine {
     pnl = pnl.multiply(position.getQuantity()).setScale(8, RoundingMode.HALF_UP);
     position.setRealizedPnl(pnl);
     position.setTrades(position.getTrades() + 1);
-    repository.save(position);
+    // seed the count before the row can be flushed so this close is not counted twice
+    AtomicLong trades = closedTrades(position.getSymbol());
+    Map<String, Object> params = new LinkedHashMap<>();
+    params.put("id", position.getId());
+    params.put("exitPrice", exitPrice);
+    params.put("closedAt", LocalDateTime.ofInstant(position.getClosedAt(), ZoneOffset.UTC));
+    params.put("status", PositionStatus.CLOSED.name());
+    params.put("realizedPnl", pnl);
+    params.put("trades", position.getTrades());
+    writeBehindWriter.enqueue(UPDATE_CLOSE, params);
+    trades.incrementAndGet();
+    // closed shadow trades are part of the VaR sample universe
+    varSampleStore.onShadowClosed(position);
     registerShadowFill(position.getSymbol(), pnl);
   }
 
@@ -151,8 +210,9 @@ public class ShadowEngine {
     BigDecimal shadow = shadowPnl.getOrDefault(symbol, BigDecimal.ZERO);
     BigDecimal diff = shadow.subtract(live);
     BigDecimal base = live.abs().max(BigDecimal.ONE);
-    BigDecimal diffPct = diff.divide(base, 8, RoundingMode.HALF_UP).multiply(BigDecimal.valueOf(100));
-    long trades = repository.findBySymbolOrderByOpenedAtDesc(symbol).stream().filter(p -> p.getStatus() != PositionStatus.OPEN).count();
+    BigDecimal diffPct =
+        diff.divide(base, 8, RoundingMode.HALF_UP).multiply(BigDecimal.valueOf(100));
+    long trades = closedTrades(symbol).get();
     if (diffPct.abs().compareTo(properties.getDivergencePctThreshold()) >= 0
         && trades >= properties.getDivergenceMinTrades()) {
       notifier.notifyDivergence(symbol, live, shadow, diffPct);
@@ -160,6 +220,21 @@ public class ShadowEngine {
     }
   }
 
+  private ShadowBook book(String symbol) {
+    return books.computeIfAbsent(symbol, ignored -> new ShadowBook());
+  }
+
+  /** Seeded from the table on first use, then counted in memory as positions close. */
+  private AtomicLong closedTrades(String symbol) {
+    AtomicLong count = closedTrades.get(symbol);
+    if (count != null) {
+      return count;
+    }
+    long persisted = repository.countBySymbolAndStatus(symbol, PositionStatus.CLOSED);
+    count = closedTrades.putIfAbsent(symbol, new AtomicLong(persisted));
+    return count != null ? count : closedTrades.get(symbol);
+  }
+
   public ShadowStatus status(String symbol) {
     List<ShadowPositionEntity> positions = repository.findBySymbolOrderByOpenedAtDesc(symbol);
     BigDecimal live = livePnl.getOrDefault(symbol, BigDecimal.ZERO);
@@ -167,5 +242,6 @@ public class ShadowEngine {
     return new ShadowStatus(live, shadow, positions);
   }
 
-  public record ShadowStatus(BigDecimal livePnl, BigDecimal shadowPnl, List<ShadowPositionEntity> positions) {}
+  public record ShadowStatus(
+      BigDecimal livePnl, BigDecimal shadowPnl, List<ShadowPositionEntity> positions) {}
 }
@@ -0,0 +1,248 @@
+package com.bottrading.strategy;
+
+import com.bottrading.model.dto.Kline;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/** Columnar, read-only OHLCV candles; views share the backing arrays with their parent. */
+public final class CandleSeries {
+
+  private static final CandleSeries EMPTY =
+      new CandleSeries(
+          new long[0],
+          new double[0],
+          new double[0],
+          new double[0],
+          new double[0],
+          new double[0],
+          0,
+          0,
+          null);
+
+  private final long[] openTimes;
+  private final double[] opens;
+  private final double[] highs;
+  private final double[] lows;
+  private final double[] closes;
+  private final double[] volumes;
+  private final int offset;
+  private final int length;
+  private final IndicatorCache indicators;
+
+  private CandleSeries(
+      long[] openTimes,
+      double[] opens,
+      double[] highs,
+      double[] lows,
+      double[] closes,
+      double[] volumes,
+      int offset,
+      int length,
+      IndicatorCache indicators) {
+    this.openTimes = openTimes;
+    this.opens = opens;
+    this.highs = highs;
+    this.lows = lows;
+    this.closes = closes;
+    this.volumes = volumes;
+    this.offset = offset;
+    this.length = length;
+    this.indicators = indicators;
+  }
+
+  public static CandleSeries empty() {
+    return EMPTY;
+  }
+
+  /** Wraps the given columns without copying; callers must not mutate them afterwards. */
+  public static CandleSeries of(
+      long[] openTimes,
+      double[] opens,
+      double[] highs,
+      double[] lows,
+      double[] closes,
+      double[] volumes) {
+    int length = openTimes.length;
+    if (opens.length != length
+        || highs.length != length
+        || lows.length != length
+        || closes.length != length
+        || volumes.length != length) {
+      throw new IllegalArgumentException("Candle columns must have the same length");
+    }
+    return new CandleSeries(openTimes, opens, highs, lows, closes, volumes, 0, length, null);
+  }
+
+  public static CandleSeries fromKlines(List<Kline> klines) {
+    if (klines == null || klines.isEmpty()) {
+      return EMPTY;
+    }
+    int size = klines.size();
+    long[] openTimes = new long[size];
+    double[] opens = new double[size];
+    double[] highs = new double[size];
+    double[] lows = new double[size];
+    double[] closes = new double[size];
+    double[] volumes = new double[size];
+    for (int i = 0; i < size; i++) {
+      Kline kline = klines.get(i);
+      openTimes[i] = kline.openTime() == null ? 0L : kline.openTime().toEpochMilli();
+      opens[i] = kline.open().doubleValue();
+      highs[i] = kline.high().doubleValue();
+      lows[i] = kline.low().doubleValue();
+      closes[i] = kline.close().doubleValue();
+      volumes[i] = kline.volume().doubleValue();
+    }
+    return new CandleSeries(openTimes, opens, highs, lows, closes, volumes, 0, size, null);
+  }
+
+  /** Adapter for Binance-style rows: openTime, open, high, low, close, volume. */
+  public static CandleSeries fromStrings(List<String[]> klines) {
+    if (klines == null || klines.isEmpty()) {
+      return EMPTY;
+    }
+    int size = klines.size();
+    long[] openTimes = new long[size];
+    double[] opens = new double[size];
+    double[] highs = new double[size];
+    double[] lows = new double[size];
+    double[] closes = new double[size];
+    double[] volumes = new double[size];
+    for (int i = 0; i < size; i++) {
+      String[] row = klines.get(i);
+      openTimes[i] = Long.parseLong(row[0]);
+      opens[i] = Double.parseDouble(row[1]);
+      highs[i] = Double.parseDouble(row[2]);
+      lows[i] = Double.parseDouble(row[3]);
+      closes[i] = Double.parseDouble(row[4]);
+      volumes[i] = row.length > 5 ? Double.parseDouble(row[5]) : 0.0;
+    }
+    return new CandleSeries(openTimes, opens, highs, lows, closes, volumes, 0, size, null);
+  }
+
+  public int size() {
+    return length;
+  }
+
+  public boolean isEmpty() {
+    return length == 0;
+  }
+
+  public long openTime(int index) {
+    return openTimes[offset + checkIndex(index)];
+  }
+
+  public double open(int index) {
+    return opens[offset + checkIndex(index)];
+  }
+
+  public double high(int index) {
+    return highs[offset + checkIndex(index)];
+  }
+
+  public double low(int index) {
+    return lows[offset + checkIndex(index)];
+  }
+
+  public double close(int index) {
+    return closes[offset + checkIndex(index)];
+  }
+
+  public double volume(int index) {
+    return volumes[offset + checkIndex(index)];
+  }
+
+  public double lastClose() {
+    return close(length - 1);
+  }
+
+  /**
+   * Column accessors return the backing array when the view spans it entirely and a copy of the
+   * visible range otherwise. The returned arrays must be treated as read-only.
+   */
+  public long[] openTimes() {
+    return column(openTimes);
+  }
+
+  public double[] opens() {
+    return column(opens);
+  }
+
+  public double[] highs() {
+    return column(highs);
+  }
+
+  public double[] lows() {
+    return column(lows);
+  }
+
+  public double[] closes() {
+    return column(closes);
+  }
+
+  public double[] volumes() {
+    return column(volumes);
+  }
+
+  /** Returns a zero-copy view over {@code [from, to)} of this series. */
+  public CandleSeries view(int from, int to) {
+    Objects.checkFromToIndex(from, to, length);
+    if (from == 0 && to == length) {
+      return this;
+    }
+    return new CandleSeries(
+        openTimes, opens, highs, lows, closes, volumes, offset + from, to - from, indicators);
+  }
+
+  /** Returns a zero-copy view over the first {@code count} candles. */
+  public CandleSeries head(int count) {
+    return view(0, Math.min(Math.max(count, 0), length));
+  }
+
+  /** Returns a zero-copy view over the last {@code count} candles. */
+  public CandleSeries tail(int count) {
+    int bounded = Math.min(Math.max(count, 0), length);
+    return view(length - bounded, length);
+  }
+
+  /**
+   * Returns this series with a memoized indicator cache attached. Views that start at the same
+   * candle (prefixes) share it, so repeated evaluations reuse full-length indicator arrays.
+   */
+  public CandleSeries withIndicatorCache() {
+    CandleSeries base =
+        new CandleSeries(openTimes, opens, highs, lows, closes, volumes, offset, length, null);
+    return new CandleSeries(
+        openTimes, opens, highs, lows, closes, volumes, offset, length, new IndicatorCache(base));
+  }
+
+  /**
+   * Cache whose arrays are index-aligned with this series, or {@code null} when none is attached or
+   * this view does not start where the cached series starts.
+   */
+  public IndicatorCache indicators() {
+    if (indicators == null || indicators.base().offset != offset) {
+      return null;
+    }
+    return indicators;
+  }
+
+  private int checkIndex(int index) {
+    return Objects.checkIndex(index, length);
+  }
+
+  private long[] column(long[] values) {
+    if (offset == 0 && length == values.length) {
+      return values;
+    }
+    return Arrays.copyOfRange(values, offset, offset + length);
+  }
+
+  private double[] column(double[] values) {
+    if (offset == 0 && length == values.length) {
+      return values;
+    }
+    return Arrays.copyOfRange(values, offset, offset + length);
+  }
+}
@@ -12,6 +12,7 @@ public class CompositeStrategy {
   private final List<Signal> filters = new ArrayList<>();
   private double buyThreshold = 1.0;
   private double sellThreshold = 1.0;
+  private int lookback;
 
   public CompositeStrategy addSignal(Signal signal, double weight) {
     Objects.requireNonNull(signal, "signal");
@@ -23,11 +24,7 @@ public class CompositeStrategy {
   }
 
   public CompositeStrategy addSignalForSides(
-      Signal signal,
-      double buyWeight,
-      double sellWeight,
-      boolean buyEnabled,
-      boolean sellEnabled) {
+      Signal signal, double buyWeight, double sellWeight, boolean buyEnabled, boolean sellEnabled) {
     Objects.requireNonNull(signal, "signal");
     if (buyWeight < 0 || sellWeight < 0) {
       throw new IllegalArgumentException("weights must be non-negative");
@@ -48,11 +45,32 @@ public class CompositeStrategy {
     return this;
   }
 
+  /** Caps the candles handed to signals to the last {@code bars}; 0 keeps the full history. */
+  public CompositeStrategy lookback(int bars) {
+    if (bars < 0) {
+      throw new IllegalArgumentException("lookback must be non-negative");
+    }
+    this.lookback = bars;
+    return this;
+  }
+
+  public int lookback() {
+    return lookback;
+  }
+
   public SignalResult evaluate(List<String[]> klines) {
-    return evaluate(klines, StrategyContext.builder().symbol("UNKNOWN").build());
+    return evaluate(CandleSeries.fromStrings(klines));
   }
 
   public SignalResult evaluate(List<String[]> klines, StrategyContext context) {
+    return evaluate(CandleSeries.fromStrings(klines), context);
+  }
+
+  public SignalResult evaluate(CandleSeries candles) {
+    return evaluate(candles, StrategyContext.builder().symbol("UNKNOWN").build());
+  }
+
+  public SignalResult evaluate(CandleSeries candles, StrategyContext context) {
     StrategyContext ctx = context;
     if (ctx == null) {
       ctx = StrategyContext.builder().symbol("UNKNOWN").build();
@@ -62,7 +80,7 @@ public class CompositeStrategy {
 
     for (Signal filter : filters) {
       filter.applyContext(ctx);
-      SignalResult result = filter.evaluate(klines);
+      SignalResult result = filter.evaluate(candles);
       if (result != null && !result.note().isBlank()) {
         notes.add("[" + filter.name() + "] " + result.note());
       }
@@ -78,7 +96,7 @@ public class CompositeStrategy {
 
     for (WeightedSignal weighted : signals) {
       weighted.signal().applyContext(ctx);
-      SignalResult result = weighted.signal().evaluate(klines);
+      SignalResult result = weighted.signal().evaluate(candles);
       if (result == null) {
         continue;
       }
@@ -137,5 +155,9 @@ public class CompositeStrategy {
   }
 
   private record WeightedSignal(
-      Signal signal, double buyWeight, double sellWeight, boolean buyEnabled, boolean sellEnabled) {}
+      Signal signal,
+      double buyWeight,
+      double sellWeight,
+      boolean buyEnabled,
+      boolean sellEnabled) {}
 }
@@ -0,0 +1,157 @@
+package com.bottrading.strategy;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Thread-safe memo of full-length indicator arrays keyed by (indicator, params). All {@link Series}
+ * functions are causal, so the value at index {@code i} equals what a batch computation over the
+ * first {@code i + 1} candles would produce. Returned arrays are shared and must not be mutated.
+ * The memo keeps at most {@code capacity} arrays and evicts the least recently used one, so a long
+ * parameter search over one dataset does not pin an array per parameter combination it ever tried.
+ */
+public final class IndicatorCache {
+
+  public static final int DEFAULT_CAPACITY = 64;
+
+  private final CandleSeries base;
+  private final Map<Key, double[]> values;
+
+  IndicatorCache(CandleSeries base) {
+    this(base, DEFAULT_CAPACITY);
+  }
+
+  IndicatorCache(CandleSeries base, int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be positive");
+    }
+    this.base = base;
+    this.values =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<Key, double[]> eldest) {
+            return size() > capacity;
+          }
+        };
+  }
+
+  CandleSeries base() {
+    return base;
+  }
+
+  public synchronized int size() {
+    return values.size();
+  }
+
+  public double[] sma(int period) {
+    return get("sma", () -> Series.sma(base.closes(), period), period);
+  }
+
+  public double[] ema(int period) {
+    return get("ema", () -> Series.ema(base.closes(), period), period);
+  }
+
+  public double[] rsi(int period) {
+    return get("rsi", () -> Series.rsi(base.closes(), period), period);
+  }
+
+  public double[] standardDeviation(int period) {
+    return get("stddev", () -> Series.standardDeviation(base.closes(), period), period);
+  }
+
+  public double[] macd(int fastPeriod, int slowPeriod) {
+    return get(
+        "macd",
+        () -> {
+          double[] fast = ema(fastPeriod);
+          double[] slow = ema(slowPeriod);
+          double[] macd = new double[fast.length];
+          for (int i = 0; i < macd.length; i++) {
+            macd[i] = fast[i] - slow[i];
+          }
+          return macd;
+        },
+        fastPeriod,
+        slowPeriod);
+  }
+
+  public double[] macdSignal(int fastPeriod, int slowPeriod, int signalPeriod) {
+    return get(
+        "macdSignal",
+        () -> Series.ema(macd(fastPeriod, slowPeriod), signalPeriod),
+        fastPeriod,
+        slowPeriod,
+        signalPeriod);
+  }
+
+  public double[] atr(int period) {
+    return get("atr", () -> Series.atr(base.highs(), base.lows(), base.closes(), period), period);
+  }
+
+  public double[] stochasticK(int period) {
+    return get(
+        "stochK",
+        () -> Series.stochasticK(base.closes(), base.highs(), base.lows(), period),
+        period);
+  }
+
+  public double[] stochasticD(int kPeriod, int dPeriod) {
+    return get("stochD", () -> Series.smooth(stochasticK(kPeriod), dPeriod), kPeriod, dPeriod);
+  }
+
+  public double[] adx(int period) {
+    return get("adx", () -> Series.adx(base.highs(), base.lows(), base.closes(), period), period);
+  }
+
+  public double[] supertrendUpper(int atrPeriod, double multiplier) {
+    return supertrend(atrPeriod, multiplier, 0);
+  }
+
+  public double[] supertrendLower(int atrPeriod, double multiplier) {
+    return supertrend(atrPeriod, multiplier, 1);
+  }
+
+  /** 1 while the trend is up, 0 while it is down. */
+  public double[] supertrendDirection(int atrPeriod, double multiplier) {
+    return supertrend(atrPeriod, multiplier, 2);
+  }
+
+  public double[] vwap() {
+    return get("vwap", () -> Series.cumulativeVwap(base.closes(), base.volumes()));
+  }
+
+  private double[] supertrend(int atrPeriod, double multiplier, int component) {
+    return get(
+        "supertrend" + component,
+        () ->
+            Series.supertrend(base.highs(), base.lows(), base.closes(), atr(atrPeriod), multiplier)[
+                component],
+        atrPeriod,
+        multiplier);
+  }
+
+  /**
+   * Returns the cached array for the key, computing it on first use. Dependencies are resolved
+   * outside the lock so derived indicators can build on cached ones; a race may compute an entry
+   * twice but only one instance is published while it stays cached.
+   */
+  public double[] get(String indicator, Supplier<double[]> compute, double... params) {
+    Key key = new Key(indicator, Arrays.stream(params).boxed().toList());
+    synchronized (this) {
+      double[] cached = values.get(key);
+      if (cached != null) {
+        return cached;
+      }
+    }
+    double[] computed = compute.get();
+    synchronized (this) {
+      double[] previous = values.putIfAbsent(key, computed);
+      return previous != null ? previous : computed;
+    }
+  }
+
+  private record Key(String indicator, List<Double> params) {}
+}
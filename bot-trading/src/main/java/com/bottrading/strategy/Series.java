@@ -190,6 +190,60 @@ public final class Series {
     return result;
   }
 
+  public static double[] adx(double[] highs, double[] lows, double[] closes, int period) {
+    double[] atr = atr(highs, lows, closes, period);
+    double[] plusSmoothed = ema(plusDirectionalMovement(highs, lows), period);
+    double[] minusSmoothed = ema(minusDirectionalMovement(highs, lows), period);
+    int len = closes.length;
+    double[] plusDi = new double[len];
+    double[] minusDi = new double[len];
+    for (int i = 0; i < len; i++) {
+      double atrValue = atr[i];
+      if (atrValue <= 0) {
+        plusDi[i] = 0;
+        minusDi[i] = 0;
+      } else {
+        plusDi[i] = 100 * (plusSmoothed[i] / atrValue);
+        minusDi[i] = 100 * (minusSmoothed[i] / atrValue);
+      }
+    }
+    return ema(dx(plusDi, minusDi), period);
+  }
+
+  /**
+   * Supertrend bands over the given ATR. Returns {@code {upper, lower, direction}}, where direction
+   * is 1 while the trend is up and 0 while it is down.
+   */
+  public static double[][] supertrend(
+      double[] highs, double[] lows, double[] closes, double[] atr, double multiplier) {
+    int len = closes.length;
+    double[] upperBand = new double[len];
+    double[] lowerBand = new double[len];
+    double[] direction = new double[len];
+    for (int i = 0; i < len; i++) {
+      double hl2 = (highs[i] + lows[i]) / 2.0;
+      double basicUpper = hl2 + multiplier * atr[i];
+      double basicLower = hl2 - multiplier * atr[i];
+      if (i == 0) {
+        upperBand[i] = basicUpper;
+        lowerBand[i] = basicLower;
+        direction[i] = 1;
+        continue;
+      }
+      upperBand[i] =
+          (basicUpper < upperBand[i - 1] || closes[i - 1] > upperBand[i - 1])
+              ? basicUpper
+              : upperBand[i - 1];
+      lowerBand[i] =
+          (basicLower > lowerBand[i - 1] || closes[i - 1] < lowerBand[i - 1])
+              ? basicLower
+              : lowerBand[i - 1];
+      boolean up = direction[i - 1] > 0 ? closes[i] > lowerBand[i] : !(closes[i] > upperBand[i]);
+      direction[i] = up ? 1 : 0;
+    }
+    return new double[][] {upperBand, lowerBand, direction};
+  }
+
   public static double[] stochasticK(double[] closes, double[] highs, double[] lows, int period) {
     double[] k = new double[closes.length];
     for (int i = 0; i < closes.length; i++) {
@@ -244,6 +298,19 @@ public final class Series {
     return vol == 0 ? Double.NaN : pv / vol;
   }
 
+  /** Running VWAP: element {@code i} equals {@link #vwap} over the first {@code i + 1} values. */
+  public static double[] cumulativeVwap(double[] closes, double[] volumes) {
+    double[] result = new double[closes.length];
+    double pv = 0;
+    double vol = 0;
+    for (int i = 0; i < closes.length; i++) {
+      pv += closes[i] * volumes[i];
+      vol += volumes[i];
+      result[i] = vol == 0 ? Double.NaN : pv / vol;
+    }
+    return result;
+  }
+
   public static List<String> toNotes(List<SignalResult> results) {
     List<String> notes = new ArrayList<>();
     for (SignalResult result : results) {
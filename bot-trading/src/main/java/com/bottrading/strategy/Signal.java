@@ -3,7 +3,12 @@ package com.bottrading.strategy;
 import java.util.List;
 
 public interface Signal {
-  SignalResult evaluate(List<String[]> klines);
+  SignalResult evaluate(CandleSeries candles);
+
+  /** String-row adapter kept for callers that still hold raw Binance klines. */
+  default SignalResult evaluate(List<String[]> klines) {
+    return evaluate(CandleSeries.fromStrings(klines));
+  }
 
   default String name() {
     return getClass().getSimpleName();
@@ -15,7 +15,6 @@ import com.bottrading.strategy.signals.StochasticSignal;
 import com.bottrading.strategy.signals.SupertrendSignal;
 import com.bottrading.strategy.signals.Volume24hFilter;
 import com.bottrading.strategy.signals.VwapSignal;
-import com.bottrading.strategy.Signal;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
@@ -41,8 +40,7 @@ public class StrategyFactory {
   private final TradingProps tradingProps;
   private volatile StrategyCatalog catalog;
 
-  public StrategyFactory(
-      ResourceLoader resourceLoader, TradingProps tradingProps) {
+  public StrategyFactory(ResourceLoader resourceLoader, TradingProps tradingProps) {
     this.resourceLoader = resourceLoader;
     this.tradingProps = tradingProps;
     this.catalog = loadFromYaml().orElseGet(this::fromDefaults);
@@ -143,6 +141,9 @@ public class StrategyFactory {
           if (presetMap.containsKey("signals")) {
             merged.put("signals", presetMap.get("signals"));
           }
+          if (presetMap.containsKey("lookback")) {
+            merged.put("lookback", presetMap.get("lookback"));
+          }
         }
         presets.put(entry.getKey(), buildComposite(merged));
       }
@@ -224,7 +225,8 @@ public class StrategyFactory {
       return null;
     }
     String type = config.get("type").toString().toUpperCase();
-    Map<String, Object> params = Optional.ofNullable(castMap(config.get("params"))).orElse(Map.of());
+    Map<String, Object> params =
+        Optional.ofNullable(castMap(config.get("params"))).orElse(Map.of());
     double confidence = readDouble(config.getOrDefault("confidence", 1.0), 1.0);
     return switch (type) {
       case "SMA_CROSS" ->
@@ -251,25 +253,28 @@ public class StrategyFactory {
               readInt(params.get("period"), 20), readDouble(params.get("stdDevs"), 2), confidence);
       case "SUPERTREND" ->
           new SupertrendSignal(
-              readInt(params.get("atrPeriod"), 10), readDouble(params.get("multiplier"), 3), confidence);
+              readInt(params.get("atrPeriod"), 10),
+              readDouble(params.get("multiplier"), 3),
+              confidence);
       case "STOCHASTIC" ->
           new StochasticSignal(
               readInt(params.get("k"), 14), readInt(params.get("d"), 3), confidence);
-      case "DONCHIAN" ->
-          new DonchianChannelSignal(readInt(params.get("period"), 20), confidence);
+      case "DONCHIAN" -> new DonchianChannelSignal(readInt(params.get("period"), 20), confidence);
       case "VWAP" ->
           new VwapSignal(
               readBoolean(params.getOrDefault("confirmation", Boolean.FALSE), false),
               readInt(params.get("confirmationBars"), 3),
               confidence);
       case "ATR_FILTER" ->
-          new AtrVolatilityFilter(readInt(params.get("period"), 14), readDouble(params.get("minAtr"), 5));
+          new AtrVolatilityFilter(
+              readInt(params.get("period"), 14), readDouble(params.get("minAtr"), 5));
       case "ADX_FILTER" ->
           new AdxFilter(readInt(params.get("period"), 14), readDouble(params.get("minAdx"), 20));
       case "VOLUME24H_FILTER" ->
           new Volume24hFilter(
               params != null && params.containsKey("minVolume")
-                  ? readDouble(params.get("minVolume"), tradingProps.getMinVolume24h().doubleValue())
+                  ? readDouble(
+                      params.get("minVolume"), tradingProps.getMinVolume24h().doubleValue())
                   : tradingProps.getMinVolume24h().doubleValue());
       default -> {
         log.warn("Unknown signal type {}", type);
@@ -289,6 +294,9 @@ public class StrategyFactory {
     if (rootMap.containsKey("signals")) {
       base.put("signals", rootMap.get("signals"));
     }
+    if (rootMap.containsKey("lookback")) {
+      base.put("lookback", rootMap.get("lookback"));
+    }
     return base;
   }
 
@@ -298,6 +306,7 @@ public class StrategyFactory {
     double buyThreshold = thresholds != null ? readDouble(thresholds.get("buy"), 1.0) : 1.0;
     double sellThreshold = thresholds != null ? readDouble(thresholds.get("sell"), 1.0) : 1.0;
     strategy.thresholds(buyThreshold, sellThreshold);
+    strategy.lookback(readInt(sections.get("lookback"), 0));
 
     List<Map<String, Object>> filters = castList(sections.get("filters"));
     if (filters != null) {
@@ -332,7 +341,8 @@ public class StrategyFactory {
     if (rulesConfig != null) {
       for (Map<String, Object> ruleConfig : rulesConfig) {
         Map<String, Object> when = castMap(ruleConfig.get("when"));
-        String preset = Optional.ofNullable(ruleConfig.get("use")).map(Object::toString).orElse("default");
+        String preset =
+            Optional.ofNullable(ruleConfig.get("use")).map(Object::toString).orElse("default");
         RegimeTrend trend = null;
         RegimeVolatility vol = null;
         if (when != null) {
@@ -342,7 +352,8 @@ public class StrategyFactory {
         rules.add(new RouterRule(trend, vol, preset));
       }
     }
-    String fallback = Optional.ofNullable(router.get("fallback")).map(Object::toString).orElse(null);
+    String fallback =
+        Optional.ofNullable(router.get("fallback")).map(Object::toString).orElse(null);
     int hysteresis = readInt(router.getOrDefault("hysteresis", 1), 1);
     return new RouterConfig(List.copyOf(rules), fallback, Math.max(1, hysteresis));
   }
@@ -392,7 +403,9 @@ public class StrategyFactory {
     }
 
     public CompositeStrategy strategy(String preset) {
-      return presets.getOrDefault(preset, presets.getOrDefault(defaultPreset, presets.values().stream().findFirst().orElse(null)));
+      return presets.getOrDefault(
+          preset,
+          presets.getOrDefault(defaultPreset, presets.values().stream().findFirst().orElse(null)));
     }
 
     public Map<String, CompositeStrategy> presets() {
@@ -0,0 +1,96 @@
+package com.bottrading.strategy;
+
+import java.util.Objects;
+
+/**
+ * Base for signals that keep incremental indicator state. Each evaluation only feeds candles that
+ * were not seen before; when the series is not a continuation of the previous one (different
+ * symbol, shifted window, rewritten bar) the state is rebuilt from scratch, so results always equal
+ * the batch signal on the same input. Series carrying an {@link IndicatorCache} are answered by the
+ * optional batch twin instead, which reads the shared cached arrays.
+ */
+public abstract class StreamingSignal implements Signal {
+
+  private final String name;
+  private final Signal cached;
+  private String contextSymbol;
+  private String trackedSymbol;
+  private int consumed;
+  private long firstOpenTime;
+  private double firstClose;
+  private long lastOpenTime;
+  private double lastClose;
+
+  protected StreamingSignal(String name) {
+    this(name, null);
+  }
+
+  /** {@code cached} must be the batch equivalent and read {@link CandleSeries#indicators()}. */
+  protected StreamingSignal(String name, Signal cached) {
+    this.name = name;
+    this.cached = cached;
+  }
+
+  @Override
+  public String name() {
+    return name;
+  }
+
+  @Override
+  public synchronized void applyContext(StrategyContext context) {
+    this.contextSymbol = context == null ? null : context.symbol();
+    if (cached != null) {
+      cached.applyContext(context);
+    }
+  }
+
+  @Override
+  public final synchronized SignalResult evaluate(CandleSeries candles) {
+    if (candles == null) {
+      return current(null);
+    }
+    if (cached != null && candles.indicators() != null) {
+      return cached.evaluate(candles);
+    }
+    if (!continues(candles)) {
+      reset();
+      consumed = 0;
+      trackedSymbol = contextSymbol;
+    }
+    int size = candles.size();
+    for (int i = consumed; i < size; i++) {
+      onCandle(candles, i);
+    }
+    if (size > 0) {
+      firstOpenTime = candles.openTime(0);
+      firstClose = candles.close(0);
+      lastOpenTime = candles.openTime(size - 1);
+      lastClose = candles.close(size - 1);
+    }
+    consumed = size;
+    return current(candles);
+  }
+
+  /** Resets all indicator state before a replay. */
+  protected abstract void reset();
+
+  /** Advances indicator state with the candle at {@code index}. */
+  protected abstract void onCandle(CandleSeries candles, int index);
+
+  /** Builds the result for the latest consumed candle; {@code candles} may be null or short. */
+  protected abstract SignalResult current(CandleSeries candles);
+
+  private boolean continues(CandleSeries candles) {
+    if (consumed == 0 || candles.size() < consumed) {
+      return false;
+    }
+    if (!Objects.equals(trackedSymbol, contextSymbol)) {
+      return false;
+    }
+    int last = consumed - 1;
+    return candles.openTime(0) == firstOpenTime
+        && Double.compare(candles.close(0), firstClose) == 0
+        && candles.openTime(last) == lastOpenTime
+        && Double.compare(candles.close(last), lastClose) == 0;
+  }
+}
@@ -0,0 +1,91 @@
+package com.bottrading.strategy.indicators;
+
+/**
+ * Streaming ADX built the same way as {@code AdxFilter}: EMA-smoothed directional movement over
+ * Wilder ATR, then an EMA of DX.
+ */
+public final class Adx {
+
+  private final Atr atr;
+  private final Ema plusSmoothed;
+  private final Ema minusSmoothed;
+  private final Ema adx;
+  private double previousHigh;
+  private double previousLow;
+  private double plusDi;
+  private double minusDi;
+  private double dx;
+  private int count;
+
+  public Adx(int period) {
+    if (period <= 0) {
+      throw new IllegalArgumentException("ADX period must be positive");
+    }
+    this.atr = new Atr(period);
+    this.plusSmoothed = new Ema(period);
+    this.minusSmoothed = new Ema(period);
+    this.adx = new Ema(period);
+  }
+
+  public double update(double high, double low, double close) {
+    double plusDm = 0;
+    double minusDm = 0;
+    if (count > 0) {
+      double upMove = high - previousHigh;
+      double downMove = previousLow - low;
+      plusDm = (upMove > downMove && upMove > 0) ? upMove : 0;
+      double upMoveMinus = previousHigh - high;
+      double downMoveMinus = low - previousLow;
+      minusDm = (downMoveMinus > upMoveMinus && downMoveMinus > 0) ? downMoveMinus : 0;
+    }
+    previousHigh = high;
+    previousLow = low;
+    count++;
+    double atrValue = atr.update(high, low, close);
+    double plus = plusSmoothed.update(plusDm);
+    double minus = minusSmoothed.update(minusDm);
+    if (atrValue <= 0 || Double.isNaN(atrValue)) {
+      plusDi = 0;
+      minusDi = 0;
+    } else {
+      plusDi = 100 * (plus / atrValue);
+      minusDi = 100 * (minus / atrValue);
+    }
+    double denominator = plusDi + minusDi;
+    dx = denominator == 0 ? 0 : 100 * Math.abs(plusDi - minusDi) / denominator;
+    return adx.update(dx);
+  }
+
+  public double value() {
+    return adx.value();
+  }
+
+  public double dx() {
+    return dx;
+  }
+
+  public double plusDi() {
+    return plusDi;
+  }
+
+  public double minusDi() {
+    return minusDi;
+  }
+
+  public int count() {
+    return count;
+  }
+
+  public void reset() {
+    atr.reset();
+    plusSmoothed.reset();
+    minusSmoothed.reset();
+    adx.reset();
+    previousHigh = 0;
+    previousLow = 0;
+    plusDi = 0;
+    minusDi = 0;
+    dx = 0;
+    count = 0;
+  }
+}
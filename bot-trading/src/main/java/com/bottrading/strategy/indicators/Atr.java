@@ -0,0 +1,65 @@
+package com.bottrading.strategy.indicators;
+
+/**
+ * Streaming Wilder ATR matching {@link com.bottrading.strategy.Series#atr(double[], double[],
+ * double[], int)}, including its zero output during warmup.
+ */
+public final class Atr {
+
+  private final int period;
+  private double previousClose;
+  private double sumTr;
+  private double value;
+  private int count;
+
+  public Atr(int period) {
+    if (period <= 0) {
+      throw new IllegalArgumentException("ATR period must be positive");
+    }
+    this.period = period;
+  }
+
+  public double update(double high, double low, double close) {
+    int i = count;
+    count++;
+    if (i > 0) {
+      double tr = trueRange(high, low, previousClose);
+      if (i <= period) {
+        sumTr += tr;
+        if (i == period) {
+          value = sumTr / period;
+        }
+      } else {
+        value = ((value * (period - 1)) + tr) / period;
+      }
+    }
+    previousClose = close;
+    return value;
+  }
+
+  public double value() {
+    return value;
+  }
+
+  public int count() {
+    return count;
+  }
+
+  public boolean isReady() {
+    return count > period;
+  }
+
+  public void reset() {
+    previousClose = 0;
+    sumTr = 0;
+    value = 0;
+    count = 0;
+  }
+
+  private static double trueRange(double high, double low, double prevClose) {
+    double range1 = high - low;
+    double range2 = Math.abs(high - prevClose);
+    double range3 = Math.abs(low - prevClose);
+    return Math.max(range1, Math.max(range2, range3));
+  }
+}
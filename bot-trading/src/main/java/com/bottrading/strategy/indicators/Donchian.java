@@ -0,0 +1,56 @@
+package com.bottrading.strategy.indicators;
+
+/**
+ * Streaming Donchian channel over the {@code period} candles preceding the latest one, as used for
+ * breakout checks in {@code DonchianChannelSignal}.
+ */
+public final class Donchian {
+
+  private final int period;
+  private final RollingExtreme highest;
+  private final RollingExtreme lowest;
+  private double upper = Double.NaN;
+  private double lower = Double.NaN;
+  private int count;
+
+  public Donchian(int period) {
+    if (period <= 0) {
+      throw new IllegalArgumentException("Donchian period must be positive");
+    }
+    this.period = period;
+    this.highest = RollingExtreme.max(period);
+    this.lowest = RollingExtreme.min(period);
+  }
+
+  public void update(double high, double low) {
+    upper = highest.value();
+    lower = lowest.value();
+    highest.update(high);
+    lowest.update(low);
+    count++;
+  }
+
+  public double upper() {
+    return isReady() ? upper : Double.NaN;
+  }
+
+  public double lower() {
+    return isReady() ? lower : Double.NaN;
+  }
+
+  public int count() {
+    return count;
+  }
+
+  public boolean isReady() {
+    return count > period;
+  }
+
+  public void reset() {
+    highest.reset();
+    lowest.reset();
+    upper = Double.NaN;
+    lower = Double.NaN;
+    count = 0;
+  }
+}
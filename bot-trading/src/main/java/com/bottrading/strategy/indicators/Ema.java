@@ -0,0 +1,47 @@
+package com.bottrading.strategy.indicators;
+
+/** Streaming counterpart of {@link com.bottrading.strategy.Series#ema(double[], int)}. */
+public final class Ema {
+
+  private final int period;
+  private final double multiplier;
+  private double value;
+  private int count;
+
+  public Ema(int period) {
+    if (period <= 0) {
+      throw new IllegalArgumentException("EMA period must be positive");
+    }
+    this.period = period;
+    this.multiplier = 2.0 / (period + 1);
+  }
+
+  public double update(double price) {
+    if (count == 0) {
+      value = price;
+    } else if (count < period) {
+      value = value + (price - value) / (count + 1);
+    } else {
+      value = (price - value) * multiplier + value;
+    }
+    count++;
+    return value;
+  }
+
+  public double value() {
+    return count == 0 ? Double.NaN : value;
+  }
+
+  public int count() {
+    return count;
+  }
+
+  public boolean isReady() {
+    return count >= period;
+  }
+
+  public void reset() {
+    value = 0;
+    count = 0;
+  }
+}
@@ -0,0 +1,45 @@
+package com.bottrading.strategy.indicators;
+
+/** Streaming MACD line, signal line and histogram built from {@link Ema}. */
+public final class Macd {
+
+  private final Ema fast;
+  private final Ema slow;
+  private final Ema signal;
+  private double line = Double.NaN;
+
+  public Macd(int fastPeriod, int slowPeriod, int signalPeriod) {
+    this.fast = new Ema(fastPeriod);
+    this.slow = new Ema(slowPeriod);
+    this.signal = new Ema(signalPeriod);
+  }
+
+  public double update(double price) {
+    line = fast.update(price) - slow.update(price);
+    signal.update(line);
+    return line;
+  }
+
+  public double line() {
+    return line;
+  }
+
+  public double signal() {
+    return signal.value();
+  }
+
+  public double histogram() {
+    return line - signal.value();
+  }
+
+  public int count() {
+    return fast.count();
+  }
+
+  public void reset() {
+    fast.reset();
+    slow.reset();
+    signal.reset();
+    line = Double.NaN;
+  }
+}
@@ -0,0 +1,74 @@
+package com.bottrading.strategy.indicators;
+
+/** Sliding-window maximum or minimum backed by a primitive monotonic deque; O(1) amortized. */
+public final class RollingExtreme {
+
+  private final int window;
+  private final boolean maximum;
+  private final double[] values;
+  private final long[] positions;
+  private int head;
+  private int size;
+  private long next;
+
+  private RollingExtreme(int window, boolean maximum) {
+    if (window <= 0) {
+      throw new IllegalArgumentException("Window must be positive");
+    }
+    this.window = window;
+    this.maximum = maximum;
+    this.values = new double[window + 1];
+    this.positions = new long[window + 1];
+  }
+
+  public static RollingExtreme max(int window) {
+    return new RollingExtreme(window, true);
+  }
+
+  public static RollingExtreme min(int window) {
+    return new RollingExtreme(window, false);
+  }
+
+  public double update(double value) {
+    long position = next++;
+    while (size > 0 && positions[head] <= position - window) {
+      head = (head + 1) % values.length;
+      size--;
+    }
+    while (size > 0 && dominated(values[tail()], value)) {
+      size--;
+    }
+    int slot = (head + size) % values.length;
+    values[slot] = value;
+    positions[slot] = position;
+    size++;
+    return values[head];
+  }
+
+  /** Extreme over the last {@code window} values, or NaN before the first update. */
+  public double value() {
+    return size == 0 ? Double.NaN : values[head];
+  }
+
+  public long count() {
+    return next;
+  }
+
+  public boolean isFull() {
+    return next >= window;
+  }
+
+  public void reset() {
+    head = 0;
+    size = 0;
+    next = 0;
+  }
+
+  private int tail() {
+    return (head + size - 1) % values.length;
+  }
+
+  private boolean dominated(double existing, double incoming) {
+    return maximum ? existing <= incoming : existing >= incoming;
+  }
+}
@@ -0,0 +1,73 @@
+package com.bottrading.strategy.indicators;
+
+import java.util.Arrays;
+
+/**
+ * Streaming population standard deviation matching {@link
+ * com.bottrading.strategy.Series#standardDeviation(double[], int)}; also tracks the window mean.
+ */
+public final class RollingStdDev {
+
+  private final int period;
+  private final double[] window;
+  private double sum;
+  private double sumSq;
+  private double mean = Double.NaN;
+  private double value = Double.NaN;
+  private int count;
+
+  public RollingStdDev(int period) {
+    if (period <= 0) {
+      throw new IllegalArgumentException("Standard deviation period must be positive");
+    }
+    this.period = period;
+    this.window = new double[period];
+  }
+
+  public double update(double price) {
+    int slot = count % period;
+    double old = window[slot];
+    window[slot] = price;
+    sum += price;
+    sumSq += price * price;
+    if (count >= period) {
+      sum -= old;
+      sumSq -= old * old;
+    }
+    count++;
+    if (count >= period) {
+      mean = sum / period;
+      double variance = Math.max((sumSq / period) - (mean * mean), 0);
+      value = Math.sqrt(variance);
+    } else {
+      mean = Double.NaN;
+      value = Double.NaN;
+    }
+    return value;
+  }
+
+  public double value() {
+    return value;
+  }
+
+  public double mean() {
+    return mean;
+  }
+
+  public int count() {
+    return count;
+  }
+
+  public boolean isReady() {
+    return count >= period;
+  }
+
+  public void reset() {
+    Arrays.fill(window, 0);
+    sum = 0;
+    sumSq = 0;
+    mean = Double.NaN;
+    value = Double.NaN;
+    count = 0;
+  }
+}
@@ -0,0 +1,71 @@
+package com.bottrading.strategy.indicators;
+
+/** Streaming Wilder RSI matching {@link com.bottrading.strategy.Series#rsi(double[], int)}. */
+public final class Rsi {
+
+  private final int period;
+  private double previous;
+  private double gain;
+  private double loss;
+  private double value = Double.NaN;
+  private int count;
+
+  public Rsi(int period) {
+    if (period <= 0) {
+      throw new IllegalArgumentException("RSI period must be positive");
+    }
+    this.period = period;
+  }
+
+  public double update(double price) {
+    int i = count;
+    count++;
+    if (i == 0) {
+      previous = price;
+      value = 0;
+      return value;
+    }
+    double change = price - previous;
+    previous = price;
+    double currentGain = Math.max(change, 0);
+    double currentLoss = Math.max(-change, 0);
+    if (i <= period) {
+      gain += currentGain;
+      loss += currentLoss;
+      if (i == period) {
+        gain /= period;
+        loss /= period;
+      }
+    } else {
+      gain = (gain * (period - 1) + currentGain) / period;
+      loss = (loss * (period - 1) + currentLoss) / period;
+    }
+    if (i >= period) {
+      double rs = loss == 0 ? 100 : gain / loss;
+      value = 100 - (100 / (1 + rs));
+    } else {
+      value = Double.NaN;
+    }
+    return value;
+  }
+
+  public double value() {
+    return value;
+  }
+
+  public int count() {
+    return count;
+  }
+
+  public boolean isReady() {
+    return count > period;
+  }
+
+  public void reset() {
+    previous = 0;
+    gain = 0;
+    loss = 0;
+    value = Double.NaN;
+    count = 0;
+  }
+}
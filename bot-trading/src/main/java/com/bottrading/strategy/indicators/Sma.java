@@ -0,0 +1,53 @@
+package com.bottrading.strategy.indicators;
+
+import java.util.Arrays;
+
+/** Streaming counterpart of {@link com.bottrading.strategy.Series#sma(double[], int)}. */
+public final class Sma {
+
+  private final int period;
+  private final double[] window;
+  private double sum;
+  private double value = Double.NaN;
+  private int count;
+
+  public Sma(int period) {
+    if (period <= 0) {
+      throw new IllegalArgumentException("SMA period must be positive");
+    }
+    this.period = period;
+    this.window = new double[period];
+  }
+
+  public double update(double price) {
+    int slot = count % period;
+    double old = window[slot];
+    window[slot] = price;
+    sum += price;
+    if (count >= period) {
+      sum -= old;
+    }
+    count++;
+    value = count >= period ? sum / period : Double.NaN;
+    return value;
+  }
+
+  public double value() {
+    return value;
+  }
+
+  public int count() {
+    return count;
+  }
+
+  public boolean isReady() {
+    return count >= period;
+  }
+
+  public void reset() {
+    Arrays.fill(window, 0);
+    sum = 0;
+    value = Double.NaN;
+    count = 0;
+  }
+}
@@ -0,0 +1,82 @@
+package com.bottrading.strategy.indicators;
+
+import java.util.Arrays;
+
+/**
+ * Streaming %K/%D matching {@link com.bottrading.strategy.Series#stochasticK} and {@link
+ * com.bottrading.strategy.Series#smooth}; window extremes come from monotonic deques.
+ */
+public final class Stochastic {
+
+  private final int kPeriod;
+  private final int dPeriod;
+  private final RollingExtreme highest;
+  private final RollingExtreme lowest;
+  private final double[] dWindow;
+  private double dSum;
+  private int dCount;
+  private long kSeen;
+  private double k = Double.NaN;
+  private double d = Double.NaN;
+  private int count;
+
+  public Stochastic(int kPeriod, int dPeriod) {
+    if (kPeriod <= 0 || dPeriod <= 0) {
+      throw new IllegalArgumentException("Stochastic periods must be positive");
+    }
+    this.kPeriod = kPeriod;
+    this.dPeriod = dPeriod;
+    this.highest = RollingExtreme.max(kPeriod);
+    this.lowest = RollingExtreme.min(kPeriod);
+    this.dWindow = new double[dPeriod];
+  }
+
+  public double update(double high, double low, double close) {
+    double hi = highest.update(high);
+    double lo = lowest.update(low);
+    count++;
+    if (count < kPeriod) {
+      k = Double.NaN;
+      d = Double.NaN;
+      return k;
+    }
+    double range = hi - lo;
+    k = range == 0 ? 0 : ((close - lo) / range) * 100;
+    int slot = (int) (kSeen % dPeriod);
+    double old = dWindow[slot];
+    dWindow[slot] = k;
+    kSeen++;
+    dSum += k;
+    dCount++;
+    if (dCount > dPeriod) {
+      dSum -= old;
+      dCount--;
+    }
+    d = dCount == dPeriod ? dSum / dPeriod : Double.NaN;
+    return k;
+  }
+
+  public double k() {
+    return k;
+  }
+
+  public double d() {
+    return d;
+  }
+
+  public int count() {
+    return count;
+  }
+
+  public void reset() {
+    highest.reset();
+    lowest.reset();
+    Arrays.fill(dWindow, 0);
+    dSum = 0;
+    dCount = 0;
+    kSeen = 0;
+    k = Double.NaN;
+    d = Double.NaN;
+    count = 0;
+  }
+}
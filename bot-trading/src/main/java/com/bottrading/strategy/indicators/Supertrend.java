@@ -0,0 +1,66 @@
+package com.bottrading.strategy.indicators;
+
+/** Streaming Supertrend bands replicating the recursion in {@code SupertrendSignal}. */
+public final class Supertrend {
+
+  private final double multiplier;
+  private final Atr atr;
+  private double upper;
+  private double lower;
+  private double previousClose;
+  private boolean up;
+  private int count;
+
+  public Supertrend(int atrPeriod, double multiplier) {
+    this.multiplier = multiplier;
+    this.atr = new Atr(atrPeriod);
+  }
+
+  public boolean update(double high, double low, double close) {
+    double atrValue = atr.update(high, low, close);
+    double hl2 = (high + low) / 2.0;
+    double basicUpper = hl2 + multiplier * atrValue;
+    double basicLower = hl2 - multiplier * atrValue;
+    if (count == 0) {
+      upper = basicUpper;
+      lower = basicLower;
+      up = true;
+    } else {
+      upper = (basicUpper < upper || previousClose > upper) ? basicUpper : upper;
+      lower = (basicLower > lower || previousClose < lower) ? basicLower : lower;
+      if (up) {
+        up = close > lower;
+      } else {
+        up = !(close > upper);
+      }
+    }
+    previousClose = close;
+    count++;
+    return up;
+  }
+
+  public boolean isUp() {
+    return up;
+  }
+
+  public double upper() {
+    return upper;
+  }
+
+  public double lower() {
+    return lower;
+  }
+
+  public int count() {
+    return count;
+  }
+
+  public void reset() {
+    atr.reset();
+    upper = 0;
+    lower = 0;
+    previousClose = 0;
+    up = false;
+    count = 0;
+  }
+}
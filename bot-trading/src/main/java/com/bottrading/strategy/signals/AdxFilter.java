@@ -1,9 +1,10 @@
 package com.bottrading.strategy.signals;
 
+import com.bottrading.strategy.CandleSeries;
+import com.bottrading.strategy.IndicatorCache;
 import com.bottrading.strategy.Series;
 import com.bottrading.strategy.Signal;
 import com.bottrading.strategy.SignalResult;
-import java.util.List;
 
 public class AdxFilter implements Signal {
 
@@ -19,34 +20,16 @@ public class AdxFilter implements Signal {
   }
 
   @Override
-  public SignalResult evaluate(List<String[]> klines) {
-    if (klines == null || klines.size() < period + 2) {
+  public SignalResult evaluate(CandleSeries candles) {
+    if (candles == null || candles.size() < period + 2) {
       return SignalResult.flat("ADX warmup");
     }
-    double[] highs = Series.highs(klines);
-    double[] lows = Series.lows(klines);
-    double[] closes = Series.closes(klines);
-    double[] atr = Series.atr(highs, lows, closes, period);
-    double[] plusDm = Series.plusDirectionalMovement(highs, lows);
-    double[] minusDm = Series.minusDirectionalMovement(highs, lows);
-    double[] plusSmoothed = Series.ema(plusDm, period);
-    double[] minusSmoothed = Series.ema(minusDm, period);
-    int len = closes.length;
-    double[] plusDi = new double[len];
-    double[] minusDi = new double[len];
-    for (int i = 0; i < len; i++) {
-      double atrValue = atr[i];
-      if (atrValue <= 0) {
-        plusDi[i] = 0;
-        minusDi[i] = 0;
-      } else {
-        plusDi[i] = 100 * (plusSmoothed[i] / atrValue);
-        minusDi[i] = 100 * (minusSmoothed[i] / atrValue);
-      }
-    }
-    double[] dx = Series.dx(plusDi, minusDi);
-    double[] adx = Series.ema(dx, period);
-    int last = len - 1;
+    IndicatorCache cache = candles.indicators();
+    double[] adx =
+        cache != null
+            ? cache.adx(period)
+            : Series.adx(candles.highs(), candles.lows(), candles.closes(), period);
+    int last = candles.size() - 1;
     if (Double.isNaN(adx[last])) {
       return SignalResult.flat("ADX warmup");
     }
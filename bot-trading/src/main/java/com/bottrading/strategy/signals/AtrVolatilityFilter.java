@@ -1,9 +1,10 @@
 package com.bottrading.strategy.signals;
 
+import com.bottrading.strategy.CandleSeries;
+import com.bottrading.strategy.IndicatorCache;
 import com.bottrading.strategy.Series;
 import com.bottrading.strategy.Signal;
 import com.bottrading.strategy.SignalResult;
-import java.util.List;
 
 public class AtrVolatilityFilter implements Signal {
 
@@ -19,15 +20,16 @@ public class AtrVolatilityFilter implements Signal {
   }
 
   @Override
-  public SignalResult evaluate(List<String[]> klines) {
-    if (klines == null || klines.size() < period + 2) {
+  public SignalResult evaluate(CandleSeries candles) {
+    if (candles == null || candles.size() < period + 2) {
       return SignalResult.flat("ATR filter warmup");
     }
-    double[] highs = Series.highs(klines);
-    double[] lows = Series.lows(klines);
-    double[] closes = Series.closes(klines);
-    double[] atr = Series.atr(highs, lows, closes, period);
-    int last = closes.length - 1;
+    IndicatorCache cache = candles.indicators();
+    double[] atr =
+        cache != null
+            ? cache.atr(period)
+            : Series.atr(candles.highs(), candles.lows(), candles.closes(), period);
+    int last = candles.size() - 1;
     if (Double.isNaN(atr[last]) || atr[last] == 0) {
       return SignalResult.flat("ATR filter warmup");
     }
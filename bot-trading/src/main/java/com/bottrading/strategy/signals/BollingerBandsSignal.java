@@ -1,9 +1,10 @@
 package com.bottrading.strategy.signals;
 
+import com.bottrading.strategy.CandleSeries;
+import com.bottrading.strategy.IndicatorCache;
 import com.bottrading.strategy.Series;
 import com.bottrading.strategy.Signal;
 import com.bottrading.strategy.SignalResult;
-import java.util.List;
 
 public class BollingerBandsSignal implements Signal {
 
@@ -21,23 +22,30 @@ public class BollingerBandsSignal implements Signal {
   }
 
   @Override
-  public SignalResult evaluate(List<String[]> klines) {
-    if (klines == null || klines.size() < period) {
+  public SignalResult evaluate(CandleSeries candles) {
+    if (candles == null || candles.size() < period) {
       return SignalResult.flat("Bollinger warmup");
     }
-    double[] closes = Series.closes(klines);
-    double[] sma = Series.sma(closes, period);
-    double[] std = Series.standardDeviation(closes, period);
-    int last = closes.length - 1;
+    IndicatorCache cache = candles.indicators();
+    double[] sma;
+    double[] std;
+    if (cache != null) {
+      sma = cache.sma(period);
+      std = cache.standardDeviation(period);
+    } else {
+      double[] closes = candles.closes();
+      sma = Series.sma(closes, period);
+      std = Series.standardDeviation(closes, period);
+    }
+    int last = candles.size() - 1;
     if (Double.isNaN(sma[last]) || Double.isNaN(std[last])) {
       return SignalResult.flat("Bollinger warmup");
     }
     double upper = sma[last] + stdDevs * std[last];
     double lower = sma[last] - stdDevs * std[last];
-    double close = closes[last];
+    double close = candles.close(last);
     String note =
-        "close=%s upper=%s lower=%s"
-            .formatted(format(close), format(upper), format(lower));
+        "close=%s upper=%s lower=%s".formatted(format(close), format(upper), format(lower));
     if (close <= lower) {
       return SignalResult.buy(confidence, "Bollinger lower touch " + note);
     }
@@ -1,9 +1,8 @@
 package com.bottrading.strategy.signals;
 
-import com.bottrading.strategy.Series;
+import com.bottrading.strategy.CandleSeries;
 import com.bottrading.strategy.Signal;
 import com.bottrading.strategy.SignalResult;
-import java.util.List;
 
 public class DonchianChannelSignal implements Signal {
 
@@ -19,21 +18,18 @@ public class DonchianChannelSignal implements Signal {
   }
 
   @Override
-  public SignalResult evaluate(List<String[]> klines) {
-    if (klines == null || klines.size() < period + 1) {
+  public SignalResult evaluate(CandleSeries candles) {
+    if (candles == null || candles.size() < period + 1) {
       return SignalResult.flat("Donchian warmup");
     }
-    double[] highs = Series.highs(klines);
-    double[] lows = Series.lows(klines);
-    double[] closes = Series.closes(klines);
-    int last = closes.length - 1;
+    int last = candles.size() - 1;
     double highest = Double.NEGATIVE_INFINITY;
     double lowest = Double.POSITIVE_INFINITY;
     for (int i = last - period; i < last; i++) {
-      highest = Math.max(highest, highs[i]);
-      lowest = Math.min(lowest, lows[i]);
+      highest = Math.max(highest, candles.high(i));
+      lowest = Math.min(lowest, candles.low(i));
     }
-    double close = closes[last];
+    double close = candles.close(last);
     String note =
         "close=%s breakoutHigh=%s breakoutLow=%s"
             .formatted(format(close), format(highest), format(lowest));
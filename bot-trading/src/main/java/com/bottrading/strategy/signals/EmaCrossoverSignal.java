@@ -1,9 +1,10 @@
 package com.bottrading.strategy.signals;
 
+import com.bottrading.strategy.CandleSeries;
+import com.bottrading.strategy.IndicatorCache;
 import com.bottrading.strategy.Series;
 import com.bottrading.strategy.Signal;
 import com.bottrading.strategy.SignalResult;
-import java.util.List;
 
 public class EmaCrossoverSignal implements Signal {
 
@@ -21,22 +22,28 @@ public class EmaCrossoverSignal implements Signal {
   }
 
   @Override
-  public SignalResult evaluate(List<String[]> klines) {
-    if (klines == null || klines.size() < slowPeriod + 1) {
+  public SignalResult evaluate(CandleSeries candles) {
+    if (candles == null || candles.size() < slowPeriod + 1) {
       return SignalResult.flat("EMA crossover warmup");
     }
-    double[] closes = Series.closes(klines);
-    double[] fast = Series.ema(closes, fastPeriod);
-    double[] slow = Series.ema(closes, slowPeriod);
-    int last = closes.length - 1;
+    IndicatorCache cache = candles.indicators();
+    double[] fast;
+    double[] slow;
+    if (cache != null) {
+      fast = cache.ema(fastPeriod);
+      slow = cache.ema(slowPeriod);
+    } else {
+      double[] closes = candles.closes();
+      fast = Series.ema(closes, fastPeriod);
+      slow = Series.ema(closes, slowPeriod);
+    }
+    int last = candles.size() - 1;
     if (Double.isNaN(fast[last]) || Double.isNaN(slow[last])) {
       return SignalResult.flat("EMA crossover warmup");
     }
     double prevFast = fast[last - 1];
     double prevSlow = slow[last - 1];
-    String note =
-        "fast=%s slow=%s"
-            .formatted(format(fast[last]), format(slow[last]));
+    String note = "fast=%s slow=%s".formatted(format(fast[last]), format(slow[last]));
     if (prevFast <= prevSlow && fast[last] > slow[last]) {
       return SignalResult.buy(confidence, "Bullish EMA cross " + note);
     }
@@ -1,9 +1,10 @@
 package com.bottrading.strategy.signals;
 
+import com.bottrading.strategy.CandleSeries;
+import com.bottrading.strategy.IndicatorCache;
 import com.bottrading.strategy.Series;
 import com.bottrading.strategy.Signal;
 import com.bottrading.strategy.SignalResult;
-import java.util.List;
 
 public class MacdSignal implements Signal {
 
@@ -23,15 +24,22 @@ public class MacdSignal implements Signal {
   }
 
   @Override
-  public SignalResult evaluate(List<String[]> klines) {
+  public SignalResult evaluate(CandleSeries candles) {
     int min = Math.max(slowPeriod, signalPeriod) + 2;
-    if (klines == null || klines.size() < min) {
+    if (candles == null || candles.size() < min) {
       return SignalResult.flat("MACD warmup");
     }
-    double[] closes = Series.closes(klines);
-    double[] macdLine = Series.macd(closes, fastPeriod, slowPeriod);
-    double[] signalLine = Series.ema(macdLine, signalPeriod);
-    int last = closes.length - 1;
+    IndicatorCache cache = candles.indicators();
+    double[] macdLine;
+    double[] signalLine;
+    if (cache != null) {
+      macdLine = cache.macd(fastPeriod, slowPeriod);
+      signalLine = cache.macdSignal(fastPeriod, slowPeriod, signalPeriod);
+    } else {
+      macdLine = Series.macd(candles.closes(), fastPeriod, slowPeriod);
+      signalLine = Series.ema(macdLine, signalPeriod);
+    }
+    int last = candles.size() - 1;
     if (Double.isNaN(signalLine[last]) || Double.isNaN(signalLine[last - 1])) {
       return SignalResult.flat("MACD warmup");
     }
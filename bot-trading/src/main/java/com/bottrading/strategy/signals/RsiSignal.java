@@ -1,9 +1,10 @@
 package com.bottrading.strategy.signals;
 
+import com.bottrading.strategy.CandleSeries;
+import com.bottrading.strategy.IndicatorCache;
 import com.bottrading.strategy.Series;
 import com.bottrading.strategy.Signal;
 import com.bottrading.strategy.SignalResult;
-import java.util.List;
 
 public class RsiSignal implements Signal {
 
@@ -14,7 +15,11 @@ public class RsiSignal implements Signal {
   private final double confidence;
 
   public RsiSignal(
-      int period, double lowerThreshold, double upperThreshold, int trendPeriod, double confidence) {
+      int period,
+      double lowerThreshold,
+      double upperThreshold,
+      int trendPeriod,
+      double confidence) {
     if (period <= 0) {
       throw new IllegalArgumentException("RSI period must be positive");
     }
@@ -26,23 +31,30 @@ public class RsiSignal implements Signal {
   }
 
   @Override
-  public SignalResult evaluate(List<String[]> klines) {
+  public SignalResult evaluate(CandleSeries candles) {
     int min = Math.max(period, trendPeriod) + 1;
-    if (klines == null || klines.size() < min) {
+    if (candles == null || candles.size() < min) {
       return SignalResult.flat("RSI warmup");
     }
-    double[] closes = Series.closes(klines);
-    double[] rsi = Series.rsi(closes, period);
-    double[] trend = Series.sma(closes, trendPeriod);
-    int last = closes.length - 1;
+    IndicatorCache cache = candles.indicators();
+    double[] rsi;
+    double[] trend;
+    if (cache != null) {
+      rsi = cache.rsi(period);
+      trend = cache.sma(trendPeriod);
+    } else {
+      double[] closes = candles.closes();
+      rsi = Series.rsi(closes, period);
+      trend = Series.sma(closes, trendPeriod);
+    }
+    int last = candles.size() - 1;
     if (Double.isNaN(rsi[last]) || Double.isNaN(trend[last])) {
       return SignalResult.flat("RSI warmup");
     }
-    double price = closes[last];
+    double price = candles.close(last);
     double ma = trend[last];
     String note =
-        "rsi=%s price=%s trendSma=%s"
-            .formatted(format(rsi[last]), format(price), format(ma));
+        "rsi=%s price=%s trendSma=%s".formatted(format(rsi[last]), format(price), format(ma));
     if (price > ma && rsi[last] < lowerThreshold) {
       return SignalResult.buy(confidence, "RSI oversold in uptrend " + note);
     }
@@ -1,9 +1,10 @@
 package com.bottrading.strategy.signals;
 
+import com.bottrading.strategy.CandleSeries;
+import com.bottrading.strategy.IndicatorCache;
 import com.bottrading.strategy.Series;
 import com.bottrading.strategy.Signal;
 import com.bottrading.strategy.SignalResult;
-import java.util.List;
 
 public class SmaCrossoverSignal implements Signal {
 
@@ -21,22 +22,28 @@ public class SmaCrossoverSignal implements Signal {
   }
 
   @Override
-  public SignalResult evaluate(List<String[]> klines) {
-    if (klines == null || klines.size() < slowPeriod + 1) {
+  public SignalResult evaluate(CandleSeries candles) {
+    if (candles == null || candles.size() < slowPeriod + 1) {
       return SignalResult.flat("SMA crossover warmup");
     }
-    double[] closes = Series.closes(klines);
-    double[] fast = Series.sma(closes, fastPeriod);
-    double[] slow = Series.sma(closes, slowPeriod);
-    int last = closes.length - 1;
+    IndicatorCache cache = candles.indicators();
+    double[] fast;
+    double[] slow;
+    if (cache != null) {
+      fast = cache.sma(fastPeriod);
+      slow = cache.sma(slowPeriod);
+    } else {
+      double[] closes = candles.closes();
+      fast = Series.sma(closes, fastPeriod);
+      slow = Series.sma(closes, slowPeriod);
+    }
+    int last = candles.size() - 1;
     if (Double.isNaN(fast[last]) || Double.isNaN(slow[last])) {
       return SignalResult.flat("SMA crossover warmup");
     }
     double prevFast = fast[last - 1];
     double prevSlow = slow[last - 1];
-    String note =
-        "fast=%s slow=%s"
-            .formatted(format(fast[last]), format(slow[last]));
+    String note = "fast=%s slow=%s".formatted(format(fast[last]), format(slow[last]));
     if (prevFast <= prevSlow && fast[last] > slow[last]) {
       return SignalResult.buy(confidence, "Bullish SMA cross " + note);
     }
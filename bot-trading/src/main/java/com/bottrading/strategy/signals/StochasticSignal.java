@@ -1,9 +1,10 @@
 package com.bottrading.strategy.signals;
 
+import com.bottrading.strategy.CandleSeries;
+import com.bottrading.strategy.IndicatorCache;
 import com.bottrading.strategy.Series;
 import com.bottrading.strategy.Signal;
 import com.bottrading.strategy.SignalResult;
-import java.util.List;
 
 public class StochasticSignal implements Signal {
 
@@ -21,23 +22,29 @@ public class StochasticSignal implements Signal {
   }
 
   @Override
-  public SignalResult evaluate(List<String[]> klines) {
+  public SignalResult evaluate(CandleSeries candles) {
     int min = Math.max(kPeriod, dPeriod) + 1;
-    if (klines == null || klines.size() < min) {
+    if (candles == null || candles.size() < min) {
       return SignalResult.flat("Stochastic warmup");
     }
-    double[] closes = Series.closes(klines);
-    double[] highs = Series.highs(klines);
-    double[] lows = Series.lows(klines);
-    double[] k = Series.stochasticK(closes, highs, lows, kPeriod);
-    double[] d = Series.smooth(k, dPeriod);
-    int last = closes.length - 1;
-    if (Double.isNaN(k[last]) || Double.isNaN(d[last]) || Double.isNaN(k[last - 1]) || Double.isNaN(d[last - 1])) {
+    IndicatorCache cache = candles.indicators();
+    double[] k;
+    double[] d;
+    if (cache != null) {
+      k = cache.stochasticK(kPeriod);
+      d = cache.stochasticD(kPeriod, dPeriod);
+    } else {
+      k = Series.stochasticK(candles.closes(), candles.highs(), candles.lows(), kPeriod);
+      d = Series.smooth(k, dPeriod);
+    }
+    int last = candles.size() - 1;
+    if (Double.isNaN(k[last])
+        || Double.isNaN(d[last])
+        || Double.isNaN(k[last - 1])
+        || Double.isNaN(d[last - 1])) {
       return SignalResult.flat("Stochastic warmup");
     }
-    String note =
-        "%K=%s %D=%s"
-            .formatted(format(k[last]), format(d[last]));
+    String note = "%%K=%s %%D=%s".formatted(format(k[last]), format(d[last]));
     if (k[last - 1] <= d[last - 1] && k[last] > d[last] && k[last] < 30) {
       return SignalResult.buy(confidence, "Stochastic bullish cross " + note);
     }
@@ -0,0 +1,48 @@
+package com.bottrading.strategy.signals;
+
+import com.bottrading.strategy.CandleSeries;
+import com.bottrading.strategy.SignalResult;
+import com.bottrading.strategy.StreamingSignal;
+import com.bottrading.strategy.indicators.Adx;
+
+public class StreamingAdxFilter extends StreamingSignal {
+
+  private final int period;
+  private final double minAdx;
+  private final Adx adx;
+
+  public StreamingAdxFilter(int period, double minAdx) {
+    super("AdxFilter");
+    if (period <= 0) {
+      throw new IllegalArgumentException("ADX period must be positive");
+    }
+    this.period = period;
+    this.minAdx = minAdx;
+    this.adx = new Adx(period);
+  }
+
+  @Override
+  protected void reset() {
+    adx.reset();
+  }
+
+  @Override
+  protected void onCandle(CandleSeries candles, int index) {
+    adx.update(candles.high(index), candles.low(index), candles.close(index));
+  }
+
+  @Override
+  protected SignalResult current(CandleSeries candles) {
+    if (candles == null || candles.size() < period + 2) {
+      return SignalResult.flat("ADX warmup");
+    }
+    double value = adx.value();
+    if (Double.isNaN(value)) {
+      return SignalResult.flat("ADX warmup");
+    }
+    if (value < minAdx) {
+      return SignalResult.flat("ADX %.2f below %.2f".formatted(value, minAdx));
+    }
+    return SignalResult.buy(1.0, "ADX %.2f >= %.2f".formatted(value, minAdx));
+  }
+}
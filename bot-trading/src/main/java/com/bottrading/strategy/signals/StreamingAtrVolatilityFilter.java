@@ -0,0 +1,48 @@
+package com.bottrading.strategy.signals;
+
+import com.bottrading.strategy.CandleSeries;
+import com.bottrading.strategy.SignalResult;
+import com.bottrading.strategy.StreamingSignal;
+import com.bottrading.strategy.indicators.Atr;
+
+public class StreamingAtrVolatilityFilter extends StreamingSignal {
+
+  private final int period;
+  private final double minAtr;
+  private final Atr atr;
+
+  public StreamingAtrVolatilityFilter(int period, double minAtr) {
+    super("AtrVolatilityFilter", new AtrVolatilityFilter(period, minAtr));
+    if (period <= 0) {
+      throw new IllegalArgumentException("ATR period must be positive");
+    }
+    this.period = period;
+    this.minAtr = minAtr;
+    this.atr = new Atr(period);
+  }
+
+  @Override
+  protected void reset() {
+    atr.reset();
+  }
+
+  @Override
+  protected void onCandle(CandleSeries candles, int index) {
+    atr.update(candles.high(index), candles.low(index), candles.close(index));
+  }
+
+  @Override
+  protected SignalResult current(CandleSeries candles) {
+    if (candles == null || candles.size() < period + 2) {
+      return SignalResult.flat("ATR filter warmup");
+    }
+    double value = atr.value();
+    if (Double.isNaN(value) || value == 0) {
+      return SignalResult.flat("ATR filter warmup");
+    }
+    if (value < minAtr) {
+      return SignalResult.flat("ATR %.4f below %.4f".formatted(value, minAtr));
+    }
+    return SignalResult.buy(1.0, "ATR %.4f >= %.4f".formatted(value, minAtr));
+  }
+}
@@ -0,0 +1,63 @@
+package com.bottrading.strategy.signals;
+
+import com.bottrading.strategy.CandleSeries;
+import com.bottrading.strategy.SignalResult;
+import com.bottrading.strategy.StreamingSignal;
+import com.bottrading.strategy.indicators.RollingStdDev;
+
+public class StreamingBollingerBandsSignal extends StreamingSignal {
+
+  private final int period;
+  private final double stdDevs;
+  private final double confidence;
+  private final RollingStdDev std;
+
+  public StreamingBollingerBandsSignal(int period, double stdDevs, double confidence) {
+    super("BollingerBandsSignal", new BollingerBandsSignal(period, stdDevs, confidence));
+    if (period <= 0) {
+      throw new IllegalArgumentException("Bollinger period must be positive");
+    }
+    this.period = period;
+    this.stdDevs = stdDevs;
+    this.confidence = confidence;
+    this.std = new RollingStdDev(period);
+  }
+
+  @Override
+  protected void reset() {
+    std.reset();
+  }
+
+  @Override
+  protected void onCandle(CandleSeries candles, int index) {
+    std.update(candles.close(index));
+  }
+
+  @Override
+  protected SignalResult current(CandleSeries candles) {
+    if (candles == null || candles.size() < period) {
+      return SignalResult.flat("Bollinger warmup");
+    }
+    double mean = std.mean();
+    double deviation = std.value();
+    if (Double.isNaN(mean) || Double.isNaN(deviation)) {
+      return SignalResult.flat("Bollinger warmup");
+    }
+    double upper = mean + stdDevs * deviation;
+    double lower = mean - stdDevs * deviation;
+    double close = candles.lastClose();
+    String note =
+        "close=%s upper=%s lower=%s".formatted(format(close), format(upper), format(lower));
+    if (close <= lower) {
+      return SignalResult.buy(confidence, "Bollinger lower touch " + note);
+    }
+    if (close >= upper) {
+      return SignalResult.sell(confidence, "Bollinger upper touch " + note);
+    }
+    return SignalResult.flat("Bollinger neutral " + note);
+  }
+
+  private String format(double value) {
+    return String.format("%.4f", value);
+  }
+}
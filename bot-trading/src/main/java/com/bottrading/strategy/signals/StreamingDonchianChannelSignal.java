@@ -0,0 +1,57 @@
+package com.bottrading.strategy.signals;
+
+import com.bottrading.strategy.CandleSeries;
+import com.bottrading.strategy.SignalResult;
+import com.bottrading.strategy.StreamingSignal;
+import com.bottrading.strategy.indicators.Donchian;
+
+public class StreamingDonchianChannelSignal extends StreamingSignal {
+
+  private final int period;
+  private final double confidence;
+  private final Donchian donchian;
+
+  public StreamingDonchianChannelSignal(int period, double confidence) {
+    super("DonchianChannelSignal");
+    if (period <= 1) {
+      throw new IllegalArgumentException("Donchian period must be > 1");
+    }
+    this.period = period;
+    this.confidence = confidence;
+    this.donchian = new Donchian(period);
+  }
+
+  @Override
+  protected void reset() {
+    donchian.reset();
+  }
+
+  @Override
+  protected void onCandle(CandleSeries candles, int index) {
+    donchian.update(candles.high(index), candles.low(index));
+  }
+
+  @Override
+  protected SignalResult current(CandleSeries candles) {
+    if (candles == null || candles.size() < period + 1) {
+      return SignalResult.flat("Donchian warmup");
+    }
+    double highest = donchian.upper();
+    double lowest = donchian.lower();
+    double close = candles.lastClose();
+    String note =
+        "close=%s breakoutHigh=%s breakoutLow=%s"
+            .formatted(format(close), format(highest), format(lowest));
+    if (close > highest) {
+      return SignalResult.buy(confidence, "Donchian breakout high " + note);
+    }
+    if (close < lowest) {
+      return SignalResult.sell(confidence, "Donchian breakout low " + note);
+    }
+    return SignalResult.flat("Donchian inside range " + note);
+  }
+
+  private String format(double value) {
+    return String.format("%.4f", value);
+  }
+}
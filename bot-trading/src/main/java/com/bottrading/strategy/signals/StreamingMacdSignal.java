@@ -0,0 +1,62 @@
+package com.bottrading.strategy.signals;
+
+import com.bottrading.strategy.CandleSeries;
+import com.bottrading.strategy.SignalResult;
+import com.bottrading.strategy.StreamingSignal;
+import com.bottrading.strategy.indicators.Macd;
+
+public class StreamingMacdSignal extends StreamingSignal {
+
+  private final int minCandles;
+  private final double confidence;
+  private final Macd macd;
+  private double prevHist = Double.NaN;
+
+  public StreamingMacdSignal(int fastPeriod, int slowPeriod, int signalPeriod, double confidence) {
+    super("MacdSignal", new MacdSignal(fastPeriod, slowPeriod, signalPeriod, confidence));
+    if (fastPeriod <= 0 || slowPeriod <= 0 || signalPeriod <= 0) {
+      throw new IllegalArgumentException("Invalid MACD periods");
+    }
+    this.minCandles = Math.max(slowPeriod, signalPeriod) + 2;
+    this.confidence = confidence;
+    this.macd = new Macd(fastPeriod, slowPeriod, signalPeriod);
+  }
+
+  @Override
+  protected void reset() {
+    macd.reset();
+    prevHist = Double.NaN;
+  }
+
+  @Override
+  protected void onCandle(CandleSeries candles, int index) {
+    prevHist = macd.histogram();
+    macd.update(candles.close(index));
+  }
+
+  @Override
+  protected SignalResult current(CandleSeries candles) {
+    if (candles == null || candles.size() < minCandles) {
+      return SignalResult.flat("MACD warmup");
+    }
+    double signalValue = macd.signal();
+    if (Double.isNaN(signalValue) || Double.isNaN(prevHist)) {
+      return SignalResult.flat("MACD warmup");
+    }
+    double hist = macd.histogram();
+    String note =
+        "hist=%s macd=%s signal=%s"
+            .formatted(format(hist), format(macd.line()), format(signalValue));
+    if (prevHist <= 0 && hist > 0) {
+      return SignalResult.buy(confidence, "MACD bullish turn " + note);
+    }
+    if (prevHist >= 0 && hist < 0) {
+      return SignalResult.sell(confidence, "MACD bearish turn " + note);
+    }
+    return SignalResult.flat("MACD flat " + note);
+  }
+
+  private String format(double value) {
+    return String.format("%.4f", value);
+  }
+}
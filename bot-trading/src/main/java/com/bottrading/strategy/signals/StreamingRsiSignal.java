@@ -0,0 +1,77 @@
+package com.bottrading.strategy.signals;
+
+import com.bottrading.strategy.CandleSeries;
+import com.bottrading.strategy.SignalResult;
+import com.bottrading.strategy.StreamingSignal;
+import com.bottrading.strategy.indicators.Rsi;
+import com.bottrading.strategy.indicators.Sma;
+
+public class StreamingRsiSignal extends StreamingSignal {
+
+  private final double lowerThreshold;
+  private final double upperThreshold;
+  private final int minCandles;
+  private final double confidence;
+  private final Rsi rsi;
+  private final Sma trend;
+
+  public StreamingRsiSignal(
+      int period,
+      double lowerThreshold,
+      double upperThreshold,
+      int trendPeriod,
+      double confidence) {
+    super(
+        "RsiSignal",
+        new RsiSignal(period, lowerThreshold, upperThreshold, trendPeriod, confidence));
+    if (period <= 0) {
+      throw new IllegalArgumentException("RSI period must be positive");
+    }
+    int effectiveTrend = Math.max(trendPeriod, period);
+    this.lowerThreshold = lowerThreshold;
+    this.upperThreshold = upperThreshold;
+    this.minCandles = effectiveTrend + 1;
+    this.confidence = confidence;
+    this.rsi = new Rsi(period);
+    this.trend = new Sma(effectiveTrend);
+  }
+
+  @Override
+  protected void reset() {
+    rsi.reset();
+    trend.reset();
+  }
+
+  @Override
+  protected void onCandle(CandleSeries candles, int index) {
+    double close = candles.close(index);
+    rsi.update(close);
+    trend.update(close);
+  }
+
+  @Override
+  protected SignalResult current(CandleSeries candles) {
+    if (candles == null || candles.size() < minCandles) {
+      return SignalResult.flat("RSI warmup");
+    }
+    double rsiValue = rsi.value();
+    double ma = trend.value();
+    if (Double.isNaN(rsiValue) || Double.isNaN(ma)) {
+      return SignalResult.flat("RSI warmup");
+    }
+    double price = candles.lastClose();
+    String note =
+        "rsi=%s price=%s trendSma=%s".formatted(format(rsiValue), format(price), format(ma));
+    if (price > ma && rsiValue < lowerThreshold) {
+      return SignalResult.buy(confidence, "RSI oversold in uptrend " + note);
+    }
+    if (price < ma && rsiValue > upperThreshold) {
+      return SignalResult.sell(confidence, "RSI overbought in downtrend " + note);
+    }
+    return SignalResult.flat("RSI neutral " + note);
+  }
+
+  private String format(double value) {
+    return String.format("%.2f", value);
+  }
+}
@@ -0,0 +1,68 @@
+package com.bottrading.strategy.signals;
+
+import com.bottrading.strategy.CandleSeries;
+import com.bottrading.strategy.SignalResult;
+import com.bottrading.strategy.StreamingSignal;
+import com.bottrading.strategy.indicators.Sma;
+
+public class StreamingSmaCrossoverSignal extends StreamingSignal {
+
+  private final int slowPeriod;
+  private final double confidence;
+  private final Sma fast;
+  private final Sma slow;
+  private double prevFast = Double.NaN;
+  private double prevSlow = Double.NaN;
+
+  public StreamingSmaCrossoverSignal(int fastPeriod, int slowPeriod, double confidence) {
+    super("SmaCrossoverSignal", new SmaCrossoverSignal(fastPeriod, slowPeriod, confidence));
+    if (fastPeriod <= 0 || slowPeriod <= 0 || fastPeriod >= slowPeriod) {
+      throw new IllegalArgumentException("Invalid SMA crossover periods");
+    }
+    this.slowPeriod = slowPeriod;
+    this.confidence = confidence;
+    this.fast = new Sma(fastPeriod);
+    this.slow = new Sma(slowPeriod);
+  }
+
+  @Override
+  protected void reset() {
+    fast.reset();
+    slow.reset();
+    prevFast = Double.NaN;
+    prevSlow = Double.NaN;
+  }
+
+  @Override
+  protected void onCandle(CandleSeries candles, int index) {
+    prevFast = fast.value();
+    prevSlow = slow.value();
+    double close = candles.close(index);
+    fast.update(close);
+    slow.update(close);
+  }
+
+  @Override
+  protected SignalResult current(CandleSeries candles) {
+    if (candles == null || candles.size() < slowPeriod + 1) {
+      return SignalResult.flat("SMA crossover warmup");
+    }
+    double fastValue = fast.value();
+    double slowValue = slow.value();
+    if (Double.isNaN(fastValue) || Double.isNaN(slowValue)) {
+      return SignalResult.flat("SMA crossover warmup");
+    }
+    String note = "fast=%s slow=%s".formatted(format(fastValue), format(slowValue));
+    if (prevFast <= prevSlow && fastValue > slowValue) {
+      return SignalResult.buy(confidence, "Bullish SMA cross " + note);
+    }
+    if (prevFast >= prevSlow && fastValue < slowValue) {
+      return SignalResult.sell(confidence, "Bearish SMA cross " + note);
+    }
+    return SignalResult.flat("SMA neutral " + note);
+  }
+
+  private String format(double value) {
+    return String.format("%.4f", value);
+  }
+}
@@ -0,0 +1,63 @@
+package com.bottrading.strategy.signals;
+
+import com.bottrading.strategy.CandleSeries;
+import com.bottrading.strategy.SignalResult;
+import com.bottrading.strategy.StreamingSignal;
+import com.bottrading.strategy.indicators.Stochastic;
+
+public class StreamingStochasticSignal extends StreamingSignal {
+
+  private final int minCandles;
+  private final double confidence;
+  private final Stochastic stochastic;
+  private double prevK = Double.NaN;
+  private double prevD = Double.NaN;
+
+  public StreamingStochasticSignal(int kPeriod, int dPeriod, double confidence) {
+    super("StochasticSignal", new StochasticSignal(kPeriod, dPeriod, confidence));
+    if (kPeriod <= 0 || dPeriod <= 0) {
+      throw new IllegalArgumentException("Stochastic periods must be positive");
+    }
+    this.minCandles = Math.max(kPeriod, dPeriod) + 1;
+    this.confidence = confidence;
+    this.stochastic = new Stochastic(kPeriod, dPeriod);
+  }
+
+  @Override
+  protected void reset() {
+    stochastic.reset();
+    prevK = Double.NaN;
+    prevD = Double.NaN;
+  }
+
+  @Override
+  protected void onCandle(CandleSeries candles, int index) {
+    prevK = stochastic.k();
+    prevD = stochastic.d();
+    stochastic.update(candles.high(index), candles.low(index), candles.close(index));
+  }
+
+  @Override
+  protected SignalResult current(CandleSeries candles) {
+    if (candles == null || candles.size() < minCandles) {
+      return SignalResult.flat("Stochastic warmup");
+    }
+    double k = stochastic.k();
+    double d = stochastic.d();
+    if (Double.isNaN(k) || Double.isNaN(d) || Double.isNaN(prevK) || Double.isNaN(prevD)) {
+      return SignalResult.flat("Stochastic warmup");
+    }
+    String note = "%%K=%s %%D=%s".formatted(format(k), format(d));
+    if (prevK <= prevD && k > d && k < 30) {
+      return SignalResult.buy(confidence, "Stochastic bullish cross " + note);
+    }
+    if (prevK >= prevD && k < d && k > 70) {
+      return SignalResult.sell(confidence, "Stochastic bearish cross " + note);
+    }
+    return SignalResult.flat("Stochastic neutral " + note);
+  }
+
+  private String format(double value) {
+    return String.format("%.2f", value);
+  }
+}
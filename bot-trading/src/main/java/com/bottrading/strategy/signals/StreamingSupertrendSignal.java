@@ -0,0 +1,59 @@
+package com.bottrading.strategy.signals;
+
+import com.bottrading.strategy.CandleSeries;
+import com.bottrading.strategy.SignalResult;
+import com.bottrading.strategy.StreamingSignal;
+import com.bottrading.strategy.indicators.Supertrend;
+
+public class StreamingSupertrendSignal extends StreamingSignal {
+
+  private final int atrPeriod;
+  private final double confidence;
+  private final Supertrend supertrend;
+  private boolean previousUp;
+
+  public StreamingSupertrendSignal(int atrPeriod, double multiplier, double confidence) {
+    super("SupertrendSignal");
+    if (atrPeriod <= 0) {
+      throw new IllegalArgumentException("Supertrend ATR period must be positive");
+    }
+    this.atrPeriod = atrPeriod;
+    this.confidence = confidence;
+    this.supertrend = new Supertrend(atrPeriod, multiplier);
+  }
+
+  @Override
+  protected void reset() {
+    supertrend.reset();
+    previousUp = false;
+  }
+
+  @Override
+  protected void onCandle(CandleSeries candles, int index) {
+    previousUp = supertrend.isUp();
+    supertrend.update(candles.high(index), candles.low(index), candles.close(index));
+  }
+
+  @Override
+  protected SignalResult current(CandleSeries candles) {
+    if (candles == null || candles.size() < atrPeriod + 2) {
+      return SignalResult.flat("Supertrend warmup");
+    }
+    boolean currentUp = supertrend.isUp();
+    String note =
+        "supertrend=%s upper=%s lower=%s"
+            .formatted(
+                currentUp ? "UP" : "DOWN", format(supertrend.upper()), format(supertrend.lower()));
+    if (currentUp && !previousUp) {
+      return SignalResult.buy(confidence, "Supertrend flip bullish " + note);
+    }
+    if (!currentUp && previousUp) {
+      return SignalResult.sell(confidence, "Supertrend flip bearish " + note);
+    }
+    return SignalResult.flat("Supertrend steady " + note);
+  }
+
+  private String format(double value) {
+    return String.format("%.4f", value);
+  }
+}
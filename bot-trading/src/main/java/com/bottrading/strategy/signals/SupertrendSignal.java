@@ -1,9 +1,10 @@
 package com.bottrading.strategy.signals;
 
+import com.bottrading.strategy.CandleSeries;
+import com.bottrading.strategy.IndicatorCache;
 import com.bottrading.strategy.Series;
 import com.bottrading.strategy.Signal;
 import com.bottrading.strategy.SignalResult;
-import java.util.List;
 
 public class SupertrendSignal implements Signal {
 
@@ -21,49 +22,32 @@ public class SupertrendSignal implements Signal {
   }
 
   @Override
-  public SignalResult evaluate(List<String[]> klines) {
-    if (klines == null || klines.size() < atrPeriod + 2) {
+  public SignalResult evaluate(CandleSeries candles) {
+    if (candles == null || candles.size() < atrPeriod + 2) {
       return SignalResult.flat("Supertrend warmup");
     }
-    double[] highs = Series.highs(klines);
-    double[] lows = Series.lows(klines);
-    double[] closes = Series.closes(klines);
-    double[] atr = Series.atr(highs, lows, closes, atrPeriod);
-    int len = closes.length;
-    double[] upperBand = new double[len];
-    double[] lowerBand = new double[len];
-    boolean[] supertrend = new boolean[len];
-
-    for (int i = 0; i < len; i++) {
-      double hl2 = (highs[i] + lows[i]) / 2.0;
-      double basicUpper = hl2 + multiplier * atr[i];
-      double basicLower = hl2 - multiplier * atr[i];
-      if (i == 0) {
-        upperBand[i] = basicUpper;
-        lowerBand[i] = basicLower;
-        supertrend[i] = true;
-        continue;
-      }
-      upperBand[i] =
-          (basicUpper < upperBand[i - 1] || closes[i - 1] > upperBand[i - 1])
-              ? basicUpper
-              : upperBand[i - 1];
-      lowerBand[i] =
-          (basicLower > lowerBand[i - 1] || closes[i - 1] < lowerBand[i - 1])
-              ? basicLower
-              : lowerBand[i - 1];
-      if (supertrend[i - 1]) {
-        supertrend[i] = closes[i] > lowerBand[i];
-      } else {
-        supertrend[i] = !(closes[i] > upperBand[i]);
-      }
-    }
-    int last = len - 1;
-    if (last < 1) {
-      return SignalResult.flat("Supertrend warmup");
+    IndicatorCache cache = candles.indicators();
+    double[] upperBand;
+    double[] lowerBand;
+    double[] direction;
+    if (cache != null) {
+      upperBand = cache.supertrendUpper(atrPeriod, multiplier);
+      lowerBand = cache.supertrendLower(atrPeriod, multiplier);
+      direction = cache.supertrendDirection(atrPeriod, multiplier);
+    } else {
+      double[] highs = candles.highs();
+      double[] lows = candles.lows();
+      double[] closes = candles.closes();
+      double[][] bands =
+          Series.supertrend(
+              highs, lows, closes, Series.atr(highs, lows, closes, atrPeriod), multiplier);
+      upperBand = bands[0];
+      lowerBand = bands[1];
+      direction = bands[2];
     }
-    boolean currentUp = supertrend[last];
-    boolean previousUp = supertrend[last - 1];
+    int last = candles.size() - 1;
+    boolean currentUp = direction[last] > 0;
+    boolean previousUp = direction[last - 1] > 0;
     String note =
         "supertrend=%s upper=%s lower=%s"
             .formatted(currentUp ? "UP" : "DOWN", format(upperBand[last]), format(lowerBand[last]));
@@ -1,9 +1,9 @@
 package com.bottrading.strategy.signals;
 
+import com.bottrading.strategy.CandleSeries;
 import com.bottrading.strategy.Signal;
 import com.bottrading.strategy.SignalResult;
 import com.bottrading.strategy.StrategyContext;
-import java.util.List;
 
 public class Volume24hFilter implements Signal {
 
@@ -20,14 +20,13 @@ public class Volume24hFilter implements Signal {
   }
 
   @Override
-  public SignalResult evaluate(List<String[]> klines) {
+  public SignalResult evaluate(CandleSeries candles) {
     if (context == null || context.volume24h() == null) {
       return SignalResult.flat("24h volume unavailable");
     }
     double volume = context.volume24h().doubleValue();
     if (volume < minQuoteVolume) {
-      return SignalResult.flat(
-          "24h volume %.2f below %.2f".formatted(volume, minQuoteVolume));
+      return SignalResult.flat("24h volume %.2f below %.2f".formatted(volume, minQuoteVolume));
     }
     return SignalResult.buy(1.0, "24h volume %.2f >= %.2f".formatted(volume, minQuoteVolume));
   }
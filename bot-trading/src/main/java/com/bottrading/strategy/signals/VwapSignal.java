@@ -1,9 +1,10 @@
 package com.bottrading.strategy.signals;
 
+import com.bottrading.strategy.CandleSeries;
+import com.bottrading.strategy.IndicatorCache;
 import com.bottrading.strategy.Series;
 import com.bottrading.strategy.Signal;
 import com.bottrading.strategy.SignalResult;
-import java.util.List;
 
 public class VwapSignal implements Signal {
 
@@ -18,48 +19,46 @@ public class VwapSignal implements Signal {
   }
 
   @Override
-  public SignalResult evaluate(List<String[]> klines) {
-    if (klines == null || klines.size() < confirmationBars + 2) {
+  public SignalResult evaluate(CandleSeries candles) {
+    if (candles == null || candles.size() < confirmationBars + 2) {
       return SignalResult.flat("VWAP warmup");
     }
-    double[] closes = Series.closes(klines);
-    double[] volumes = Series.volumes(klines);
-    double vwap = Series.vwap(closes, volumes);
-    int last = closes.length - 1;
-    double prev = closes[last - 1];
-    double close = closes[last];
+    IndicatorCache cache = candles.indicators();
+    int last = candles.size() - 1;
+    double vwap =
+        cache != null ? cache.vwap()[last] : Series.vwap(candles.closes(), candles.volumes());
+    double prev = candles.close(last - 1);
+    double close = candles.close(last);
     if (Double.isNaN(vwap)) {
       return SignalResult.flat("VWAP warmup");
     }
-    String note =
-        "close=%s prev=%s vwap=%s"
-            .formatted(format(close), format(prev), format(vwap));
+    String note = "close=%s prev=%s vwap=%s".formatted(format(close), format(prev), format(vwap));
     boolean crossUp = prev < vwap && close > vwap;
     boolean crossDown = prev > vwap && close < vwap;
-    if (crossUp && confirm(closes, true)) {
+    if (crossUp && confirm(candles, true)) {
       return SignalResult.buy(confidence, "VWAP cross up " + note);
     }
-    if (crossDown && confirm(closes, false)) {
+    if (crossDown && confirm(candles, false)) {
       return SignalResult.sell(confidence, "VWAP cross down " + note);
     }
     return SignalResult.flat("VWAP neutral " + note);
   }
 
-  private boolean confirm(double[] closes, boolean bullish) {
+  private boolean confirm(CandleSeries candles, boolean bullish) {
     if (!requireConfirmation) {
       return true;
     }
-    int last = closes.length - 1;
+    int last = candles.size() - 1;
     int start = Math.max(1, last - confirmationBars + 1);
     if (bullish) {
       for (int i = start; i <= last; i++) {
-        if (closes[i] <= closes[i - 1]) {
+        if (candles.close(i) <= candles.close(i - 1)) {
           return false;
         }
       }
     } else {
       for (int i = start; i <= last; i++) {
-        if (closes[i] >= closes[i - 1]) {
+        if (candles.close(i) >= candles.close(i - 1)) {
           return false;
         }
       }
@@ -1,26 +1,36 @@
 package com.bottrading.throttle;
 
 public enum Endpoint {
-  PRICE_TICKER(1, 1),
-  KLINES(1, 1),
-  TICKER_24H(1, 1),
-  EXCHANGE_INFO(10, 10),
-  ACCOUNT_INFORMATION(10, 10),
-  COMMISSION(5, 5),
-  NEW_ORDER(1, 1),
-  ORDER_STATUS(1, 1),
-  CANCEL_ORDER(1, 1),
-  USER_STREAM_START(1, 1),
-  USER_STREAM_KEEP_ALIVE(1, 1),
-  USER_STREAM_CLOSE(1, 1),
-  GENERIC(1, 1);
+  PRICE_TICKER(1, 1, Priority.MARKET_DATA),
+  KLINES(1, 1, Priority.MARKET_DATA),
+  TICKER_24H(1, 1, Priority.MARKET_DATA),
+  TICKER_24H_BATCH(2, 2, Priority.MARKET_DATA),
+  EXCHANGE_INFO(10, 10, Priority.MARKET_DATA),
+  ACCOUNT_INFORMATION(10, 10, Priority.ACCOUNT),
+  COMMISSION(5, 5, Priority.ACCOUNT),
+  NEW_ORDER(1, 1, Priority.ORDERS),
+  ORDER_STATUS(1, 1, Priority.ACCOUNT),
+  CANCEL_ORDER(1, 1, Priority.ORDERS),
+  USER_STREAM_START(1, 1, Priority.ACCOUNT),
+  USER_STREAM_KEEP_ALIVE(1, 1, Priority.ACCOUNT),
+  USER_STREAM_CLOSE(1, 1, Priority.ACCOUNT),
+  GENERIC(1, 1, Priority.MARKET_DATA);
+
+  /** Dispatch classes, served in declaration order. */
+  public enum Priority {
+    ORDERS,
+    ACCOUNT,
+    MARKET_DATA
+  }
 
   private final int weight1s;
   private final int weight60s;
+  private final Priority priority;
 
-  Endpoint(int weight1s, int weight60s) {
+  Endpoint(int weight1s, int weight60s, Priority priority) {
     this.weight1s = weight1s;
     this.weight60s = weight60s;
+    this.priority = priority;
   }
 
   public int getWeight1s() {
@@ -30,4 +40,8 @@ public enum Endpoint {
   public int getWeight60s() {
     return weight60s;
   }
+
+  public Priority getPriority() {
+    return priority;
+  }
 }
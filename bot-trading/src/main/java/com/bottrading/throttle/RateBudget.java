@@ -1,171 +1,183 @@
 package com.bottrading.throttle;
 
 import java.time.Duration;
-import java.util.ArrayDeque;
-import java.util.Deque;
-import java.util.concurrent.atomic.AtomicLong;
-
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Sliding 1s/60s weight windows kept as fixed rings of time slots (50ms and 1s wide). A slot holds
+ * the weight reserved during its tick and is recycled once the tick falls out of the window, so
+ * nothing is purged or allocated per window and reads are a bounded scan. Reservations add
+ * optimistically and back out when the window turns out to be over budget, so concurrent callers
+ * never overshoot without taking a lock. Weight expires one window after the start of its slot.
+ */
 final class RateBudget {
 
   private static final Duration WINDOW_1S = Duration.ofSeconds(1);
   private static final Duration WINDOW_60S = Duration.ofSeconds(60);
+  private static final int SLOTS_1S = 20;
+  private static final int SLOTS_60S = 60;
 
   private final long baseBudget1s;
   private final long baseBudget60s;
-  private final long window1sNanos;
-  private final long window60sNanos;
-  private final Deque<Bucket> window1s = new ArrayDeque<>();
-  private final Deque<Bucket> window60s = new ArrayDeque<>();
-  private final AtomicLong penaltyUntil = new AtomicLong();
+  private final Window window1s;
+  private final Window window60s;
+  private final AtomicReference<Penalty> penalty = new AtomicReference<>(Penalty.NONE);
 
-  private long current1s;
-  private long current60s;
-  private double penaltyMultiplier = 1.0;
+  private record Penalty(double multiplier, long until) {
+    private static final Penalty NONE = new Penalty(1.0, Long.MIN_VALUE);
+  }
 
   RateBudget(long budget1s, long budget60s) {
     this.baseBudget1s = Math.max(0, budget1s);
     this.baseBudget60s = Math.max(0, budget60s);
-    this.window1sNanos = WINDOW_1S.toNanos();
-    this.window60sNanos = WINDOW_60S.toNanos();
+    this.window1s = new Window(WINDOW_1S.toNanos(), SLOTS_1S);
+    this.window60s = new Window(WINDOW_60S.toNanos(), SLOTS_60S);
   }
 
   long reserve(Endpoint endpoint, long now) {
-    purge(now);
     long weight1s = endpoint.getWeight1s();
     long weight60s = endpoint.getWeight60s();
     if (weight1s < 0 || weight60s < 0) {
       throw new IllegalArgumentException("Endpoint weight must be positive");
     }
-    long effective1s = effectiveBudget(baseBudget1s);
-    long effective60s = effectiveBudget(baseBudget60s);
+    double multiplier = multiplier(now);
+    long effective1s = effectiveBudget(baseBudget1s, multiplier);
+    long effective60s = effectiveBudget(baseBudget60s, multiplier);
     if ((weight1s > 0 && effective1s == 0) || (weight60s > 0 && effective60s == 0)) {
       return Long.MAX_VALUE;
     }
-    long wait1s = computeWait(weight1s, effective1s, window1s, current1s, window1sNanos, now);
-    long wait60s =
-        computeWait(weight60s, effective60s, window60s, current60s, window60sNanos, now);
-    if (wait1s == 0 && wait60s == 0) {
-      if (weight1s > 0) {
-        window1s.addLast(new Bucket(now, weight1s));
-        current1s += weight1s;
-      }
-      if (weight60s > 0) {
-        window60s.addLast(new Bucket(now, weight60s));
-        current60s += weight60s;
-      }
+    window1s.add(weight1s, now);
+    window60s.add(weight60s, now);
+    long used1s = window1s.used(now);
+    long used60s = window60s.used(now);
+    if ((weight1s == 0 || used1s <= effective1s) && (weight60s == 0 || used60s <= effective60s)) {
       return 0;
     }
-    return Math.max(wait1s, wait60s);
+    window1s.add(-weight1s, now);
+    window60s.add(-weight60s, now);
+    long wait1s = window1s.waitFor(weight1s, effective1s, now);
+    long wait60s = window60s.waitFor(weight60s, effective60s, now);
+    // a concurrent reservation that backs out as well can leave both waits at zero; retry soon
+    return Math.max(1, Math.max(wait1s, wait60s));
   }
 
   boolean hasBudget(Endpoint endpoint, long now) {
-    purge(now);
     long weight1s = endpoint.getWeight1s();
     long weight60s = endpoint.getWeight60s();
-    long effective1s = effectiveBudget(baseBudget1s);
-    long effective60s = effectiveBudget(baseBudget60s);
-    boolean oneSecondOk = weight1s == 0 || current1s + weight1s <= effective1s;
-    boolean sixtySecondOk = weight60s == 0 || current60s + weight60s <= effective60s;
+    double multiplier = multiplier(now);
+    boolean oneSecondOk =
+        weight1s == 0 || window1s.used(now) + weight1s <= effectiveBudget(baseBudget1s, multiplier);
+    boolean sixtySecondOk =
+        weight60s == 0
+            || window60s.used(now) + weight60s <= effectiveBudget(baseBudget60s, multiplier);
     return oneSecondOk && sixtySecondOk;
   }
 
   long remainingBudget1s(long now) {
-    purge(now);
-    long effective = effectiveBudget(baseBudget1s);
-    return Math.max(0, effective - current1s);
+    long effective = effectiveBudget(baseBudget1s, multiplier(now));
+    return Math.max(0, effective - window1s.used(now));
   }
 
   long remainingBudget60s(long now) {
-    purge(now);
-    long effective = effectiveBudget(baseBudget60s);
-    return Math.max(0, effective - current60s);
+    long effective = effectiveBudget(baseBudget60s, multiplier(now));
+    return Math.max(0, effective - window60s.used(now));
   }
 
   long applyPenalty(double multiplier, long now, long durationNanos) {
-    purge(now);
-    if (multiplier <= 0) {
-      multiplier = 0.1;
-    }
-    penaltyMultiplier = Math.min(penaltyMultiplier, multiplier);
+    double applied = multiplier <= 0 ? 0.1 : multiplier;
     long expiry = now + Math.max(0, durationNanos);
-    long previous = penaltyUntil.get();
-    if (expiry > previous) {
-      penaltyUntil.set(expiry);
-    }
-    return penaltyUntil.get();
+    Penalty updated =
+        penalty.updateAndGet(
+            current -> {
+              boolean active = now < current.until();
+              double next =
+                  active ? Math.min(current.multiplier(), applied) : Math.min(1.0, applied);
+              return new Penalty(next, active ? Math.max(current.until(), expiry) : expiry);
+            });
+    return updated.until();
   }
 
-  private void purge(long now) {
-    purgeWindow(window1s, window1sNanos, now, true);
-    purgeWindow(window60s, window60sNanos, now, false);
-    if (penaltyMultiplier < 1.0 && now >= penaltyUntil.get()) {
-      penaltyMultiplier = 1.0;
-    }
+  private double multiplier(long now) {
+    Penalty current = penalty.get();
+    return now < current.until() ? current.multiplier() : 1.0;
   }
 
-  private void purgeWindow(Deque<Bucket> window, long spanNanos, long now, boolean firstWindow) {
-    while (!window.isEmpty()) {
-      Bucket head = window.peekFirst();
-      if (head.timestamp + spanNanos <= now) {
-        window.removeFirst();
-        if (firstWindow) {
-          current1s -= head.weight;
-        } else {
-          current60s -= head.weight;
-        }
-      } else {
-        break;
-      }
-    }
-    if (current1s < 0) {
-      current1s = 0;
-    }
-    if (current60s < 0) {
-      current60s = 0;
+  private static long effectiveBudget(long base, double multiplier) {
+    if (base <= 0) {
+      return 0;
     }
+    long capped = Math.round(base * multiplier);
+    return Math.max(1, capped);
   }
 
-  private long computeWait(
-      long weight,
-      long capacity,
-      Deque<Bucket> window,
-      long current,
-      long span,
-      long now) {
-    if (weight == 0) {
-      return 0;
-    }
-    if (current + weight <= capacity) {
-      return 0;
+  private static final class Window {
+    private final long spanNanos;
+    private final long slotNanos;
+    private final int slots;
+    private final AtomicReferenceArray<Slot> ring;
+
+    private record Slot(long tick, long weight) {}
+
+    private Window(long spanNanos, int slots) {
+      this.spanNanos = spanNanos;
+      this.slots = slots;
+      this.slotNanos = spanNanos / slots;
+      this.ring = new AtomicReferenceArray<>(slots);
     }
-    long needed = current + weight - capacity;
-    long waitUntil = now;
-    long remaining = needed;
-    for (Bucket bucket : window) {
-      remaining -= bucket.weight;
-      waitUntil = Math.max(waitUntil, bucket.timestamp + span);
-      if (remaining <= 0) {
-        break;
+
+    private void add(long weight, long now) {
+      if (weight == 0) {
+        return;
+      }
+      long tick = Math.floorDiv(now, slotNanos);
+      int index = (int) Math.floorMod(tick, (long) slots);
+      while (true) {
+        Slot current = ring.get(index);
+        long base = current != null && current.tick() == tick ? current.weight() : 0;
+        if (ring.compareAndSet(index, current, new Slot(tick, Math.max(0, base + weight)))) {
+          return;
+        }
       }
     }
-    return Math.max(0, waitUntil - now);
-  }
 
-  private long effectiveBudget(long base) {
-    if (base <= 0) {
-      return 0;
+    private long used(long now) {
+      long tick = Math.floorDiv(now, slotNanos);
+      long used = 0;
+      for (int i = 0; i < slots; i++) {
+        Slot slot = ring.get(i);
+        if (slot != null && live(slot, tick)) {
+          used += slot.weight();
+        }
+      }
+      return used;
     }
-    long capped = Math.round(base * penaltyMultiplier);
-    return Math.max(1, capped);
-  }
 
-  private static final class Bucket {
-    private final long timestamp;
-    private final long weight;
+    /** Nanos until enough of the oldest slots expire for {@code weight} to fit. */
+    private long waitFor(long weight, long capacity, long now) {
+      if (weight == 0) {
+        return 0;
+      }
+      long tick = Math.floorDiv(now, slotNanos);
+      long remaining = used(now) + weight - capacity;
+      if (remaining <= 0) {
+        return 0;
+      }
+      for (long oldest = tick - slots + 1; oldest <= tick; oldest++) {
+        Slot slot = ring.get((int) Math.floorMod(oldest, (long) slots));
+        if (slot == null || slot.tick() != oldest) {
+          continue;
+        }
+        remaining -= slot.weight();
+        if (remaining <= 0) {
+          return Math.max(0, oldest * slotNanos + spanNanos - now);
+        }
+      }
+      return Math.max(0, tick * slotNanos + spanNanos - now);
+    }
 
-    private Bucket(long timestamp, long weight) {
-      this.timestamp = timestamp;
-      this.weight = weight;
+    private boolean live(Slot slot, long tick) {
+      return slot.tick() <= tick && tick - slot.tick() < slots;
     }
   }
 }
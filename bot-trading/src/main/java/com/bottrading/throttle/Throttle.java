@@ -4,46 +4,58 @@ import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.DistributionSummary;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
-import io.micrometer.core.instrument.Tags;
 import jakarta.annotation.PreDestroy;
 import java.time.Duration;
-import java.util.ArrayDeque;
-import java.util.Deque;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Supplier;
 
+/**
+ * Weight-aware dispatcher in front of the Binance REST client. Producers never take a lock: a task
+ * lands in a lane per (symbol, {@link Endpoint.Priority}) and the lane joins its class's ready
+ * ring. A single dispatcher thread serves classes in priority order and, within a class, symbols
+ * round-robin, so order placement and cancels go out ahead of market data polling and one busy
+ * symbol cannot starve the rest. When the budget is short the dispatcher waits rather than letting
+ * a lower class spend it.
+ */
 public class Throttle {
   private static final String GLOBAL_SYMBOL = "__GLOBAL__";
   private static final int MAX_RETRIES = 5;
+  private static final Endpoint.Priority[] PRIORITIES = Endpoint.Priority.values();
   private static final AtomicInteger WORKER_COUNTER = new AtomicInteger();
   private static final AtomicInteger SCHEDULER_COUNTER = new AtomicInteger();
 
   private final RateBudget budget;
   private final BackoffPolicy backoffPolicy;
   private final MeterRegistry meterRegistry;
-  private final ReentrantLock lock = new ReentrantLock();
-  private final Deque<ThrottleTask<?>> globalQueue = new ArrayDeque<>();
-  private final Map<String, SymbolQueue> symbolQueues = new HashMap<>();
+  private final ConcurrentMap<String, SymbolQueue> symbolQueues = new ConcurrentHashMap<>();
+  private final List<Queue<Lane>> ready = new ArrayList<>();
   private final int maxPerSymbol;
   private final int maxGlobal;
   private final ScheduledExecutorService scheduler;
   private final ExecutorService workers;
   private final AtomicInteger globalDepth = new AtomicInteger();
+  private final AtomicBoolean dispatchQueued = new AtomicBoolean();
   private final Counter rejectionCounter;
   private final DistributionSummary delaySummary;
+  // dispatcher thread only
+  private long wakeAt = Long.MIN_VALUE;
 
   public Throttle(ThrottleProperties properties, MeterRegistry meterRegistry) {
     this(
@@ -68,8 +80,13 @@ public class Throttle {
     this.maxGlobal = Math.max(0, properties.getQueue().getMaxDepthGlobal());
     this.workers = workers;
     this.scheduler = scheduler;
+    for (int i = 0; i < PRIORITIES.length; i++) {
+      ready.add(new ConcurrentLinkedQueue<>());
+    }
     this.rejectionCounter =
-        Counter.builder("throttle.rejections").description("Tasks rejected due to queue limits").register(meterRegistry);
+        Counter.builder("throttle.rejections")
+            .description("Tasks rejected due to queue limits")
+            .register(meterRegistry);
     this.delaySummary =
         DistributionSummary.builder("throttle.delays.ms")
             .baseUnit("milliseconds")
@@ -78,10 +95,16 @@ public class Throttle {
     Gauge.builder("queue.depth", globalDepth, AtomicInteger::get)
         .tags("symbol", "global")
         .register(meterRegistry);
-    Gauge.builder("throttle.budget.remaining", budget, value -> budget.remainingBudget1s(System.nanoTime()))
+    Gauge.builder(
+            "throttle.budget.remaining",
+            budget,
+            value -> budget.remainingBudget1s(System.nanoTime()))
         .tags("window", "1s")
         .register(meterRegistry);
-    Gauge.builder("throttle.budget.remaining", budget, value -> budget.remainingBudget60s(System.nanoTime()))
+    Gauge.builder(
+            "throttle.budget.remaining",
+            budget,
+            value -> budget.remainingBudget60s(System.nanoTime()))
         .tags("window", "60s")
         .register(meterRegistry);
   }
@@ -91,17 +114,11 @@ public class Throttle {
     Objects.requireNonNull(supplier, "supplier");
     CompletableFuture<T> future = new CompletableFuture<>();
     ThrottleTask<T> task = new ThrottleTask<>(endpoint, normalizeSymbol(symbol), supplier, future);
-    boolean accepted;
-    lock.lock();
-    try {
-      accepted = enqueue(task);
-    } finally {
-      lock.unlock();
-    }
-    if (!accepted) {
+    if (!enqueue(task, true)) {
       rejectionCounter.increment();
       future.completeExceptionally(
-          new RejectedExecutionException("Throttle queues are at capacity for symbol " + task.symbol));
+          new RejectedExecutionException(
+              "Throttle queues are at capacity for symbol " + task.symbol));
       return future;
     }
     triggerDispatch();
@@ -111,20 +128,14 @@ public class Throttle {
   public boolean canSchedule(Endpoint endpoint, String symbol) {
     Objects.requireNonNull(endpoint, "endpoint");
     String normalized = normalizeSymbol(symbol);
-    long now = System.nanoTime();
-    lock.lock();
-    try {
-      if (maxGlobal > 0 && globalQueue.size() >= maxGlobal) {
-        return false;
-      }
-      SymbolQueue queue = symbolQueues.get(normalized);
-      if (maxPerSymbol > 0 && queue != null && queue.depth.get() >= maxPerSymbol) {
-        return false;
-      }
-      return budget.hasBudget(endpoint, now);
-    } finally {
-      lock.unlock();
+    if (maxGlobal > 0 && globalDepth.get() >= maxGlobal) {
+      return false;
+    }
+    SymbolQueue queue = symbolQueues.get(normalized);
+    if (maxPerSymbol > 0 && queue != null && queue.depth.get() >= maxPerSymbol) {
+      return false;
     }
+    return budget.hasBudget(endpoint, System.nanoTime());
   }
 
   @PreDestroy
@@ -133,29 +144,42 @@ public class Throttle {
     scheduler.shutdownNow();
   }
 
-  private boolean enqueue(ThrottleTask<?> task) {
-    if (maxGlobal > 0 && globalQueue.size() >= maxGlobal) {
+  /** Retries bypass the depth limits; their slot was already granted. */
+  private boolean enqueue(ThrottleTask<?> task, boolean enforceLimits) {
+    if (!acquire(globalDepth, enforceLimits ? maxGlobal : 0)) {
       return false;
     }
     SymbolQueue queue = symbolQueues.computeIfAbsent(task.symbol, this::createQueue);
-    if (maxPerSymbol > 0 && queue.depth.get() >= maxPerSymbol) {
+    if (!acquire(queue.depth, enforceLimits ? maxPerSymbol : 0)) {
+      globalDepth.decrementAndGet();
       return false;
     }
-    queue.enqueue(task);
-    globalQueue.addLast(task);
-    globalDepth.set(globalQueue.size());
+    Lane lane = queue.lanes[task.endpoint.getPriority().ordinal()];
+    lane.tasks.offer(task);
+    if (lane.listed.compareAndSet(false, true)) {
+      ready.get(lane.priority).offer(lane);
+    }
     return true;
   }
 
-  private void enqueueRetry(ThrottleTask<?> task) {
-    SymbolQueue queue = symbolQueues.computeIfAbsent(task.symbol, this::createQueue);
-    queue.enqueue(task);
-    globalQueue.addLast(task);
-    globalDepth.set(globalQueue.size());
+  private static boolean acquire(AtomicInteger depth, int max) {
+    if (max <= 0) {
+      depth.incrementAndGet();
+      return true;
+    }
+    while (true) {
+      int current = depth.get();
+      if (current >= max) {
+        return false;
+      }
+      if (depth.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
   }
 
   private SymbolQueue createQueue(String symbol) {
-    SymbolQueue queue = new SymbolQueue(symbol);
+    SymbolQueue queue = new SymbolQueue();
     Gauge.builder("queue.depth", queue, value -> value.depth.get())
         .tags("symbol", symbol)
         .register(meterRegistry);
@@ -163,7 +187,9 @@ public class Throttle {
   }
 
   private void triggerDispatch() {
-    scheduler.execute(this::dispatch);
+    if (dispatchQueued.compareAndSet(false, true)) {
+      scheduler.execute(this::dispatch);
+    }
   }
 
   private void scheduleDispatch(long delayNanos) {
@@ -175,40 +201,101 @@ public class Throttle {
   }
 
   private void dispatch() {
+    dispatchQueued.set(false);
     while (true) {
-      ThrottleTask<?> task;
       long now = System.nanoTime();
-      lock.lock();
-      try {
-        if (globalQueue.isEmpty()) {
-          return;
-        }
-        task = globalQueue.peekFirst();
-        if (task == null) {
-          return;
-        }
-        if (now < task.earliestDispatchTime) {
-          scheduleDispatch(task.earliestDispatchTime - now);
-          return;
+      ThrottleTask<?> task = null;
+      long retryAt = Long.MAX_VALUE;
+      for (Endpoint.Priority priority : PRIORITIES) {
+        Queue<Lane> lanes = ready.get(priority.ordinal());
+        Lane firstDeferred = null;
+        Lane lane;
+        while (task == null && (lane = lanes.peek()) != null && lane != firstDeferred) {
+          ThrottleTask<?> head = lane.tasks.peek();
+          if (head == null) {
+            lanes.poll();
+            unlist(lane, lanes);
+            continue;
+          }
+          if (now < head.earliestDispatchTime) {
+            // backing off; let the other symbols of this class go first
+            retryAt = Math.min(retryAt, head.earliestDispatchTime);
+            lanes.poll();
+            lanes.offer(lane);
+            if (firstDeferred == null) {
+              firstDeferred = lane;
+            }
+            continue;
+          }
+          long wait = budget.reserve(head.endpoint, now);
+          if (wait == Long.MAX_VALUE) {
+            // a window configured with no budget can never admit this endpoint; waiting would stall
+            take(lane, lanes);
+            reject(head);
+            continue;
+          }
+          if (wait > 0) {
+            wake(now, wait);
+            return;
+          }
+          take(lane, lanes);
+          task = head;
         }
-        long wait = budget.reserve(task.endpoint, now);
-        if (wait > 0) {
-          scheduleDispatch(wait);
-          return;
+        if (task != null) {
+          break;
         }
-        globalQueue.removeFirst();
-        globalDepth.set(globalQueue.size());
-        SymbolQueue queue = symbolQueues.get(task.symbol);
-        if (queue != null) {
-          queue.dequeue(task);
+      }
+      if (task == null) {
+        if (retryAt != Long.MAX_VALUE) {
+          wake(now, retryAt - now);
         }
-      } finally {
-        lock.unlock();
+        return;
       }
+      release(task);
       executeTask(task, now);
     }
   }
 
+  /** Removes the head task of a lane that sits at the front of its ring. */
+  private static void take(Lane lane, Queue<Lane> lanes) {
+    lane.tasks.poll();
+    lanes.poll();
+    if (lane.tasks.isEmpty()) {
+      unlist(lane, lanes);
+    } else {
+      lanes.offer(lane);
+    }
+  }
+
+  private void release(ThrottleTask<?> task) {
+    globalDepth.decrementAndGet();
+    symbolQueues.get(task.symbol).depth.decrementAndGet();
+  }
+
+  private void reject(ThrottleTask<?> task) {
+    release(task);
+    rejectionCounter.increment();
+    task.future.completeExceptionally(
+        new RejectedExecutionException("No rate budget configured for endpoint " + task.endpoint));
+  }
+
+  /** Drops an empty lane from its ring, re-listing it if a producer raced in a task. */
+  private static void unlist(Lane lane, Queue<Lane> lanes) {
+    lane.listed.set(false);
+    if (!lane.tasks.isEmpty() && lane.listed.compareAndSet(false, true)) {
+      lanes.offer(lane);
+    }
+  }
+
+  private void wake(long now, long delayNanos) {
+    long target = now + delayNanos;
+    if (wakeAt > now && wakeAt <= target) {
+      return;
+    }
+    wakeAt = target;
+    scheduler.schedule(this::dispatch, delayNanos, TimeUnit.NANOSECONDS);
+  }
+
   private <T> void executeTask(ThrottleTask<T> task, long dispatchTime) {
     long delay = Math.max(0, dispatchTime - task.submittedAt);
     delaySummary.record(delay / 1_000_000.0);
@@ -234,12 +321,7 @@ public class Throttle {
       long now = System.nanoTime();
       Duration delay = backoff.delay();
       task.earliestDispatchTime = now + delay.toNanos();
-      lock.lock();
-      try {
-        enqueueRetry(task);
-      } finally {
-        lock.unlock();
-      }
+      enqueue(task, false);
       long expiry = budget.applyPenalty(backoff.rateMultiplier(), now, delay.toNanos());
       scheduleDispatch(delay.toNanos());
       if (expiry > now) {
@@ -292,27 +374,24 @@ public class Throttle {
     }
   }
 
-  private final class SymbolQueue {
-    private final String symbol;
-    private final Deque<ThrottleTask<?>> queue = new ArrayDeque<>();
+  private static final class SymbolQueue {
     private final AtomicInteger depth = new AtomicInteger();
+    private final Lane[] lanes = new Lane[PRIORITIES.length];
 
-    private SymbolQueue(String symbol) {
-      this.symbol = symbol;
+    private SymbolQueue() {
+      for (Endpoint.Priority priority : PRIORITIES) {
+        lanes[priority.ordinal()] = new Lane(priority.ordinal());
+      }
     }
+  }
 
-    private void enqueue(ThrottleTask<?> task) {
-      queue.addLast(task);
-      depth.set(queue.size());
-    }
+  private static final class Lane {
+    private final int priority;
+    private final Queue<ThrottleTask<?>> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean listed = new AtomicBoolean();
 
-    private void dequeue(ThrottleTask<?> task) {
-      if (!queue.isEmpty() && queue.peekFirst() == task) {
-        queue.pollFirst();
-      } else {
-        queue.remove(task);
-      }
-      depth.set(queue.size());
+    private Lane(int priority) {
+      this.priority = priority;
     }
   }
 
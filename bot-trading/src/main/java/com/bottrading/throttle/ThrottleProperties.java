@@ -10,6 +10,7 @@ public class ThrottleProperties {
   private BackoffProperties on429 = new BackoffProperties(500);
   private BackoffProperties on5xx = new BackoffProperties(300);
   private QueueProperties queue = new QueueProperties();
+  private CoalesceProperties coalesce = new CoalesceProperties();
 
   public long getWindow1s() {
     return window1s;
@@ -51,6 +52,14 @@ public class ThrottleProperties {
     this.queue = queue;
   }
 
+  public CoalesceProperties getCoalesce() {
+    return coalesce;
+  }
+
+  public void setCoalesce(CoalesceProperties coalesce) {
+    this.coalesce = coalesce;
+  }
+
   public static class BackoffProperties {
 
     private long backoffMs;
@@ -91,4 +100,54 @@ public class ThrottleProperties {
       this.maxDepthGlobal = maxDepthGlobal;
     }
   }
+
+  /** Freshness windows for reads shared by the coalescing client; 0 means coalesce only. */
+  public static class CoalesceProperties {
+
+    private long priceTtlMs = 500;
+    private long klinesTtlMs = 1000;
+    private long ticker24hTtlMs = 5000;
+    private long accountTtlMs = 1000;
+    private int ticker24hBatchSize = 20;
+
+    public long getPriceTtlMs() {
+      return priceTtlMs;
+    }
+
+    public void setPriceTtlMs(long priceTtlMs) {
+      this.priceTtlMs = priceTtlMs;
+    }
+
+    public long getKlinesTtlMs() {
+      return klinesTtlMs;
+    }
+
+    public void setKlinesTtlMs(long klinesTtlMs) {
+      this.klinesTtlMs = klinesTtlMs;
+    }
+
+    public long getTicker24hTtlMs() {
+      return ticker24hTtlMs;
+    }
+
+    public void setTicker24hTtlMs(long ticker24hTtlMs) {
+      this.ticker24hTtlMs = ticker24hTtlMs;
+    }
+
+    public long getAccountTtlMs() {
+      return accountTtlMs;
+    }
+
+    public void setAccountTtlMs(long accountTtlMs) {
+      this.accountTtlMs = accountTtlMs;
+    }
+
+    public int getTicker24hBatchSize() {
+      return ticker24hBatchSize;
+    }
+
+    public void setTicker24hBatchSize(int ticker24hBatchSize) {
+      this.ticker24hBatchSize = ticker24hBatchSize;
+    }
+  }
 }
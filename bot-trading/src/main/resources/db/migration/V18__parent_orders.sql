@@ -0,0 +1,40 @@
+CREATE TABLE IF NOT EXISTS parent_orders (
+    id VARCHAR(100) PRIMARY KEY,
+    tenant_id UUID,
+    symbol VARCHAR(40) NOT NULL,
+    side VARCHAR(10) NOT NULL,
+    plan_type VARCHAR(20) NOT NULL,
+    slices INTEGER,
+    window_ms BIGINT,
+    ttl_ms BIGINT,
+    buffer_bps DOUBLE PRECISION,
+    max_retries INTEGER,
+    target_participation DOUBLE PRECISION,
+    quantity NUMERIC(28,8) NOT NULL,
+    reference_price NUMERIC(28,8) NOT NULL,
+    deadline TIMESTAMPTZ NOT NULL,
+    dry_run BOOLEAN NOT NULL,
+    urgency VARCHAR(10) NOT NULL,
+    max_slippage_bps DOUBLE PRECISION,
+    tick_size NUMERIC(28,8),
+    step_size NUMERIC(28,8),
+    min_notional NUMERIC(28,8),
+    volume_24h NUMERIC(28,8),
+    atr NUMERIC(28,8),
+    spread_bps DOUBLE PRECISION,
+    volatility_bps DOUBLE PRECISION,
+    bar_volume NUMERIC(28,8),
+    status VARCHAR(20) NOT NULL,
+    step INTEGER NOT NULL,
+    executed_qty NUMERIC(28,8) NOT NULL,
+    executed_quote NUMERIC(28,8) NOT NULL,
+    working_client_order_id VARCHAR(100),
+    working_order_id VARCHAR(100),
+    working_filled_qty NUMERIC(28,8),
+    next_event_at TIMESTAMPTZ,
+    context TEXT,
+    created_at TIMESTAMPTZ DEFAULT NOW(),
+    updated_at TIMESTAMPTZ DEFAULT NOW()
+);
+
+CREATE INDEX IF NOT EXISTS idx_parent_orders_status ON parent_orders(status);
@@ -41,7 +41,7 @@ class CanaryBudgetManagerTest {
   private static class StubStore extends BanditStore {
     private final Map<String, CanaryBudgetSnapshot> snapshots = new HashMap<>();
     StubStore(BanditProperties properties, Clock clock) {
-      super(null, null, null, clock, properties);
+      super(null, null, null, clock, properties, null);
     }
 
     void setSnapshot(String symbol, CanaryBudgetSnapshot snapshot) {
@@ -1,17 +1,38 @@
 package com.bottrading.execution;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
 import com.bottrading.config.ExecutionProperties;
 import com.bottrading.config.TradingProps;
+import com.bottrading.execution.PositionManager.ManagedOrderUpdate;
 import com.bottrading.execution.metrics.PovMetrics;
 import com.bottrading.execution.metrics.SlippageMetrics;
 import com.bottrading.model.dto.ExchangeInfo;
 import com.bottrading.model.dto.OrderRequest;
 import com.bottrading.model.dto.OrderResponse;
+import com.bottrading.model.entity.ParentOrderEntity;
+import com.bottrading.model.enums.ManagedOrderStatus;
 import com.bottrading.model.enums.OrderSide;
 import com.bottrading.model.enums.OrderType;
+import com.bottrading.model.enums.ParentOrderStatus;
+import com.bottrading.repository.ParentOrderRepository;
+import com.bottrading.saas.security.TenantAccessGuard;
 import com.bottrading.saas.security.TenantContext;
+import com.bottrading.service.anomaly.AnomalyDetector;
 import com.bottrading.service.binance.BinanceClient;
-import com.bottrading.saas.security.TenantAccessGuard;
 import com.bottrading.service.tca.TcaService;
 import com.bottrading.service.trading.OrderService;
 import io.micrometer.core.instrument.MeterRegistry;
@@ -20,18 +41,17 @@ import java.math.BigDecimal;
 import java.time.Clock;
 import java.time.Instant;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
-import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-
-import static org.assertj.core.api.Assertions.assertThat;
-import static org.assertj.core.api.Assertions.within;
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
+import org.mockito.ArgumentCaptor;
 
 class ExecutionEngineIntegrationTest {
 
@@ -47,6 +67,8 @@ class ExecutionEngineIntegrationTest {
   private SlippageMetrics slippageMetrics;
   private PovMetrics povMetrics;
   private TenantAccessGuard tenantAccessGuard;
+  private ParentOrderRepository parentOrderRepository;
+  private AnomalyDetector anomalyDetector;
 
   @BeforeEach
   void setup() {
@@ -57,11 +79,21 @@ class ExecutionEngineIntegrationTest {
     meterRegistry = new SimpleMeterRegistry();
     tradingProps = new TradingProps();
     tenantAccessGuard = mock(TenantAccessGuard.class);
-    when(tenantAccessGuard.requireCurrentTenant()).thenReturn(UUID.fromString("aaaaaaaa-aaaa-aaaa-aaaa-aaaaaaaaaaaa"));
-    tcaService = new TcaService(tradingProps, meterRegistry, mock(com.bottrading.repository.TradeFillRepository.class), tenantAccessGuard);
+    when(tenantAccessGuard.requireCurrentTenant())
+        .thenReturn(UUID.fromString("aaaaaaaa-aaaa-aaaa-aaaa-aaaaaaaaaaaa"));
+    tcaService =
+        new TcaService(
+            tradingProps,
+            meterRegistry,
+            mock(com.bottrading.repository.TradeFillRepository.class),
+            tenantAccessGuard,
+            mock(com.bottrading.persistence.WriteBehindWriter.class));
     clock = Clock.fixed(Instant.parse("2024-01-01T00:00:00Z"), ZoneOffset.UTC);
     slippageMetrics = new SlippageMetrics(meterRegistry, properties, clock);
     povMetrics = new PovMetrics(meterRegistry, properties, clock);
+    parentOrderRepository = mock(ParentOrderRepository.class);
+    when(parentOrderRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+    anomalyDetector = mock(AnomalyDetector.class);
     engine =
         new ExecutionEngine(
             policy,
@@ -71,21 +103,24 @@ class ExecutionEngineIntegrationTest {
             properties,
             meterRegistry,
             clock,
-            mock(com.bottrading.service.anomaly.AnomalyDetector.class),
+            anomalyDetector,
             slippageMetrics,
-            povMetrics);
+            povMetrics,
+            parentOrderRepository);
   }
 
   @AfterEach
   void tearDown() {
     TenantContext.clear();
+    engine.shutdown();
   }
 
   @Test
   void limitShouldFallbackToMarketAfterTtl() {
     properties.getLimit().setTtlMs(50);
     properties.getLimit().setMaxRetries(0);
-    ExecutionRequest request = baseRequest(OrderSide.BUY, new BigDecimal("0.1"), ExecutionRequest.Urgency.LOW);
+    ExecutionRequest request =
+        baseRequest(OrderSide.BUY, new BigDecimal("0.1"), ExecutionRequest.Urgency.LOW);
     MarketSnapshot snapshot = snapshot(BigDecimal.TEN);
 
     AtomicInteger counter = new AtomicInteger();
@@ -106,8 +141,10 @@ class ExecutionEngineIntegrationTest {
                     "NEW",
                     Instant.now(clock));
               }
-              BigDecimal qty = Optional.ofNullable(orderRequest.getQuantity()).orElse(BigDecimal.ZERO);
-              BigDecimal price = Optional.ofNullable(orderRequest.getPrice()).orElse(new BigDecimal("100"));
+              BigDecimal qty =
+                  Optional.ofNullable(orderRequest.getQuantity()).orElse(BigDecimal.ZERO);
+              BigDecimal price =
+                  Optional.ofNullable(orderRequest.getPrice()).orElse(new BigDecimal("100"));
               return new OrderResponse(
                   "order-2",
                   orderRequest.getClientOrderId(),
@@ -133,16 +170,21 @@ class ExecutionEngineIntegrationTest {
   void twapShouldSliceQuantityEvenly() {
     properties.getTwap().setSlices(3);
     properties.getTwap().setWindowSec(1);
-    ExecutionRequest request = baseRequest(OrderSide.BUY, new BigDecimal("0.9"), ExecutionRequest.Urgency.MEDIUM);
-    MarketSnapshot snapshot = new MarketSnapshot(new BigDecimal("100"), 1, 5, 0, new BigDecimal("1"), BigDecimal.valueOf(100));
+    ExecutionRequest request =
+        baseRequest(OrderSide.BUY, new BigDecimal("0.9"), ExecutionRequest.Urgency.MEDIUM);
+    MarketSnapshot snapshot =
+        new MarketSnapshot(
+            new BigDecimal("100"), 1, 5, 0, new BigDecimal("1"), BigDecimal.valueOf(100));
 
     AtomicInteger counter = new AtomicInteger();
     when(orderService.placeOrder(any()))
         .thenAnswer(
             invocation -> {
               OrderRequest orderRequest = invocation.getArgument(0);
-              BigDecimal qty = Optional.ofNullable(orderRequest.getQuantity()).orElse(BigDecimal.ZERO);
-              BigDecimal price = Optional.ofNullable(orderRequest.getPrice()).orElse(new BigDecimal("100"));
+              BigDecimal qty =
+                  Optional.ofNullable(orderRequest.getQuantity()).orElse(BigDecimal.ZERO);
+              BigDecimal price =
+                  Optional.ofNullable(orderRequest.getPrice()).orElse(new BigDecimal("100"));
               return new OrderResponse(
                   "twap-" + counter.getAndIncrement(),
                   orderRequest.getClientOrderId(),
@@ -167,8 +209,11 @@ class ExecutionEngineIntegrationTest {
   void povShouldRespectTargetParticipation() {
     properties.getPov().setTargetPct(0.1);
     properties.getPov().setReassessIntervalSec(0);
-    ExecutionRequest request = baseRequest(OrderSide.SELL, new BigDecimal("0.2"), ExecutionRequest.Urgency.MEDIUM);
-    MarketSnapshot snapshot = new MarketSnapshot(new BigDecimal("100"), 1, 5, 0, new BigDecimal("1"), BigDecimal.valueOf(100));
+    ExecutionRequest request =
+        baseRequest(OrderSide.SELL, new BigDecimal("0.2"), ExecutionRequest.Urgency.MEDIUM);
+    MarketSnapshot snapshot =
+        new MarketSnapshot(
+            new BigDecimal("100"), 1, 5, 0, new BigDecimal("1"), BigDecimal.valueOf(100));
     UUID tenantId = UUID.randomUUID();
     TenantContext.setTenantId(tenantId);
 
@@ -177,8 +222,10 @@ class ExecutionEngineIntegrationTest {
         .thenAnswer(
             invocation -> {
               OrderRequest orderRequest = invocation.getArgument(0);
-              BigDecimal qty = Optional.ofNullable(orderRequest.getQuantity()).orElse(BigDecimal.ZERO);
-              BigDecimal price = Optional.ofNullable(orderRequest.getPrice()).orElse(new BigDecimal("100"));
+              BigDecimal qty =
+                  Optional.ofNullable(orderRequest.getQuantity()).orElse(BigDecimal.ZERO);
+              BigDecimal price =
+                  Optional.ofNullable(orderRequest.getPrice()).orElse(new BigDecimal("100"));
               BigDecimal executed = counter.getAndIncrement() == 0 ? new BigDecimal("0.1") : qty;
               return new OrderResponse(
                   "pov-" + counter.get(),
@@ -207,8 +254,275 @@ class ExecutionEngineIntegrationTest {
     assertThat(participation).isCloseTo(1.0, within(0.01));
   }
 
-  private ExecutionRequest baseRequest(OrderSide side, BigDecimal quantity, ExecutionRequest.Urgency urgency) {
-    ExchangeInfo exchangeInfo = new ExchangeInfo(new BigDecimal("0.01"), new BigDecimal("0.001"), BigDecimal.ONE);
+  @Test
+  void limitCompletesFromStreamFillBeforeTtl() throws Exception {
+    properties.getLimit().setTtlMs(60_000);
+    properties.getLimit().setMaxRetries(0);
+    ExecutionRequest request =
+        baseRequest(OrderSide.BUY, new BigDecimal("0.1"), ExecutionRequest.Urgency.LOW);
+    when(orderService.placeOrder(any()))
+        .thenAnswer(invocation -> response(invocation.getArgument(0), BigDecimal.ZERO, "NEW"));
+
+    ExecutionHandle handle = engine.submit(request, snapshot(BigDecimal.TEN), null);
+    verify(orderService, timeout(2_000)).placeOrder(any());
+    assertThat(handle.result()).isNotDone();
+
+    engine.onOrderUpdate(
+        new ManagedOrderUpdate(
+            "BTCUSDT",
+            "base-id",
+            "order-1",
+            ManagedOrderStatus.FILLED,
+            new BigDecimal("0.1"),
+            new BigDecimal("0.1"),
+            new BigDecimal("99.5"),
+            Instant.now(clock)));
+
+    ExecutionEngine.ExecutionResult result = handle.result().get(2, TimeUnit.SECONDS);
+    assertThat(result.orders()).hasSize(1);
+    assertThat(result.executedQty()).isEqualByComparingTo("0.1");
+    assertThat(result.averagePrice()).isEqualByComparingTo("99.5");
+    verify(binanceClient, never()).cancelOrder(anyString(), anyString());
+    assertThat(engine.inFlight()).isZero();
+  }
+
+  @Test
+  void staleTtlWaitingOnTheMonitorDoesNotSkipARetry() throws Exception {
+    properties.getLimit().setTtlMs(500);
+    properties.getLimit().setMaxRetries(1);
+    ExecutionRequest request =
+        baseRequest(OrderSide.BUY, new BigDecimal("0.1"), ExecutionRequest.Urgency.LOW);
+    when(orderService.placeOrder(any()))
+        .thenAnswer(
+            invocation -> {
+              OrderRequest orderRequest = invocation.getArgument(0);
+              boolean market = orderRequest.getType() == OrderType.MARKET;
+              return response(
+                  orderRequest, market ? null : BigDecimal.ZERO, market ? "FILLED" : "NEW");
+            });
+    // the partial fill is applied under the parent monitor; hold it there until the TTL fires
+    AtomicBoolean held = new AtomicBoolean();
+    doAnswer(
+            invocation -> {
+              if (held.compareAndSet(false, true)) {
+                awaitBlockedTimerThread();
+              }
+              return null;
+            })
+        .when(anomalyDetector)
+        .recordSlippage(anyString(), anyDouble());
+
+    ExecutionHandle handle = engine.submit(request, snapshot(BigDecimal.TEN), null);
+    verify(orderService, timeout(2_000)).placeOrder(any());
+    engine.onOrderUpdate(
+        new ManagedOrderUpdate(
+            "BTCUSDT",
+            "base-id",
+            "order-1",
+            ManagedOrderStatus.CANCELED,
+            new BigDecimal("0.1"),
+            new BigDecimal("0.04"),
+            new BigDecimal("99.5"),
+            Instant.now(clock)));
+
+    verify(orderService, timeout(2_000))
+        .placeOrder(argThat(order -> "base-id-r1".equals(order.getClientOrderId())));
+    Thread.sleep(150);
+    // the retry rests for its own TTL instead of being replaced straight away
+    verify(binanceClient, never()).cancelOrder(anyString(), eq("base-id-r1"));
+
+    ExecutionEngine.ExecutionResult result = handle.result().get(5, TimeUnit.SECONDS);
+    assertThat(result.orders())
+        .extracting(OrderResponse::clientOrderId)
+        .containsExactly("base-id", "base-id-r1", "base-id-m");
+    assertThat(result.executedQty()).isEqualByComparingTo("0.1");
+  }
+
+  @Test
+  void submitReturnsWhileSlicesAreWorkedAndPersistsProgress() throws Exception {
+    properties.getTwap().setSlices(2);
+    properties.getTwap().setWindowSec(1);
+    ExecutionRequest request =
+        baseRequest(OrderSide.BUY, new BigDecimal("0.9"), ExecutionRequest.Urgency.MEDIUM);
+    MarketSnapshot snapshot =
+        new MarketSnapshot(
+            new BigDecimal("100"), 1, 5, 0, new BigDecimal("1"), BigDecimal.valueOf(100));
+    when(orderService.placeOrder(any()))
+        .thenAnswer(invocation -> response(invocation.getArgument(0), null, "FILLED"));
+
+    ExecutionHandle handle = engine.submit(request, snapshot, "ctx");
+
+    assertThat(handle.parentId()).isEqualTo("base-id");
+    assertThat(handle.result()).isNotDone();
+    assertThat(engine.inFlight()).isEqualTo(1);
+    ExecutionEngine.ExecutionResult result = handle.result().get(5, TimeUnit.SECONDS);
+    assertThat(result.orders())
+        .extracting(OrderResponse::clientOrderId)
+        .containsExactly("base-id-twap-0", "base-id-twap-1");
+    ArgumentCaptor<ParentOrderEntity> saved = ArgumentCaptor.forClass(ParentOrderEntity.class);
+    verify(parentOrderRepository, atLeast(3)).save(saved.capture());
+    ParentOrderEntity last = saved.getValue();
+    assertThat(last.getStatus()).isEqualTo(ParentOrderStatus.COMPLETED);
+    assertThat(last.getPlanType()).isEqualTo("TWAP");
+    assertThat(last.getContext()).isEqualTo("ctx");
+    assertThat(last.getExecutedQty()).isEqualByComparingTo("0.9");
+  }
+
+  @Test
+  void resumesWorkingParentAfterRestart() throws Exception {
+    ParentOrderEntity entity = new ParentOrderEntity();
+    entity.setId("base-id");
+    entity.setSymbol("BTCUSDT");
+    entity.setSide(OrderSide.BUY);
+    entity.setPlanType("TWAP");
+    entity.setSlices(2);
+    entity.setWindowMs(1_000L);
+    entity.setQuantity(new BigDecimal("0.9"));
+    entity.setReferencePrice(new BigDecimal("100"));
+    entity.setDeadline(Instant.now(clock).plusSeconds(30));
+    entity.setDryRun(true);
+    entity.setUrgency("MEDIUM");
+    entity.setTickSize(new BigDecimal("0.01"));
+    entity.setStepSize(new BigDecimal("0.001"));
+    entity.setMinNotional(BigDecimal.ONE);
+    entity.setStep(1);
+    entity.setExecutedQty(new BigDecimal("0.45"));
+    entity.setExecutedQuote(new BigDecimal("45"));
+    entity.setNextEventAt(Instant.now(clock));
+    entity.setContext("ctx");
+    when(parentOrderRepository.findByStatus(ParentOrderStatus.WORKING)).thenReturn(List.of(entity));
+    when(orderService.placeOrder(any()))
+        .thenAnswer(invocation -> response(invocation.getArgument(0), null, "FILLED"));
+
+    List<ExecutionHandle> handles = engine.resumeInFlight();
+
+    assertThat(handles).hasSize(1);
+    assertThat(handles.get(0).context()).isEqualTo("ctx");
+    ExecutionEngine.ExecutionResult result = handles.get(0).result().get(2, TimeUnit.SECONDS);
+    assertThat(result.orders())
+        .extracting(OrderResponse::clientOrderId)
+        .containsExactly("base-id-twap-1");
+    assertThat(result.executedQty()).isEqualByComparingTo("0.9");
+    assertThat(result.averagePrice()).isEqualByComparingTo("100");
+  }
+
+  @Test
+  void marketChildIsPersistedAsWorkingBeforeItIsSent() {
+    properties.getTwap().setSlices(2);
+    properties.getTwap().setWindowSec(1);
+    ExecutionRequest request =
+        baseRequest(OrderSide.BUY, new BigDecimal("0.9"), ExecutionRequest.Urgency.MEDIUM);
+    MarketSnapshot snapshot =
+        new MarketSnapshot(
+            new BigDecimal("100"), 1, 5, 0, new BigDecimal("1"), BigDecimal.valueOf(100));
+    ArgumentCaptor<ParentOrderEntity> saved = ArgumentCaptor.forClass(ParentOrderEntity.class);
+    List<String> persistedBeforeSend = new ArrayList<>();
+    when(orderService.placeOrder(any()))
+        .thenAnswer(
+            invocation -> {
+              verify(parentOrderRepository, atLeast(1)).save(saved.capture());
+              persistedBeforeSend.add(saved.getValue().getWorkingClientOrderId());
+              return response(invocation.getArgument(0), null, "FILLED");
+            });
+
+    ExecutionEngine.ExecutionResult result = engine.execute(request, snapshot);
+
+    assertThat(persistedBeforeSend).containsExactly("base-id-twap-0", "base-id-twap-1");
+    assertThat(result.executedQty()).isEqualByComparingTo("0.9");
+  }
+
+  @Test
+  void resumeCountsAFilledSliceInsteadOfSendingItAgain() throws Exception {
+    ParentOrderEntity entity = new ParentOrderEntity();
+    entity.setId("base-id");
+    entity.setSymbol("BTCUSDT");
+    entity.setSide(OrderSide.BUY);
+    entity.setPlanType("TWAP");
+    entity.setSlices(2);
+    entity.setWindowMs(1_000L);
+    entity.setQuantity(new BigDecimal("0.9"));
+    entity.setReferencePrice(new BigDecimal("100"));
+    entity.setDeadline(Instant.now(clock).plusSeconds(30));
+    entity.setDryRun(true);
+    entity.setUrgency("MEDIUM");
+    entity.setTickSize(new BigDecimal("0.01"));
+    entity.setStepSize(new BigDecimal("0.001"));
+    entity.setMinNotional(BigDecimal.ONE);
+    // crashed after sending the first slice, before its response was persisted
+    entity.setStep(0);
+    entity.setExecutedQty(BigDecimal.ZERO);
+    entity.setExecutedQuote(BigDecimal.ZERO);
+    entity.setWorkingClientOrderId("base-id-twap-0");
+    entity.setNextEventAt(Instant.now(clock));
+    entity.setContext("ctx");
+    when(parentOrderRepository.findByStatus(ParentOrderStatus.WORKING)).thenReturn(List.of(entity));
+    when(binanceClient.getOrderByClientOrderId("BTCUSDT", "base-id-twap-0"))
+        .thenReturn(
+            new OrderResponse(
+                "order-0",
+                "base-id-twap-0",
+                "BTCUSDT",
+                OrderSide.BUY,
+                OrderType.MARKET,
+                BigDecimal.ZERO,
+                new BigDecimal("0.45"),
+                new BigDecimal("45"),
+                "FILLED",
+                Instant.now(clock)));
+    when(orderService.placeOrder(any()))
+        .thenAnswer(invocation -> response(invocation.getArgument(0), null, "FILLED"));
+
+    List<ExecutionHandle> handles = engine.resumeInFlight();
+
+    ExecutionEngine.ExecutionResult result = handles.get(0).result().get(2, TimeUnit.SECONDS);
+    ArgumentCaptor<OrderRequest> sent = ArgumentCaptor.forClass(OrderRequest.class);
+    verify(orderService).placeOrder(sent.capture());
+    assertThat(sent.getValue().getClientOrderId()).isEqualTo("base-id-twap-1");
+    assertThat(sent.getValue().getQuantity()).isEqualByComparingTo("0.45");
+    assertThat(result.executedQty()).isEqualByComparingTo("0.9");
+    assertThat(result.averagePrice()).isEqualByComparingTo("100");
+  }
+
+  private static void awaitBlockedTimerThread() throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (System.nanoTime() < deadline) {
+      boolean blocked =
+          Thread.getAllStackTraces().keySet().stream()
+              .anyMatch(
+                  thread ->
+                      thread.getName().startsWith("exec-timer-")
+                          && thread.getState() == Thread.State.BLOCKED);
+      if (blocked) {
+        return;
+      }
+      Thread.sleep(5);
+    }
+    throw new AssertionError("TTL timer never blocked on the parent order");
+  }
+
+  private OrderResponse response(OrderRequest orderRequest, BigDecimal executed, String status) {
+    BigDecimal qty =
+        executed != null
+            ? executed
+            : Optional.ofNullable(orderRequest.getQuantity()).orElse(BigDecimal.ZERO);
+    BigDecimal price = Optional.ofNullable(orderRequest.getPrice()).orElse(new BigDecimal("100"));
+    return new OrderResponse(
+        "order-1",
+        orderRequest.getClientOrderId(),
+        orderRequest.getSymbol(),
+        orderRequest.getSide(),
+        orderRequest.getType(),
+        price,
+        qty,
+        price.multiply(qty),
+        status,
+        Instant.now(clock));
+  }
+
+  private ExecutionRequest baseRequest(
+      OrderSide side, BigDecimal quantity, ExecutionRequest.Urgency urgency) {
+    ExchangeInfo exchangeInfo =
+        new ExchangeInfo(new BigDecimal("0.01"), new BigDecimal("0.001"), BigDecimal.ONE);
     return new ExecutionRequest(
         "BTCUSDT",
         side,
@@ -229,6 +543,12 @@ class ExecutionEngineIntegrationTest {
   }
 
   private MarketSnapshot snapshot(BigDecimal spread) {
-    return new MarketSnapshot(new BigDecimal("100"), spread.doubleValue(), 5, 0, new BigDecimal("1"), BigDecimal.valueOf(100));
+    return new MarketSnapshot(
+        new BigDecimal("100"),
+        spread.doubleValue(),
+        5,
+        0,
+        new BigDecimal("1"),
+        BigDecimal.valueOf(100));
   }
 }
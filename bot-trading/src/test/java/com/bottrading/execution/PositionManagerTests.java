@@ -26,6 +26,8 @@ import com.bottrading.repository.TradeRepository;
 import com.bottrading.saas.security.TenantAccessGuard;
 import com.bottrading.service.binance.BinanceClient;
 import com.bottrading.service.report.PnlAttributionService;
+import com.bottrading.service.risk.ExposureLedger;
+import com.bottrading.service.risk.VarSampleStore;
 import com.bottrading.service.risk.drift.DriftWatchdog;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.math.BigDecimal;
@@ -59,6 +61,8 @@ class PositionManagerTests {
   private final DriftWatchdog driftWatchdog = mock(DriftWatchdog.class);
   private final PnlAttributionService pnlAttributionService = mock(PnlAttributionService.class);
   private final TenantAccessGuard tenantAccessGuard = mock(TenantAccessGuard.class);
+  private final ExposureLedger exposureLedger = mock(ExposureLedger.class);
+  private final VarSampleStore varSampleStore = mock(VarSampleStore.class);
   private final UUID tenantId = UUID.fromString("aaaaaaaa-aaaa-aaaa-aaaa-aaaaaaaaaaaa");
 
   @BeforeEach
@@ -82,7 +86,11 @@ class PositionManagerTests {
     when(positionRepository.findById(any(Long.class)))
         .thenAnswer(invocation -> Optional.ofNullable(positions.get(invocation.getArgument(0))));
     when(positionRepository.findByStatus(PositionStatus.OPEN))
-        .thenAnswer(invocation -> positions.values().stream().filter(p -> p.getStatus() == PositionStatus.OPEN).toList());
+        .thenAnswer(
+            invocation ->
+                positions.values().stream()
+                    .filter(p -> p.getStatus() == PositionStatus.OPEN)
+                    .toList());
 
     when(managedOrderRepository.save(any(ManagedOrderEntity.class)))
         .thenAnswer(
@@ -106,7 +114,8 @@ class PositionManagerTests {
                 orders.values().stream()
                     .filter(o -> o.getPosition().equals(invocation.getArgument(0)))
                     .toList());
-    when(managedOrderRepository.findByPositionAndType(any(PositionEntity.class), any(ManagedOrderType.class)))
+    when(managedOrderRepository.findByPositionAndType(
+            any(PositionEntity.class), any(ManagedOrderType.class)))
         .thenAnswer(
             invocation ->
                 orders.values().stream()
@@ -118,7 +127,8 @@ class PositionManagerTests {
     when(managedOrderRepository.findByPositionIdAndStatusIn(any(Long.class), any(Collection.class)))
         .thenReturn(List.of());
 
-    when(tradeRepository.save(any(TradeEntity.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    when(tradeRepository.save(any(TradeEntity.class)))
+        .thenAnswer(invocation -> invocation.getArgument(0));
 
     doThrow(new UnsupportedOperationException("oco"))
         .when(binanceClient)
@@ -145,9 +155,15 @@ class PositionManagerTests {
             null));
 
     ManagedOrderEntity takeProfit =
-        orders.values().stream().filter(o -> o.getType() == ManagedOrderType.TAKE_PROFIT).findFirst().orElseThrow();
+        orders.values().stream()
+            .filter(o -> o.getType() == ManagedOrderType.TAKE_PROFIT)
+            .findFirst()
+            .orElseThrow();
     ManagedOrderEntity stopLoss =
-        orders.values().stream().filter(o -> o.getType() == ManagedOrderType.STOP_LOSS).findFirst().orElseThrow();
+        orders.values().stream()
+            .filter(o -> o.getType() == ManagedOrderType.STOP_LOSS)
+            .findFirst()
+            .orElseThrow();
 
     manager.onOrderUpdate(
         new ManagedOrderUpdate(
@@ -200,9 +216,15 @@ class PositionManagerTests {
             null));
 
     ManagedOrderEntity stopLoss =
-        orders.values().stream().filter(o -> o.getType() == ManagedOrderType.STOP_LOSS).findFirst().orElseThrow();
+        orders.values().stream()
+            .filter(o -> o.getType() == ManagedOrderType.STOP_LOSS)
+            .findFirst()
+            .orElseThrow();
     ManagedOrderEntity takeProfit =
-        orders.values().stream().filter(o -> o.getType() == ManagedOrderType.TAKE_PROFIT).findFirst().orElseThrow();
+        orders.values().stream()
+            .filter(o -> o.getType() == ManagedOrderType.TAKE_PROFIT)
+            .findFirst()
+            .orElseThrow();
 
     manager.onOrderUpdate(
         new ManagedOrderUpdate(
@@ -229,7 +251,12 @@ class PositionManagerTests {
         ocoProperties,
         managerProperties,
         new SimpleMeterRegistry(),
-        Optional.of(clock), driftWatchdog, pnlAttributionService, tenantAccessGuard);
+        Optional.of(clock),
+        driftWatchdog,
+        pnlAttributionService,
+        tenantAccessGuard,
+        exposureLedger,
+        varSampleStore);
   }
 
   private static class RecordingNotifier extends TelegramNotifier {
@@ -257,7 +284,11 @@ class PositionManagerTests {
 
     @Override
     public void notifyPositionOpened(
-        String symbol, OrderSide side, BigDecimal qty, BigDecimal entryPrice, String correlationId) {
+        String symbol,
+        OrderSide side,
+        BigDecimal qty,
+        BigDecimal entryPrice,
+        String correlationId) {
       events.add("open:" + correlationId);
     }
   }
@@ -0,0 +1,118 @@
+package com.bottrading.executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import com.bottrading.config.PersistenceProperties;
+import com.bottrading.model.entity.DecisionEntity;
+import com.bottrading.persistence.WriteBehindWriter;
+import com.bottrading.repository.DecisionRepository;
+import com.bottrading.strategy.SignalSide;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+class DecisionJournalTest {
+
+  private static final Instant CLOSE = Instant.parse("2024-05-01T10:00:00Z");
+
+  private NamedParameterJdbcTemplate jdbcTemplate;
+  private SimpleMeterRegistry registry;
+  private WriteBehindWriter writer;
+  private DecisionJournal journal;
+
+  @BeforeEach
+  void setUp() {
+    // the test profile's database: H2 in PostgreSQL mode
+    DriverManagerDataSource dataSource =
+        new DriverManagerDataSource(
+            "jdbc:h2:mem:decisions;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;DATABASE_TO_UPPER=false",
+            "sa",
+            "");
+    jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+    jdbcTemplate
+        .getJdbcTemplate()
+        .execute(
+            "CREATE TABLE decisions (decision_key VARCHAR(120) PRIMARY KEY, symbol VARCHAR(50)"
+                + " NOT NULL, \"interval\" VARCHAR(10) NOT NULL, close_time TIMESTAMP NOT NULL,"
+                + " side VARCHAR(10) NOT NULL, confidence DOUBLE PRECISION, reason TEXT,"
+                + " decided_at TIMESTAMP NOT NULL, executed BOOLEAN DEFAULT FALSE, order_id"
+                + " VARCHAR(100), regime_trend VARCHAR(32), regime_volatility VARCHAR(32),"
+                + " preset_key VARCHAR(128), preset_id UUID)");
+    registry = new SimpleMeterRegistry();
+    PersistenceProperties properties = new PersistenceProperties();
+    writer = new WriteBehindWriter(jdbcTemplate, properties, registry);
+    journal =
+        new DecisionJournal(
+            mock(DecisionRepository.class), writer, properties, registry, clockProvider());
+  }
+
+  @AfterEach
+  void tearDown() {
+    writer.close();
+    jdbcTemplate.getJdbcTemplate().execute("DROP TABLE decisions");
+  }
+
+  @Test
+  void upsertInsertsThenUpdatesTheSameRowOnH2() {
+    DecisionEntity decision = decision("BTCUSDT-1m-1", "BUY signal");
+    journal.record(decision);
+    journal.record(decision("ETHUSDT-1m-1", "SELL signal"));
+    decision.setExecuted(false);
+    decision.setReason("EXECUTION_FAILED");
+    decision.setOrderId("order-7");
+    journal.record(decision);
+    writer.close();
+
+    assertThat(registry.find("persistence.writebehind.failed").counters()).isEmpty();
+    List<Map<String, Object>> rows =
+        jdbcTemplate.queryForList(
+            "SELECT decision_key, \"interval\", reason, executed, order_id, preset_key"
+                + " FROM decisions ORDER BY decision_key",
+            Map.of());
+    assertThat(rows).hasSize(2);
+    assertThat(rows.get(0))
+        .containsEntry("decision_key", "BTCUSDT-1m-1")
+        .containsEntry("interval", "1m")
+        .containsEntry("reason", "EXECUTION_FAILED")
+        .containsEntry("executed", false)
+        .containsEntry("order_id", "order-7")
+        .containsEntry("preset_key", "trend");
+    assertThat(rows.get(1))
+        .containsEntry("decision_key", "ETHUSDT-1m-1")
+        .containsEntry("reason", "SELL signal")
+        .containsEntry("order_id", null);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static ObjectProvider<Clock> clockProvider() {
+    return mock(ObjectProvider.class);
+  }
+
+  private static DecisionEntity decision(String key, String reason) {
+    DecisionEntity entity = new DecisionEntity();
+    entity.setDecisionKey(key);
+    entity.setSymbol(key.substring(0, key.indexOf('-')));
+    entity.setInterval("1m");
+    entity.setCloseTime(CLOSE);
+    entity.setSide(SignalSide.BUY);
+    entity.setConfidence(0.7);
+    entity.setReason(reason);
+    entity.setDecidedAt(CLOSE.plusSeconds(1));
+    entity.setExecuted(true);
+    entity.setRegimeTrend("UP");
+    entity.setRegimeVolatility("LOW");
+    entity.setPresetKey("trend");
+    entity.setPresetId(UUID.nameUUIDFromBytes(key.getBytes()));
+    return entity;
+  }
+}
@@ -0,0 +1,91 @@
+package com.bottrading.executor;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class MarketStreamDecoderTest {
+
+  private final MarketStreamDecoder decoder = new MarketStreamDecoder();
+
+  @Test
+  void decodesCombinedClosedKline() throws Exception {
+    MarketStreamDecoder.Event event =
+        decode(
+            "{\"stream\":\"btcusdt@kline_1m\",\"data\":{\"e\":\"kline\",\"E\":1,\"s\":\"BTCUSDT\","
+                + "\"k\":{\"t\":60000,\"T\":119999,\"s\":\"BTCUSDT\",\"i\":\"1m\",\"f\":1,\"L\":2,"
+                + "\"o\":\"100.10\",\"c\":\"101.25\",\"h\":\"102\",\"l\":\"99.5\",\"v\":\"12.345\","
+                + "\"n\":3,\"x\":true,\"q\":\"1\",\"V\":\"2\",\"Q\":\"3\",\"B\":\"0\"}}}");
+
+    Assertions.assertEquals(MarketStreamDecoder.Type.KLINE, event.type);
+    Assertions.assertEquals("BTCUSDT", event.symbol);
+    Assertions.assertEquals("1m", event.interval);
+    Assertions.assertEquals(60_000L, event.openTime);
+    Assertions.assertEquals(119_999L, event.closeTime);
+    Assertions.assertEquals(100.10, event.open);
+    Assertions.assertEquals(102, event.high);
+    Assertions.assertEquals(99.5, event.low);
+    Assertions.assertEquals(101.25, event.close);
+    Assertions.assertEquals(12.345, event.volume);
+    Assertions.assertTrue(event.closed);
+  }
+
+  @Test
+  void reusesEventAndCanonicalStrings() throws Exception {
+    String open =
+        "{\"e\":\"kline\",\"s\":\"ETHUSDT\",\"k\":{\"t\":1,\"T\":2,\"s\":\"ETHUSDT\",\"i\":\"5m\","
+            + "\"o\":\"1\",\"c\":\"2\",\"h\":\"3\",\"l\":\"0.5\",\"v\":\"9\",\"x\":false,"
+            + "\"q\":\"bad\"}}";
+    MarketStreamDecoder.Event first = decode(open);
+    String symbol = first.symbol;
+    Assertions.assertFalse(first.closed);
+    Assertions.assertEquals(2, first.close);
+
+    MarketStreamDecoder.Event second = decode(open);
+    Assertions.assertSame(first, second);
+    Assertions.assertSame(symbol, second.symbol);
+  }
+
+  @Test
+  void decodesMiniTickerAndIgnoresOtherFrames() throws Exception {
+    MarketStreamDecoder.Event ticker =
+        decode(
+            "{\"stream\":\"btcusdt@miniTicker\",\"data\":{\"e\":\"24hrMiniTicker\",\"E\":1,"
+                + "\"s\":\"BTCUSDT\",\"c\":\"1\",\"o\":\"1\",\"h\":\"1\",\"l\":\"1\",\"v\":\"5\","
+                + "\"q\":\"123456.75\"}}");
+    Assertions.assertEquals(MarketStreamDecoder.Type.MINI_TICKER, ticker.type);
+    Assertions.assertEquals("BTCUSDT", ticker.symbol);
+    Assertions.assertEquals(123456.75, ticker.quoteVolume);
+
+    MarketStreamDecoder.Event ack = decode("{\"result\":null,\"id\":1}");
+    Assertions.assertEquals(MarketStreamDecoder.Type.OTHER, ack.type);
+    Assertions.assertNull(ack.symbol);
+  }
+
+  @Test
+  void parsesDecimalsExactlyOrFallsBack() {
+    String[] samples = {
+      "0",
+      "-0.5",
+      "42",
+      "0.00000001",
+      "65432.10000000",
+      "123456789012345.6",
+      "1e3",
+      "9007199254740993"
+    };
+    for (String sample : samples) {
+      char[] chars = ("x" + sample + "y").toCharArray();
+      Assertions.assertEquals(
+          Double.parseDouble(sample),
+          MarketStreamDecoder.parseDouble(chars, 1, sample.length()),
+          sample);
+    }
+    Assertions.assertThrows(
+        NumberFormatException.class, () -> MarketStreamDecoder.parseDouble(new char[0], 0, 0));
+  }
+
+  private MarketStreamDecoder.Event decode(String frame) throws Exception {
+    char[] chars = (frame + "garbage").toCharArray();
+    return decoder.decode(chars, frame.length());
+  }
+}
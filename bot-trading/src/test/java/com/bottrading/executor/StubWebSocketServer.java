@@ -0,0 +1,190 @@
+package com.bottrading.executor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/** Minimal RFC 6455 server for driving websocket clients in tests: text frames only. */
+final class StubWebSocketServer implements AutoCloseable {
+
+  private static final String GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+
+  private final ServerSocket serverSocket;
+  private final BlockingQueue<Client> accepted = new LinkedBlockingQueue<>();
+  private final Thread acceptor;
+
+  StubWebSocketServer() throws IOException {
+    serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+    acceptor = new Thread(this::acceptLoop, "stub-ws-acceptor");
+    acceptor.setDaemon(true);
+    acceptor.start();
+  }
+
+  String url() {
+    return "ws://127.0.0.1:" + serverSocket.getLocalPort() + "/ws/";
+  }
+
+  Client awaitClient() throws InterruptedException {
+    Client client = accepted.poll(5, TimeUnit.SECONDS);
+    if (client == null) {
+      throw new AssertionError("no websocket client connected");
+    }
+    return client;
+  }
+
+  Client pollClient(long millis) throws InterruptedException {
+    return accepted.poll(millis, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public void close() throws IOException {
+    serverSocket.close();
+  }
+
+  private void acceptLoop() {
+    while (!serverSocket.isClosed()) {
+      try {
+        Socket socket = serverSocket.accept();
+        Client client = new Client(socket);
+        client.handshake();
+        Thread reader = new Thread(client::readLoop, "stub-ws-client");
+        reader.setDaemon(true);
+        reader.start();
+        accepted.add(client);
+      } catch (IOException ex) {
+        return;
+      }
+    }
+  }
+
+  static final class Client {
+    private final Socket socket;
+    private final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+
+    private Client(Socket socket) {
+      this.socket = socket;
+    }
+
+    String awaitMessage() throws InterruptedException {
+      String message = received.poll(5, TimeUnit.SECONDS);
+      if (message == null) {
+        throw new AssertionError("no websocket message received");
+      }
+      return message;
+    }
+
+    String pollMessage(long millis) throws InterruptedException {
+      return received.poll(millis, TimeUnit.MILLISECONDS);
+    }
+
+    synchronized void send(String text) throws IOException {
+      byte[] payload = text.getBytes(StandardCharsets.UTF_8);
+      OutputStream out = socket.getOutputStream();
+      out.write(0x81);
+      if (payload.length < 126) {
+        out.write(payload.length);
+      } else {
+        out.write(126);
+        out.write(payload.length >>> 8);
+        out.write(payload.length & 0xff);
+      }
+      out.write(payload);
+      out.flush();
+    }
+
+    /** Drops the TCP connection without a close handshake. */
+    void drop() throws IOException {
+      socket.close();
+    }
+
+    private void handshake() throws IOException {
+      InputStream in = socket.getInputStream();
+      ByteArrayOutputStream header = new ByteArrayOutputStream();
+      while (!header.toString(StandardCharsets.ISO_8859_1).endsWith("\r\n\r\n")) {
+        int b = in.read();
+        if (b < 0) {
+          throw new IOException("handshake truncated");
+        }
+        header.write(b);
+      }
+      String key = null;
+      for (String line : header.toString(StandardCharsets.ISO_8859_1).split("\r\n")) {
+        if (line.toLowerCase().startsWith("sec-websocket-key:")) {
+          key = line.substring(line.indexOf(':') + 1).trim();
+        }
+      }
+      String response =
+          "HTTP/1.1 101 Switching Protocols\r\n"
+              + "Upgrade: websocket\r\n"
+              + "Connection: Upgrade\r\n"
+              + "Sec-WebSocket-Accept: "
+              + accept(key)
+              + "\r\n\r\n";
+      socket.getOutputStream().write(response.getBytes(StandardCharsets.ISO_8859_1));
+      socket.getOutputStream().flush();
+    }
+
+    private void readLoop() {
+      try {
+        DataInputStream in = new DataInputStream(socket.getInputStream());
+        ByteArrayOutputStream message = new ByteArrayOutputStream();
+        while (true) {
+          int first = in.readUnsignedByte();
+          int second = in.readUnsignedByte();
+          long length = second & 0x7f;
+          if (length == 126) {
+            length = in.readUnsignedShort();
+          } else if (length == 127) {
+            length = in.readLong();
+          }
+          byte[] mask = new byte[4];
+          if ((second & 0x80) != 0) {
+            in.readFully(mask);
+          }
+          byte[] payload = new byte[(int) length];
+          in.readFully(payload);
+          for (int i = 0; i < payload.length; i++) {
+            payload[i] ^= mask[i % 4];
+          }
+          int opcode = first & 0x0f;
+          if (opcode == 0x8) {
+            socket.close();
+            return;
+          }
+          if (opcode == 0x1 || opcode == 0x0) {
+            message.write(payload);
+            if ((first & 0x80) != 0) {
+              received.add(message.toString(StandardCharsets.UTF_8));
+              message.reset();
+            }
+          }
+        }
+      } catch (IOException ex) {
+        // connection dropped
+      }
+    }
+
+    private static String accept(String key) {
+      try {
+        byte[] digest =
+            MessageDigest.getInstance("SHA-1")
+                .digest((key + GUID).getBytes(StandardCharsets.ISO_8859_1));
+        return Base64.getEncoder().encodeToString(digest);
+      } catch (NoSuchAlgorithmException ex) {
+        throw new IllegalStateException(ex);
+      }
+    }
+  }
+}
@@ -0,0 +1,103 @@
+package com.bottrading.executor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class SymbolLanesTest {
+
+  @Test
+  void runsEachSymbolInOrderAndSymbolsInParallel() throws InterruptedException {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      SymbolLanes lanes = new SymbolLanes(executor, 64);
+      List<Integer> btc = Collections.synchronizedList(new ArrayList<>());
+      List<Integer> eth = Collections.synchronizedList(new ArrayList<>());
+      AtomicInteger active = new AtomicInteger();
+      AtomicInteger peak = new AtomicInteger();
+      AtomicInteger btcActive = new AtomicInteger();
+      CountDownLatch done = new CountDownLatch(40);
+      for (int i = 0; i < 20; i++) {
+        int n = i;
+        Assertions.assertTrue(
+            lanes.submit(
+                "BTCUSDT",
+                () -> {
+                  Assertions.assertEquals(1, btcActive.incrementAndGet());
+                  peak.accumulateAndGet(active.incrementAndGet(), Math::max);
+                  sleep();
+                  btc.add(n);
+                  active.decrementAndGet();
+                  btcActive.decrementAndGet();
+                  done.countDown();
+                }));
+        Assertions.assertTrue(
+            lanes.submit(
+                "ETHUSDT",
+                () -> {
+                  peak.accumulateAndGet(active.incrementAndGet(), Math::max);
+                  sleep();
+                  eth.add(n);
+                  active.decrementAndGet();
+                  done.countDown();
+                }));
+      }
+      Assertions.assertTrue(done.await(10, TimeUnit.SECONDS));
+      List<Integer> expected = new ArrayList<>();
+      for (int i = 0; i < 20; i++) {
+        expected.add(i);
+      }
+      Assertions.assertEquals(expected, btc);
+      Assertions.assertEquals(expected, eth);
+      Assertions.assertEquals(2, peak.get());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void rejectsTasksBeyondTheLaneDepth() throws InterruptedException {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      SymbolLanes lanes = new SymbolLanes(executor, 2);
+      CountDownLatch release = new CountDownLatch(1);
+      CountDownLatch done = new CountDownLatch(2);
+      Runnable blocking =
+          () -> {
+            try {
+              release.await();
+            } catch (InterruptedException ex) {
+              Thread.currentThread().interrupt();
+            }
+            done.countDown();
+          };
+      Assertions.assertTrue(lanes.submit("BTCUSDT", blocking));
+      Assertions.assertTrue(lanes.submit("BTCUSDT", done::countDown));
+      Assertions.assertFalse(lanes.submit("BTCUSDT", done::countDown));
+      Assertions.assertEquals(2, lanes.pending("BTCUSDT"));
+      release.countDown();
+      Assertions.assertTrue(done.await(5, TimeUnit.SECONDS));
+      executor.shutdown();
+      Assertions.assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+      Assertions.assertEquals(0, lanes.pending("BTCUSDT"));
+      Assertions.assertThrows(IllegalArgumentException.class, () -> new SymbolLanes(executor, 0));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static void sleep() {
+    try {
+      Thread.sleep(5);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -8,13 +8,16 @@ import com.bottrading.bandit.BanditArmRole;
 import com.bottrading.bandit.BanditSelection;
 import com.bottrading.chaos.ChaosSuite;
 import com.bottrading.config.TradingProps;
-import com.bottrading.repository.DecisionRepository;
+import com.bottrading.model.enums.OrderSide;
+import com.bottrading.model.enums.OrderType;
 import com.bottrading.service.OrderExecutionService;
 import com.bottrading.service.StrategyService;
 import com.bottrading.service.anomaly.AnomalyDetector;
 import com.bottrading.service.binance.BinanceClient;
 import com.bottrading.service.health.HealthService;
 import com.bottrading.service.market.CandleSanitizer;
+import com.bottrading.service.market.CandleStore;
+import com.bottrading.service.market.MarketStats;
 import com.bottrading.service.preset.CanaryStageService;
 import com.bottrading.service.risk.RiskGuard;
 import com.bottrading.service.risk.TradingState;
@@ -26,13 +29,11 @@ import com.bottrading.strategy.SignalSide;
 import com.bottrading.strategy.StrategyContext;
 import com.bottrading.strategy.StrategyDecision;
 import com.bottrading.throttle.Throttle;
-import com.bottrading.ws.WSKlineSubscriber;
-import com.bottrading.model.enums.OrderSide;
-import com.bottrading.model.enums.OrderType;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.math.BigDecimal;
 import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneOffset;
 import java.util.List;
@@ -58,7 +59,7 @@ class TradingSchedulerTest {
   @Mock private RiskGuard riskGuard;
   @Mock private BinanceClient binanceClient;
   @Mock private OrderExecutionService orderExecutionService;
-  @Mock private DecisionRepository decisionRepository;
+  @Mock private DecisionJournal decisionJournal;
   @Mock private WSKlineSubscriber klineSubscriber;
   @Mock private AllocatorService allocatorService;
   @Mock private DriftWatchdog driftWatchdog;
@@ -67,6 +68,7 @@ class TradingSchedulerTest {
   @Mock private ChaosSuite chaosSuite;
   @Mock private AnomalyDetector anomalyDetector;
   @Mock private CandleSanitizer candleSanitizer;
+  @Mock private CandleStore candleStore;
   @Mock private CanaryStageService canaryStageService;
 
   private TradingProps tradingProps;
@@ -94,25 +96,30 @@ class TradingSchedulerTest {
     ObjectProvider<Clock> clockProvider = mock(ObjectProvider.class);
     when(clockProvider.getIfAvailable()).thenReturn(clock);
 
-    lenient().when(candleSanitizer.sanitize(anyString(), anyString(), anyLong()))
-        .thenAnswer(invocation -> List.of(invocation.getArgument(2)));
+    lenient()
+        .when(candleSanitizer.sanitize(anyString(), anyString(), anyLong()))
+        .thenAnswer(invocation -> List.of((Long) invocation.getArgument(2)));
     lenient().when(allocatorService.evaluate(anyString())).thenReturn(AllocationDecision.ok());
+    lenient().when(allocatorService.reserve(anyString())).thenReturn(AllocationDecision.ok());
     lenient().when(driftWatchdog.allowTrading()).thenReturn(true);
     lenient().when(driftWatchdog.sizingMultiplier()).thenReturn(1.0);
     lenient().when(anomalyDetector.sizingMultiplier(anyString())).thenReturn(1.0);
     lenient().when(healthService.isHealthy()).thenReturn(true);
     lenient().when(binanceClient.get24hQuoteVolume(anyString())).thenReturn(BigDecimal.TEN);
     lenient().when(riskGuard.canOpen(anyString())).thenReturn(true);
-    lenient().when(throttle.submit(any(), anyString(), any()))
-        .thenAnswer(invocation -> {
-          @SuppressWarnings("unchecked")
-          var supplier = (java.util.function.Supplier<Object>) invocation.getArgument(2);
-          return CompletableFuture.completedFuture(supplier.get());
-        });
-    lenient().when(chaosSuite.decorateApiCall(any())).thenAnswer(invocation -> invocation.getArgument(0));
+    lenient()
+        .when(throttle.submit(any(), anyString(), any()))
+        .thenAnswer(
+            invocation -> {
+              @SuppressWarnings("unchecked")
+              var supplier = (java.util.function.Supplier<Object>) invocation.getArgument(2);
+              return CompletableFuture.completedFuture(supplier.get());
+            });
+    lenient()
+        .when(chaosSuite.decorateApiCall(any()))
+        .thenAnswer(invocation -> invocation.getArgument(0));
     lenient().when(canaryStageService.multiplier(any())).thenReturn(1.0);
-    lenient().when(decisionRepository.existsById(anyString())).thenReturn(false);
-    lenient().when(decisionRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+    lenient().when(decisionJournal.isDuplicate(anyString(), anyLong())).thenReturn(false);
 
     scheduler =
         new TradingScheduler(
@@ -122,7 +129,7 @@ class TradingSchedulerTest {
             riskGuard,
             binanceClient,
             orderExecutionService,
-            decisionRepository,
+            decisionJournal,
             meterRegistry,
             klineSubscriber,
             allocatorService,
@@ -133,15 +140,19 @@ class TradingSchedulerTest {
             chaosSuite,
             anomalyDetector,
             candleSanitizer,
-            canaryStageService);
+            candleStore,
+            new MarketStats(binanceClient, Duration.ofMinutes(1), meterRegistry, clock),
+            canaryStageService,
+            Runnable::run);
   }
 
   @Test
   void onCandleClosedPersistsDecisionOncePerKey() {
     when(strategyService.decide(SYMBOL)).thenReturn(buyDecision(null));
-    when(orderExecutionService.execute(anyString(), anyString(), anyString(), any(), anyLong(), anyDouble()))
-        .thenReturn(Optional.of(executionResult()));
-    when(decisionRepository.existsById(anyString())).thenReturn(false, true);
+    when(orderExecutionService.execute(
+            anyString(), anyString(), anyString(), any(), anyLong(), anyDouble()))
+        .thenReturn(Optional.of(executionHandle()));
+    when(decisionJournal.isDuplicate(anyString(), anyLong())).thenReturn(false, true);
 
     scheduler.onCandleClosed(SYMBOL, INTERVAL, CLOSE_TIME);
     scheduler.onCandleClosed(SYMBOL, INTERVAL, CLOSE_TIME);
@@ -149,28 +160,49 @@ class TradingSchedulerTest {
     verify(strategyService, times(1)).decide(SYMBOL);
     ArgumentCaptor<com.bottrading.model.entity.DecisionEntity> entityCaptor =
         ArgumentCaptor.forClass(com.bottrading.model.entity.DecisionEntity.class);
-    verify(decisionRepository, times(1)).save(entityCaptor.capture());
+    verify(decisionJournal, times(1)).record(entityCaptor.capture());
     assertThat(entityCaptor.getValue().getDecisionKey())
         .isEqualTo(SYMBOL + "|" + INTERVAL + "|" + CLOSE_TIME);
     assertThat(entityCaptor.getValue().isExecuted()).isTrue();
   }
 
+  @Test
+  void initBackfillsEverySubscribedSymbol() {
+    tradingProps.setSymbols(List.of("ETHUSDT"));
+
+    scheduler.init();
+
+    verify(candleStore).backfill(SYMBOL, INTERVAL);
+    verify(candleStore).backfill("ETHUSDT", INTERVAL);
+    verify(klineSubscriber)
+        .start(eq(java.util.Set.of(SYMBOL, "ETHUSDT")), eq(List.of(INTERVAL)), eq(true), any());
+  }
+
   @Test
   void candidateSelectionUsesCanaryMultiplier() {
     UUID presetId = UUID.randomUUID();
     BanditSelection selection =
-        new BanditSelection(UUID.randomUUID(), presetId, BanditArmRole.CANDIDATE, "decision", java.util.Map.of(), "preset");
+        new BanditSelection(
+            UUID.randomUUID(),
+            presetId,
+            BanditArmRole.CANDIDATE,
+            "decision",
+            java.util.Map.of(),
+            "preset");
     when(canaryStageService.multiplier(presetId)).thenReturn(0.5);
     when(strategyService.decide(SYMBOL)).thenReturn(buyDecision(selection));
-    when(orderExecutionService.execute(anyString(), anyString(), anyString(), any(), anyLong(), anyDouble()))
-        .thenReturn(Optional.of(executionResult()));
+    when(orderExecutionService.execute(
+            anyString(), anyString(), anyString(), any(), anyLong(), anyDouble()))
+        .thenReturn(Optional.of(executionHandle()));
 
     scheduler.onCandleClosed(SYMBOL, INTERVAL, CLOSE_TIME);
 
     ArgumentCaptor<Double> multiplierCaptor = ArgumentCaptor.forClass(Double.class);
     verify(orderExecutionService)
-        .execute(anyString(), anyString(), anyString(), any(), anyLong(), multiplierCaptor.capture());
-    assertThat(multiplierCaptor.getValue()).isCloseTo(0.5, org.assertj.core.data.Offset.offset(1e-9));
+        .execute(
+            anyString(), anyString(), anyString(), any(), anyLong(), multiplierCaptor.capture());
+    assertThat(multiplierCaptor.getValue())
+        .isCloseTo(0.5, org.assertj.core.data.Offset.offset(1e-9));
   }
 
   @Test
@@ -229,7 +261,7 @@ class TradingSchedulerTest {
 
   @Test
   void allocatorGateBlocksDecision() {
-    when(allocatorService.evaluate(SYMBOL)).thenReturn(AllocationDecision.blocked("ALLOCATOR"));
+    when(allocatorService.reserve(SYMBOL)).thenReturn(AllocationDecision.blocked("ALLOCATOR"));
     runGateScenario("ALLOCATOR");
   }
 
@@ -247,7 +279,7 @@ class TradingSchedulerTest {
         .execute(anyString(), anyString(), anyString(), any(), anyLong(), anyDouble());
     ArgumentCaptor<com.bottrading.model.entity.DecisionEntity> entityCaptor =
         ArgumentCaptor.forClass(com.bottrading.model.entity.DecisionEntity.class);
-    verify(decisionRepository).save(entityCaptor.capture());
+    verify(decisionJournal).record(entityCaptor.capture());
     assertThat(entityCaptor.getValue().isExecuted()).isFalse();
     assertThat(entityCaptor.getValue().getReason()).contains(reasonFragment);
   }
@@ -258,6 +290,13 @@ class TradingSchedulerTest {
     return new StrategyDecision(signal, context, null, "preset", selection);
   }
 
+  private com.bottrading.execution.ExecutionHandle executionHandle() {
+    return new com.bottrading.execution.ExecutionHandle(
+        "client-1",
+        null,
+        java.util.concurrent.CompletableFuture.completedFuture(executionResult()));
+  }
+
   private com.bottrading.execution.ExecutionEngine.ExecutionResult executionResult() {
     com.bottrading.model.dto.OrderResponse order =
         new com.bottrading.model.dto.OrderResponse(
@@ -0,0 +1,279 @@
+package com.bottrading.executor;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.bottrading.chaos.ChaosSuite;
+import com.bottrading.service.health.HealthService;
+import com.bottrading.service.market.CandleStore;
+import com.bottrading.service.market.MarketStats;
+import com.bottrading.shadow.ShadowEngine;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class WSKlineSubscriberTest {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final List<String> SYMBOLS = List.of("BTCUSDT", "ETHUSDT", "SOLUSDT");
+
+  private final HealthService healthService = mock(HealthService.class);
+  private final ChaosSuite chaosSuite = mock(ChaosSuite.class);
+  private final CandleStore candleStore = mock(CandleStore.class);
+  private final MarketStats marketStats = mock(MarketStats.class);
+  private final ShadowEngine shadowEngine = mock(ShadowEngine.class);
+  private final BlockingQueue<KlineEvent> events = new LinkedBlockingQueue<>();
+  private final MutableClock clock = new MutableClock(Instant.parse("2024-01-01T00:00:00Z"));
+  private StubWebSocketServer server;
+  private WSKlineSubscriber subscriber;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    when(chaosSuite.applyWsChaos(any()))
+        .thenAnswer(invocation -> List.of((KlineEvent) invocation.getArgument(0)));
+    server = new StubWebSocketServer();
+    subscriber =
+        new WSKlineSubscriber(
+            server.url(),
+            2,
+            Duration.ofHours(1),
+            Duration.ofMillis(20),
+            clock,
+            healthService,
+            chaosSuite,
+            candleStore,
+            marketStats,
+            shadowEngine);
+  }
+
+  @AfterEach
+  void tearDown() throws Exception {
+    subscriber.stop();
+    server.close();
+  }
+
+  @Test
+  void shardsStreamsAcrossConnectionsAndDispatchesClosedKlines() throws Exception {
+    subscriber.start(SYMBOLS, List.of("1m"), false, events::add);
+    Map<Set<String>, StubWebSocketServer.Client> shards = connectShards();
+
+    Assertions.assertEquals(2, subscriber.connectionCount());
+    Assertions.assertEquals(
+        Set.of(Set.of("btcusdt@kline_1m", "ethusdt@kline_1m"), Set.of("solusdt@kline_1m")),
+        shards.keySet());
+    Assertions.assertFalse(subscriber.isHealthy("ETHUSDT"));
+
+    StubWebSocketServer.Client first = shards.get(Set.of("btcusdt@kline_1m", "ethusdt@kline_1m"));
+    first.send(kline("ETHUSDT", "1m", 59_999L, false));
+    first.send(
+        "{\"stream\":\"ethusdt@kline_1m\",\"data\":"
+            + kline("ETHUSDT", "1m", 119_999L, true)
+            + "}");
+    shards.get(Set.of("solusdt@kline_1m")).send(kline("SOLUSDT", "1m", 119_999L, true));
+
+    List<KlineEvent> received = new ArrayList<>();
+    received.add(events.poll(5, TimeUnit.SECONDS));
+    received.add(events.poll(5, TimeUnit.SECONDS));
+    Assertions.assertTrue(received.contains(new KlineEvent("ETHUSDT", "1m", 119_999L, true)));
+    Assertions.assertTrue(received.contains(new KlineEvent("SOLUSDT", "1m", 119_999L, true)));
+    Assertions.assertNull(events.poll(50, TimeUnit.MILLISECONDS));
+    Assertions.assertTrue(subscriber.isHealthy("ETHUSDT"));
+    Assertions.assertTrue(subscriber.isHealthy("SOLUSDT"));
+    Assertions.assertFalse(subscriber.isHealthy("BTCUSDT"));
+    Assertions.assertTrue(subscriber.isHealthy());
+  }
+
+  @Test
+  void reconnectsAndResubscribesOnlyTheDroppedShard() throws Exception {
+    subscriber.start(SYMBOLS, List.of("1m"), false, events::add);
+    Map<Set<String>, StubWebSocketServer.Client> shards = connectShards();
+    shards.get(Set.of("solusdt@kline_1m")).send(kline("SOLUSDT", "1m", 59_999L, false));
+    shards
+        .get(Set.of("btcusdt@kline_1m", "ethusdt@kline_1m"))
+        .send(kline("BTCUSDT", "1m", 59_999L, false));
+    waitUntil(() -> subscriber.isHealthy("SOLUSDT") && subscriber.isHealthy("BTCUSDT"));
+
+    shards.get(Set.of("solusdt@kline_1m")).drop();
+    verify(healthService, timeout(5_000)).onWebsocketReconnect();
+    Assertions.assertTrue(subscriber.isHealthy("BTCUSDT"));
+
+    StubWebSocketServer.Client reconnected = server.awaitClient();
+    Assertions.assertEquals(Set.of("solusdt@kline_1m"), subscribed(reconnected.awaitMessage()));
+    Assertions.assertNull(server.pollClient(100));
+    Assertions.assertNull(
+        shards.get(Set.of("btcusdt@kline_1m", "ethusdt@kline_1m")).pollMessage(50));
+    waitUntil(subscriber::isHealthy);
+  }
+
+  @Test
+  void resubscribesOnlyStaleStreams() throws Exception {
+    subscriber.start(SYMBOLS, List.of("1m"), false, events::add);
+    Map<Set<String>, StubWebSocketServer.Client> shards = connectShards();
+    StubWebSocketServer.Client first = shards.get(Set.of("btcusdt@kline_1m", "ethusdt@kline_1m"));
+
+    clock.advance(Duration.ofMinutes(59));
+    first.send(kline("BTCUSDT", "1m", 59_999L, false));
+    waitUntil(() -> subscriber.isHealthy("BTCUSDT"));
+    clock.advance(Duration.ofMinutes(2));
+    subscriber.checkStreams();
+
+    Assertions.assertEquals(Set.of("ethusdt@kline_1m"), subscribed(first.awaitMessage()));
+    Assertions.assertEquals(
+        Set.of("solusdt@kline_1m"),
+        subscribed(shards.get(Set.of("solusdt@kline_1m")).awaitMessage()));
+    subscriber.checkStreams();
+    Assertions.assertNull(first.pollMessage(50));
+  }
+
+  @Test
+  void feedsMiniTickerVolumesWithoutAffectingKlineHealth() throws Exception {
+    subscriber.start(List.of("BTCUSDT"), List.of("1m"), true, events::add);
+    StubWebSocketServer.Client client = server.awaitClient();
+    Assertions.assertEquals(
+        Set.of("btcusdt@kline_1m", "btcusdt@miniTicker"), subscribed(client.awaitMessage()));
+
+    client.send(
+        "{\"e\":\"24hrMiniTicker\",\"E\":1,\"s\":\"BTCUSDT\",\"c\":\"1\",\"q\":\"123456.75\"}");
+    verify(marketStats, timeout(5_000)).onMiniTicker("BTCUSDT", 123456.75);
+    Assertions.assertFalse(subscriber.isHealthy("BTCUSDT"));
+    client.send(kline("BTCUSDT", "1m", 59_999L, false));
+    waitUntil(() -> subscriber.isHealthy("BTCUSDT"));
+  }
+
+  @Test
+  void forwardsInProgressClosePricesToShadowBook() throws Exception {
+    subscriber.start(List.of("BTCUSDT"), List.of("1m"), false, events::add);
+    StubWebSocketServer.Client client = server.awaitClient();
+    client.awaitMessage();
+
+    client.send(
+        "{\"e\":\"kline\",\"s\":\"BTCUSDT\",\"k\":{\"s\":\"BTCUSDT\",\"i\":\"1m\",\"T\":59999,"
+            + "\"c\":\"42000.5\",\"x\":false}}");
+
+    verify(shadowEngine, timeout(5_000)).onPriceUpdate("BTCUSDT", 42000.5);
+    Assertions.assertNull(events.poll(50, TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  void keepsReadingAfterAMalformedFrame() throws Exception {
+    subscriber.start(List.of("BTCUSDT"), List.of("1m"), false, events::add);
+    StubWebSocketServer.Client client = server.awaitClient();
+    client.awaitMessage();
+
+    client.send(
+        "{\"e\":\"kline\",\"s\":\"BTCUSDT\",\"k\":{\"s\":\"BTCUSDT\",\"i\":\"1m\",\"T\":59999,"
+            + "\"c\":\"\",\"x\":false}}");
+    client.send(kline("BTCUSDT", "1m", 119_999L, true));
+
+    Assertions.assertEquals(
+        new KlineEvent("BTCUSDT", "1m", 119_999L, true), events.poll(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void rejectsInvalidShardSize() {
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            new WSKlineSubscriber(
+                server.url(),
+                2_000,
+                Duration.ofSeconds(30),
+                Duration.ofSeconds(1),
+                clock,
+                healthService,
+                chaosSuite,
+                candleStore,
+                marketStats,
+                shadowEngine));
+  }
+
+  private Map<Set<String>, StubWebSocketServer.Client> connectShards() throws Exception {
+    Map<Set<String>, StubWebSocketServer.Client> shards = new HashMap<>();
+    for (int i = 0; i < 2; i++) {
+      StubWebSocketServer.Client client = server.awaitClient();
+      shards.put(subscribed(client.awaitMessage()), client);
+    }
+    waitUntil(subscriber::isHealthy);
+    return shards;
+  }
+
+  private static Set<String> subscribed(String message) throws Exception {
+    JsonNode node = MAPPER.readTree(message);
+    Assertions.assertEquals("SUBSCRIBE", node.path("method").asText());
+    Set<String> streams = new TreeSet<>();
+    node.path("params").forEach(param -> streams.add(param.asText()));
+    return streams;
+  }
+
+  private static String kline(String symbol, String interval, long closeTime, boolean closed) {
+    return "{\"e\":\"kline\",\"s\":\""
+        + symbol
+        + "\",\"k\":{\"s\":\""
+        + symbol
+        + "\",\"i\":\""
+        + interval
+        + "\",\"T\":"
+        + closeTime
+        + ",\"x\":"
+        + closed
+        + "}}";
+  }
+
+  private static void waitUntil(java.util.function.BooleanSupplier condition)
+      throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (!condition.getAsBoolean()) {
+      if (System.nanoTime() > deadline) {
+        Assertions.fail("condition not met in time");
+      }
+      Thread.sleep(10);
+    }
+  }
+
+  private static final class MutableClock extends Clock {
+    private volatile Instant instant;
+    private final ZoneId zone = ZoneId.of("UTC");
+
+    private MutableClock(Instant instant) {
+      this.instant = instant;
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return zone;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return instant;
+    }
+
+    private void advance(Duration duration) {
+      instant = instant.plus(duration);
+    }
+  }
+}
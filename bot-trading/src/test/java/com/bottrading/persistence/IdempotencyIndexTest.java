@@ -0,0 +1,55 @@
+package com.bottrading.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.bottrading.persistence.IdempotencyIndex.Membership;
+import org.junit.jupiter.api.Test;
+
+class IdempotencyIndexTest {
+
+  @Test
+  void addedKeysAreNeverReportedAbsent() {
+    IdempotencyIndex index = new IdempotencyIndex(10_000, 0.01, 100);
+    for (int i = 0; i < 10_000; i++) {
+      index.add("BTCUSDT|1m|" + i);
+    }
+    for (int i = 0; i < 10_000; i++) {
+      assertThat(index.check("BTCUSDT|1m|" + i)).isNotEqualTo(Membership.ABSENT);
+    }
+  }
+
+  @Test
+  void recentKeysArePresentAndEvictedOnesNeedALookup() {
+    IdempotencyIndex index = new IdempotencyIndex(1_000, 0.01, 2);
+    index.add("a");
+    index.add("b");
+    index.add("c");
+
+    assertThat(index.check("c")).isEqualTo(Membership.PRESENT);
+    assertThat(index.check("a")).isEqualTo(Membership.UNKNOWN);
+  }
+
+  @Test
+  void unseenKeysAreMostlyAbsent() {
+    IdempotencyIndex index = new IdempotencyIndex(10_000, 0.01, 100);
+    for (int i = 0; i < 10_000; i++) {
+      index.add("ETHUSDT|5m|" + i);
+    }
+    int unknown = 0;
+    for (int i = 0; i < 10_000; i++) {
+      if (index.check("SOLUSDT|5m|" + i) != Membership.ABSENT) {
+        unknown++;
+      }
+    }
+    assertThat(unknown).isLessThan(300);
+  }
+
+  @Test
+  void rejectsInvalidSizing() {
+    assertThatThrownBy(() -> new IdempotencyIndex(0, 0.01, 10))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> new IdempotencyIndex(10, 1.0, 10))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
@@ -0,0 +1,194 @@
+package com.bottrading.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.bottrading.config.PersistenceProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+class WriteBehindWriterTest {
+
+  private static final WriteBehindWriter.Statement INSERT =
+      new WriteBehindWriter.Statement("audit", "INSERT INTO audit (v) VALUES (:v)");
+
+  private NamedParameterJdbcTemplate jdbcTemplate;
+  private PersistenceProperties properties;
+  private SimpleMeterRegistry registry;
+  private WriteBehindWriter writer;
+
+  @BeforeEach
+  void setUp() {
+    jdbcTemplate = mock(NamedParameterJdbcTemplate.class);
+    properties = new PersistenceProperties();
+    registry = new SimpleMeterRegistry();
+  }
+
+  @AfterEach
+  void tearDown() {
+    if (writer != null) {
+      writer.close();
+    }
+  }
+
+  @Test
+  void flushesOneBatchOnceBatchSizeRowsAreQueued() {
+    properties.getWriteBehind().setBatchSize(3);
+    properties.getWriteBehind().setFlushIntervalMs(60_000);
+    writer = new WriteBehindWriter(jdbcTemplate, properties, registry);
+
+    for (int i = 0; i < 3; i++) {
+      writer.enqueue(INSERT, Map.of("v", i));
+    }
+
+    ArgumentCaptor<SqlParameterSource[]> batch =
+        ArgumentCaptor.forClass(SqlParameterSource[].class);
+    verify(jdbcTemplate, timeout(2_000)).batchUpdate(eq(INSERT.sql()), batch.capture());
+    assertThat(batch.getValue()).hasSize(3);
+    assertThat(registry.get("persistence.writebehind.rows").tag("table", "audit").counter().count())
+        .isEqualTo(3.0);
+  }
+
+  @Test
+  void flushWritesEverythingQueuedBeforeItWithoutWaitingForTheInterval() {
+    properties.getWriteBehind().setBatchSize(100);
+    properties.getWriteBehind().setFlushIntervalMs(60_000);
+    writer = new WriteBehindWriter(jdbcTemplate, properties, registry);
+
+    writer.enqueue(INSERT, Map.of("v", 1));
+    writer.enqueue(INSERT, Map.of("v", 2));
+    long start = System.nanoTime();
+
+    assertThat(writer.flush()).isTrue();
+
+    assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(5_000);
+    ArgumentCaptor<SqlParameterSource[]> batch =
+        ArgumentCaptor.forClass(SqlParameterSource[].class);
+    verify(jdbcTemplate).batchUpdate(eq(INSERT.sql()), batch.capture());
+    assertThat(batch.getValue()).hasSize(2);
+    assertThat(writer.pending()).isZero();
+  }
+
+  @Test
+  void flushAfterCloseReturnsImmediately() {
+    writer = new WriteBehindWriter(jdbcTemplate, properties, registry);
+    writer.close();
+
+    assertThat(writer.flush()).isTrue();
+  }
+
+  @Test
+  void flushesPartialBatchAfterInterval() {
+    properties.getWriteBehind().setBatchSize(100);
+    properties.getWriteBehind().setFlushIntervalMs(50);
+    writer = new WriteBehindWriter(jdbcTemplate, properties, registry);
+
+    writer.enqueue(INSERT, Map.of("v", 1));
+
+    ArgumentCaptor<SqlParameterSource[]> batch =
+        ArgumentCaptor.forClass(SqlParameterSource[].class);
+    verify(jdbcTemplate, timeout(2_000)).batchUpdate(eq(INSERT.sql()), batch.capture());
+    assertThat(batch.getValue()).hasSize(1);
+  }
+
+  @Test
+  void fullQueueMakesProducerWaitAndKeepsRowOrder() throws Exception {
+    properties.getWriteBehind().setCapacity(1);
+    properties.getWriteBehind().setBatchSize(1);
+    properties.getWriteBehind().setOfferTimeoutMs(0);
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch flushing = new CountDownLatch(1);
+    List<Object> order = new CopyOnWriteArrayList<>();
+    List<Thread> writers = new CopyOnWriteArrayList<>();
+    when(jdbcTemplate.batchUpdate(eq(INSERT.sql()), any(SqlParameterSource[].class)))
+        .thenAnswer(
+            invocation -> {
+              writers.add(Thread.currentThread());
+              SqlParameterSource[] rows = invocation.getArgument(1);
+              for (SqlParameterSource row : rows) {
+                order.add(row.getValue("v"));
+              }
+              if (flushing.getCount() > 0) {
+                flushing.countDown();
+                release.await(2, TimeUnit.SECONDS);
+              }
+              return new int[rows.length];
+            });
+    writer = new WriteBehindWriter(jdbcTemplate, properties, registry);
+
+    writer.enqueue(INSERT, Map.of("v", 1));
+    assertThat(flushing.await(2, TimeUnit.SECONDS)).isTrue();
+    writer.enqueue(INSERT, Map.of("v", 2));
+    CompletableFuture<Void> blocked =
+        CompletableFuture.runAsync(() -> writer.enqueue(INSERT, Map.of("v", 3)));
+
+    Thread.sleep(100);
+    assertThat(blocked).isNotDone();
+    assertThat(registry.get("persistence.writebehind.overflow").counter().count()).isEqualTo(1.0);
+    release.countDown();
+    blocked.get(2, TimeUnit.SECONDS);
+
+    verify(jdbcTemplate, timeout(2_000).times(3))
+        .batchUpdate(eq(INSERT.sql()), any(SqlParameterSource[].class));
+    assertThat(order).containsExactly(1, 2, 3);
+    assertThat(writers).allMatch(thread -> thread.getName().equals("write-behind"));
+  }
+
+  @Test
+  void closeDrainsQueuedRowsAndLaterRowsAreWrittenDirectly() {
+    properties.getWriteBehind().setBatchSize(100);
+    properties.getWriteBehind().setFlushIntervalMs(60_000);
+    writer = new WriteBehindWriter(jdbcTemplate, properties, registry);
+
+    writer.enqueue(INSERT, Map.of("v", 1));
+    writer.enqueue(INSERT, Map.of("v", 2));
+    verify(jdbcTemplate, after(100).never())
+        .batchUpdate(eq(INSERT.sql()), any(SqlParameterSource[].class));
+
+    writer.close();
+    assertThat(writer.pending()).isZero();
+    writer.enqueue(INSERT, Map.of("v", 3));
+
+    assertThat(registry.get("persistence.writebehind.rows").tag("table", "audit").counter().count())
+        .isEqualTo(3.0);
+    assertThat(registry.find("persistence.writebehind.overflow").counter().count()).isZero();
+  }
+
+  @Test
+  void failedBatchFallsBackToRowByRow() {
+    properties.getWriteBehind().setBatchSize(2);
+    when(jdbcTemplate.batchUpdate(eq(INSERT.sql()), any(SqlParameterSource[].class)))
+        .thenThrow(new org.springframework.dao.DataIntegrityViolationException("duplicate"));
+    when(jdbcTemplate.update(eq(INSERT.sql()), any(SqlParameterSource.class)))
+        .thenReturn(1)
+        .thenThrow(new org.springframework.dao.DataIntegrityViolationException("duplicate"));
+    writer = new WriteBehindWriter(jdbcTemplate, properties, registry);
+
+    writer.enqueue(INSERT, Map.of("v", 1));
+    writer.enqueue(INSERT, Map.of("v", 2));
+    writer.close();
+
+    assertThat(registry.get("persistence.writebehind.rows").tag("table", "audit").counter().count())
+        .isEqualTo(1.0);
+    assertThat(
+            registry.get("persistence.writebehind.failed").tag("table", "audit").counter().count())
+        .isEqualTo(1.0);
+  }
+}
@@ -0,0 +1,248 @@
+package com.bottrading.research.backtest;
+
+import com.bottrading.model.dto.Kline;
+import com.bottrading.research.io.ChartExporter;
+import com.bottrading.research.io.CsvWriter;
+import com.bottrading.research.io.DataLoader;
+import com.bottrading.research.io.JsonWriter;
+import com.bottrading.strategy.CandleSeries;
+import com.bottrading.strategy.CompositeStrategy;
+import com.bottrading.strategy.Signal;
+import com.bottrading.strategy.SignalResult;
+import com.bottrading.strategy.StrategyFactory;
+import com.bottrading.strategy.signals.BollingerBandsSignal;
+import com.bottrading.strategy.signals.EmaCrossoverSignal;
+import com.bottrading.strategy.signals.MacdSignal;
+import com.bottrading.strategy.signals.RsiSignal;
+import com.bottrading.strategy.signals.SmaCrossoverSignal;
+import com.bottrading.strategy.signals.StochasticSignal;
+import com.bottrading.strategy.signals.StreamingBollingerBandsSignal;
+import com.bottrading.strategy.signals.StreamingEmaCrossoverSignal;
+import com.bottrading.strategy.signals.StreamingMacdSignal;
+import com.bottrading.strategy.signals.StreamingRsiSignal;
+import com.bottrading.strategy.signals.StreamingSmaCrossoverSignal;
+import com.bottrading.strategy.signals.StreamingStochasticSignal;
+import com.bottrading.strategy.signals.StreamingSupertrendSignal;
+import com.bottrading.strategy.signals.SupertrendSignal;
+import com.bottrading.strategy.signals.Volume24hFilter;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+
+/** Pins the bar loop to the output recorded from the original engine on a fixed fixture. */
+class BacktestEngineGoldenTest {
+
+  private static final String FIXTURE = "/backtest/golden-klines.csv";
+  private static final String GOLDEN = "/backtest/golden-output.txt";
+
+  @Test
+  void batchSignalsReproduceGoldenOutput() throws IOException {
+    BacktestResult result = engine(loadFixture()).run(request(), null, strategy(false));
+    Assertions.assertEquals(readGolden(), render(result));
+  }
+
+  @Test
+  void streamingSignalsReproduceGoldenOutput() throws IOException {
+    BacktestResult result = engine(loadFixture()).run(request(), null, strategy(true));
+    Assertions.assertEquals(readGolden(), render(result));
+  }
+
+  @Test
+  void sharedDatasetReproducesGoldenOutput() throws IOException {
+    AtomicInteger loads = new AtomicInteger();
+    List<Kline> klines = loadFixture();
+    DataLoader loader =
+        new DataLoader(null, null) {
+          @Override
+          public List<Kline> load(
+              String symbol, String interval, Instant from, Instant to, boolean useCache) {
+            loads.incrementAndGet();
+            return klines;
+          }
+        };
+    BacktestEngine engine = engine(loader);
+    BacktestDataset dataset = engine.prepare(request());
+    String golden = readGolden();
+    Assertions.assertEquals(golden, render(engine.run(request(), null, strategy(false), dataset)));
+    Assertions.assertEquals(golden, render(engine.run(request(), null, strategy(true), dataset)));
+    Assertions.assertEquals(golden, render(engine.run(request(), null, strategy(true), dataset)));
+    Assertions.assertEquals(1, loads.get());
+    Assertions.assertTrue(dataset.candles().indicators().size() > 0);
+  }
+
+  @Test
+  void lookbackBoundsTheWindowHandedToSignals() throws IOException {
+    AtomicInteger largest = new AtomicInteger();
+    AtomicInteger calls = new AtomicInteger();
+    Signal probe =
+        new Signal() {
+          @Override
+          public SignalResult evaluate(CandleSeries candles) {
+            largest.accumulateAndGet(candles.size(), Math::max);
+            calls.incrementAndGet();
+            return SignalResult.flat("probe");
+          }
+        };
+    CompositeStrategy strategy = new CompositeStrategy().lookback(50);
+    strategy.addSignal(probe, 1.0);
+    List<Kline> klines = loadFixture();
+    engine(klines).run(request(), null, strategy);
+    Assertions.assertEquals(klines.size(), calls.get());
+    Assertions.assertEquals(50, largest.get());
+  }
+
+  static CompositeStrategy strategy(boolean streaming) {
+    CompositeStrategy strategy = new CompositeStrategy().thresholds(0.9, 0.9);
+    strategy.addFilter(new Volume24hFilter(20_000));
+    if (streaming) {
+      strategy.addSignal(new StreamingSmaCrossoverSignal(5, 20, 0.8), 0.6);
+      strategy.addSignal(new StreamingEmaCrossoverSignal(8, 21, 0.9), 0.7);
+      strategy.addSignal(new StreamingMacdSignal(12, 26, 9, 0.7), 0.8);
+      strategy.addSignal(new StreamingRsiSignal(14, 40, 60, 30, 0.6), 1.0);
+      strategy.addSignal(new StreamingBollingerBandsSignal(20, 1.5, 0.9), 1.0);
+      strategy.addSignal(new StreamingSupertrendSignal(10, 2.0, 1.0), 1.0);
+      strategy.addSignal(new StreamingStochasticSignal(14, 3, 1.0), 1.0);
+    } else {
+      strategy.addSignal(new SmaCrossoverSignal(5, 20, 0.8), 0.6);
+      strategy.addSignal(new EmaCrossoverSignal(8, 21, 0.9), 0.7);
+      strategy.addSignal(new MacdSignal(12, 26, 9, 0.7), 0.8);
+      strategy.addSignal(new RsiSignal(14, 40, 60, 30, 0.6), 1.0);
+      strategy.addSignal(new BollingerBandsSignal(20, 1.5, 0.9), 1.0);
+      strategy.addSignal(new SupertrendSignal(10, 2.0, 1.0), 1.0);
+      strategy.addSignal(new StochasticSignal(14, 3, 1.0), 1.0);
+    }
+    return strategy;
+  }
+
+  static BacktestEngine engine(List<Kline> klines) {
+    return engine(
+        new DataLoader(null, null) {
+          @Override
+          public List<Kline> load(
+              String symbol, String interval, Instant from, Instant to, boolean useCache) {
+            return klines;
+          }
+        });
+  }
+
+  static BacktestEngine engine(DataLoader loader) {
+    StrategyFactory factory =
+        new StrategyFactory(new DefaultResourceLoader(), new com.bottrading.config.TradingProps());
+    ReportWriter reportWriter =
+        new ReportWriter(new CsvWriter(), new JsonWriter(), new ChartExporter(new CsvWriter()));
+    return new BacktestEngine(loader, factory, reportWriter, BigDecimal.valueOf(10_000));
+  }
+
+  static BacktestRequest request() {
+    return new BacktestRequest(
+        "BTCUSDT",
+        "1m",
+        null,
+        null,
+        null,
+        null,
+        BigDecimal.valueOf(2),
+        BigDecimal.valueOf(10),
+        BigDecimal.valueOf(8),
+        false,
+        null,
+        "golden",
+        false,
+        null,
+        null);
+  }
+
+  static List<Kline> loadFixture() throws IOException {
+    List<Kline> klines = new ArrayList<>();
+    try (InputStream input = BacktestEngineGoldenTest.class.getResourceAsStream(FIXTURE);
+        BufferedReader reader =
+            new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+      String line = reader.readLine();
+      while ((line = reader.readLine()) != null) {
+        String[] parts = line.split(",");
+        Instant open = Instant.ofEpochMilli(Long.parseLong(parts[0]));
+        klines.add(
+            new Kline(
+                open,
+                open.plusSeconds(60).minusMillis(1),
+                new BigDecimal(parts[1]),
+                new BigDecimal(parts[2]),
+                new BigDecimal(parts[3]),
+                new BigDecimal(parts[4]),
+                new BigDecimal(parts[5])));
+      }
+    }
+    return klines;
+  }
+
+  static String render(BacktestResult result) {
+    StringBuilder out = new StringBuilder();
+    for (TradeRecord trade : result.trades()) {
+      // fill times come from the wall clock in the simple simulator, so they are not pinned
+      out.append("trade ")
+          .append(trade.entryPrice().toPlainString())
+          .append(' ')
+          .append(trade.exitPrice().toPlainString())
+          .append(' ')
+          .append(trade.quantity().toPlainString())
+          .append(' ')
+          .append(trade.pnl().toPlainString())
+          .append(' ')
+          .append(trade.entrySignals())
+          .append(" -> ")
+          .append(trade.exitSignals())
+          .append('\n');
+    }
+    List<EquityPoint> curve = result.equityCurve();
+    out.append("equityPoints ").append(curve.size()).append('\n');
+    for (int i = 0; i < curve.size(); i += 100) {
+      out.append("equity ").append(i).append(' ').append(curve.get(i).equity().toPlainString());
+      out.append('\n');
+    }
+    out.append("finalEquity ")
+        .append(curve.get(curve.size() - 1).equity().toPlainString())
+        .append('\n');
+    MetricsSummary metrics = result.metrics();
+    out.append("metrics")
+        .append(" cagr=")
+        .append(metrics.cagr().toPlainString())
+        .append(" sharpe=")
+        .append(metrics.sharpe().toPlainString())
+        .append(" sortino=")
+        .append(metrics.sortino().toPlainString())
+        .append(" calmar=")
+        .append(metrics.calmar().toPlainString())
+        .append(" maxDrawdown=")
+        .append(metrics.maxDrawdown().toPlainString())
+        .append(" profitFactor=")
+        .append(metrics.profitFactor().toPlainString())
+        .append(" winRate=")
+        .append(metrics.winRate().toPlainString())
+        .append(" expectancy=")
+        .append(metrics.expectancy().toPlainString())
+        .append(" averageR=")
+        .append(metrics.averageR().toPlainString())
+        .append(" trades=")
+        .append(metrics.trades())
+        .append('\n');
+    out.append("dataHash ").append(result.dataHash()).append('\n');
+    return out.toString();
+  }
+
+  private static String readGolden() throws IOException {
+    try (InputStream input = BacktestEngineGoldenTest.class.getResourceAsStream(GOLDEN)) {
+      Assertions.assertNotNull(input, "missing golden output " + GOLDEN);
+      return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+    }
+  }
+}
@@ -2,6 +2,7 @@ package com.bottrading.research.backtest;
 
 import com.bottrading.model.dto.Kline;
 import com.bottrading.research.io.DataLoader;
+import com.bottrading.strategy.CandleSeries;
 import com.bottrading.strategy.CompositeStrategy;
 import com.bottrading.strategy.Signal;
 import com.bottrading.strategy.SignalResult;
@@ -34,13 +35,16 @@ class BacktestEngineTest {
             return klines;
           }
         };
-    StrategyFactory factory = new StrategyFactory(new DefaultResourceLoader(), new com.bottrading.config.TradingProps());
+    StrategyFactory factory =
+        new StrategyFactory(new DefaultResourceLoader(), new com.bottrading.config.TradingProps());
     ReportWriter reportWriter =
         new ReportWriter(
             new com.bottrading.research.io.CsvWriter(),
             new com.bottrading.research.io.JsonWriter(),
-            new com.bottrading.research.io.ChartExporter(new com.bottrading.research.io.CsvWriter()));
-    BacktestEngine engine = new BacktestEngine(loader, factory, reportWriter, BigDecimal.valueOf(1000));
+            new com.bottrading.research.io.ChartExporter(
+                new com.bottrading.research.io.CsvWriter()));
+    BacktestEngine engine =
+        new BacktestEngine(loader, factory, reportWriter, BigDecimal.valueOf(1000));
 
     CompositeStrategy strategy = new CompositeStrategy().thresholds(0.5, 0.5);
     strategy.addSignal(new TestSignal(), 1.0);
@@ -77,11 +81,11 @@ class BacktestEngineTest {
 
   private static class TestSignal implements Signal {
     @Override
-    public SignalResult evaluate(List<String[]> klines) {
-      if (klines.size() == 3) {
+    public SignalResult evaluate(CandleSeries candles) {
+      if (candles.size() == 3) {
         return SignalResult.buy(1.0, "buy");
       }
-      if (klines.size() == 5) {
+      if (candles.size() == 5) {
         return SignalResult.sell(1.0, "sell");
       }
       return SignalResult.flat("wait");
@@ -0,0 +1,71 @@
+package com.bottrading.research.backtest;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class MetricsCalculatorTest {
+
+  private static final double TOLERANCE = 1e-9;
+
+  @Test
+  void fastMetricsStayWithinToleranceOfExactPath() throws IOException {
+    BacktestRequest request = BacktestEngineGoldenTest.request();
+    BacktestResult exact =
+        BacktestEngineGoldenTest.engine(BacktestEngineGoldenTest.loadFixture())
+            .run(request, null, BacktestEngineGoldenTest.strategy(true));
+    BacktestResult fast =
+        BacktestEngineGoldenTest.engine(BacktestEngineGoldenTest.loadFixture())
+            .run(request.withFastMetrics(true), null, BacktestEngineGoldenTest.strategy(true));
+
+    Assertions.assertEquals(exact.trades().size(), fast.trades().size());
+    for (int i = 0; i < exact.trades().size(); i++) {
+      Assertions.assertEquals(exact.trades().get(i).pnl(), fast.trades().get(i).pnl());
+    }
+    Assertions.assertEquals(exact.equityCurve().size(), fast.equityCurve().size());
+    for (int i = 0; i < exact.equityCurve().size(); i++) {
+      assertClose(exact.equityCurve().get(i).equity(), fast.equityCurve().get(i).equity(), 1e-6);
+    }
+
+    MetricsSummary expected = exact.metrics();
+    MetricsSummary actual = fast.metrics();
+    Assertions.assertEquals(expected.cagr(), actual.cagr());
+    assertClose(expected.sharpe(), actual.sharpe(), TOLERANCE);
+    assertClose(expected.sortino(), actual.sortino(), TOLERANCE);
+    assertClose(expected.calmar(), actual.calmar(), 1e-6);
+    assertClose(expected.maxDrawdown(), actual.maxDrawdown(), TOLERANCE);
+    Assertions.assertEquals(expected.profitFactor(), actual.profitFactor());
+    Assertions.assertEquals(expected.winRate(), actual.winRate());
+    assertClose(expected.expectancy(), actual.expectancy(), TOLERANCE);
+    Assertions.assertEquals(expected.trades(), actual.trades());
+  }
+
+  @Test
+  void equitySeriesGrowsAndConvertsLazily() {
+    EquitySeries series = new EquitySeries(1);
+    for (int i = 0; i < 100; i++) {
+      series.add(i * 60_000L, 1000 + i * 0.5);
+    }
+    Assertions.assertEquals(100, series.size());
+    List<EquityPoint> points = series.asPoints();
+    Assertions.assertEquals(100, points.size());
+    Assertions.assertEquals(Instant.ofEpochMilli(99 * 60_000L), points.get(99).time());
+    Assertions.assertEquals(BigDecimal.valueOf(1021.0), points.get(42).equity());
+    Assertions.assertThrows(IndexOutOfBoundsException.class, () -> series.equity(100));
+  }
+
+  @Test
+  void emptySeriesYieldsEmptySummary() {
+    MetricsSummary summary =
+        MetricsCalculator.compute(List.of(), new EquitySeries(), new ExecutionStatistics());
+    Assertions.assertEquals(0, summary.trades());
+    Assertions.assertEquals(BigDecimal.ZERO, summary.sharpe());
+  }
+
+  private static void assertClose(BigDecimal expected, BigDecimal actual, double tolerance) {
+    Assertions.assertEquals(expected.doubleValue(), actual.doubleValue(), tolerance);
+  }
+}
@@ -0,0 +1,94 @@
+package com.bottrading.research.ga;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class DiversityEstimatorTest {
+
+  @Test
+  void encodedDistanceMatchesGeneWiseDistance() {
+    Random random = new Random(1);
+    List<Genome> genomes = population(random, 30);
+    double expected = 0;
+    int pairs = 0;
+    for (int i = 0; i < genomes.size(); i++) {
+      for (int j = i + 1; j < genomes.size(); j++) {
+        expected += referenceDistance(genomes.get(i), genomes.get(j));
+        pairs++;
+      }
+    }
+    expected /= pairs;
+    Assertions.assertEquals(expected, DiversityEstimator.pairwise().estimate(genomes), 1e-9);
+    Assertions.assertEquals(expected, DiversityEstimator.auto().estimate(genomes), 1e-9);
+  }
+
+  @Test
+  void sortedModeIsExact() {
+    List<Genome> genomes = population(new Random(2), 300);
+    double exact = DiversityEstimator.pairwise().estimate(genomes);
+    Assertions.assertEquals(exact, DiversityEstimator.sorted().estimate(genomes), 1e-9 * exact);
+    Assertions.assertEquals(exact, DiversityEstimator.auto().estimate(genomes), 1e-9 * exact);
+  }
+
+  @Test
+  void sampledModeApproximatesAndIsDeterministic() {
+    List<Genome> genomes = population(new Random(3), 300);
+    double exact = DiversityEstimator.sorted().estimate(genomes);
+    double sampled = DiversityEstimator.sampled(20_000, 7).estimate(genomes);
+    Assertions.assertEquals(exact, sampled, 0.02 * exact);
+    Assertions.assertEquals(sampled, DiversityEstimator.sampled(20_000, 7).estimate(genomes));
+    List<Genome> small = genomes.subList(0, 10);
+    Assertions.assertEquals(
+        DiversityEstimator.pairwise().estimate(small),
+        DiversityEstimator.sampled(45, 7).estimate(small));
+  }
+
+  @Test
+  void degeneratePopulations() {
+    Genome genome = new Genome(new Random(4));
+    Assertions.assertEquals(0, DiversityEstimator.auto().estimate(List.of()));
+    Assertions.assertEquals(0, DiversityEstimator.sorted().estimate(List.of(genome)));
+    Assertions.assertEquals(
+        0, DiversityEstimator.sorted().estimate(List.of(genome, genome.copy())), 1e-12);
+    Assertions.assertThrows(IllegalArgumentException.class, () -> DiversityEstimator.sampled(0, 1));
+  }
+
+  private static List<Genome> population(Random random, int size) {
+    List<Genome> genomes = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      Genome genome = new Genome(random);
+      genome.mutate(random, 0.5);
+      genomes.add(genome);
+    }
+    return genomes;
+  }
+
+  private static double referenceDistance(Genome a, Genome b) {
+    double diff =
+        Math.abs(a.buyThreshold() - b.buyThreshold())
+            + Math.abs(a.sellThreshold() - b.sellThreshold());
+    Set<String> keys = new HashSet<>(a.genes().keySet());
+    keys.addAll(b.genes().keySet());
+    for (String key : keys) {
+      Gene ga = a.genes().get(key);
+      Gene gb = b.genes().get(key);
+      diff += Math.abs(ga.weight() - gb.weight());
+      diff += Math.abs(ga.confidence() - gb.confidence());
+      diff += ga.enabled() == gb.enabled() ? 0 : 1;
+      Map<String, Double> pa = ga.params();
+      Map<String, Double> pb = gb.params();
+      Set<String> params = new HashSet<>(pa.keySet());
+      params.addAll(pb.keySet());
+      for (String param : params) {
+        diff += Math.abs(pa.getOrDefault(param, 0.0) - pb.getOrDefault(param, 0.0));
+      }
+    }
+    return diff;
+  }
+}
@@ -0,0 +1,119 @@
+package com.bottrading.research.ga;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class EvaluationPoolTest {
+
+  @Test
+  void runsEveryItemAndRecordsFailures() throws InterruptedException {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    List<Integer> items = IntStream.range(0, 50).boxed().toList();
+    Map<Integer, Throwable> failed = new ConcurrentHashMap<>();
+    AtomicInteger done = new AtomicInteger();
+    try (EvaluationPool pool = new EvaluationPool(4, 8, null, registry)) {
+      pool.runAll(
+          items,
+          item -> {
+            if (item % 10 == 0) {
+              throw new IllegalStateException("boom " + item);
+            }
+            done.incrementAndGet();
+          },
+          failed::put);
+      Assertions.assertEquals(0, pool.queued());
+      Assertions.assertEquals(0, pool.running());
+    }
+    Assertions.assertEquals(45, done.get());
+    Assertions.assertEquals(5, failed.size());
+    Assertions.assertEquals(45, registry.get("research.ga.evaluations").counter().count());
+    Assertions.assertEquals(
+        5,
+        registry.get("research.ga.evaluation.failures").tag("reason", "error").counter().count());
+    Assertions.assertEquals(50, registry.get("research.ga.evaluation.duration").timer().count());
+  }
+
+  @Test
+  void boundsWorkInFlight() throws InterruptedException {
+    AtomicInteger active = new AtomicInteger();
+    AtomicInteger peak = new AtomicInteger();
+    try (EvaluationPool pool = new EvaluationPool(8, 2, null, null)) {
+      pool.runAll(
+          IntStream.range(0, 20).boxed().toList(),
+          item -> {
+            peak.accumulateAndGet(active.incrementAndGet(), Math::max);
+            sleep(5);
+            active.decrementAndGet();
+          },
+          (item, cause) -> Assertions.fail(cause));
+    }
+    Assertions.assertTrue(peak.get() <= 2, "peak " + peak.get());
+  }
+
+  @Test
+  void cancelsEvaluationsThatExceedTheTimeout() throws InterruptedException {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    Map<Integer, Throwable> failed = new ConcurrentHashMap<>();
+    try (EvaluationPool pool = new EvaluationPool(2, 4, Duration.ofMillis(50), registry)) {
+      pool.runAll(List.of(1, 2), item -> sleep(item == 1 ? 10_000 : 1), failed::put);
+    }
+    Assertions.assertEquals(1, failed.size());
+    Assertions.assertInstanceOf(EvaluationPool.TimeoutCancellation.class, failed.get(1));
+    Assertions.assertEquals(
+        1,
+        registry.get("research.ga.evaluation.failures").tag("reason", "timeout").counter().count());
+  }
+
+  @Test
+  void interruptingTheCallerCancelsTheGeneration() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    AtomicBoolean interrupted = new AtomicBoolean();
+    try (EvaluationPool pool = new EvaluationPool(1, 4, null, null)) {
+      Thread caller =
+          new Thread(
+              () -> {
+                try {
+                  pool.runAll(
+                      List.of(1, 2, 3, 4),
+                      item -> {
+                        started.countDown();
+                        sleep(10_000);
+                      },
+                      (item, cause) -> {});
+                } catch (InterruptedException ex) {
+                  interrupted.set(true);
+                }
+              });
+      caller.start();
+      Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+      caller.interrupt();
+      caller.join(5_000);
+      Assertions.assertTrue(interrupted.get());
+      long deadline = System.currentTimeMillis() + 5_000;
+      while ((pool.queued() > 0 || pool.running() > 0) && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+      Assertions.assertEquals(0, pool.queued());
+      Assertions.assertEquals(0, pool.running());
+    }
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("interrupted", ex);
+    }
+  }
+}
@@ -1,5 +1,7 @@
 package com.bottrading.research.ga;
 
+import com.bottrading.model.dto.Kline;
+import com.bottrading.research.backtest.BacktestDataset;
 import com.bottrading.research.backtest.BacktestEngine;
 import com.bottrading.research.backtest.BacktestRequest;
 import com.bottrading.research.backtest.BacktestResult;
@@ -16,6 +18,8 @@ import java.nio.file.Path;
 import java.time.Instant;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
@@ -35,7 +39,8 @@ class EvaluatorTest {
     BacktestEngine engine =
         new BacktestEngine(null, null, null, BigDecimal.ONE) {
           @Override
-          public BacktestResult run(BacktestRequest request, Path reportDirectory, CompositeStrategy override) {
+          public BacktestResult run(
+              BacktestRequest request, Path reportDirectory, CompositeStrategy override) {
             long allowed =
                 request.regimeFilter() != null && request.regimeFilter().isActive()
                     ? request.regimeFilter().count(request.from(), request.to())
@@ -57,7 +62,13 @@ class EvaluatorTest {
                     value,
                     value);
             return new BacktestResult(
-                request, metrics, List.of(), List.of(), List.of(), "hash", new ExecutionStatistics());
+                request,
+                metrics,
+                List.of(),
+                List.of(),
+                List.of(),
+                "hash",
+                new ExecutionStatistics());
           }
         };
 
@@ -80,8 +91,10 @@ class EvaluatorTest {
             null);
 
     Genome baseGenome = new Genome(new Random(1));
-    Evaluator evaluatorAll = new Evaluator(engine, requestAll, 1, Path.of("reports"), 0.0, 0);
-    evaluatorAll.evaluate(List.of(baseGenome));
+    try (Evaluator evaluatorAll =
+        new Evaluator(engine, requestAll, 1, Path.of("reports"), 0.0, 0)) {
+      evaluatorAll.evaluate(List.of(baseGenome));
+    }
     Assertions.assertEquals(4, baseGenome.metrics().profitFactor().intValue());
 
     RegimeFilter upFilter = new RegimeFilter(RegimeTrend.UP, labelSet);
@@ -103,8 +116,142 @@ class EvaluatorTest {
             upFilter,
             null);
     Genome upGenome = new Genome(new Random(2));
-    Evaluator evaluatorUp = new Evaluator(engine, requestUp, 1, Path.of("reports"), 0.0, 0);
-    evaluatorUp.evaluate(List.of(upGenome));
+    try (Evaluator evaluatorUp = new Evaluator(engine, requestUp, 1, Path.of("reports"), 0.0, 0)) {
+      evaluatorUp.evaluate(List.of(upGenome));
+    }
     Assertions.assertEquals(2, upGenome.metrics().profitFactor().intValue());
   }
+
+  @Test
+  void identicalGenomesAreBacktestedOncePerDataHash() throws InterruptedException {
+    AtomicInteger runs = new AtomicInteger();
+    BacktestEngine engine =
+        new BacktestEngine(null, null, null, BigDecimal.ONE) {
+          @Override
+          public BacktestResult run(
+              BacktestRequest request,
+              Path reportDirectory,
+              CompositeStrategy override,
+              BacktestDataset dataset) {
+            runs.incrementAndGet();
+            BigDecimal value = BigDecimal.valueOf(override.getSignals().size() + 1);
+            MetricsSummary metrics =
+                new MetricsSummary(
+                    value, value, value, value, value, value, value, value, value, 5, value, value,
+                    value);
+            return new BacktestResult(
+                request,
+                metrics,
+                List.of(),
+                List.of(),
+                List.of(),
+                dataset.dataHash(),
+                new ExecutionStatistics());
+          }
+        };
+    BacktestRequest request =
+        new BacktestRequest(
+            "TEST",
+            "1m",
+            null,
+            null,
+            null,
+            null,
+            BigDecimal.ZERO,
+            BigDecimal.ZERO,
+            BigDecimal.ZERO,
+            false,
+            null,
+            "run",
+            false,
+            null,
+            null);
+    Instant start = Instant.parse("2024-01-01T00:00:00Z");
+    Kline kline =
+        new Kline(
+            start,
+            start.plusSeconds(60),
+            BigDecimal.ONE,
+            BigDecimal.ONE,
+            BigDecimal.ONE,
+            BigDecimal.ONE,
+            BigDecimal.ONE);
+    BacktestDataset dataset = new BacktestDataset(List.of(kline), "data-a");
+    FitnessCache cache = new FitnessCache(100);
+    try (EvaluationPool pool = new EvaluationPool(2, 4, null, null)) {
+      Evaluator evaluator = new Evaluator(pool, engine, request, null, 0.0, 0, cache);
+
+      Genome original = new Genome(new Random(7));
+      Genome other = new Genome(new Random(8));
+      Assertions.assertEquals(original.fingerprint(), original.copy().fingerprint());
+      Assertions.assertNotEquals(original.fingerprint(), other.fingerprint());
+
+      int hits = evaluator.evaluate(List.of(original, original.copy(), other), dataset);
+      Assertions.assertEquals(2, runs.get());
+      Assertions.assertEquals(1, hits);
+
+      Genome elite = original.copy();
+      hits = evaluator.evaluate(List.of(elite, other.copy()), dataset);
+      Assertions.assertEquals(2, runs.get());
+      Assertions.assertEquals(2, hits);
+      Assertions.assertEquals(original.fitness(), elite.fitness());
+      Assertions.assertSame(original.metrics(), elite.metrics());
+
+      Evaluator nextWindow = new Evaluator(pool, engine, request, null, 0.0, 0, cache);
+      nextWindow.evaluate(List.of(original.copy()), new BacktestDataset(List.of(kline), "data-b"));
+      Assertions.assertEquals(3, runs.get());
+    }
+  }
+
+  @Test
+  void closeShutsDownOnlyAnOwnedPool() throws InterruptedException {
+    BacktestEngine engine =
+        new BacktestEngine(null, null, null, BigDecimal.ONE) {
+          @Override
+          public BacktestResult run(
+              BacktestRequest request, Path reportDirectory, CompositeStrategy override) {
+            BigDecimal one = BigDecimal.ONE;
+            MetricsSummary metrics =
+                new MetricsSummary(one, one, one, one, one, one, one, one, one, 1, one, one, one);
+            return new BacktestResult(
+                request,
+                metrics,
+                List.of(),
+                List.of(),
+                List.of(),
+                "hash",
+                new ExecutionStatistics());
+          }
+        };
+    BacktestRequest request =
+        new BacktestRequest(
+            "TEST",
+            "1m",
+            null,
+            null,
+            null,
+            null,
+            BigDecimal.ZERO,
+            BigDecimal.ZERO,
+            BigDecimal.ZERO,
+            false,
+            null,
+            "run",
+            false,
+            null,
+            null);
+
+    try (EvaluationPool shared = new EvaluationPool(1, 1, null, null)) {
+      new Evaluator(shared, engine, request, null, 0.0, 0).close();
+      Genome genome = new Genome(new Random(3));
+      new Evaluator(shared, engine, request, null, 0.0, 0).evaluate(List.of(genome));
+      Assertions.assertNotNull(genome.metrics());
+    }
+
+    Evaluator standalone = new Evaluator(engine, request, 1, null, 0.0, 0);
+    standalone.close();
+    Assertions.assertThrows(
+        RejectedExecutionException.class,
+        () -> standalone.evaluate(List.of(new Genome(new Random(4)))));
+  }
 }
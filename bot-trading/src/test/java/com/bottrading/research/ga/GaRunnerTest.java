@@ -8,8 +8,8 @@ import com.bottrading.research.backtest.ExecutionResult;
 import com.bottrading.research.backtest.ExecutionStatistics;
 import com.bottrading.research.backtest.MetricsSummary;
 import com.bottrading.research.backtest.TradeRecord;
-import com.bottrading.strategy.SignalSide;
 import com.bottrading.strategy.CompositeStrategy;
+import com.bottrading.strategy.SignalSide;
 import java.math.BigDecimal;
 import java.nio.file.Path;
 import java.time.Instant;
@@ -91,10 +91,11 @@ class GaRunnerTest {
             false,
             null,
             null);
-    Evaluator evaluator = new Evaluator(engine, request, 1, Path.of("ga-test"), 0.0, 0);
-    GaRunner runner = new GaRunner(evaluator, 4, 2, 0.1, 2, 1, 42L);
-    Genome best = runner.run();
-    Assertions.assertNotNull(best);
-    Assertions.assertTrue(best.fitness() != Double.NEGATIVE_INFINITY);
+    try (Evaluator evaluator = new Evaluator(engine, request, 1, Path.of("ga-test"), 0.0, 0)) {
+      GaRunner runner = new GaRunner(evaluator, 4, 2, 0.1, 2, 1, 42L);
+      Genome best = runner.run();
+      Assertions.assertNotNull(best);
+      Assertions.assertTrue(best.fitness() != Double.NEGATIVE_INFINITY);
+    }
   }
 }
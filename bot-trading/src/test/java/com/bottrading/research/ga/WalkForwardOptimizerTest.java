@@ -0,0 +1,198 @@
+package com.bottrading.research.ga;
+
+import com.bottrading.research.backtest.BacktestRequest;
+import com.bottrading.research.backtest.MetricsSummary;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class WalkForwardOptimizerTest {
+
+  private static final double[] FITNESS = {1.0, 3.0, 2.0, 3.0, 0.5, Double.NEGATIVE_INFINITY};
+
+  @TempDir Path tempDir;
+
+  @Test
+  void runsWindowsConcurrentlyAndReturnsThemInOrder() throws InterruptedException {
+    AtomicInteger active = new AtomicInteger();
+    AtomicInteger peak = new AtomicInteger();
+    List<String> streamed = Collections.synchronizedList(new ArrayList<>());
+    List<WindowResult> results =
+        new WalkForwardOptimizer(windows(), (index, request) -> stub(index, active, peak))
+            .parallelism(3)
+            .onWindow(result -> streamed.add(result.runId()))
+            .run();
+
+    Assertions.assertEquals(FITNESS.length, results.size());
+    for (int i = 0; i < FITNESS.length; i++) {
+      Assertions.assertEquals(i, results.get(i).index());
+      Assertions.assertEquals("wf" + i, results.get(i).runId());
+      Assertions.assertEquals(FITNESS[i], results.get(i).champion().fitness());
+      Assertions.assertFalse(results.get(i).resumed());
+    }
+    Assertions.assertEquals(FITNESS.length, streamed.size());
+    Assertions.assertTrue(peak.get() > 1 && peak.get() <= 3, "peak " + peak.get());
+    Assertions.assertSame(results.get(1).champion(), WalkForwardOptimizer.champion(results));
+  }
+
+  @Test
+  void resumesFromCheckpointedWindows() throws InterruptedException {
+    WalkForwardCheckpoint checkpoint = new WalkForwardCheckpoint(tempDir);
+    List<WindowResult> first =
+        new WalkForwardOptimizer(
+                windows(),
+                (index, request) -> stub(index, new AtomicInteger(), new AtomicInteger()))
+            .parallelism(2)
+            .checkpoint(checkpoint)
+            .run();
+
+    AtomicInteger reruns = new AtomicInteger();
+    List<BacktestRequest> windows = windows();
+    windows.set(2, window(2, Instant.parse("2024-06-01T00:00:00Z")));
+    List<WindowResult> resumed =
+        new WalkForwardOptimizer(
+                windows,
+                (index, request) -> {
+                  reruns.incrementAndGet();
+                  return stub(index, new AtomicInteger(), new AtomicInteger());
+                })
+            .checkpoint(checkpoint)
+            .run();
+
+    Assertions.assertEquals(1, reruns.get());
+    Assertions.assertFalse(resumed.get(2).resumed());
+    for (int i = 0; i < FITNESS.length; i++) {
+      Genome expected = first.get(i).champion();
+      Genome actual = resumed.get(i).champion();
+      Assertions.assertEquals(expected.fitness(), actual.fitness());
+      Assertions.assertEquals(expected.fingerprint(), actual.fingerprint());
+      Assertions.assertEquals(expected.metrics(), actual.metrics());
+      Assertions.assertArrayEquals(expected.encode(), actual.encode());
+      if (i != 2) {
+        Assertions.assertTrue(resumed.get(i).resumed());
+      }
+    }
+  }
+
+  @Test
+  void failingWindowIsRethrown() {
+    WalkForwardOptimizer optimizer =
+        new WalkForwardOptimizer(
+                windows(),
+                (index, request) -> {
+                  if (index == 4) {
+                    throw new IllegalStateException("no data");
+                  }
+                  return stub(index, new AtomicInteger(), new AtomicInteger());
+                })
+            .parallelism(2);
+    Assertions.assertThrows(IllegalStateException.class, optimizer::run);
+  }
+
+  @Test
+  void resumesSplitWindowsSharingOneRunId() throws InterruptedException {
+    BacktestRequest base = window(0, Instant.parse("2024-01-01T00:00:00Z"));
+    base =
+        new BacktestRequest(
+            base.symbol(),
+            base.interval(),
+            base.from(),
+            base.from().plusSeconds(86_400L * 30),
+            null,
+            null,
+            BigDecimal.ZERO,
+            BigDecimal.ZERO,
+            BigDecimal.ZERO,
+            false,
+            null,
+            "run",
+            false,
+            null,
+            null);
+    List<BacktestRequest> windows = WalkForwardOptimizer.split(base, 5, 3, 2);
+    Assertions.assertEquals(3, windows.size());
+    Assertions.assertTrue(windows.stream().allMatch(w -> w.runId().equals("run")));
+
+    WalkForwardCheckpoint checkpoint = new WalkForwardCheckpoint(tempDir);
+    List<WindowResult> first =
+        new WalkForwardOptimizer(
+                windows, (index, request) -> stub(index, new AtomicInteger(), new AtomicInteger()))
+            .parallelism(3)
+            .checkpoint(checkpoint)
+            .run();
+
+    AtomicInteger reruns = new AtomicInteger();
+    List<WindowResult> resumed =
+        new WalkForwardOptimizer(
+                windows,
+                (index, request) -> {
+                  reruns.incrementAndGet();
+                  return stub(index, new AtomicInteger(), new AtomicInteger());
+                })
+            .checkpoint(checkpoint)
+            .run();
+
+    Assertions.assertEquals(0, reruns.get());
+    for (int i = 0; i < windows.size(); i++) {
+      Assertions.assertTrue(resumed.get(i).resumed());
+      Assertions.assertEquals(FITNESS[i], resumed.get(i).champion().fitness());
+      Assertions.assertEquals(
+          first.get(i).champion().fingerprint(), resumed.get(i).champion().fingerprint());
+    }
+  }
+
+  private static GaRunner stub(int index, AtomicInteger active, AtomicInteger peak) {
+    return new GaRunner(null, 1, 0, 0, 1, 0, index) {
+      @Override
+      public Genome run() throws InterruptedException {
+        peak.accumulateAndGet(active.incrementAndGet(), Math::max);
+        Thread.sleep(30);
+        active.decrementAndGet();
+        Genome genome = new Genome(new Random(index));
+        genome.fitness(FITNESS[index]);
+        BigDecimal value = BigDecimal.valueOf(index);
+        genome.metrics(
+            new MetricsSummary(
+                value, value, value, value, value, value, value, value, value, index, value, value,
+                value));
+        return genome;
+      }
+    };
+  }
+
+  private static List<BacktestRequest> windows() {
+    List<BacktestRequest> windows = new ArrayList<>();
+    Instant start = Instant.parse("2024-01-01T00:00:00Z");
+    for (int i = 0; i < FITNESS.length; i++) {
+      windows.add(window(i, start.plusSeconds(86_400L * 10 * i)));
+    }
+    return windows;
+  }
+
+  private static BacktestRequest window(int index, Instant from) {
+    return new BacktestRequest(
+        "TEST",
+        "1m",
+        from,
+        from.plusSeconds(86_400L * 10),
+        null,
+        null,
+        BigDecimal.ZERO,
+        BigDecimal.ZERO,
+        BigDecimal.ZERO,
+        false,
+        null,
+        "wf" + index,
+        false,
+        null,
+        null);
+  }
+}
@@ -0,0 +1,144 @@
+package com.bottrading.research.io;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.bottrading.model.dto.Kline;
+import com.bottrading.service.binance.BinanceClient;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DataLoaderTest {
+
+  private static final Instant START = Instant.parse("2024-01-01T00:00:00Z");
+
+  @TempDir Path tempDir;
+
+  private final BinanceClient binanceClient = mock(BinanceClient.class);
+  private final List<Integer> exchangeGaps = new ArrayList<>();
+  private KlineStore store;
+
+  @BeforeEach
+  void setUp() {
+    store = new KlineStore(tempDir);
+    // the exchange serves every minute up to the clock, minus any listed gaps
+    when(binanceClient.getKlines(
+            eq("BTCUSDT"), eq("1m"), any(Instant.class), any(Instant.class), anyInt()))
+        .thenAnswer(
+            invocation -> {
+              Instant start = invocation.getArgument(2);
+              Instant end = invocation.getArgument(3);
+              int limit = invocation.getArgument(4);
+              List<Kline> page = new ArrayList<>();
+              for (int i = minuteOf(start); i < minuteOf(end) && page.size() < limit; i++) {
+                if (!exchangeGaps.contains(i)) {
+                  page.add(kline(i));
+                }
+              }
+              return page;
+            });
+  }
+
+  @Test
+  void fetchesOnlyTheStretchesTheCacheIsMissing() throws IOException {
+    store.append("BTCUSDT", "1m", klines(10, 20));
+    store.append("BTCUSDT", "1m", klines(30, 40));
+    DataLoader loader = loader(100);
+
+    List<Kline> loaded = loader.load("BTCUSDT", "1m", minute(0), minute(50), true);
+
+    Assertions.assertEquals(klines(0, 50), loaded);
+    verify(binanceClient).getKlines("BTCUSDT", "1m", minute(0), minute(10), 1000);
+    verify(binanceClient).getKlines("BTCUSDT", "1m", minute(20), minute(30), 1000);
+    verify(binanceClient).getKlines("BTCUSDT", "1m", minute(40), minute(50), 1000);
+    verify(binanceClient, never()).getKlines(any(), any(), anyInt());
+    Assertions.assertEquals(klines(0, 50), store.read("BTCUSDT", "1m").orElseThrow());
+
+    Assertions.assertEquals(
+        klines(0, 50), loader.load("BTCUSDT", "1m", minute(0), minute(50), true));
+    verify(binanceClient, times(3))
+        .getKlines(eq("BTCUSDT"), eq("1m"), any(Instant.class), any(Instant.class), anyInt());
+  }
+
+  @Test
+  void doesNotRequireTheBarStillForming() throws IOException {
+    store.append("BTCUSDT", "1m", klines(0, 45));
+    DataLoader loader = loader(45);
+
+    Assertions.assertEquals(
+        klines(0, 45), loader.load("BTCUSDT", "1m", minute(0), minute(60), true));
+    Assertions.assertEquals(klines(40, 45), loader.load("BTCUSDT", "1m", minute(40), null, true));
+    verify(binanceClient, never())
+        .getKlines(any(), any(), any(Instant.class), any(Instant.class), anyInt());
+  }
+
+  @Test
+  void pagesThroughLongGapsAndStopsWhereTheExchangeHasNoBars() {
+    exchangeGaps.addAll(List.of(2_500, 2_501));
+    DataLoader loader = loader(3_000);
+
+    List<Kline> loaded = loader.load("BTCUSDT", "1m", minute(0), minute(2_600), true);
+
+    Assertions.assertEquals(2_598, loaded.size());
+    Assertions.assertEquals(minute(2_599), loaded.get(loaded.size() - 1).openTime());
+    verify(binanceClient).getKlines("BTCUSDT", "1m", minute(0), minute(2_600), 1000);
+    verify(binanceClient).getKlines("BTCUSDT", "1m", minute(1_000), minute(2_600), 1000);
+    verify(binanceClient).getKlines("BTCUSDT", "1m", minute(2_000), minute(2_600), 1000);
+
+    // the bars the exchange never had are asked for once per load and not waited on
+    Assertions.assertEquals(loaded, loader.load("BTCUSDT", "1m", minute(0), minute(2_600), true));
+    verify(binanceClient).getKlines("BTCUSDT", "1m", minute(2_500), minute(2_502), 1000);
+    verify(binanceClient, times(4))
+        .getKlines(eq("BTCUSDT"), eq("1m"), any(Instant.class), any(Instant.class), anyInt());
+  }
+
+  /** A loader whose clock is half way through the given minute. */
+  private DataLoader loader(int minute) {
+    Instant now = minute(minute).plusSeconds(30);
+    return new DataLoader(binanceClient, store, Clock.fixed(now, ZoneOffset.UTC));
+  }
+
+  private static List<Kline> klines(int from, int to) {
+    List<Kline> klines = new ArrayList<>();
+    for (int i = from; i < to; i++) {
+      klines.add(kline(i));
+    }
+    return klines;
+  }
+
+  private static Kline kline(int minute) {
+    double close = 100 + minute * 0.25;
+    return new Kline(
+        minute(minute),
+        minute(minute).plusSeconds(59),
+        BigDecimal.valueOf(close - 0.5),
+        BigDecimal.valueOf(close + 1.125),
+        BigDecimal.valueOf(close - 1.5),
+        BigDecimal.valueOf(close),
+        BigDecimal.valueOf(10 + minute * 0.001));
+  }
+
+  private static Instant minute(int minute) {
+    return START.plusSeconds(60L * minute);
+  }
+
+  private static int minuteOf(Instant instant) {
+    return (int) ((instant.toEpochMilli() - START.toEpochMilli()) / 60_000);
+  }
+}
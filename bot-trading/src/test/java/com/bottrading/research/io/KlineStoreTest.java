@@ -0,0 +1,132 @@
+package com.bottrading.research.io;
+
+import com.bottrading.model.dto.Kline;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class KlineStoreTest {
+
+  private static final Instant START = Instant.parse("2024-01-01T00:00:00Z");
+
+  @TempDir Path tempDir;
+
+  @Test
+  void roundTripsAndSlicesByTime() throws IOException {
+    KlineStore store = new KlineStore(tempDir);
+    List<Kline> klines = klines(0, 500);
+    Assertions.assertEquals(500, store.append("BTCUSDT", "1m", klines));
+
+    List<Kline> all = store.read("BTCUSDT", "1m").orElseThrow();
+    Assertions.assertEquals(klines, all);
+
+    List<Kline> slice =
+        store.read("BTCUSDT", "1m", minute(100), minute(250).plusMillis(1)).orElseThrow();
+    Assertions.assertEquals(klines.subList(100, 251), slice);
+    Assertions.assertEquals(klines.subList(110, 120), slice.subList(10, 20));
+    Assertions.assertEquals(
+        klines.subList(490, 500), store.read("BTCUSDT", "1m", minute(490), null).orElseThrow());
+    Assertions.assertTrue(
+        store.read("BTCUSDT", "1m", minute(600), minute(700)).orElseThrow().isEmpty());
+    Assertions.assertTrue(store.read("ETHUSDT", "1m").isEmpty());
+  }
+
+  @Test
+  void appendsOnlyNewBarsAndCompletesTheLastOne() throws IOException {
+    KlineStore store = new KlineStore(tempDir);
+    store.append("BTCUSDT", "1m", klines(0, 10));
+    List<Kline> update = new ArrayList<>(klines(5, 15));
+    update.set(4, kline(9, 42.5));
+    Assertions.assertEquals(5, store.append("BTCUSDT", "1m", update));
+
+    List<Kline> stored = store.read("BTCUSDT", "1m").orElseThrow();
+    Assertions.assertEquals(15, stored.size());
+    Assertions.assertEquals(0, BigDecimal.valueOf(42.5).compareTo(stored.get(9).close()));
+    Assertions.assertEquals(klines(10, 15), stored.subList(10, 15));
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> store.append("BTCUSDT", "1m", List.of(kline(30, 1), kline(20, 1))));
+  }
+
+  @Test
+  void mergeFillsGapsBeforeAndBetweenStoredBars() throws IOException {
+    KlineStore store = new KlineStore(tempDir);
+    store.append("BTCUSDT", "1m", klines(10, 20));
+    store.append("BTCUSDT", "1m", klines(30, 40));
+    List<Kline> head = new ArrayList<>(klines(0, 12));
+    head.set(11, kline(11, 42.5));
+
+    Assertions.assertEquals(10, store.merge("BTCUSDT", "1m", head));
+    Assertions.assertEquals(10, store.merge("BTCUSDT", "1m", klines(20, 30)));
+    Assertions.assertEquals(2, store.merge("BTCUSDT", "1m", klines(39, 42)));
+
+    List<Kline> expected = new ArrayList<>(klines(0, 42));
+    expected.set(11, kline(11, 42.5));
+    Assertions.assertEquals(expected, store.read("BTCUSDT", "1m").orElseThrow());
+    Assertions.assertFalse(Files.exists(tempDir.resolve("BTCUSDT-1m.klines.tmp")));
+  }
+
+  @Test
+  void ignoresTornTrailingRecord() throws IOException {
+    KlineStore store = new KlineStore(tempDir);
+    store.append("BTCUSDT", "1m", klines(0, 3));
+    Path file = store.file("BTCUSDT", "1m");
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+      channel.truncate(Files.size(file) - 7);
+    }
+    Assertions.assertEquals(2, store.read("BTCUSDT", "1m").orElseThrow().size());
+    Assertions.assertEquals(1, store.append("BTCUSDT", "1m", klines(0, 3)));
+    Assertions.assertEquals(klines(0, 3), store.read("BTCUSDT", "1m").orElseThrow());
+    Assertions.assertEquals(
+        KlineStore.HEADER_BYTES + 3L * KlineStore.RECORD_BYTES, Files.size(file));
+  }
+
+  @Test
+  void migratesCsvCache() throws IOException {
+    List<Kline> klines = klines(0, 20);
+    new KlineCache(tempDir).write("BTC-USDT", "5m", klines);
+    KlineStore store = new KlineStore(tempDir.resolve("store"));
+    Assertions.assertEquals(20, KlineStoreMigration.migrate(tempDir, store));
+    Assertions.assertEquals(0, KlineStoreMigration.migrate(tempDir, store));
+    Assertions.assertEquals(klines, store.read("BTC-USDT", "5m").orElseThrow());
+  }
+
+  @Test
+  void rejectsForeignFiles() throws IOException {
+    KlineStore store = new KlineStore(tempDir);
+    Files.writeString(store.file("BTCUSDT", "1m"), "open_time,close_time,open,high,low,close\n");
+    Assertions.assertThrows(IOException.class, () -> store.read("BTCUSDT", "1m"));
+  }
+
+  private static List<Kline> klines(int from, int to) {
+    List<Kline> klines = new ArrayList<>();
+    for (int i = from; i < to; i++) {
+      klines.add(kline(i, 100 + i * 0.25));
+    }
+    return klines;
+  }
+
+  private static Kline kline(int minute, double close) {
+    return new Kline(
+        minute(minute),
+        minute(minute).plusSeconds(59),
+        BigDecimal.valueOf(close - 0.5),
+        BigDecimal.valueOf(close + 1.125),
+        BigDecimal.valueOf(close - 1.5),
+        BigDecimal.valueOf(close),
+        BigDecimal.valueOf(10 + minute * 0.001));
+  }
+
+  private static Instant minute(int minute) {
+    return START.plusSeconds(60L * minute);
+  }
+}
@@ -5,11 +5,11 @@ import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 import com.bottrading.model.dto.Kline;
+import com.bottrading.notify.TelegramNotifier;
 import com.bottrading.research.backtest.BacktestEngine;
 import com.bottrading.research.backtest.ReportWriter;
+import com.bottrading.research.ga.EvaluationPool;
 import com.bottrading.research.io.DataLoader;
-import com.bottrading.research.nightly.NightlyReportGenerator;
-import com.bottrading.research.nightly.ResearchProperties;
 import com.bottrading.research.nightly.ResearchProperties.Nightly;
 import com.bottrading.research.regime.RegimeLabel;
 import com.bottrading.research.regime.RegimeLabeler;
@@ -18,7 +18,6 @@ import com.bottrading.research.regime.RegimeVolatility;
 import com.bottrading.service.preset.CanaryStageService;
 import com.bottrading.service.preset.PresetService;
 import com.bottrading.service.snapshot.SnapshotService;
-import com.bottrading.notify.TelegramNotifier;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.math.BigDecimal;
 import java.nio.file.Path;
@@ -83,10 +82,13 @@ class ResearchNightlyPipelineTest {
                 BigDecimal.ONE,
                 BigDecimal.ONE,
                 BigDecimal.ONE));
-    when(dataLoader.load(anyString(), anyString(), any(Instant.class), any(Instant.class), anyBoolean()))
+    when(dataLoader.load(
+            anyString(), anyString(), any(Instant.class), any(Instant.class), anyBoolean()))
         .thenReturn(klines);
     List<RegimeLabel> labels =
-        List.of(new RegimeLabel(Instant.parse("2024-02-29T23:58:00Z"), RegimeTrend.UP, RegimeVolatility.LO));
+        List.of(
+            new RegimeLabel(
+                Instant.parse("2024-02-29T23:58:00Z"), RegimeTrend.UP, RegimeVolatility.LO));
     when(regimeLabeler.label(anyString(), anyString(), any())).thenReturn(labels);
     doNothing().when(regimeLabeler).exportCsv(any(), any());
     when(canaryStageService.evaluatePending(any())).thenReturn(List.of());
@@ -104,11 +106,17 @@ class ResearchNightlyPipelineTest {
             canaryStageService,
             notifier,
             Optional.of(clock),
-            meterRegistry);
+            meterRegistry,
+            new EvaluationPool(1, 2, null, meterRegistry));
 
     pipeline.runNightly();
 
-    assertThat(meterRegistry.find("research.nightly.stage.duration").tag("stage", "total").timer().count())
+    assertThat(
+            meterRegistry
+                .find("research.nightly.stage.duration")
+                .tag("stage", "total")
+                .timer()
+                .count())
         .isGreaterThan(0);
     assertThat(
             meterRegistry
@@ -0,0 +1,116 @@
+package com.bottrading.service.anomaly;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.DoubleAdder;
+import org.junit.jupiter.api.Test;
+
+class RollingWindowTest {
+
+  @Test
+  void medianAndMadMatchSortedWindow() {
+    Random random = new Random(3);
+    for (int capacity : new int[] {1, 2, 5, 20, 301}) {
+      RollingWindow window = new RollingWindow(capacity);
+      Deque<Double> reference = new ArrayDeque<>();
+      for (int i = 0; i < 2_000; i++) {
+        // coarse values so ties and zero deviations are common
+        double value = random.nextInt(4) == 0 ? random.nextInt(5) : random.nextGaussian() * 10;
+        AnomalyDetector.Stats stats = window.add(value);
+        if (reference.size() == capacity) {
+          reference.removeFirst();
+        }
+        reference.addLast(value);
+
+        double[] sorted = reference.stream().mapToDouble(Double::doubleValue).sorted().toArray();
+        double median = median(sorted);
+        double[] deviations =
+            Arrays.stream(sorted).map(v -> Math.abs(v - median)).sorted().toArray();
+        assertThat(stats.count()).isEqualTo(reference.size());
+        assertThat(window.median()).isEqualTo(median);
+        assertThat(window.medianAbsoluteDeviation()).isEqualTo(median(deviations));
+      }
+    }
+  }
+
+  @Test
+  void concurrentOffersAreAppliedOnceAndSerially() throws Exception {
+    int threads = 8;
+    int perThread = 20_000;
+    RollingWindow window = new RollingWindow(300);
+    AtomicInteger applied = new AtomicInteger();
+    AtomicInteger inSink = new AtomicInteger();
+    AtomicInteger overlaps = new AtomicInteger();
+    DoubleAdder total = new DoubleAdder();
+    RollingWindow.Sink sink =
+        (value, stats) -> {
+          if (inSink.incrementAndGet() != 1) {
+            overlaps.incrementAndGet();
+          }
+          applied.incrementAndGet();
+          total.add(value);
+          inSink.decrementAndGet();
+        };
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    CountDownLatch start = new CountDownLatch(1);
+    for (int t = 0; t < threads; t++) {
+      executor.execute(
+          () -> {
+            try {
+              start.await();
+            } catch (InterruptedException ex) {
+              Thread.currentThread().interrupt();
+              return;
+            }
+            for (int i = 0; i < perThread; i++) {
+              while (!window.offer(1.0)) {
+                window.drain(sink);
+              }
+              window.drain(sink);
+            }
+          });
+    }
+    start.countDown();
+    executor.shutdown();
+    assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+    // no trailing drain: every offer is followed by a drain, so nothing may be left behind
+    assertThat(applied.get()).isEqualTo(threads * perThread);
+    assertThat(total.sum()).isEqualTo(threads * perThread);
+    assertThat(overlaps.get()).isZero();
+    assertThat(window.size()).isEqualTo(300);
+    assertThat(window.median()).isEqualTo(1.0);
+  }
+
+  @Test
+  void orderStatisticsRemovesOneOccurrence() {
+    OrderStatistics order = new OrderStatistics(4);
+    order.insert(2.0);
+    order.insert(1.0);
+    order.insert(2.0);
+
+    assertThat(order.remove(2.0)).isTrue();
+    assertThat(order.remove(3.0)).isFalse();
+    assertThat(order.size()).isEqualTo(2);
+    assertThat(order.select(0)).isEqualTo(1.0);
+    assertThat(order.select(1)).isEqualTo(2.0);
+    assertThat(order.countLessOrEqual(1.5)).isEqualTo(1);
+  }
+
+  private static double median(double[] sorted) {
+    int size = sorted.length;
+    if (size % 2 == 1) {
+      return sorted[size / 2];
+    }
+    return (sorted[size / 2 - 1] + sorted[size / 2]) / 2.0;
+  }
+}
@@ -0,0 +1,156 @@
+package com.bottrading.service.binance;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import com.bottrading.model.dto.AccountBalancesResponse;
+import com.bottrading.model.dto.OrderRequest;
+import com.bottrading.model.dto.PriceTicker;
+import com.bottrading.throttle.ThrottleProperties.CoalesceProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class CoalescingBinanceClientTest {
+
+  private final BinanceClient delegate = mock(BinanceClient.class);
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private final MutableClock clock = new MutableClock(Instant.parse("2024-01-01T00:00:00Z"));
+  private final CoalescingBinanceClient client =
+      new CoalescingBinanceClient(delegate, new CoalesceProperties(), registry, clock);
+
+  @Test
+  void concurrentIdenticalReadsShareOneRequest() throws Exception {
+    CountDownLatch entered = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    when(delegate.getPrice("BTCUSDT"))
+        .thenAnswer(
+            invocation -> {
+              entered.countDown();
+              release.await(5, TimeUnit.SECONDS);
+              return new PriceTicker("BTCUSDT", new BigDecimal("100"));
+            });
+
+    CompletableFuture<PriceTicker> first =
+        CompletableFuture.supplyAsync(() -> client.getPrice("BTCUSDT"));
+    assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+    CompletableFuture<PriceTicker> second =
+        CompletableFuture.supplyAsync(() -> client.getPrice("BTCUSDT"));
+    while (reads("price_ticker", "coalesced") == 0) {
+      Thread.onSpinWait();
+    }
+    release.countDown();
+
+    assertThat(first.get(5, TimeUnit.SECONDS).price()).isEqualByComparingTo("100");
+    assertThat(second.get(5, TimeUnit.SECONDS)).isSameAs(first.get());
+    verify(delegate, times(1)).getPrice("BTCUSDT");
+    assertThat(reads("price_ticker", "miss")).isEqualTo(1);
+  }
+
+  @Test
+  void reusesResultsWithinTheFreshnessWindow() {
+    when(delegate.getPrice("ETHUSDT"))
+        .thenReturn(new PriceTicker("ETHUSDT", BigDecimal.ONE))
+        .thenReturn(new PriceTicker("ETHUSDT", BigDecimal.TEN));
+
+    assertThat(client.getPrice("ETHUSDT").price()).isEqualByComparingTo("1");
+    clock.advance(Duration.ofMillis(499));
+    assertThat(client.getPrice("ETHUSDT").price()).isEqualByComparingTo("1");
+    clock.advance(Duration.ofMillis(1));
+    assertThat(client.getPrice("ETHUSDT").price()).isEqualByComparingTo("10");
+
+    verify(delegate, times(2)).getPrice("ETHUSDT");
+    assertThat(reads("price_ticker", "hit")).isEqualTo(1);
+    assertThat(reads("price_ticker", "miss")).isEqualTo(2);
+  }
+
+  @Test
+  void volumeMissRefreshesRecentSymbolsInOneBatch() {
+    when(delegate.get24hQuoteVolume("BTCUSDT")).thenReturn(BigDecimal.ONE);
+    when(delegate.get24hQuoteVolume("ETHUSDT")).thenReturn(BigDecimal.TEN);
+    client.get24hQuoteVolume("BTCUSDT");
+    client.get24hQuoteVolume("ETHUSDT");
+    clock.advance(Duration.ofSeconds(6));
+    when(delegate.get24hQuoteVolumes(List.of("BTCUSDT", "ETHUSDT")))
+        .thenReturn(Map.of("BTCUSDT", new BigDecimal("2"), "ETHUSDT", new BigDecimal("20")));
+
+    assertThat(client.get24hQuoteVolume("BTCUSDT")).isEqualByComparingTo("2");
+    assertThat(client.get24hQuoteVolume("ETHUSDT")).isEqualByComparingTo("20");
+
+    verify(delegate).get24hQuoteVolume("BTCUSDT");
+    verify(delegate).get24hQuoteVolume("ETHUSDT");
+    verify(delegate).get24hQuoteVolumes(List.of("BTCUSDT", "ETHUSDT"));
+    verifyNoMoreInteractions(delegate);
+    assertThat(reads("ticker_24h", "hit")).isEqualTo(1);
+  }
+
+  @Test
+  void writesDropCachedBalances() {
+    AccountBalancesResponse before =
+        new AccountBalancesResponse(
+            List.of(new AccountBalancesResponse.Balance("USDT", BigDecimal.TEN, BigDecimal.ZERO)));
+    AccountBalancesResponse after =
+        new AccountBalancesResponse(
+            List.of(new AccountBalancesResponse.Balance("USDT", BigDecimal.ONE, BigDecimal.ZERO)));
+    when(delegate.getAccountBalances(List.of("USDT"))).thenReturn(before).thenReturn(after);
+
+    assertThat(client.getAccountBalances(List.of("USDT"))).isSameAs(before);
+    assertThat(client.getAccountBalances(List.of("USDT"))).isSameAs(before);
+    client.placeOrder(new OrderRequest());
+    assertThat(client.getAccountBalances(List.of("USDT"))).isSameAs(after);
+
+    verify(delegate).placeOrder(any());
+    verify(delegate, times(2)).getAccountBalances(List.of("USDT"));
+  }
+
+  private double reads(String endpoint, String result) {
+    var counter =
+        registry
+            .find("binance.client.reads")
+            .tags("endpoint", endpoint, "result", result)
+            .counter();
+    return counter == null ? 0 : counter.count();
+  }
+
+  private static final class MutableClock extends Clock {
+    private Instant instant;
+    private final ZoneId zone = ZoneId.of("UTC");
+
+    private MutableClock(Instant instant) {
+      this.instant = instant;
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return zone;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return instant;
+    }
+
+    private void advance(Duration duration) {
+      instant = instant.plus(duration);
+    }
+  }
+}
@@ -0,0 +1,53 @@
+package com.bottrading.service.exchange;
+
+import com.bottrading.execution.PositionManager.ManagedOrderUpdate;
+import com.bottrading.model.enums.ManagedOrderStatus;
+import java.math.BigDecimal;
+import java.time.Instant;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class ExecutionReportDecoderTest {
+
+  private final ExecutionReportDecoder decoder = new ExecutionReportDecoder();
+
+  @Test
+  void decodesExecutionReport() throws Exception {
+    ManagedOrderUpdate update =
+        decoder.decode(
+            "{\"e\":\"executionReport\",\"E\":1700000000000,\"s\":\"BTCUSDT\",\"c\":\"cid-1\","
+                + "\"S\":\"BUY\",\"o\":\"LIMIT\",\"q\":\"1.0\",\"p\":\"30000.00\","
+                + "\"X\":\"PARTIALLY_FILLED\","
+                + "\"i\":4293153,\"l\":\"0.25\",\"z\":\"0.50\",\"L\":\"29999.50\",\"C\":\"\"}");
+
+    Assertions.assertEquals("BTCUSDT", update.symbol());
+    Assertions.assertEquals("cid-1", update.clientOrderId());
+    Assertions.assertEquals("4293153", update.exchangeOrderId());
+    Assertions.assertEquals(ManagedOrderStatus.PARTIAL, update.status());
+    Assertions.assertEquals(new BigDecimal("0.25"), update.lastFilledQty());
+    Assertions.assertEquals(new BigDecimal("0.50"), update.cumulativeFilledQty());
+    Assertions.assertEquals(new BigDecimal("29999.50"), update.price());
+    Assertions.assertEquals(Instant.ofEpochMilli(1_700_000_000_000L), update.eventTime());
+  }
+
+  @Test
+  void fallsBackToOrderPriceAndDefaults() throws Exception {
+    ManagedOrderUpdate update =
+        decoder.decode(
+            "{\"e\":\"executionReport\",\"s\":\"ETHUSDT\",\"c\":\"cid-2\",\"p\":\"2000\","
+                + "\"X\":\"EXPIRED\"}");
+
+    Assertions.assertEquals(new BigDecimal("2000"), update.price());
+    Assertions.assertEquals(BigDecimal.ZERO, update.lastFilledQty());
+    Assertions.assertEquals(BigDecimal.ZERO, update.cumulativeFilledQty());
+    Assertions.assertEquals(ManagedOrderStatus.CANCELED, update.status());
+  }
+
+  @Test
+  void ignoresOtherEvents() throws Exception {
+    Assertions.assertNull(
+        decoder.decode("{\"e\":\"outboundAccountPosition\",\"B\":[{\"a\":\"BTC\",\"f\":\"1\"}]}"));
+    Assertions.assertNull(decoder.decode("{\"s\":\"BTCUSDT\"}"));
+    Assertions.assertNull(decoder.decode("[]"));
+  }
+}
@@ -0,0 +1,184 @@
+package com.bottrading.service.market;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.bottrading.model.dto.Kline;
+import com.bottrading.service.binance.BinanceClient;
+import com.bottrading.strategy.CandleSeries;
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class CandleStoreTest {
+
+  private static final long MINUTE = 60_000L;
+  private static final Instant START = Instant.parse("2024-01-01T00:00:00Z");
+
+  private final BinanceClient binanceClient = mock(BinanceClient.class);
+  private final MutableClock clock = new MutableClock(START.plusSeconds(60L * 1_000));
+  private final CandleStore store = new CandleStore(binanceClient, new CandleSanitizer(), clock);
+
+  @Test
+  void keepsTheLatestClosedBarsInOrder() {
+    for (int i = 0; i < CandleStore.CAPACITY + 10; i++) {
+      feed(i, true);
+    }
+    feed(CandleStore.CAPACITY + 10, false);
+    Assertions.assertEquals(CandleStore.CAPACITY, store.size("BTCUSDT", "1m"));
+
+    CandleStore.Window window = store.window("BTCUSDT", "1m", 200);
+    CandleSeries candles = window.candles();
+    Assertions.assertEquals(200, candles.size());
+    Assertions.assertEquals(openTime(CandleStore.CAPACITY - 190), candles.openTime(0));
+    Assertions.assertEquals(price(CandleStore.CAPACITY + 9), candles.lastClose());
+    Assertions.assertEquals(
+        Instant.ofEpochMilli(openTime(CandleStore.CAPACITY + 10) - 1), window.lastCloseTime());
+    Assertions.assertEquals(
+        price(CandleStore.CAPACITY),
+        store.closeAt("btcusdt", "1m", closeTime(CandleStore.CAPACITY)).getAsDouble());
+    Assertions.assertTrue(store.closeAt("BTCUSDT", "1m", closeTime(0)).isEmpty());
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> store.window("BTCUSDT", "1m", CandleStore.CAPACITY + 1));
+  }
+
+  @Test
+  void backfillsOnceThenCatchesUpOnlyWhenBehind() {
+    when(binanceClient.getKlines(eq("ETHUSDT"), eq("1m"), anyInt()))
+        .thenReturn(klines(500, 1_001))
+        .thenReturn(klines(997, 1_004));
+
+    CandleStore.Window first = store.window("ETHUSDT", "1m", 100);
+    Assertions.assertEquals(100, first.candles().size());
+    Assertions.assertEquals(price(999), first.candles().lastClose(), "open bar 1000 is dropped");
+    store.window("ETHUSDT", "1m", 100);
+    verify(binanceClient, times(1)).getKlines("ETHUSDT", "1m", CandleStore.CAPACITY);
+
+    clock.advance(Duration.ofMinutes(3));
+    CandleStore.Window caughtUp = store.window("ETHUSDT", "1m", 100);
+    verify(binanceClient).getKlines("ETHUSDT", "1m", 5);
+    Assertions.assertEquals(price(1_002), caughtUp.candles().lastClose());
+    Assertions.assertEquals(100, caughtUp.candles().size());
+  }
+
+  @Test
+  void repairFillsHolesFromRest() {
+    for (int i = 990; i < 1_000; i++) {
+      if (i != 994 && i != 995) {
+        feed(i, true);
+      }
+    }
+    Assertions.assertTrue(store.closeAt("BTCUSDT", "1m", closeTime(994)).isEmpty());
+    when(binanceClient.getKlines("BTCUSDT", "1m", 7)).thenReturn(klines(993, 1_000));
+    store.repair("BTCUSDT", "1m", closeTime(994).toEpochMilli());
+
+    Assertions.assertEquals(10, store.size("BTCUSDT", "1m"));
+    Assertions.assertEquals(
+        price(994), store.closeAt("BTCUSDT", "1m", closeTime(994)).getAsDouble());
+    Assertions.assertEquals(
+        price(995), store.closeAt("BTCUSDT", "1m", closeTime(995)).getAsDouble());
+    verify(binanceClient, never()).getKlines("BTCUSDT", "1m", CandleStore.CAPACITY);
+  }
+
+  @Test
+  void insertsIntoAFullRingByDroppingTheOldestBar() {
+    CandleStore.Ring ring = new CandleStore.Ring(5);
+    for (int i : new int[] {0, 1, 2, 4, 5}) {
+      ring.put(openTime(i), openTime(i + 1) - 1, 0, 0, 0, price(i), 0);
+    }
+    ring.put(openTime(3), openTime(4) - 1, 0, 0, 0, price(3), 0);
+    ring.put(openTime(-1), openTime(0) - 1, 0, 0, 0, price(-1), 0);
+    ring.put(openTime(5), openTime(6) - 1, 0, 0, 0, 42, 0);
+
+    CandleSeries candles = ring.window(5).candles();
+    for (int i = 0; i < 5; i++) {
+      Assertions.assertEquals(openTime(i + 1), candles.openTime(i));
+    }
+    Assertions.assertEquals(42, candles.lastClose());
+    Assertions.assertEquals(price(3), ring.closeAt(openTime(4) - 1).getAsDouble());
+  }
+
+  private void feed(int minute, boolean closed) {
+    double price = price(minute);
+    store.onKline(
+        "BTCUSDT",
+        "1m",
+        openTime(minute),
+        openTime(minute + 1) - 1,
+        price,
+        price + 1,
+        price - 1,
+        price,
+        10,
+        closed);
+  }
+
+  private static List<Kline> klines(int from, int to) {
+    List<Kline> klines = new ArrayList<>();
+    for (int i = from; i <= to; i++) {
+      BigDecimal price = BigDecimal.valueOf(price(i));
+      klines.add(
+          new Kline(
+              Instant.ofEpochMilli(openTime(i)),
+              closeTime(i),
+              price,
+              price,
+              price,
+              price,
+              BigDecimal.TEN));
+    }
+    return klines;
+  }
+
+  private static long openTime(int minute) {
+    return START.toEpochMilli() + minute * MINUTE;
+  }
+
+  private static Instant closeTime(int minute) {
+    return Instant.ofEpochMilli(openTime(minute + 1) - 1);
+  }
+
+  private static double price(int minute) {
+    return 100 + minute * 0.5;
+  }
+
+  private static final class MutableClock extends Clock {
+    private volatile Instant instant;
+    private final ZoneId zone = ZoneId.of("UTC");
+
+    private MutableClock(Instant instant) {
+      this.instant = instant;
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return zone;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return instant;
+    }
+
+    private void advance(Duration duration) {
+      instant = instant.plus(duration);
+    }
+  }
+}
@@ -112,6 +112,12 @@ class MarketDataServiceTest {
       throw new UnsupportedOperationException();
     }
 
+    @Override
+    public com.bottrading.model.dto.OrderResponse getOrderByClientOrderId(
+        String symbol, String clientOrderId) {
+      throw new UnsupportedOperationException();
+    }
+
     @Override
     public boolean placeOcoOrder(String symbol, com.bottrading.model.entity.ManagedOrderEntity stopLoss, com.bottrading.model.entity.ManagedOrderEntity takeProfit) {
       throw new UnsupportedOperationException();
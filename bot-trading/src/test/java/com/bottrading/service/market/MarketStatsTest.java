@@ -0,0 +1,91 @@
+package com.bottrading.service.market;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.bottrading.service.binance.BinanceClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class MarketStatsTest {
+
+  private final BinanceClient binanceClient = mock(BinanceClient.class);
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private final MutableClock clock = new MutableClock(Instant.parse("2024-01-01T00:00:00Z"));
+  private final MarketStats stats =
+      new MarketStats(binanceClient, Duration.ofSeconds(60), registry, clock);
+
+  @Test
+  void servesStreamedVolumeWhileFresh() {
+    stats.onMiniTicker("btcusdt", 1000.5);
+    clock.advance(Duration.ofSeconds(60));
+    Assertions.assertEquals(new BigDecimal("1000.5"), stats.quoteVolume24h("BTCUSDT"));
+    stats.onMiniTicker("BTCUSDT", 1001);
+    Assertions.assertEquals(0, new BigDecimal("1001").compareTo(stats.quoteVolume24h("BTCUSDT")));
+    verifyNoInteractions(binanceClient);
+    Assertions.assertEquals(0, registry.counter("market.stats.volume24h.rest").count());
+  }
+
+  @Test
+  void fallsBackToRestAndHoldsItForTheBound() {
+    when(binanceClient.get24hQuoteVolume("ETHUSDT"))
+        .thenReturn(BigDecimal.valueOf(5))
+        .thenReturn(BigDecimal.valueOf(6));
+    stats.onMiniTicker("ETHUSDT", 1);
+    clock.advance(Duration.ofSeconds(61));
+
+    Assertions.assertEquals(BigDecimal.valueOf(5), stats.quoteVolume24h("ETHUSDT"));
+    clock.advance(Duration.ofSeconds(30));
+    Assertions.assertEquals(BigDecimal.valueOf(5), stats.quoteVolume24h("ETHUSDT"));
+    clock.advance(Duration.ofSeconds(31));
+    Assertions.assertEquals(BigDecimal.valueOf(6), stats.quoteVolume24h("ETHUSDT"));
+    verify(binanceClient, times(2)).get24hQuoteVolume("ETHUSDT");
+    Assertions.assertEquals(2, registry.counter("market.stats.volume24h.rest").count());
+  }
+
+  @Test
+  void propagatesRestFailuresWhenNothingFresh() {
+    when(binanceClient.get24hQuoteVolume("SOLUSDT")).thenThrow(new IllegalStateException("down"));
+    Assertions.assertThrows(IllegalStateException.class, () -> stats.quoteVolume24h("SOLUSDT"));
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> new MarketStats(binanceClient, Duration.ZERO, registry, clock));
+  }
+
+  private static final class MutableClock extends Clock {
+    private Instant instant;
+    private final ZoneId zone = ZoneId.of("UTC");
+
+    private MutableClock(Instant instant) {
+      this.instant = instant;
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return zone;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return instant;
+    }
+
+    private void advance(Duration duration) {
+      instant = instant.plus(duration);
+    }
+  }
+}
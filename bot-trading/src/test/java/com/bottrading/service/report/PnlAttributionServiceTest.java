@@ -18,6 +18,7 @@ import com.bottrading.model.enums.OrderSide;
 import com.bottrading.repository.DecisionRepository;
 import com.bottrading.repository.PnlAttributionRepository;
 import com.bottrading.repository.TradeFillRepository;
+import com.bottrading.service.market.CandleStore;
 import com.bottrading.service.market.MarketDataService;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.math.BigDecimal;
@@ -36,6 +37,7 @@ class PnlAttributionServiceTest {
   @Mock private DecisionRepository decisionRepository;
   @Mock private TradeFillRepository tradeFillRepository;
   @Mock private MarketDataService marketDataService;
+  @Mock private CandleStore candleStore;
   @Mock private FeeService feeService;
 
   private PnlAttributionService service;
@@ -52,6 +54,7 @@ class PnlAttributionServiceTest {
             decisionRepository,
             tradeFillRepository,
             marketDataService,
+            candleStore,
             feeService,
             new SimpleMeterRegistry());
   }
@@ -119,7 +122,8 @@ class PnlAttributionServiceTest {
     service.record(position, tradeTight);
     service.record(position, tradeWide);
 
-    ArgumentCaptor<PnlAttributionEntity> captor = ArgumentCaptor.forClass(PnlAttributionEntity.class);
+    ArgumentCaptor<PnlAttributionEntity> captor =
+        ArgumentCaptor.forClass(PnlAttributionEntity.class);
     verify(repository, times(2)).save(captor.capture());
     List<PnlAttributionEntity> saved = captor.getAllValues();
     double tightSlippage = saved.get(0).getSlippageCost().doubleValue();
@@ -0,0 +1,150 @@
+package com.bottrading.service.risk;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.bottrading.model.entity.PositionEntity;
+import com.bottrading.model.enums.OrderSide;
+import com.bottrading.model.enums.PositionStatus;
+import com.bottrading.repository.PositionRepository;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ExposureLedgerTest {
+
+  private final PositionRepository positionRepository = mock(PositionRepository.class);
+  private final List<ExposureLedger.RiskKey> priced = new ArrayList<>();
+  // one unit of risk per unit of stop distance
+  private final ToDoubleFunction<ExposureLedger.RiskKey> pricing =
+      key -> {
+        priced.add(key);
+        return key.entryPrice().subtract(key.stopLoss()).doubleValue();
+      };
+  private ExposureLedger ledger;
+  private PositionEntity first;
+  private PositionEntity second;
+
+  @BeforeEach
+  void setUp() {
+    first = position(1L, 100, 95, 2);
+    second = position(2L, 50, 48, 10);
+    when(positionRepository.findByStatus(PositionStatus.OPEN)).thenReturn(List.of(first, second));
+    when(positionRepository.findByStatus(PositionStatus.OPENING)).thenReturn(List.of());
+    when(positionRepository.findByStatus(PositionStatus.CLOSING)).thenReturn(List.of());
+    ledger = new ExposureLedger(positionRepository);
+  }
+
+  @Test
+  void readsAreServedFromTheLedgerOncePriced() {
+    assertThat(ledger.exposure(pricing)).isEqualTo(30.0);
+    assertThat(ledger.exposure(pricing)).isEqualTo(30.0);
+
+    assertThat(priced).hasSize(2);
+    verify(positionRepository, times(1)).findByStatus(PositionStatus.OPEN);
+  }
+
+  @Test
+  void quantityChangesRescaleWhileStopMovesReprice() {
+    ledger.exposure(pricing);
+    priced.clear();
+
+    first.setQtyRemaining(BigDecimal.ONE);
+    ledger.onPositionChanged(first);
+    assertThat(ledger.exposure(pricing)).isEqualTo(25.0);
+    assertThat(priced).isEmpty();
+
+    second.setStopLoss(BigDecimal.valueOf(49));
+    ledger.onPositionChanged(second);
+    assertThat(ledger.exposure(pricing)).isEqualTo(15.0);
+    assertThat(priced)
+        .extracting(ExposureLedger.RiskKey::stopLoss)
+        .containsExactly(BigDecimal.valueOf(49));
+  }
+
+  @Test
+  void closedPositionsLeaveAndNewSamplesRepriceEverything() {
+    ledger.exposure(pricing);
+    priced.clear();
+
+    first.setStatus(PositionStatus.CLOSED);
+    first.setQtyRemaining(BigDecimal.ZERO);
+    ledger.onPositionChanged(first);
+    assertThat(ledger.exposure(pricing)).isEqualTo(20.0);
+    assertThat(ledger.size()).isEqualTo(1);
+
+    long version = ledger.samplesVersion();
+    ledger.invalidateSamples();
+    assertThat(ledger.samplesVersion()).isGreaterThan(version);
+    assertThat(ledger.exposure(pricing)).isEqualTo(20.0);
+    assertThat(priced).hasSize(1);
+  }
+
+  @Test
+  void scopedInvalidationRepricesOnlyTheAffectedPositions() {
+    second.setSymbol("ETHUSDT");
+    ledger.exposure(pricing);
+    priced.clear();
+
+    ledger.invalidateSamples(key -> key.symbol().equals("ETHUSDT"));
+
+    assertThat(ledger.exposure(pricing)).isEqualTo(30.0);
+    assertThat(priced).extracting(ExposureLedger.RiskKey::symbol).containsExactly("ETHUSDT");
+  }
+
+  @Test
+  void anEntryInvalidatedWhileBeingPricedIsNotCached() {
+    second.setSymbol("ETHUSDT");
+    ToDoubleFunction<ExposureLedger.RiskKey> racing =
+        key -> {
+          if (key.symbol().equals("ETHUSDT") && priced.stream().noneMatch(key::equals)) {
+            ledger.invalidateSamples(k -> k.symbol().equals("ETHUSDT"));
+          }
+          return pricing.applyAsDouble(key);
+        };
+
+    assertThat(ledger.exposure(racing)).isEqualTo(30.0);
+    priced.clear();
+    assertThat(ledger.exposure(pricing)).isEqualTo(30.0);
+    assertThat(priced).isEmpty();
+  }
+
+  @Test
+  void steadyInvalidationStillReportsTheFullBook() {
+    // every pricing call races a new trade, so no round can be cached
+    ToDoubleFunction<ExposureLedger.RiskKey> racing =
+        key -> {
+          ledger.invalidateSamples();
+          return pricing.applyAsDouble(key);
+        };
+
+    assertThat(ledger.exposure(racing)).isEqualTo(30.0);
+    assertThat(ledger.exposure(pricing)).isEqualTo(30.0);
+  }
+
+  @Test
+  void eventsBeforeTheFirstReadAreTakenFromTheTable() {
+    ledger.onPositionChanged(position(3L, 10, 9, 1));
+
+    assertThat(ledger.exposure(pricing)).isEqualTo(30.0);
+    assertThat(ledger.size()).isEqualTo(2);
+  }
+
+  private static PositionEntity position(long id, double entry, double stop, double qty) {
+    PositionEntity position = new PositionEntity();
+    position.setId(id);
+    position.setSymbol("BTCUSDT");
+    position.setSide(OrderSide.BUY);
+    position.setStatus(PositionStatus.OPEN);
+    position.setEntryPrice(BigDecimal.valueOf(entry));
+    position.setStopLoss(BigDecimal.valueOf(stop));
+    position.setQtyRemaining(BigDecimal.valueOf(qty));
+    return position;
+  }
+}
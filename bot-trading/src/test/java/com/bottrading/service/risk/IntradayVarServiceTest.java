@@ -5,14 +5,14 @@ import static org.mockito.Mockito.*;
 
 import com.bottrading.config.VarProperties;
 import com.bottrading.model.enums.OrderSide;
+import com.bottrading.persistence.WriteBehindWriter;
 import com.bottrading.repository.PositionRepository;
 import com.bottrading.repository.RiskVarSnapshotRepository;
-import com.bottrading.repository.ShadowPositionRepository;
+import com.bottrading.saas.service.TenantMetrics;
 import com.bottrading.service.risk.IntradayVarService.HistoricalSample;
 import com.bottrading.service.risk.IntradayVarService.SampleUniverse;
 import com.bottrading.service.risk.IntradayVarService.VarAssessment;
 import com.bottrading.service.risk.IntradayVarService.VarInput;
-import com.bottrading.saas.service.TenantMetrics;
 import io.micrometer.core.instrument.Tags;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.math.BigDecimal;
@@ -24,16 +24,15 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 
 @ExtendWith(MockitoExtension.class)
 class IntradayVarServiceTest {
 
   @Mock private RiskVarSnapshotRepository snapshotRepository;
   @Mock private PositionRepository positionRepository;
-  @Mock private ShadowPositionRepository shadowPositionRepository;
-  @Mock private NamedParameterJdbcTemplate jdbcTemplate;
+  @Mock private VarSampleStore sampleStore;
   @Mock private TenantMetrics tenantMetrics;
+  @Mock private WriteBehindWriter writeBehindWriter;
 
   private VarProperties properties;
   private SampleUniverse universe;
@@ -80,6 +79,8 @@ class IntradayVarServiceTest {
     assertThat(assessment.cvar()).isEqualByComparingTo("0.1");
     assertThat(assessment.samples()).isEqualTo(12);
     assertThat(assessment.universe().samples()).hasSize(12);
+    verify(writeBehindWriter).enqueue(any(), anyMap());
+    verifyNoInteractions(snapshotRepository);
   }
 
   private class StubIntradayVarService extends IntradayVarService {
@@ -87,18 +88,19 @@ class IntradayVarServiceTest {
       super(
           properties,
           snapshotRepository,
-          positionRepository,
-          shadowPositionRepository,
-          jdbcTemplate,
           new SimpleMeterRegistry(),
-          tenantMetrics);
+          tenantMetrics,
+          writeBehindWriter,
+          new ExposureLedger(positionRepository),
+          sampleStore);
       this.overrideUniverse = universe;
     }
 
     private final SampleUniverse overrideUniverse;
 
     @Override
-    SampleUniverse loadSamples(String symbol, String presetKey, String regimeTrend, String regimeVolatility) {
+    SampleUniverse loadSamples(
+        String symbol, String presetKey, String regimeTrend, String regimeVolatility) {
       return overrideUniverse;
     }
   }
@@ -0,0 +1,104 @@
+package com.bottrading.service.risk;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+class MonteCarloCvarTest {
+
+  private final double[] samples = samples(new Random(7), 200);
+
+  @Test
+  void fixedSeedIsReproducible() {
+    MonteCarloCvar.Tail first = MonteCarloCvar.estimate(samples, 20_000, 0.99, true, 11L);
+    MonteCarloCvar.Tail second = MonteCarloCvar.estimate(samples, 20_000, 0.99, true, 11L);
+    MonteCarloCvar.Tail other = MonteCarloCvar.estimate(samples, 20_000, 0.99, true, 12L);
+
+    assertThat(second).isEqualTo(first);
+    assertThat(other).isNotEqualTo(first);
+    assertThat(first.cvarR()).isGreaterThanOrEqualTo(first.varR()).isPositive();
+  }
+
+  @Test
+  void parallelRunMatchesSequentialRun() {
+    MonteCarloCvar.Tail sequential =
+        MonteCarloCvar.estimate(samples, 150_000, 0.975, true, 3L, Integer.MAX_VALUE);
+    MonteCarloCvar.Tail parallel = MonteCarloCvar.estimate(samples, 150_000, 0.975, true, 3L, 1);
+
+    assertThat(parallel).isEqualTo(sequential);
+  }
+
+  @Test
+  void concurrentEstimatesOnVirtualThreadsDoNotShareBuffers() throws Exception {
+    MonteCarloCvar.Tail expected = MonteCarloCvar.estimate(samples, 20_000, 0.99, true, 11L);
+    List<Future<MonteCarloCvar.Tail>> results = new ArrayList<>();
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int i = 0; i < 32; i++) {
+        int iterations = i % 2 == 0 ? 20_000 : 5_000;
+        results.add(
+            executor.submit(() -> MonteCarloCvar.estimate(samples, iterations, 0.99, true, 11L)));
+      }
+    }
+    for (int i = 0; i < results.size(); i += 2) {
+      assertThat(results.get(i).get()).isEqualTo(expected);
+    }
+  }
+
+  @Test
+  void tailMatchesSortedDraws() {
+    int iterations = 30_000;
+    double[] draws = new double[iterations];
+    MonteCarloCvar.simulate(samples, draws, iterations, 0, 5L, Integer.MAX_VALUE);
+    Arrays.sort(draws);
+    int index = (int) Math.floor(0.01 * iterations);
+    double quantile = draws[index];
+    double sum = 0;
+    int count = 0;
+    for (double value : draws) {
+      if (value > quantile) {
+        break;
+      }
+      sum += -value;
+      count++;
+    }
+
+    MonteCarloCvar.Tail tail = MonteCarloCvar.estimate(samples, iterations, 0.99, false, 5L);
+
+    assertThat(tail.varR()).isEqualTo(Math.max(0, -quantile));
+    assertThat(tail.cvarR()).isCloseTo(sum / count, within(1e-12));
+  }
+
+  @Test
+  void selectFindsOrderStatistics() {
+    Random random = new Random(1);
+    for (int round = 0; round < 200; round++) {
+      int length = 1 + random.nextInt(300);
+      double[] values = new double[length];
+      for (int i = 0; i < length; i++) {
+        // few distinct values so pivots repeat
+        values[i] = random.nextInt(round % 2 == 0 ? 5 : 1000);
+      }
+      double[] sorted = values.clone();
+      Arrays.sort(sorted);
+      int k = random.nextInt(length);
+
+      assertThat(MonteCarloCvar.select(values, length, k)).isEqualTo(sorted[k]);
+    }
+  }
+
+  private static double[] samples(Random random, int size) {
+    double[] values = new double[size];
+    for (int i = 0; i < size; i++) {
+      values[i] = random.nextGaussian() * 1.5 + 0.1;
+    }
+    return values;
+  }
+}
@@ -0,0 +1,439 @@
+package com.bottrading.service.risk;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.bottrading.config.PersistenceProperties;
+import com.bottrading.config.VarProperties;
+import com.bottrading.model.entity.ShadowPositionEntity;
+import com.bottrading.model.enums.OrderSide;
+import com.bottrading.model.enums.PositionStatus;
+import com.bottrading.persistence.WriteBehindWriter;
+import com.bottrading.repository.ShadowPositionRepository;
+import com.bottrading.service.risk.IntradayVarService.HistoricalSample;
+import com.bottrading.service.risk.IntradayVarService.SampleUniverse;
+import com.bottrading.service.risk.IntradayVarService.VarReason;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Predicate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+class VarSampleStoreTest {
+
+  private static final List<String> SYMBOLS = Arrays.asList("BTCUSDT", "ETHUSDT", "SOLUSDT");
+  private static final List<String> PRESETS = Arrays.asList(null, "trend", "revert");
+  private static final List<String> TRENDS = Arrays.asList(null, "UP", "DOWN");
+  private static final List<String> VOLATILITIES = Arrays.asList(null, "HIGH", "LOW");
+  private static final Instant EPOCH = Instant.parse("2024-01-01T00:00:00Z");
+  private static final WriteBehindWriter.Statement DECISION_INSERT =
+      new WriteBehindWriter.Statement(
+          "decision_rows",
+          "INSERT INTO decision_rows VALUES (:orderId, :preset, :trend, :volatility)");
+
+  private final Random random = new Random(42);
+  private final Set<Integer> usedSeconds = new HashSet<>();
+  private final List<ShadowPositionEntity> shadowTable = new ArrayList<>();
+  private final ShadowPositionRepository shadowRepository = mock(ShadowPositionRepository.class);
+  private final ExposureLedger exposureLedger = mock(ExposureLedger.class);
+  private NamedParameterJdbcTemplate jdbcTemplate;
+  private VarProperties properties;
+  private WriteBehindWriter writer;
+  private VarSampleStore store;
+  private long nextTradeId = 1;
+  private long nextShadowId = 1;
+
+  @BeforeEach
+  void setUp() {
+    DriverManagerDataSource dataSource =
+        new DriverManagerDataSource(
+            "jdbc:h2:mem:var-samples;MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", "");
+    jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+    // the columns of the production view the sample queries read
+    jdbcTemplate
+        .getJdbcTemplate()
+        .execute(
+            "CREATE TABLE vw_trades_enriched (trade_id BIGINT, executed_at TIMESTAMP, symbol"
+                + " VARCHAR(20), side VARCHAR(8), pnl_r DOUBLE PRECISION, pnl DOUBLE PRECISION,"
+                + " slippage_bps DOUBLE PRECISION, entry_price DOUBLE PRECISION, stop_loss"
+                + " DOUBLE PRECISION, preset_key VARCHAR(20), position_preset_key VARCHAR(20),"
+                + " regime_trend VARCHAR(10), regime_volatility VARCHAR(10))");
+    when(shadowRepository.findBySymbolOrderByOpenedAtDesc(anyString()))
+        .thenAnswer(
+            invocation ->
+                shadowTable.stream()
+                    .filter(p -> p.getSymbol().equals(invocation.getArgument(0)))
+                    .sorted(Comparator.comparing(ShadowPositionEntity::getOpenedAt).reversed())
+                    .toList());
+    properties = new VarProperties();
+    properties.setLookbackTrades(40);
+    properties.setMinTradesForSymbolPreset(15);
+    // long enough that nothing is written behind unless someone flushes
+    PersistenceProperties persistence = new PersistenceProperties();
+    persistence.getWriteBehind().setFlushIntervalMs(60_000);
+    writer = new WriteBehindWriter(jdbcTemplate, persistence, new SimpleMeterRegistry());
+    store = new VarSampleStore(properties, jdbcTemplate, shadowRepository, exposureLedger, writer);
+  }
+
+  @AfterEach
+  void tearDown() {
+    writer.close();
+    jdbcTemplate.getJdbcTemplate().execute("DROP ALL OBJECTS");
+  }
+
+  @Test
+  void universesMatchTheQueriesAfterSeedingAndAppends() {
+    for (int i = 0; i < 300; i++) {
+      insertTrade();
+    }
+    for (int i = 0; i < 60; i++) {
+      shadowTable.add(shadowPosition());
+    }
+    assertMatchesQueries();
+
+    for (int i = 0; i < 80; i++) {
+      store.onTradeRecorded(insertTrade());
+      if (i % 4 == 0) {
+        ShadowPositionEntity closed = shadowPosition();
+        shadowTable.add(closed);
+        store.onShadowClosed(closed);
+      }
+    }
+    assertMatchesQueries();
+  }
+
+  @Test
+  void fallsBackToTheRegimeAndGlobalPools() {
+    properties.setMinTradesForSymbolPreset(5);
+    insertTrade(1, "ETHUSDT", "trend", "UP", "HIGH", -1.0);
+    insertTrade(2, "ETHUSDT", "trend", "UP", "LOW", 0.5);
+
+    SampleUniverse regime = store.universe("BTCUSDT", null, "UP", "HIGH");
+    assertThat(regime.reasons()).extracting(VarReason::code).containsExactly("FALLBACK_REGIME");
+    assertThat(regime.samples()).extracting(HistoricalSample::pnlR).containsExactly(-1.0);
+
+    SampleUniverse global = store.universe("BTCUSDT", null, "DOWN", null);
+    assertThat(global.reasons())
+        .extracting(VarReason::code)
+        .containsExactly("FALLBACK_REGIME", "FALLBACK_GLOBAL");
+    assertThat(global.samples()).extracting(HistoricalSample::pnlR).containsExactly(0.5, -1.0);
+
+    store.onTradeRecorded(insertTrade(3, "BTCUSDT", "trend", "DOWN", "LOW", 2.0));
+    assertThat(store.universe("BTCUSDT", null, "DOWN", null).samples())
+        .extracting(HistoricalSample::pnlR)
+        .containsExactly(2.0, 2.0);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void invalidationCoversEveryUniverseThatChangedAndSparesTheRest() {
+    for (int i = 0; i < 300; i++) {
+      insertTrade();
+    }
+    for (int i = 0; i < 60; i++) {
+      shadowTable.add(shadowPosition());
+    }
+    Map<ExposureLedger.RiskKey, List<String>> before = universes();
+    int spared = 0;
+    for (int i = 0; i < 80; i++) {
+      if (i % 4 == 0) {
+        ShadowPositionEntity closed = shadowPosition();
+        shadowTable.add(closed);
+        store.onShadowClosed(closed);
+      } else {
+        store.onTradeRecorded(insertTrade());
+      }
+      ArgumentCaptor<Predicate<ExposureLedger.RiskKey>> affected =
+          ArgumentCaptor.forClass(Predicate.class);
+      verify(exposureLedger, atLeastOnce()).invalidateSamples(affected.capture());
+      Map<ExposureLedger.RiskKey, List<String>> after = universes();
+      for (ExposureLedger.RiskKey key : after.keySet()) {
+        if (!after.get(key).equals(before.get(key))) {
+          assertThat(affected.getValue().test(key)).as(key.toString()).isTrue();
+        } else if (!affected.getValue().test(key)) {
+          spared++;
+        }
+      }
+      before = after;
+    }
+    assertThat(spared).isGreaterThan(0);
+  }
+
+  @Test
+  void routesTradesWhoseDecisionRowIsWrittenBehind() {
+    // the production view: regime and preset come from the decision joined on the order id
+    jdbcTemplate.getJdbcTemplate().execute("DROP TABLE vw_trades_enriched");
+    jdbcTemplate
+        .getJdbcTemplate()
+        .execute(
+            "CREATE TABLE trade_rows (trade_id BIGINT, executed_at TIMESTAMP, symbol VARCHAR(20),"
+                + " side VARCHAR(8), pnl_r DOUBLE PRECISION, pnl DOUBLE PRECISION, slippage_bps"
+                + " DOUBLE PRECISION, entry_price DOUBLE PRECISION, stop_loss DOUBLE PRECISION,"
+                + " position_preset_key VARCHAR(20), order_id VARCHAR(20))");
+    jdbcTemplate
+        .getJdbcTemplate()
+        .execute(
+            "CREATE TABLE decision_rows (order_id VARCHAR(20), preset_key VARCHAR(20),"
+                + " regime_trend VARCHAR(10), regime_volatility VARCHAR(10))");
+    jdbcTemplate
+        .getJdbcTemplate()
+        .execute(
+            "CREATE VIEW vw_trades_enriched AS SELECT t.trade_id, t.executed_at, t.symbol,"
+                + " t.side, t.pnl_r, t.pnl, t.slippage_bps, t.entry_price, t.stop_loss,"
+                + " d.preset_key, t.position_preset_key, d.regime_trend, d.regime_volatility"
+                + " FROM trade_rows t LEFT JOIN decision_rows d ON d.order_id = t.order_id");
+    for (int i = 0; i < 300; i++) {
+      insertTradeAndDecision(false);
+    }
+    assertMatchesQueries();
+
+    // the decision is still queued when the trade commits and lands after it
+    for (int i = 0; i < 40; i++) {
+      store.onTradeRecorded(insertTradeAndDecision(true));
+    }
+    writer.flush();
+    assertMatchesQueries();
+  }
+
+  private Map<ExposureLedger.RiskKey, List<String>> universes() {
+    Map<ExposureLedger.RiskKey, List<String>> universes = new HashMap<>();
+    for (String symbol : SYMBOLS) {
+      for (String preset : PRESETS) {
+        for (String trend : TRENDS) {
+          for (String volatility : VOLATILITIES) {
+            SampleUniverse universe = store.universe(symbol, preset, trend, volatility);
+            List<String> values = new ArrayList<>(values(universe));
+            universe.reasons().forEach(reason -> values.add(reason.code()));
+            universes.put(
+                new ExposureLedger.RiskKey(
+                    symbol,
+                    OrderSide.BUY,
+                    BigDecimal.valueOf(100),
+                    BigDecimal.valueOf(98),
+                    preset,
+                    trend,
+                    volatility),
+                values);
+          }
+        }
+      }
+    }
+    return universes;
+  }
+
+  private void assertMatchesQueries() {
+    List<String> symbols = new ArrayList<>(SYMBOLS);
+    symbols.add("XRPUSDT");
+    List<String> presets = new ArrayList<>(PRESETS);
+    presets.add("scalp");
+    for (String symbol : symbols) {
+      for (String preset : presets) {
+        for (String trend : TRENDS) {
+          for (String volatility : VOLATILITIES) {
+            SampleUniverse expected = legacyUniverse(symbol, preset, trend, volatility);
+            SampleUniverse actual = store.universe(symbol, preset, trend, volatility);
+            String key = symbol + "/" + preset + "/" + trend + "/" + volatility;
+            assertThat(actual.reasons()).as(key).isEqualTo(expected.reasons());
+            assertThat(values(actual)).as(key).isEqualTo(values(expected));
+          }
+        }
+      }
+    }
+  }
+
+  private static List<String> values(SampleUniverse universe) {
+    return universe.samples().stream().map(s -> s.pnlR() + "@" + s.slippageBps()).toList();
+  }
+
+  /** The database path the store replaces, query for query. */
+  private SampleUniverse legacyUniverse(
+      String symbol, String presetKey, String regimeTrend, String regimeVolatility) {
+    List<VarReason> reasons = new ArrayList<>();
+    MapSqlParameterSource params =
+        new MapSqlParameterSource()
+            .addValue("symbol", symbol)
+            .addValue("limit", properties.getLookbackTrades())
+            .addValue("presetKey", presetKey)
+            .addValue("regimeTrend", regimeTrend)
+            .addValue("regimeVolatility", regimeVolatility);
+    List<HistoricalSample> samples =
+        new ArrayList<>(jdbcTemplate.query(VarSampleStore.SYMBOL_QUERY, params, this::legacyRow));
+    if (samples.size() < properties.getMinTradesForSymbolPreset()) {
+      reasons.add(VarReason.of("FALLBACK_REGIME", "Using regime pool"));
+      samples.addAll(jdbcTemplate.query(VarSampleStore.REGIME_QUERY, params, this::legacyRow));
+    }
+    if (samples.isEmpty()) {
+      reasons.add(VarReason.of("FALLBACK_GLOBAL", "Using global pool"));
+      samples.addAll(jdbcTemplate.query(VarSampleStore.GLOBAL_QUERY, params, this::legacyRow));
+    }
+    shadowRepository.findBySymbolOrderByOpenedAtDesc(symbol).stream()
+        .filter(p -> p.getStatus() == PositionStatus.CLOSED)
+        .limit(properties.getLookbackTrades())
+        .filter(p -> matches(presetKey, p.getPresetKey()))
+        .filter(p -> matches(regimeTrend, p.getRegimeTrend()))
+        .filter(p -> matches(regimeVolatility, p.getRegimeVolatility()))
+        .forEach(
+            p -> {
+              double distance =
+                  p.getSide() == OrderSide.BUY
+                      ? p.getEntryPrice().subtract(p.getStopLoss()).doubleValue()
+                      : p.getStopLoss().subtract(p.getEntryPrice()).doubleValue();
+              if (distance > 0) {
+                double pnlR =
+                    p.getRealizedPnl().doubleValue() / (distance * p.getQuantity().doubleValue());
+                samples.add(new HistoricalSample(pnlR, 0, null, null, null, null));
+              }
+            });
+    samples.removeIf(Objects::isNull);
+    return new SampleUniverse(samples, reasons);
+  }
+
+  private static boolean matches(String wanted, String actual) {
+    return wanted == null || actual == null || wanted.equalsIgnoreCase(actual);
+  }
+
+  private HistoricalSample legacyRow(ResultSet rs, int rowNum) throws SQLException {
+    double pnlR = rs.getDouble("pnl_r");
+    if (rs.wasNull()) {
+      double entry = rs.getDouble("entry_price");
+      double stop = rs.getDouble("stop_loss");
+      double distance = "BUY".equals(rs.getString("side")) ? entry - stop : stop - entry;
+      if (distance <= 0) {
+        return null;
+      }
+      pnlR = rs.getDouble("pnl") / distance;
+    }
+    double slippage = rs.getDouble("slippage_bps");
+    return new HistoricalSample(pnlR, rs.wasNull() ? 0 : slippage, null, null, null, null);
+  }
+
+  private long insertTrade() {
+    int second;
+    do {
+      second = random.nextInt(1_000_000);
+    } while (!usedSeconds.add(second));
+    String preset = pick(PRESETS);
+    return insertTrade(
+        second,
+        pick(SYMBOLS),
+        preset,
+        pick(TRENDS),
+        pick(VOLATILITIES),
+        random.nextInt(5) == 0 ? null : random.nextGaussian());
+  }
+
+  private long insertTrade(
+      int second, String symbol, String preset, String trend, String volatility, Double pnlR) {
+    long tradeId = nextTradeId++;
+    boolean buy = random.nextBoolean();
+    double entry = 100 + random.nextInt(10);
+    // some rows have no usable stop distance and yield no sample
+    double stop = entry + (random.nextInt(4) == 0 ? 1 : -1) * (buy ? 2 : -2);
+    MapSqlParameterSource params =
+        new MapSqlParameterSource()
+            .addValue("tradeId", tradeId)
+            .addValue("executedAt", Timestamp.from(EPOCH.plusSeconds(second)))
+            .addValue("symbol", symbol)
+            .addValue("side", buy ? "BUY" : "SELL")
+            .addValue("pnlR", pnlR)
+            .addValue("pnl", random.nextGaussian() * 5)
+            .addValue("slippage", random.nextBoolean() ? random.nextDouble() * 10 : null)
+            .addValue("entry", entry)
+            .addValue("stop", stop)
+            .addValue("preset", random.nextBoolean() ? preset : null)
+            .addValue("positionPreset", random.nextBoolean() ? preset : pick(PRESETS))
+            .addValue("trend", trend)
+            .addValue("volatility", volatility);
+    jdbcTemplate.update(
+        "INSERT INTO vw_trades_enriched VALUES (:tradeId, :executedAt, :symbol, :side, :pnlR,"
+            + " :pnl, :slippage, :entry, :stop, :preset, :positionPreset, :trend, :volatility)",
+        params);
+    return tradeId;
+  }
+
+  private long insertTradeAndDecision(boolean writeBehind) {
+    int second;
+    do {
+      second = random.nextInt(1_000_000);
+    } while (!usedSeconds.add(second));
+    long tradeId = nextTradeId++;
+    String orderId = "order-" + tradeId;
+    boolean buy = random.nextBoolean();
+    String preset = pick(PRESETS);
+    Map<String, Object> decision = new HashMap<>();
+    decision.put("orderId", orderId);
+    decision.put("preset", preset);
+    decision.put("trend", pick(TRENDS));
+    decision.put("volatility", pick(VOLATILITIES));
+    if (writeBehind) {
+      writer.enqueue(DECISION_INSERT, decision);
+    } else {
+      jdbcTemplate.update(DECISION_INSERT.sql(), decision);
+    }
+    MapSqlParameterSource params =
+        new MapSqlParameterSource()
+            .addValue("tradeId", tradeId)
+            .addValue("executedAt", Timestamp.from(EPOCH.plusSeconds(second)))
+            .addValue("symbol", pick(SYMBOLS))
+            .addValue("side", buy ? "BUY" : "SELL")
+            .addValue("pnlR", random.nextGaussian())
+            .addValue("pnl", random.nextGaussian() * 5)
+            .addValue("slippage", random.nextDouble() * 10)
+            .addValue("entry", 100.0)
+            .addValue("stop", buy ? 98.0 : 102.0)
+            .addValue("positionPreset", random.nextBoolean() ? preset : pick(PRESETS))
+            .addValue("orderId", orderId);
+    jdbcTemplate.update(
+        "INSERT INTO trade_rows VALUES (:tradeId, :executedAt, :symbol, :side, :pnlR, :pnl,"
+            + " :slippage, :entry, :stop, :positionPreset, :orderId)",
+        params);
+    return tradeId;
+  }
+
+  private ShadowPositionEntity shadowPosition() {
+    ShadowPositionEntity position = new ShadowPositionEntity();
+    position.setId(nextShadowId++);
+    position.setSymbol(pick(SYMBOLS));
+    position.setSide(random.nextBoolean() ? OrderSide.BUY : OrderSide.SELL);
+    position.setEntryPrice(BigDecimal.valueOf(100));
+    position.setStopLoss(
+        BigDecimal.valueOf(position.getSide() == OrderSide.BUY ? 98 : 102 + random.nextInt(2)));
+    position.setQuantity(BigDecimal.valueOf(1 + random.nextInt(3)));
+    position.setRealizedPnl(BigDecimal.valueOf(random.nextGaussian() * 3));
+    position.setStatus(PositionStatus.CLOSED);
+    position.setOpenedAt(EPOCH.plusSeconds(random.nextInt(1_000_000)));
+    position.setPresetKey(pick(PRESETS));
+    position.setRegimeTrend(pick(TRENDS));
+    position.setRegimeVolatility(pick(VOLATILITIES));
+    position.setPresetId(UUID.randomUUID());
+    return position;
+  }
+
+  private <T> T pick(List<T> values) {
+    return values.get(random.nextInt(values.size()));
+  }
+}
@@ -0,0 +1,141 @@
+package com.bottrading.service.tca;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import com.bottrading.model.enums.OrderSide;
+import com.bottrading.model.enums.OrderType;
+import com.bottrading.service.tca.TcaService.TcaSample;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+import org.junit.jupiter.api.Test;
+
+class TcaIndexTest {
+
+  private static final Duration RETENTION = Duration.ofDays(1);
+  private static final Duration HALF_LIFE = Duration.ofHours(2);
+  private static final List<String> SYMBOLS = List.of("BTCUSDT", "ethusdt", "ETHUSDT");
+  private static final Instant START = Instant.parse("2024-03-01T00:00:00Z");
+
+  @Test
+  void aggregatesMatchRetainedSamples() {
+    Random random = new Random(9);
+    TcaIndex index = new TcaIndex(150, RETENTION, HALF_LIFE);
+    Deque<TcaIndex.Entry> retained = new ArrayDeque<>();
+    Instant now = START;
+    for (int i = 0; i < 2_000; i++) {
+      now = now.plusSeconds(random.nextInt(240));
+      // fills arrive slightly out of order
+      Instant executedAt = now.minusSeconds(random.nextInt(30));
+      TcaSample sample = sample(random, executedAt);
+      int hour = (int) ((executedAt.getEpochSecond() / 3600) % 24);
+      index.add(sample, hour, now);
+      retained.addLast(new TcaIndex.Entry(sample, TcaIndex.symbolKey(sample.symbol()), hour));
+      while (retained.size() > 150) {
+        retained.removeFirst();
+      }
+      Instant cutoff = now.minus(RETENTION);
+      while (!retained.isEmpty() && retained.peekFirst().sample().timestamp().isBefore(cutoff)) {
+        retained.removeFirst();
+      }
+
+      assertThat(index.size()).isEqualTo(retained.size());
+      assertThat(index.snapshot()).containsExactlyElementsOf(retained);
+      assertMatches(index.symbol(null).total(), retained, e -> true);
+      for (String symbol : SYMBOLS) {
+        String key = TcaIndex.symbolKey(symbol);
+        for (OrderType type : List.of(OrderType.MARKET, OrderType.LIMIT)) {
+          TcaIndex.Accumulator bucket = index.bucket(symbol, type, hour);
+          Predicate<TcaIndex.Entry> filter =
+              e -> key.equals(e.symbol()) && e.sample().type() == type && e.hour() == hour;
+          if (retained.stream().noneMatch(filter)) {
+            assertThat(bucket).isNull();
+          } else {
+            assertMatches(bucket, retained, filter);
+          }
+        }
+        TcaIndex.HourlyAccumulator bySymbol = index.symbol(symbol);
+        if (bySymbol != null) {
+          assertMatches(
+              bySymbol.hour(hour), retained, e -> key.equals(e.symbol()) && e.hour() == hour);
+        }
+      }
+    }
+  }
+
+  @Test
+  void nanSlippageMakesMeansNaNUntilEvicted() {
+    TcaIndex index = new TcaIndex(2, RETENTION, HALF_LIFE);
+    index.add(sample("BTCUSDT", Double.NaN, START), 0, START);
+    index.add(sample("BTCUSDT", 2.0, START.plusSeconds(1)), 0, START);
+
+    assertThat(index.symbol("btcusdt").total().mean()).isNaN();
+    assertThat(index.symbol("btcusdt").total().queueMean()).isEqualTo(10.0);
+
+    index.add(sample("BTCUSDT", 4.0, START.plusSeconds(2)), 0, START);
+
+    assertThat(index.symbol("BTCUSDT").total().mean()).isEqualTo(3.0);
+    assertThat(index.bucket("BTCUSDT", OrderType.MARKET, 0).stdDev()).isEqualTo(1.0);
+  }
+
+  private static void assertMatches(
+      TcaIndex.Accumulator accumulator,
+      Deque<TcaIndex.Entry> retained,
+      Predicate<TcaIndex.Entry> filter) {
+    List<TcaSample> matching =
+        retained.stream().filter(filter).map(TcaIndex.Entry::sample).toList();
+    assertThat(accumulator.count()).isEqualTo(matching.size());
+    double mean =
+        matching.stream().mapToDouble(TcaSample::slippageBps).average().orElse(Double.NaN);
+    double queue = matching.stream().mapToLong(TcaSample::queueTimeMs).average().orElse(Double.NaN);
+    long newest = matching.stream().mapToLong(s -> s.timestamp().toEpochMilli()).max().orElse(0);
+    double tau = HALF_LIFE.toMillis() / Math.log(2);
+    double weighted = 0;
+    double weights = 0;
+    for (TcaSample sample : matching) {
+      double weight = Math.exp(-(newest - sample.timestamp().toEpochMilli()) / tau);
+      weighted += sample.slippageBps() * weight;
+      weights += weight;
+    }
+    assertThat(accumulator.mean()).isCloseTo(mean, within(1e-9));
+    assertThat(accumulator.queueMean()).isCloseTo(queue, within(1e-9));
+    assertThat(accumulator.decayedMean()).isCloseTo(weighted / weights, within(1e-9));
+  }
+
+  private static TcaSample sample(Random random, Instant executedAt) {
+    TcaSample base =
+        sample(SYMBOLS.get(random.nextInt(SYMBOLS.size())), random.nextGaussian() * 5, executedAt);
+    return new TcaSample(
+        base.symbol(),
+        base.side(),
+        random.nextBoolean() ? OrderType.MARKET : OrderType.LIMIT,
+        executedAt,
+        base.slippageBps(),
+        random.nextInt(2_000),
+        null,
+        null,
+        null,
+        null,
+        null);
+  }
+
+  private static TcaSample sample(String symbol, double slippageBps, Instant executedAt) {
+    return new TcaSample(
+        symbol,
+        OrderSide.BUY,
+        OrderType.MARKET,
+        executedAt,
+        slippageBps,
+        10,
+        null,
+        null,
+        null,
+        null,
+        null);
+  }
+}
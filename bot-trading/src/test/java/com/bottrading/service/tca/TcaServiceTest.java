@@ -1,15 +1,26 @@
 package com.bottrading.service.tca;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import com.bottrading.config.TradingProps;
+import com.bottrading.model.entity.TradeFillEntity;
 import com.bottrading.model.enums.OrderSide;
 import com.bottrading.model.enums.OrderType;
+import com.bottrading.persistence.WriteBehindWriter;
 import com.bottrading.repository.TradeFillRepository;
 import com.bottrading.saas.security.TenantAccessGuard;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
 import java.util.UUID;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -28,13 +39,21 @@ class TcaServiceTest {
     props.getTca().setHistorySize(100);
     tradeFillRepository = org.mockito.Mockito.mock(TradeFillRepository.class);
     tenantAccessGuard = org.mockito.Mockito.mock(TenantAccessGuard.class);
-    org.mockito.Mockito.when(tenantAccessGuard.requireCurrentTenant()).thenReturn(UUID.fromString("aaaaaaaa-aaaa-aaaa-aaaa-aaaaaaaaaaaa"));
-    service = new TcaService(props, new SimpleMeterRegistry(), tradeFillRepository, tenantAccessGuard);
+    org.mockito.Mockito.when(tenantAccessGuard.requireCurrentTenant())
+        .thenReturn(UUID.fromString("aaaaaaaa-aaaa-aaaa-aaaa-aaaaaaaaaaaa"));
+    service =
+        new TcaService(
+            props,
+            new SimpleMeterRegistry(),
+            tradeFillRepository,
+            tenantAccessGuard,
+            org.mockito.Mockito.mock(WriteBehindWriter.class));
   }
 
   @Test
   void shouldCaptureSlippageAndRecommendOrderTypes() {
-    Instant base = Instant.parse("2024-01-01T12:00:00Z");
+    // samples expire against the wall clock, so keep them recent
+    Instant base = Instant.now().truncatedTo(ChronoUnit.HOURS);
     service.recordSubmission(
         "order-1",
         "BTCUSDT",
@@ -46,16 +65,18 @@ class TcaServiceTest {
         base);
     service.recordFill(
         "order-1",
+        "1001",
         BigDecimal.valueOf(100.2),
         BigDecimal.valueOf(0.1),
         base.plusMillis(500));
 
     double expectedMarket = service.expectedSlippageBps("BTCUSDT", OrderType.MARKET, base);
     assertThat(expectedMarket).isGreaterThan(0);
-    OrderType recommended = service.recommendOrderType("BTCUSDT", OrderType.MARKET, base.plusSeconds(1));
+    OrderType recommended =
+        service.recommendOrderType("BTCUSDT", OrderType.MARKET, base.plusSeconds(1));
     assertThat(recommended).isEqualTo(OrderType.LIMIT);
 
-    Instant later = base.plusHours(1);
+    Instant later = base.plus(Duration.ofHours(1));
     service.recordSubmission(
         "order-2",
         "BTCUSDT",
@@ -66,18 +87,45 @@ class TcaServiceTest {
         BigDecimal.ONE,
         later);
     service.recordFill(
-        "order-2",
-        BigDecimal.valueOf(100.101),
-        BigDecimal.ZERO,
-        later.plusMillis(250));
+        "order-2", "1002", BigDecimal.valueOf(100.101), BigDecimal.ZERO, later.plusMillis(250));
 
-    OrderType limitRecommendation = service.recommendOrderType("BTCUSDT", OrderType.LIMIT, later.plusSeconds(10));
+    OrderType limitRecommendation =
+        service.recommendOrderType("BTCUSDT", OrderType.LIMIT, later.plusSeconds(10));
     assertThat(limitRecommendation).isEqualTo(OrderType.MARKET);
 
-    TcaService.AggregatedStats stats = service.aggregate("BTCUSDT", base.minusSeconds(10), later.plusSeconds(10));
+    TcaService.AggregatedStats stats =
+        service.aggregate("BTCUSDT", base.minusSeconds(10), later.plusSeconds(10));
     assertThat(stats.samples()).isEqualTo(2);
     assertThat(stats.averageBps()).isGreaterThan(0);
     assertThat(stats.hourlyAverage()).isNotEmpty();
+
+    TcaService.AggregatedStats firstOnly =
+        service.aggregate("btcusdt", base.minusSeconds(10), base.plusSeconds(10));
+    assertThat(firstOnly.samples()).isEqualTo(1);
+    assertThat(firstOnly.averageBps()).isCloseTo(20.0, within(1e-6));
+    assertThat(service.aggregate("BTCUSDT", null, null).samples()).isEqualTo(2);
+    assertThat(service.aggregate("ETHUSDT", base.minusSeconds(10), later.plusSeconds(10)).samples())
+        .isZero();
   }
-}
 
+  @Test
+  void fallbackReadsPersistedFillsOncePerTtl() {
+    Instant now = Instant.now();
+    TradeFillEntity fill = new TradeFillEntity();
+    fill.setSymbol("ETHUSDT");
+    fill.setOrderType(OrderType.MARKET);
+    fill.setOrderSide(OrderSide.BUY);
+    fill.setSlippageBps(6.0);
+    fill.setQueueTimeMs(40L);
+    fill.setExecutedAt(now);
+    when(tradeFillRepository.findBySymbolAndTypeBetween(
+            eq("ETHUSDT"), eq(OrderType.MARKET), any(), any()))
+        .thenReturn(List.of(fill));
+
+    assertThat(service.expectedSlippageBps("ETHUSDT", OrderType.MARKET, now)).isEqualTo(6.0);
+    assertThat(service.expectedSlippageBps("ETHUSDT", OrderType.MARKET, now)).isEqualTo(6.0);
+
+    verify(tradeFillRepository, times(1))
+        .findBySymbolAndTypeBetween(eq("ETHUSDT"), eq(OrderType.MARKET), any(), any());
+  }
+}
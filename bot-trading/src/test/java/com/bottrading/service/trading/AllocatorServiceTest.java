@@ -8,9 +8,12 @@ import com.bottrading.model.entity.PositionEntity;
 import com.bottrading.model.enums.PositionStatus;
 import com.bottrading.repository.PositionRepository;
 import com.bottrading.service.binance.BinanceClient;
+import com.bottrading.service.market.CandleSanitizer;
+import com.bottrading.service.market.CandleStore;
 import com.bottrading.service.risk.IntradayVarService;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.math.BigDecimal;
+import java.time.Clock;
 import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -43,7 +46,7 @@ class AllocatorServiceTest {
         new AllocatorService(
             tradingProps,
             positionRepository,
-            binanceClient,
+            new CandleStore(binanceClient, new CandleSanitizer(), Clock.systemUTC()),
             new SimpleMeterRegistry(),
             intradayVarService);
 
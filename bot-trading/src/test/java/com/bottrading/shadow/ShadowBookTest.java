@@ -0,0 +1,61 @@
+package com.bottrading.shadow;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.bottrading.model.entity.ShadowPositionEntity;
+import com.bottrading.model.enums.OrderSide;
+import java.math.BigDecimal;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ShadowBookTest {
+
+  @Test
+  void longAndShortLegsFireOnTheRightSideOfTheTick() {
+    ShadowBook book = new ShadowBook();
+    ShadowPositionEntity longPosition = position(OrderSide.BUY, 95, 110);
+    ShadowPositionEntity shortPosition = position(OrderSide.SELL, 105, 90);
+    book.add(longPosition);
+    book.add(shortPosition);
+
+    assertThat(book.hits(BigDecimal.valueOf(100))).isEmpty();
+
+    List<ShadowBook.Hit> up = book.hits(BigDecimal.valueOf(106));
+    assertThat(up).containsExactly(new ShadowBook.Hit(shortPosition, true));
+
+    List<ShadowBook.Hit> down = book.hits(BigDecimal.valueOf(94));
+    assertThat(down).containsExactly(new ShadowBook.Hit(longPosition, true));
+    assertThat(book.size()).isZero();
+  }
+
+  @Test
+  void closedPositionsLoseBothLegs() {
+    ShadowBook book = new ShadowBook();
+    ShadowPositionEntity position = position(OrderSide.BUY, 95, 110);
+    book.add(position);
+
+    assertThat(book.hits(new BigDecimal("110.00")))
+        .containsExactly(new ShadowBook.Hit(position, false));
+    assertThat(book.hits(BigDecimal.valueOf(90))).isEmpty();
+  }
+
+  @Test
+  void onlyTriggeredLevelsAreReturned() {
+    ShadowBook book = new ShadowBook();
+    for (int stop = 1; stop <= 100; stop++) {
+      book.add(position(OrderSide.BUY, stop, 1_000));
+    }
+
+    assertThat(book.hits(BigDecimal.valueOf(97))).hasSize(4);
+    assertThat(book.size()).isEqualTo(96);
+  }
+
+  private static ShadowPositionEntity position(OrderSide side, double stop, double target) {
+    ShadowPositionEntity position = new ShadowPositionEntity();
+    position.setSymbol("BTCUSDT");
+    position.setSide(side);
+    position.setStopLoss(BigDecimal.valueOf(stop));
+    position.setTakeProfit(BigDecimal.valueOf(target));
+    return position;
+  }
+}
@@ -3,6 +3,8 @@ package com.bottrading.shadow;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.bottrading.config.ShadowProperties;
@@ -12,7 +14,10 @@ import com.bottrading.model.entity.ShadowPositionEntity;
 import com.bottrading.model.enums.OrderSide;
 import com.bottrading.model.enums.PositionStatus;
 import com.bottrading.notify.TelegramNotifier;
+import com.bottrading.persistence.WriteBehindWriter;
 import com.bottrading.repository.ShadowPositionRepository;
+import com.bottrading.service.risk.VarSampleStore;
+import com.bottrading.service.risk.drift.DriftWatchdog;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.math.BigDecimal;
 import java.time.Clock;
@@ -31,6 +36,7 @@ class ShadowEngineTests {
   private final List<ShadowPositionEntity> stored = new ArrayList<>();
   private final AtomicLong idSeq = new AtomicLong(1);
   private final RecordingNotifier notifier = new RecordingNotifier();
+  private final WriteBehindWriter writeBehindWriter = mock(WriteBehindWriter.class);
   private ShadowProperties properties;
 
   ShadowEngineTests() {
@@ -54,6 +60,17 @@ class ShadowEngineTests {
                   .sorted((a, b) -> b.getOpenedAt().compareTo(a.getOpenedAt()))
                   .toList();
             });
+    when(repository.findByStatus(any(PositionStatus.class)))
+        .thenAnswer(
+            invocation ->
+                stored.stream().filter(p -> p.getStatus() == invocation.getArgument(0)).toList());
+    when(repository.countBySymbolAndStatus(any(String.class), any(PositionStatus.class)))
+        .thenAnswer(
+            invocation ->
+                stored.stream()
+                    .filter(p -> p.getSymbol().equalsIgnoreCase(invocation.getArgument(0)))
+                    .filter(p -> p.getStatus() == invocation.getArgument(1))
+                    .count());
   }
 
   @BeforeEach
@@ -69,7 +86,13 @@ class ShadowEngineTests {
   @Test
   void shouldCloseShadowOnTakeProfit() {
     ShadowEngine engine = newEngine();
-    StopPlan plan = new StopPlan(BigDecimal.valueOf(99), BigDecimal.valueOf(101), BigDecimal.valueOf(0.5), null, StopProperties.StopSymbolProperties.from(new StopProperties()));
+    StopPlan plan =
+        new StopPlan(
+            BigDecimal.valueOf(99),
+            BigDecimal.valueOf(101),
+            BigDecimal.valueOf(0.5),
+            null,
+            StopProperties.StopSymbolProperties.from(new StopProperties()));
     engine.registerShadow(
         "BTCUSDT",
         OrderSide.BUY,
@@ -86,6 +109,32 @@ class ShadowEngineTests {
     ShadowEngine.ShadowStatus status = engine.status("BTCUSDT");
     assertThat(status.shadowPnl()).isGreaterThan(BigDecimal.ZERO);
     assertThat(stored).allMatch(p -> p.getStatus() == PositionStatus.CLOSED);
+    verify(writeBehindWriter).enqueue(any(), any());
+  }
+
+  @Test
+  void shouldResolveTicksFromTheBookWithoutReadingTheTable() {
+    ShadowPositionEntity open = new ShadowPositionEntity();
+    open.setId(idSeq.getAndIncrement());
+    open.setSymbol("ETHUSDT");
+    open.setSide(OrderSide.SELL);
+    open.setEntryPrice(BigDecimal.valueOf(100));
+    open.setQuantity(BigDecimal.ONE);
+    open.setStopLoss(BigDecimal.valueOf(105));
+    open.setTakeProfit(BigDecimal.valueOf(90));
+    open.setOpenedAt(Instant.parse("2023-12-31T00:00:00Z"));
+    stored.add(open);
+    ShadowEngine engine = newEngine();
+    engine.loadOpenPositions();
+
+    engine.onPriceUpdate("ETHUSDT", 101.0);
+    assertThat(open.getStatus()).isEqualTo(PositionStatus.OPEN);
+    engine.onPriceUpdate("ETHUSDT", 105.0);
+
+    assertThat(open.getStatus()).isEqualTo(PositionStatus.CLOSED);
+    assertThat(open.getRealizedPnl()).isEqualByComparingTo("-5");
+    verify(repository, never()).findBySymbolOrderByOpenedAtDesc(any());
+    verify(repository, never()).save(any());
   }
 
   @Test
@@ -110,7 +159,10 @@ class ShadowEngineTests {
         repository,
         notifier,
         new SimpleMeterRegistry(),
-        Optional.of(Clock.fixed(Instant.parse("2024-01-01T00:00:00Z"), ZoneOffset.UTC)));
+        Optional.of(Clock.fixed(Instant.parse("2024-01-01T00:00:00Z"), ZoneOffset.UTC)),
+        mock(DriftWatchdog.class),
+        writeBehindWriter,
+        mock(VarSampleStore.class));
   }
 
   private static class RecordingNotifier extends TelegramNotifier {
@@ -121,7 +173,8 @@ class ShadowEngineTests {
     }
 
     @Override
-    public void notifyDivergence(String symbol, BigDecimal livePnl, BigDecimal shadowPnl, BigDecimal thresholdPct) {
+    public void notifyDivergence(
+        String symbol, BigDecimal livePnl, BigDecimal shadowPnl, BigDecimal thresholdPct) {
       events.add("divergence " + symbol);
     }
   }
@@ -0,0 +1,63 @@
+package com.bottrading.strategy;
+
+import com.bottrading.model.dto.Kline;
+import com.bottrading.strategy.signals.SupertrendSignal;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class CandleSeriesTest extends SignalTestSupport {
+
+  @Test
+  void stringAdapterMatchesSeriesExtraction() {
+    List<String[]> rows = series(10, 10.5, 11.25, 10.75);
+    CandleSeries candles = CandleSeries.fromStrings(rows);
+    Assertions.assertArrayEquals(Series.closes(rows), candles.closes());
+    Assertions.assertArrayEquals(Series.highs(rows), candles.highs());
+    Assertions.assertArrayEquals(Series.lows(rows), candles.lows());
+    Assertions.assertArrayEquals(Series.volumes(rows), candles.volumes());
+    Assertions.assertEquals(180_000L, candles.openTime(3));
+  }
+
+  @Test
+  void klinesConvertWithoutStringRoundTrip() {
+    Kline kline =
+        new Kline(
+            Instant.ofEpochMilli(60_000),
+            Instant.ofEpochMilli(119_999),
+            new BigDecimal("27123.45"),
+            new BigDecimal("27200.10"),
+            new BigDecimal("27050.00"),
+            new BigDecimal("27188.01"),
+            new BigDecimal("12.3456"));
+    CandleSeries candles = CandleSeries.fromKlines(List.of(kline));
+    Assertions.assertEquals(1, candles.size());
+    Assertions.assertEquals(60_000L, candles.openTime(0));
+    Assertions.assertEquals(Double.parseDouble("27188.01"), candles.close(0));
+    Assertions.assertEquals(Double.parseDouble("12.3456"), candles.volume(0));
+  }
+
+  @Test
+  void viewsShareBackingColumns() {
+    CandleSeries candles = CandleSeries.fromStrings(series(1, 2, 3, 4, 5));
+    CandleSeries middle = candles.view(1, 4);
+    Assertions.assertEquals(3, middle.size());
+    Assertions.assertEquals(2.0, middle.close(0));
+    Assertions.assertEquals(4.0, middle.lastClose());
+    Assertions.assertArrayEquals(new double[] {2, 3, 4}, middle.closes());
+    Assertions.assertArrayEquals(new double[] {3, 4}, middle.tail(2).closes());
+    Assertions.assertEquals(3, candles.head(3).size());
+    Assertions.assertSame(candles.closes(), candles.closes());
+    Assertions.assertThrows(IndexOutOfBoundsException.class, () -> middle.close(3));
+    Assertions.assertThrows(IndexOutOfBoundsException.class, () -> candles.view(2, 6));
+  }
+
+  @Test
+  void signalsAgreeAcrossAdapters() {
+    List<String[]> rows = series(12, 11.5, 11.0, 10.8, 10.6, 10.7, 11.0, 11.4, 11.9, 12.4);
+    Signal signal = new SupertrendSignal(3, 1.5, 0.8);
+    Assertions.assertEquals(signal.evaluate(rows), signal.evaluate(CandleSeries.fromStrings(rows)));
+  }
+}
@@ -0,0 +1,112 @@
+package com.bottrading.strategy;
+
+import com.bottrading.strategy.signals.AdxFilter;
+import com.bottrading.strategy.signals.AtrVolatilityFilter;
+import com.bottrading.strategy.signals.BollingerBandsSignal;
+import com.bottrading.strategy.signals.EmaCrossoverSignal;
+import com.bottrading.strategy.signals.MacdSignal;
+import com.bottrading.strategy.signals.RsiSignal;
+import com.bottrading.strategy.signals.SmaCrossoverSignal;
+import com.bottrading.strategy.signals.StochasticSignal;
+import com.bottrading.strategy.signals.StreamingEmaCrossoverSignal;
+import com.bottrading.strategy.signals.SupertrendSignal;
+import com.bottrading.strategy.signals.VwapSignal;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class IndicatorCacheTest {
+
+  @Test
+  void arraysAreMemoizedPerIndicatorAndParams() {
+    CandleSeries candles = randomCandles(new Random(3), 300).withIndicatorCache();
+    IndicatorCache cache = candles.indicators();
+    Assertions.assertNotNull(cache);
+    Assertions.assertSame(cache.ema(12), cache.ema(12));
+    Assertions.assertNotSame(cache.ema(12), cache.ema(26));
+    Assertions.assertNotSame(cache.ema(12), cache.sma(12));
+    Assertions.assertSame(cache.ema(12), candles.head(50).indicators().ema(12));
+    Assertions.assertArrayEquals(Series.ema(candles.closes(), 12), cache.ema(12));
+    Assertions.assertArrayEquals(
+        Series.ema(Series.macd(candles.closes(), 12, 26), 9), cache.macdSignal(12, 26, 9));
+  }
+
+  @Test
+  void evictsTheLeastRecentlyUsedArrayOnceFull() {
+    IndicatorCache cache = new IndicatorCache(randomCandles(new Random(7), 200), 2);
+    double[] ema5 = cache.ema(5);
+    double[] ema10 = cache.ema(10);
+    Assertions.assertSame(ema5, cache.ema(5));
+
+    double[] sma3 = cache.sma(3);
+
+    Assertions.assertEquals(2, cache.size());
+    Assertions.assertSame(ema5, cache.ema(5));
+    Assertions.assertSame(sma3, cache.sma(3));
+    double[] recomputed = cache.ema(10);
+    Assertions.assertNotSame(ema10, recomputed);
+    Assertions.assertArrayEquals(ema10, recomputed);
+    Assertions.assertEquals(2, cache.size());
+    Assertions.assertThrows(IllegalArgumentException.class, () -> new IndicatorCache(null, 0));
+  }
+
+  @Test
+  void onlyPrefixViewsSeeTheCache() {
+    CandleSeries candles = randomCandles(new Random(5), 100);
+    Assertions.assertNull(candles.indicators());
+    CandleSeries cached = candles.withIndicatorCache();
+    Assertions.assertNotNull(cached.head(10).indicators());
+    Assertions.assertNull(cached.view(1, 10).indicators());
+    Assertions.assertNull(cached.tail(10).indicators());
+  }
+
+  @Test
+  void cachedSignalsMatchUncachedOnEveryPrefix() {
+    CandleSeries plain = randomCandles(new Random(11), 400);
+    CandleSeries cached = plain.withIndicatorCache();
+    List<Signal> signals =
+        List.of(
+            new SmaCrossoverSignal(5, 20, 0.8),
+            new EmaCrossoverSignal(8, 21, 0.9),
+            new MacdSignal(12, 26, 9, 0.7),
+            new RsiSignal(14, 40, 60, 30, 0.6),
+            new BollingerBandsSignal(20, 1.5, 0.9),
+            new StochasticSignal(14, 3, 1.0),
+            new AtrVolatilityFilter(14, 0.5),
+            new AdxFilter(14, 20),
+            new SupertrendSignal(10, 3.0, 0.8),
+            new VwapSignal(true, 2, 0.7),
+            new VwapSignal(false, 1, 0.7),
+            new StreamingEmaCrossoverSignal(8, 21, 0.9));
+    for (Signal signal : signals) {
+      for (int n = 0; n <= plain.size(); n++) {
+        SignalResult expected = signal.evaluate(plain.head(n));
+        SignalResult actual = signal.evaluate(cached.head(n));
+        Assertions.assertEquals(expected.side(), actual.side(), signal.name() + "@" + n);
+        Assertions.assertEquals(expected.note(), actual.note(), signal.name() + "@" + n);
+      }
+    }
+  }
+
+  private static CandleSeries randomCandles(Random random, int size) {
+    long[] openTimes = new long[size];
+    double[] opens = new double[size];
+    double[] highs = new double[size];
+    double[] lows = new double[size];
+    double[] closes = new double[size];
+    double[] volumes = new double[size];
+    double price = 100;
+    for (int i = 0; i < size; i++) {
+      double open = price;
+      price = Math.max(1, price + random.nextGaussian());
+      openTimes[i] = i * 60_000L;
+      opens[i] = open;
+      closes[i] = price;
+      highs[i] = Math.max(open, price) + random.nextDouble();
+      lows[i] = Math.min(open, price) - random.nextDouble();
+      volumes[i] = random.nextDouble() * 1_000;
+    }
+    return CandleSeries.of(openTimes, opens, highs, lows, closes, volumes);
+  }
+}
@@ -0,0 +1,245 @@
+package com.bottrading.strategy.indicators;
+
+import com.bottrading.strategy.CandleSeries;
+import com.bottrading.strategy.Series;
+import com.bottrading.strategy.Signal;
+import com.bottrading.strategy.SignalResult;
+import com.bottrading.strategy.signals.AdxFilter;
+import com.bottrading.strategy.signals.AtrVolatilityFilter;
+import com.bottrading.strategy.signals.BollingerBandsSignal;
+import com.bottrading.strategy.signals.DonchianChannelSignal;
+import com.bottrading.strategy.signals.EmaCrossoverSignal;
+import com.bottrading.strategy.signals.MacdSignal;
+import com.bottrading.strategy.signals.RsiSignal;
+import com.bottrading.strategy.signals.SmaCrossoverSignal;
+import com.bottrading.strategy.signals.StochasticSignal;
+import com.bottrading.strategy.signals.StreamingAdxFilter;
+import com.bottrading.strategy.signals.StreamingAtrVolatilityFilter;
+import com.bottrading.strategy.signals.StreamingBollingerBandsSignal;
+import com.bottrading.strategy.signals.StreamingDonchianChannelSignal;
+import com.bottrading.strategy.signals.StreamingEmaCrossoverSignal;
+import com.bottrading.strategy.signals.StreamingMacdSignal;
+import com.bottrading.strategy.signals.StreamingRsiSignal;
+import com.bottrading.strategy.signals.StreamingSmaCrossoverSignal;
+import com.bottrading.strategy.signals.StreamingStochasticSignal;
+import com.bottrading.strategy.signals.StreamingSupertrendSignal;
+import com.bottrading.strategy.signals.SupertrendSignal;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Randomized equivalence checks: every streaming indicator and signal must reproduce the batch
+ * {@link Series} output exactly, for many seeded price paths including flat stretches.
+ */
+class StreamingIndicatorsTest {
+
+  private static final int BARS = 400;
+
+  @ParameterizedTest
+  @ValueSource(longs = {1L, 7L, 42L, 1337L, 2024L, 99_991L})
+  void closeBasedIndicatorsMatchBatch(long seed) {
+    Random random = new Random(seed);
+    CandleSeries candles = randomCandles(random, BARS);
+    double[] closes = candles.closes();
+    for (int trial = 0; trial < 5; trial++) {
+      int period = 1 + random.nextInt(40);
+      Ema ema = new Ema(period);
+      Sma sma = new Sma(period);
+      Rsi rsi = new Rsi(period);
+      RollingStdDev std = new RollingStdDev(period);
+      double[] batchEma = Series.ema(closes, period);
+      double[] batchSma = Series.sma(closes, period);
+      double[] batchRsi = Series.rsi(closes, period);
+      double[] batchStd = Series.standardDeviation(closes, period);
+      for (int i = 0; i < closes.length; i++) {
+        Assertions.assertEquals(batchEma[i], ema.update(closes[i]), "ema " + period + "@" + i);
+        Assertions.assertEquals(batchSma[i], sma.update(closes[i]), "sma " + period + "@" + i);
+        Assertions.assertEquals(batchRsi[i], rsi.update(closes[i]), "rsi " + period + "@" + i);
+        Assertions.assertEquals(batchStd[i], std.update(closes[i]), "std " + period + "@" + i);
+        Assertions.assertEquals(batchSma[i], std.mean(), "mean " + period + "@" + i);
+      }
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(longs = {3L, 11L, 500L, 8_675_309L})
+  void macdMatchesBatch(long seed) {
+    Random random = new Random(seed);
+    double[] closes = randomCandles(random, BARS).closes();
+    int fast = 2 + random.nextInt(10);
+    int slow = fast + 1 + random.nextInt(20);
+    int signal = 2 + random.nextInt(10);
+    double[] line = Series.macd(closes, fast, slow);
+    double[] signalLine = Series.ema(line, signal);
+    Macd macd = new Macd(fast, slow, signal);
+    for (int i = 0; i < closes.length; i++) {
+      macd.update(closes[i]);
+      Assertions.assertEquals(line[i], macd.line(), "macd@" + i);
+      Assertions.assertEquals(signalLine[i], macd.signal(), "signal@" + i);
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(longs = {5L, 17L, 123L, 4_096L, 77_777L})
+  void rangeIndicatorsMatchBatch(long seed) {
+    Random random = new Random(seed);
+    CandleSeries candles = randomCandles(random, BARS);
+    double[] highs = candles.highs();
+    double[] lows = candles.lows();
+    double[] closes = candles.closes();
+    for (int trial = 0; trial < 4; trial++) {
+      int period = 1 + random.nextInt(30);
+      int dPeriod = 1 + random.nextInt(6);
+      double[] batchAtr = Series.atr(highs, lows, closes, period);
+      double[] batchAdx = batchAdx(highs, lows, closes, period);
+      double[] batchK = Series.stochasticK(closes, highs, lows, period);
+      double[] batchD = Series.smooth(batchK, dPeriod);
+      Atr atr = new Atr(period);
+      Adx adx = new Adx(period);
+      Stochastic stochastic = new Stochastic(period, dPeriod);
+      for (int i = 0; i < closes.length; i++) {
+        Assertions.assertEquals(batchAtr[i], atr.update(highs[i], lows[i], closes[i]), "atr@" + i);
+        Assertions.assertEquals(batchAdx[i], adx.update(highs[i], lows[i], closes[i]), "adx@" + i);
+        Assertions.assertEquals(
+            batchK[i], stochastic.update(highs[i], lows[i], closes[i]), "k@" + i);
+        Assertions.assertEquals(batchD[i], stochastic.d(), "d@" + i);
+      }
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(longs = {9L, 21L, 314L})
+  void rollingExtremesMatchNaiveWindow(long seed) {
+    Random random = new Random(seed);
+    double[] values = randomCandles(random, BARS).highs();
+    int window = 1 + random.nextInt(50);
+    RollingExtreme max = RollingExtreme.max(window);
+    RollingExtreme min = RollingExtreme.min(window);
+    for (int i = 0; i < values.length; i++) {
+      max.update(values[i]);
+      min.update(values[i]);
+      double expectedMax = Double.NEGATIVE_INFINITY;
+      double expectedMin = Double.POSITIVE_INFINITY;
+      for (int j = Math.max(0, i - window + 1); j <= i; j++) {
+        expectedMax = Math.max(expectedMax, values[j]);
+        expectedMin = Math.min(expectedMin, values[j]);
+      }
+      Assertions.assertEquals(expectedMax, max.value(), "max@" + i);
+      Assertions.assertEquals(expectedMin, min.value(), "min@" + i);
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(longs = {2L, 13L, 2_718L, 31_415L})
+  void streamingSignalsMatchBatchOnEveryPrefix(long seed) {
+    Random random = new Random(seed);
+    CandleSeries candles = randomCandles(random, BARS);
+    for (SignalPair pair : pairs(random)) {
+      for (int end = 0; end <= candles.size(); end++) {
+        CandleSeries prefix = candles.head(end);
+        SignalResult expected = pair.batch().evaluate(prefix);
+        SignalResult actual = pair.streaming().evaluate(prefix);
+        Assertions.assertEquals(expected, actual, pair.batch().name() + " prefix " + end);
+      }
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(longs = {4L, 64L, 1_000L})
+  void streamingSignalsReplayOnNonContinuation(long seed) {
+    Random random = new Random(seed);
+    CandleSeries candles = randomCandles(random, BARS);
+    CandleSeries other = randomCandles(random, BARS);
+    for (SignalPair pair : pairs(random)) {
+      for (int step = 0; step < 60; step++) {
+        CandleSeries source = random.nextInt(4) == 0 ? other : candles;
+        int from = random.nextInt(source.size() / 2);
+        int to = from + random.nextInt(source.size() - from + 1);
+        CandleSeries window = source.view(from, to);
+        Assertions.assertEquals(
+            pair.batch().evaluate(window),
+            pair.streaming().evaluate(window),
+            pair.batch().name() + " window [" + from + "," + to + ")");
+      }
+    }
+  }
+
+  private List<SignalPair> pairs(Random random) {
+    int fast = 2 + random.nextInt(8);
+    int slow = fast + 1 + random.nextInt(20);
+    int period = 2 + random.nextInt(20);
+    double confidence = 0.5 + random.nextDouble() * 0.5;
+    return List.of(
+        new SignalPair(
+            new EmaCrossoverSignal(fast, slow, confidence),
+            new StreamingEmaCrossoverSignal(fast, slow, confidence)),
+        new SignalPair(
+            new SmaCrossoverSignal(fast, slow, confidence),
+            new StreamingSmaCrossoverSignal(fast, slow, confidence)),
+        new SignalPair(
+            new MacdSignal(fast, slow, 4, confidence),
+            new StreamingMacdSignal(fast, slow, 4, confidence)),
+        new SignalPair(
+            new RsiSignal(period, 45, 55, period * 2, confidence),
+            new StreamingRsiSignal(period, 45, 55, period * 2, confidence)),
+        new SignalPair(
+            new BollingerBandsSignal(period, 1.0, confidence),
+            new StreamingBollingerBandsSignal(period, 1.0, confidence)),
+        new SignalPair(
+            new StochasticSignal(period, 3, confidence),
+            new StreamingStochasticSignal(period, 3, confidence)),
+        new SignalPair(
+            new SupertrendSignal(period, 1.5, confidence),
+            new StreamingSupertrendSignal(period, 1.5, confidence)),
+        new SignalPair(
+            new DonchianChannelSignal(period, confidence),
+            new StreamingDonchianChannelSignal(period, confidence)),
+        new SignalPair(new AdxFilter(period, 20), new StreamingAdxFilter(period, 20)),
+        new SignalPair(
+            new AtrVolatilityFilter(period, 0.5), new StreamingAtrVolatilityFilter(period, 0.5)));
+  }
+
+  private double[] batchAdx(double[] highs, double[] lows, double[] closes, int period) {
+    double[] atr = Series.atr(highs, lows, closes, period);
+    double[] plusSmoothed = Series.ema(Series.plusDirectionalMovement(highs, lows), period);
+    double[] minusSmoothed = Series.ema(Series.minusDirectionalMovement(highs, lows), period);
+    double[] plusDi = new double[closes.length];
+    double[] minusDi = new double[closes.length];
+    for (int i = 0; i < closes.length; i++) {
+      if (atr[i] > 0) {
+        plusDi[i] = 100 * (plusSmoothed[i] / atr[i]);
+        minusDi[i] = 100 * (minusSmoothed[i] / atr[i]);
+      }
+    }
+    return Series.ema(Series.dx(plusDi, minusDi), period);
+  }
+
+  private CandleSeries randomCandles(Random random, int size) {
+    long[] openTimes = new long[size];
+    double[] opens = new double[size];
+    double[] highs = new double[size];
+    double[] lows = new double[size];
+    double[] closes = new double[size];
+    double[] volumes = new double[size];
+    double price = 100 + random.nextDouble() * 50;
+    for (int i = 0; i < size; i++) {
+      double open = price;
+      if (random.nextInt(10) != 0) {
+        price = Math.max(1, price + random.nextGaussian() * 1.5);
+      }
+      boolean flatBar = random.nextInt(15) == 0;
+      openTimes[i] = i * 60_000L;
+      opens[i] = open;
+      closes[i] = price;
+      highs[i] = flatBar ? Math.max(open, price) : Math.max(open, price) + random.nextDouble();
+      lows[i] = flatBar ? Math.min(open, price) : Math.min(open, price) - random.nextDouble();
+      volumes[i] = random.nextDouble() * 1_000;
+    }
+    return CandleSeries.of(openTimes, opens, highs, lows, closes, volumes);
+  }
+
+  private record SignalPair(Signal batch, Signal streaming) {}
+}
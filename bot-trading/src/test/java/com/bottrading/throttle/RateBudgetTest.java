@@ -3,6 +3,13 @@ package com.bottrading.throttle;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.Test;
 
 class RateBudgetTest {
@@ -21,4 +28,50 @@ class RateBudgetTest {
     long later = now + wait + 1;
     assertThat(budget.reserve(Endpoint.PRICE_TICKER, later)).isZero();
   }
+
+  @Test
+  void concurrentReservationsNeverOvershoot() throws Exception {
+    RateBudget budget = new RateBudget(100, 10_000);
+    ExecutorService pool = Executors.newFixedThreadPool(16);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<Integer>> results = new ArrayList<>();
+    try {
+      for (int i = 0; i < 16; i++) {
+        results.add(
+            pool.submit(
+                () -> {
+                  start.await();
+                  int granted = 0;
+                  for (int j = 0; j < 50; j++) {
+                    if (budget.reserve(Endpoint.PRICE_TICKER, 0L) == 0) {
+                      granted++;
+                    }
+                  }
+                  return granted;
+                }));
+      }
+      start.countDown();
+      int granted = 0;
+      for (Future<Integer> result : results) {
+        granted += result.get(5, TimeUnit.SECONDS);
+      }
+      assertThat(granted).isEqualTo(100);
+      assertThat(budget.remainingBudget1s(0L)).isZero();
+      assertThat(budget.remainingBudget60s(0L)).isEqualTo(9_900);
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  @Test
+  void penaltyShrinksBudgetUntilItExpires() {
+    RateBudget budget = new RateBudget(10, 100);
+    long penaltyNanos = Duration.ofSeconds(5).toNanos();
+
+    budget.applyPenalty(0.5, 0L, penaltyNanos);
+
+    assertThat(budget.remainingBudget1s(0L)).isEqualTo(5);
+    assertThat(budget.remainingBudget60s(0L)).isEqualTo(50);
+    assertThat(budget.remainingBudget1s(penaltyNanos)).isEqualTo(10);
+  }
 }
@@ -1,6 +1,7 @@
 package com.bottrading.throttle;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.util.ArrayList;
@@ -98,7 +99,82 @@ class ThrottleTest {
     assertThat(deltaMs).isGreaterThanOrEqualTo(100);
   }
 
+  @Test
+  void ordersJumpAheadOfQueuedMarketData() throws Exception {
+    throttle = new Throttle(singleWeightPerSecond(), registry);
+    List<String> order = new CopyOnWriteArrayList<>();
+
+    var first = submitRecording(Endpoint.KLINES, "BTCUSDT", "klines-1", order);
+    var second = submitRecording(Endpoint.KLINES, "BTCUSDT", "klines-2", order);
+    var placement = submitRecording(Endpoint.NEW_ORDER, "BTCUSDT", "order", order);
+
+    java.util.concurrent.CompletableFuture.allOf(first, second, placement).get(5, TimeUnit.SECONDS);
+    assertThat(order.indexOf("order")).isLessThan(order.indexOf("klines-2"));
+  }
+
+  @Test
+  void symbolsTakeTurnsWithinAClass() throws Exception {
+    throttle = new Throttle(singleWeightPerSecond(), registry);
+    List<String> order = new CopyOnWriteArrayList<>();
+
+    var blocker = submitRecording(Endpoint.PRICE_TICKER, null, "global", order);
+    var futures = new ArrayList<java.util.concurrent.CompletableFuture<String>>();
+    for (int i = 1; i <= 3; i++) {
+      futures.add(submitRecording(Endpoint.KLINES, "BTCUSDT", "btc-" + i, order));
+    }
+    futures.add(submitRecording(Endpoint.KLINES, "ETHUSDT", "eth-1", order));
+
+    blocker.get(2, TimeUnit.SECONDS);
+    futures.get(3).get(5, TimeUnit.SECONDS);
+    assertThat(order.indexOf("eth-1")).isLessThanOrEqualTo(3);
+    assertThat(order).doesNotContain("btc-3");
+  }
+
+  @Test
+  void endpointWithoutConfiguredBudgetIsRejectedInsteadOfStalling() throws Exception {
+    ThrottleProperties properties = singleWeightPerSecond();
+    properties.setWindow1s(0);
+    throttle = new Throttle(properties, registry);
+
+    java.util.concurrent.CompletableFuture<String> first =
+        throttle.submit(Endpoint.PRICE_TICKER, "BTCUSDT", () -> "first").toCompletableFuture();
+    java.util.concurrent.CompletableFuture<String> second =
+        throttle.submit(Endpoint.PRICE_TICKER, "ETHUSDT", () -> "second").toCompletableFuture();
+
+    for (java.util.concurrent.CompletableFuture<String> future : List.of(first, second)) {
+      assertThatThrownBy(() -> future.get(2, TimeUnit.SECONDS))
+          .isInstanceOf(java.util.concurrent.ExecutionException.class)
+          .hasCauseInstanceOf(java.util.concurrent.RejectedExecutionException.class);
+    }
+    assertThat(registry.get("throttle.rejections").counter().count()).isEqualTo(2.0);
+    assertThat(registry.get("queue.depth").tag("symbol", "global").gauge().value()).isZero();
+  }
+
+  private static ThrottleProperties singleWeightPerSecond() {
+    ThrottleProperties properties = new ThrottleProperties();
+    properties.setWindow1s(1);
+    properties.setWindow60s(100);
+    properties.getQueue().setMaxDepthGlobal(10);
+    properties.getQueue().setMaxDepthPerSymbol(10);
+    return properties;
+  }
+
+  private java.util.concurrent.CompletableFuture<String> submitRecording(
+      Endpoint endpoint, String symbol, String label, List<String> order) {
+    return throttle
+        .submit(
+            endpoint,
+            symbol,
+            () -> {
+              order.add(label);
+              return label;
+            })
+        .toCompletableFuture();
+  }
+
   private static class RateLimitedException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
     int getHttpStatusCode() {
       return 429;
     }